@@ -1,13 +1,18 @@
 package com.example.NMS;
 
 import com.example.NMS.api.Server;
+import com.example.NMS.cache.CacheListener;
+import com.example.NMS.cluster.ClusterMembership;
 import com.example.NMS.database.Database;
 import com.example.NMS.discovery.Discovery;
+import com.example.NMS.metrics.EventBusMetrics;
+import com.example.NMS.metrics.Startup;
 import com.example.NMS.plugin.Plugin;
 import com.example.NMS.plugin.ResponseProcessor;
 import com.example.NMS.polling.Polling;
 import com.example.NMS.polling.Scheduler;
 import io.vertx.core.DeploymentOptions;
+import io.vertx.core.Future;
 import io.vertx.core.ThreadingModel;
 import io.vertx.core.Vertx;
 import io.vertx.core.VertxOptions;
@@ -15,37 +20,31 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.TimeUnit;
+import java.util.function.BiFunction;
 
 import static com.example.NMS.constant.Constant.MAX_WORKER_EXECUTION_TIME;
+import static com.example.NMS.constant.Constant.PLUGIN_INSTANCES;
+import static com.example.NMS.constant.Constant.SERVER_INSTANCES;
+import static com.example.NMS.constant.Constant.STARTUP_DEPLOYED;
 
 public class Main
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(Main.class);
 
-    public static final Vertx vertx = Vertx.vertx(new VertxOptions().setMaxWorkerExecuteTime(MAX_WORKER_EXECUTION_TIME).setMaxWorkerExecuteTimeUnit(TimeUnit.SECONDS));
+    public static final Vertx vertx = Vertx.vertx(new VertxOptions().setMaxWorkerExecuteTime(MAX_WORKER_EXECUTION_TIME).setMaxWorkerExecuteTimeUnit(TimeUnit.SECONDS).setMetricsOptions(EventBusMetrics.options()));
 
     public static void main(String[] args)
     {
         LOGGER.info("Starting NMS");
 
-        vertx.deployVerticle(new Server())
-
-            .compose(response -> vertx.deployVerticle(Database.class.getName()))
-
-            .compose(response -> vertx.deployVerticle(Discovery.class.getName()))
-
-            .compose(response -> vertx.deployVerticle(Scheduler.class.getName()))
-
-            .compose(response -> vertx.deployVerticle(Polling.class.getName()))
-
-            .compose(response -> vertx.deployVerticle(Plugin.class.getName(),  new DeploymentOptions().setThreadingModel(ThreadingModel.WORKER)))
-
-            .compose(response -> vertx.deployVerticle(ResponseProcessor.class.getName()))
+        deploy((name, options) -> vertx.deployVerticle(name, options))
 
             .onComplete(handler -> {
 
                 if (handler.succeeded())
                 {
+                    Startup.reached(STARTUP_DEPLOYED);
+
                     LOGGER.info("Application started");
                 }
                 else
@@ -67,4 +66,35 @@ public class Main
            });
     }
 
+    /**
+     * Deploys every verticle of the application in dependency order.
+     * Verticles deploy as a dependency graph: only cluster membership, the cache listener and the scheduler wait for
+     * the schema and cache-backing database. The scheduler also waits for the polling consumer it feeds, and for the
+     * cache listener, so the listener is subscribed before the cache load reads the database and no change made
+     * during the load is missed.
+     *
+     * @param deployer Deploys one verticle by class name with the given options.
+     * @return A Future that completes once every verticle is deployed, or fails with the first failed deployment.
+     */
+    static Future<?> deploy(BiFunction<String, DeploymentOptions, Future<String>> deployer)
+    {
+        var database = deployer.apply(Database.class.getName(), new DeploymentOptions());
+
+        var polling = deployer.apply(Polling.class.getName(), new DeploymentOptions());
+
+        var independent = Future.all(
+            deployer.apply(Server.class.getName(), new DeploymentOptions().setInstances(SERVER_INSTANCES)),
+            deployer.apply(Discovery.class.getName(), new DeploymentOptions()),
+            deployer.apply(Plugin.class.getName(), new DeploymentOptions()
+                .setThreadingModel(ThreadingModel.WORKER)
+                .setInstances(PLUGIN_INSTANCES)),
+            deployer.apply(ResponseProcessor.class.getName(), new DeploymentOptions()));
+
+        var dependent = Future.all(database, polling)
+            .compose(response -> deployer.apply(ClusterMembership.class.getName(), new DeploymentOptions()))
+            .compose(response -> deployer.apply(CacheListener.class.getName(), new DeploymentOptions()))
+            .compose(response -> deployer.apply(Scheduler.class.getName(), new DeploymentOptions()));
+
+        return Future.all(independent, dependent);
+    }
 }
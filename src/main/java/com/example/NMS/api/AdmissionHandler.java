@@ -0,0 +1,331 @@
+package com.example.NMS.api;
+
+import com.example.NMS.metrics.Counter;
+import com.example.NMS.metrics.Metrics;
+import com.example.NMS.utility.APIUtils;
+import io.vertx.core.Context;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.example.NMS.constant.Constant.*;
+
+/**
+ * Admission control for the /api routes, applied after authentication.
+ * Each client, identified by its token's subject or by its address before login, gets a token bucket per route
+ * class; a request finding its bucket empty is refused with 429 and a Retry-After of when the next token arrives.
+ * Admitted requests that reach the database then share API_DB_CONCURRENCY slots, which leaves the rest of the pool
+ * to the ResponseProcessor's ingest however hard the API is driven. Requests beyond the slots wait in a short FIFO
+ * and are shed with 503 once it is full or after waiting API_ADMISSION_QUEUE_TIMEOUT_MS. Routes served from memory skip the slots. Buckets and slots are static so
+ * that every server instance enforces the same limits.
+ */
+public class AdmissionHandler implements Handler<RoutingContext>
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(AdmissionHandler.class);
+
+    /**
+     * Route classes with separate budgets, so a client paging through history or bulk-loading devices still gets
+     * its ordinary reads through.
+     */
+    enum RouteClass
+    {
+        AUTH(RATE_LIMIT_AUTH_PER_SECOND, RATE_LIMIT_AUTH_BURST),
+        READ(RATE_LIMIT_READ_PER_SECOND, RATE_LIMIT_READ_BURST),
+        HISTORY(RATE_LIMIT_HISTORY_PER_SECOND, RATE_LIMIT_HISTORY_BURST),
+        WRITE(RATE_LIMIT_WRITE_PER_SECOND, RATE_LIMIT_WRITE_BURST),
+        BULK(RATE_LIMIT_BULK_PER_SECOND, RATE_LIMIT_BULK_BURST);
+
+        final double perSecond;
+
+        final int burst;
+
+        RouteClass(double perSecond, int burst)
+        {
+            this.perSecond = perSecond;
+
+            this.burst = burst;
+        }
+
+        static RouteClass of(HttpMethod method, String path)
+        {
+            if (path.endsWith("/login") || path.endsWith("/register"))
+            {
+                return AUTH;
+            }
+
+            if (path.contains("/bulk"))
+            {
+                return BULK;
+            }
+
+            if (!HttpMethod.GET.equals(method))
+            {
+                return WRITE;
+            }
+
+            return path.startsWith("/api/polled-data") || path.endsWith("/result") || path.endsWith("/aggregate")
+                ? HISTORY : READ;
+        }
+    }
+
+    private static final Map<RouteClass, Counter> RATE_LIMITED = new EnumMap<>(RouteClass.class);
+
+    private static final Counter SHED = Metrics.counter("nms_api_shed_total",
+        "API requests refused because every database slot was busy and the admission queue was full");
+
+    private static final Counter TIMED_OUT = Metrics.counter("nms_api_queue_timeout_total",
+        "API requests refused because they waited too long in the admission queue for a database slot");
+
+    // client + route class -> bucket; access-ordered so the least recently active client is evicted first
+    private static final Map<String, TokenBucket> buckets = new LinkedHashMap<>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TokenBucket> eldest)
+        {
+            return size() > RATE_LIMIT_MAX_CLIENTS;
+        }
+    };
+
+    // Requests waiting for a database slot, guarded by the queue itself together with inFlight
+    private static final ArrayDeque<Waiting> waiting = new ArrayDeque<>();
+
+    private static int inFlight;
+
+    private record Waiting(RoutingContext routingContext, Context context, long timerId)
+    {
+    }
+
+    static
+    {
+        for (var routeClass : RouteClass.values())
+        {
+            RATE_LIMITED.put(routeClass, Metrics.counter("nms_api_rate_limited_total{class=\"" + routeClass.name().toLowerCase() + "\"}",
+                "API requests refused with 429 because the client's token bucket was empty"));
+        }
+
+        Metrics.gauge("nms_api_db_inflight", "API requests holding a database slot", () ->
+        {
+            synchronized (waiting)
+            {
+                return inFlight;
+            }
+        });
+
+        Metrics.gauge("nms_api_admission_queue_depth", "API requests waiting for a database slot", () ->
+        {
+            synchronized (waiting)
+            {
+                return waiting.size();
+            }
+        });
+
+        Metrics.gauge("nms_api_rate_limit_clients", "Client and route class pairs with a token bucket", () ->
+        {
+            synchronized (buckets)
+            {
+                return buckets.size();
+            }
+        });
+    }
+
+    @Override
+    public void handle(RoutingContext context)
+    {
+        var request = context.request();
+
+        var routeClass = RouteClass.of(request.method(), context.normalizedPath());
+
+        var retryAfter = take(client(context) + "|" + routeClass, routeClass);
+
+        if (retryAfter > 0)
+        {
+            RATE_LIMITED.get(routeClass).increment();
+
+            APIUtils.sendRetryLater(context, 429, "Rate limit exceeded, retry later", retryAfter);
+
+            return;
+        }
+
+        if (servedFromMemory(request.method(), context.normalizedPath()))
+        {
+            context.next();
+
+            return;
+        }
+
+        synchronized (waiting)
+        {
+            if (inFlight >= API_DB_CONCURRENCY)
+            {
+                if (waiting.size() >= API_ADMISSION_QUEUE_SIZE)
+                {
+                    SHED.increment();
+
+                    LOGGER.debug("Shedding {} {}: all database slots busy", request.method(), context.normalizedPath());
+
+                    APIUtils.sendRetryLater(context, 503, "Server busy, retry later", RETRY_AFTER_SECONDS);
+
+                    return;
+                }
+
+                var current = Vertx.currentContext();
+
+                var timerId = current.owner().setTimer(API_ADMISSION_QUEUE_TIMEOUT_MS, id -> expire(context));
+
+                waiting.add(new Waiting(context, current, timerId));
+
+                return;
+            }
+
+            inFlight++;
+        }
+
+        admit(context);
+    }
+
+    /**
+     * Takes a token from the client's bucket for the route class.
+     *
+     * @return 0 if a token was taken, otherwise the seconds until one is available.
+     */
+    private static long take(String key, RouteClass routeClass)
+    {
+        synchronized (buckets)
+        {
+            return buckets.computeIfAbsent(key, ignored -> new TokenBucket(routeClass.perSecond, routeClass.burst))
+                .take(System.nanoTime());
+        }
+    }
+
+    // Runs an admitted request and hands its slot on once the response ends, however it ends
+    private static void admit(RoutingContext context)
+    {
+        context.addEndHandler(ignored -> release());
+
+        context.next();
+    }
+
+    private static void release()
+    {
+        while (true)
+        {
+            Waiting next;
+
+            synchronized (waiting)
+            {
+                next = waiting.poll();
+
+                if (next == null)
+                {
+                    inFlight--;
+
+                    return;
+                }
+            }
+
+            next.context().owner().cancelTimer(next.timerId());
+
+            // The slot passes straight to the next request whose client is still there
+            if (!next.routingContext().response().closed())
+            {
+                next.context().runOnContext(ignored -> admit(next.routingContext()));
+
+                return;
+            }
+        }
+    }
+
+    // Refuses a request still queued at its deadline; one already handed a slot is no longer in the queue
+    private static void expire(RoutingContext context)
+    {
+        synchronized (waiting)
+        {
+            if (!waiting.removeIf(queued -> queued.routingContext() == context))
+            {
+                return;
+            }
+        }
+
+        TIMED_OUT.increment();
+
+        if (!context.response().closed())
+        {
+            LOGGER.debug("Shedding {} {}: no database slot within {} ms", context.request().method(), context.normalizedPath(),
+                API_ADMISSION_QUEUE_TIMEOUT_MS);
+
+            APIUtils.sendRetryLater(context, 503, "Server busy, retry later", RETRY_AFTER_SECONDS);
+        }
+    }
+
+    private static String client(RoutingContext context)
+    {
+        var user = context.user();
+
+        // JWT claims live in the user's attributes, not its principal
+        var subject = user == null ? null : user.subject();
+
+        return subject != null ? "user:" + subject : "ip:" + context.request().remoteAddress().hostAddress();
+    }
+
+    // Live values, fleet status, cached metrics and the event stream never query the database
+    private static boolean servedFromMemory(HttpMethod method, String path)
+    {
+        return path.startsWith("/api/stream") || path.equals("/api/status")
+            || (HttpMethod.GET.equals(method) && (path.endsWith("/latest") || path.endsWith("/health") || path.endsWith("/metrics")));
+    }
+
+    /**
+     * Token bucket refilled continuously at a fixed rate up to its burst size. Not thread-safe.
+     */
+    static final class TokenBucket
+    {
+        private final double perNano;
+
+        private final int burst;
+
+        private double tokens;
+
+        private long refilledAt;
+
+        TokenBucket(double perSecond, int burst)
+        {
+            this.perNano = perSecond / 1_000_000_000d;
+
+            this.burst = burst;
+
+            this.tokens = burst;
+
+            this.refilledAt = System.nanoTime();
+        }
+
+        /**
+         * Takes a token if one is available.
+         *
+         * @param now The current System.nanoTime().
+         * @return 0 if a token was taken, otherwise the whole seconds until one is available.
+         */
+        long take(long now)
+        {
+            tokens = Math.min(burst, tokens + (now - refilledAt) * perNano);
+
+            refilledAt = now;
+
+            if (tokens >= 1)
+            {
+                tokens--;
+
+                return 0;
+            }
+
+            return Math.max(1, (long) Math.ceil((1 - tokens) / perNano / 1_000_000_000d));
+        }
+    }
+}
@@ -4,9 +4,13 @@ import com.example.NMS.api.handlers.Auth;
 import com.example.NMS.api.handlers.Credential;
 import com.example.NMS.api.handlers.Discovery;
 import com.example.NMS.api.handlers.Provision;
+import com.example.NMS.api.handlers.Stream;
+import com.example.NMS.metrics.Metrics;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
+import io.vertx.core.http.Http2Settings;
 import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServerOptions;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.auth.PubSecKeyOptions;
 import io.vertx.ext.auth.jwt.JWTAuth;
@@ -14,12 +18,12 @@ import io.vertx.ext.auth.jwt.JWTAuthOptions;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.handler.BodyHandler;
 import io.vertx.ext.web.handler.CorsHandler;
-import io.vertx.ext.web.handler.JWTAuthHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import static com.example.NMS.constant.Constant.*;
 
@@ -27,7 +31,8 @@ import static com.example.NMS.constant.Constant.*;
  * Main Vert.x verticle for the Lite NMS API server.
  * Configures JWT authentication, sets up API routing, and initializes handlers for authentication,
  * credential management, discovery profiles, and provisioning jobs. Starts an HTTP server to handle
- * incoming requests on the configured port.
+ * incoming requests on the configured port. Main deploys SERVER_INSTANCES of this verticle, each on its own event
+ * loop, and Vert.x balances the connections to the shared port between them.
  */
 public class Server extends AbstractVerticle
 {
@@ -61,6 +66,14 @@ public class Server extends AbstractVerticle
 
         var provisionRoute = Router.router(vertx);
 
+        var streamRoute = Router.router(vertx);
+
+        // Runtime metrics for Prometheus scraping; outside /api so it needs no token
+        router.get("/metrics").handler(context ->
+            context.response()
+                .putHeader("Content-Type", "text/plain; version=0.0.4")
+                .end(Metrics.scrape()));
+
         router.route("/api/*").handler(CorsHandler.create()
             .addOrigin("http://localhost:3000") // Your frontend URL
             .allowCredentials(true)
@@ -79,7 +92,9 @@ public class Server extends AbstractVerticle
 
         router.route("/api/*").handler(BodyHandler.create());
 
-        // Configure JWT authentication for protected routes
+        // Configure JWT authentication for protected routes; one handler serves every request
+        var tokenAuthHandler = new TokenAuthHandler(jwtAuth);
+
         router.route("/api/*").handler(ctx ->
         {
             var path = ctx.normalizedPath();
@@ -92,10 +107,13 @@ public class Server extends AbstractVerticle
             else
             {
                 // Apply JWT authentication for all other API routes
-                JWTAuthHandler.create(jwtAuth).handle(ctx);
+                tokenAuthHandler.handle(ctx);
             }
         });
 
+        // Rate limits per client and route class, and the share of the database pool the API may hold
+        router.route("/api/*").handler(new AdmissionHandler());
+
         // Mount sub-routers to the main router
         router.route().subRouter(authRoute);
 
@@ -105,6 +123,8 @@ public class Server extends AbstractVerticle
 
         router.route().subRouter(provisionRoute);
 
+        router.route().subRouter(streamRoute);
+
 
         // Initialize handlers with their respective sub-routers
         new Auth(jwtAuth).init(authRoute);
@@ -115,6 +135,8 @@ public class Server extends AbstractVerticle
 
         new Provision().init(provisionRoute);
 
+        new Stream().init(streamRoute);
+
 
         // Configure error handler for unauthorized (401) responses
         router.errorHandler(401, context ->
@@ -127,14 +149,15 @@ public class Server extends AbstractVerticle
               .encode()));
 
 
-        // Start the HTTP server
-        vertx.createHttpServer().requestHandler(router)
+        // Start the HTTP server; every instance listens on the same port
+        vertx.createHttpServer(options()).requestHandler(router)
           .listen(SERVER_PORT)
           .onComplete(handler ->
           {
               if (handler.succeeded())
               {
-                  LOGGER.info("API server started successfully on port {}", SERVER_PORT);
+                  LOGGER.info("API server started successfully on port {} (h2c {})", SERVER_PORT,
+                      SERVER_H2C_ENABLED ? "enabled" : "disabled");
 
                   startPromise.complete();
               }
@@ -146,4 +169,22 @@ public class Server extends AbstractVerticle
               }
           });
     }
+
+    /**
+     * Builds the HTTP server options: compressed responses, h2c, Nagle disabled for small JSON responses,
+     * idle connections reaped, and the port optionally shared through SO_REUSEPORT.
+     */
+    private static HttpServerOptions options()
+    {
+        return new HttpServerOptions()
+            .setCompressionSupported(true)
+            .setTcpNoDelay(true)
+            .setTcpKeepAlive(true)
+            .setReusePort(SERVER_REUSE_PORT)
+            .setAcceptBacklog(SERVER_ACCEPT_BACKLOG)
+            .setIdleTimeout(SERVER_IDLE_TIMEOUT_SECONDS)
+            .setIdleTimeoutUnit(TimeUnit.SECONDS)
+            .setHttp2ClearTextEnabled(SERVER_H2C_ENABLED)
+            .setInitialSettings(new Http2Settings().setMaxConcurrentStreams(SERVER_H2_MAX_CONCURRENT_STREAMS));
+    }
 }
@@ -0,0 +1,289 @@
+package com.example.NMS.api;
+
+import com.example.NMS.metrics.Counter;
+import com.example.NMS.metrics.Metrics;
+import com.example.NMS.utility.DBUtils;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.User;
+import io.vertx.ext.auth.authentication.TokenCredentials;
+import io.vertx.ext.auth.jwt.JWTAuth;
+import io.vertx.ext.web.RoutingContext;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static com.example.NMS.constant.Constant.*;
+import static com.example.NMS.constant.QueryConstant.*;
+
+/**
+ * Bearer token authentication for the /api routes, shared by every request of a server.
+ * A token's HS256 signature and claims are verified once; the resulting user is then cached under the SHA-256 digest
+ * of the token until the token's exp, so later requests with the same token cost a hash and a map lookup. Hits take
+ * no lock. The cache is bounded: once full, expired and then least-recently-used entries are evicted in one pass down
+ * to nine tenths of the bound. Revoked tokens are refused even though their signature is
+ * valid, until they would have expired anyway. Revocations are stored in the revoked_tokens table, whose trigger
+ * announces each one to every node through the CacheListener, and are reloaded whenever the listener (re)connects,
+ * so a logout holds across nodes and restarts. Cache and revocations are static so that every server instance of a
+ * node honours them at once.
+ */
+public class TokenAuthHandler implements Handler<RoutingContext>
+{
+    private static final Counter HITS = Metrics.counter("nms_token_cache_hits_total", "Requests authenticated from the verified-token cache");
+
+    private static final Counter MISSES = Metrics.counter("nms_token_cache_misses_total", "Requests whose token had to be verified");
+
+    // token digest -> verified user
+    private static final ConcurrentHashMap<String, Verified> verified = new ConcurrentHashMap<>();
+
+    // token digest -> the token's exp in epoch millis
+    private static final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+
+    // Set while one thread trims the cache, so concurrent inserts do not all scan it
+    private static final AtomicBoolean evicting = new AtomicBoolean();
+
+    private static final class Verified
+    {
+        private final User user;
+
+        private final long expiresAt;
+
+        // Approximate recency for eviction; racing writes only reorder equally recent entries
+        private volatile long lastUsed;
+
+        private Verified(User user, long expiresAt, long now)
+        {
+            this.user = user;
+
+            this.expiresAt = expiresAt;
+
+            this.lastUsed = now;
+        }
+    }
+
+    private final JWTAuth jwtAuth;
+
+    /**
+     * @param jwtAuth The JWT provider that verifies tokens missing from the cache.
+     */
+    public TokenAuthHandler(JWTAuth jwtAuth)
+    {
+        this.jwtAuth = jwtAuth;
+    }
+
+    @Override
+    public void handle(RoutingContext context)
+    {
+        var token = token(context);
+
+        if (token == null)
+        {
+            context.fail(401);
+
+            return;
+        }
+
+        var digest = digest(token);
+
+        var now = System.currentTimeMillis();
+
+        var entry = verified.get(digest);
+
+        if (entry != null)
+        {
+            if (entry.expiresAt > now)
+            {
+                HITS.increment();
+
+                entry.lastUsed = now;
+
+                context.setUser(entry.user);
+
+                context.next();
+
+                return;
+            }
+
+            verified.remove(digest, entry);
+        }
+
+        MISSES.increment();
+
+        jwtAuth.authenticate(new TokenCredentials(token))
+            .onSuccess(user ->
+            {
+                var expiresAt = expiry(user);
+
+                var verifiedAt = System.currentTimeMillis();
+
+                var added = new Verified(user, expiresAt, verifiedAt);
+
+                verified.put(digest, added);
+
+                // Checked after the put: a revocation racing this verification is either seen here or, as revoked()
+                // records it before evicting, removes the entry just added
+                if (revoked.containsKey(digest) || expiresAt <= verifiedAt)
+                {
+                    verified.remove(digest, added);
+
+                    context.fail(401);
+
+                    return;
+                }
+
+                evictIfFull();
+
+                context.setUser(user);
+
+                context.next();
+            })
+            .onFailure(error -> context.fail(401));
+    }
+
+    /**
+     * Revokes the bearer token of a request, e.g. on logout.
+     * The revocation is stored before it takes effect, so a token is never refused by one node and accepted by others.
+     *
+     * @param context The routing context of an authenticated request.
+     * @return A future completing once the revocation is stored, or failing if the database could not store it.
+     */
+    public static Future<Void> revoke(RoutingContext context)
+    {
+        var token = token(context);
+
+        if (token == null || context.user() == null)
+        {
+            return Future.succeededFuture();
+        }
+
+        var digest = digest(token);
+
+        var expiresAt = expiry(context.user());
+
+        return DBUtils.executeQuery(new JsonObject()
+                .put(QUERY, INSERT_REVOKED_TOKEN)
+                .put(PARAMS, new JsonArray().add(digest).add(expiresAt)))
+            .onSuccess(ignored -> revoked(digest, expiresAt))
+            .mapEmpty();
+    }
+
+    /**
+     * Refuses a token from now on, e.g. after another node announced its revocation.
+     *
+     * @param digest    The SHA-256 digest of the token, in hex.
+     * @param expiresAt The token's exp in epoch millis.
+     */
+    public static void revoked(String digest, long expiresAt)
+    {
+        var now = System.currentTimeMillis();
+
+        // Revocations are only needed until the token expires by itself
+        revoked.values().removeIf(expiry -> expiry <= now);
+
+        if (expiresAt > now)
+        {
+            revoked.put(digest, expiresAt);
+        }
+
+        verified.remove(digest);
+    }
+
+    /**
+     * Trims a full cache to nine tenths of its bound, dropping expired entries first and then the least recently
+     * used ones. The sort is paid once per tenth of the bound in inserts.
+     */
+    private static void evictIfFull()
+    {
+        if (verified.size() <= TOKEN_CACHE_SIZE || !evicting.compareAndSet(false, true))
+        {
+            return;
+        }
+
+        try
+        {
+            var now = System.currentTimeMillis();
+
+            verified.values().removeIf(entry -> entry.expiresAt <= now);
+
+            var excess = verified.size() - TOKEN_CACHE_SIZE * 9 / 10;
+
+            if (excess > 0)
+            {
+                verified.entrySet().stream()
+                    .sorted(Comparator.comparingLong(cached -> cached.getValue().lastUsed))
+                    .limit(excess)
+                    .map(Map.Entry::getKey)
+                    .toList()
+                    .forEach(verified::remove);
+            }
+        }
+        finally
+        {
+            evicting.set(false);
+        }
+    }
+
+    /**
+     * @return The number of verified tokens currently cached.
+     */
+    static int cachedTokens()
+    {
+        return verified.size();
+    }
+
+    /**
+     * Loads every stored revocation of a token that has not expired yet.
+     */
+    public static Future<Void> loadRevocations()
+    {
+        return DBUtils.executeQuery(new JsonObject().put(QUERY, GET_REVOKED_TOKENS))
+            .onSuccess(rows -> rows.forEach(row ->
+                revoked(((JsonObject) row).getString(DIGEST), ((JsonObject) row).getLong(EXPIRES_AT))))
+            .mapEmpty();
+    }
+
+    private static String token(RoutingContext context)
+    {
+        var authorization = context.request().getHeader("Authorization");
+
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER, 0, BEARER.length()))
+        {
+            return null;
+        }
+
+        var token = authorization.substring(BEARER.length()).trim();
+
+        return token.isEmpty() ? null : token;
+    }
+
+    // Tokens without exp are re-verified after TOKEN_CACHE_MAX_TTL_SECONDS
+    private static long expiry(User user)
+    {
+        // JWT claims live in the user's attributes, not its principal
+        Number exp = user.get("exp");
+
+        var maxExpiry = System.currentTimeMillis() + TOKEN_CACHE_MAX_TTL_SECONDS * 1000L;
+
+        return exp == null ? maxExpiry : exp.longValue() * 1000;
+    }
+
+    private static String digest(String token)
+    {
+        try
+        {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        }
+        catch (NoSuchAlgorithmException exception)
+        {
+            throw new IllegalStateException("SHA-256 unavailable", exception);
+        }
+    }
+}
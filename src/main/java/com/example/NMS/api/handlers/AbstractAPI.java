@@ -1,7 +1,11 @@
 package com.example.NMS.api.handlers;
 
+import com.example.NMS.metrics.Counter;
+import com.example.NMS.metrics.Metrics;
 import com.example.NMS.utility.APIUtils;
 import com.example.NMS.utility.DBUtils;
+import com.example.NMS.utility.TableVersions;
+import io.vertx.core.Future;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.web.RoutingContext;
@@ -13,6 +17,9 @@ import static com.example.NMS.constant.Constant.*; // For ID, QUERY, PARAMS, MES
  * Abstract base class for API handlers providing common CRUD operations.
  * Subclasses should provide implementations for create and update operations
  * and can override common operations if specific logic is required.
+ * Reads carry a weak ETag derived from the versions of the tables the entity is built from, and a matching
+ * If-None-Match is answered with 304 before any database query. Single-entity reads go through the EntityCache,
+ * which serves a result for as long as those table versions are unchanged, up to the entity's TTL.
  */
 public abstract class AbstractAPI
 {
@@ -20,16 +27,72 @@ public abstract class AbstractAPI
 
     protected final String entityName; // e.g., "Credential", "Discovery Profile"
 
+    protected final String[] tables; // tables the entity's responses are built from, bumped on writes
+
+    private final int cacheTtlSeconds;
+
+    private final Counter cacheHits;
+
+    private final Counter cacheMisses;
+
     /**
      * Constructor for AbstractAPI.
      * @param logger The SLF4J logger instance from the subclass.
      * @param entityName Singular name of the entity (e.g., "Credential").
+     * @param cacheTtlSeconds How long a single-entity read may be served from the EntityCache at most.
+     * @param tables The tables the entity's responses are built from; the first one labels the cache metrics.
      */
-    protected AbstractAPI(Logger logger, String entityName)
+    protected AbstractAPI(Logger logger, String entityName, int cacheTtlSeconds, String... tables)
     {
         this.LOGGER = logger;
 
         this.entityName = entityName;
+
+        this.cacheTtlSeconds = cacheTtlSeconds;
+
+        this.tables = tables;
+
+        this.cacheHits = Metrics.counter("nms_entity_cache_hits_total{entity=\"" + tables[0] + "\"}",
+            "Single-entity reads served from the entity cache");
+
+        this.cacheMisses = Metrics.counter("nms_entity_cache_misses_total{entity=\"" + tables[0] + "\"}",
+            "Single-entity reads that queried the database");
+    }
+
+    /**
+     * Answers 304 if the client already holds the current version of the response, in any content encoding.
+     * If-None-Match uses the weak comparison, so W/"x" and "x" match each other.
+     * @param context The routing context from Vert.x.
+     * @param etag The ETag of the current version.
+     * @return True if the response was sent.
+     */
+    protected boolean notModified(RoutingContext context, String etag)
+    {
+        var ifNoneMatch = context.request().getHeader("If-None-Match");
+
+        if (ifNoneMatch == null)
+        {
+            return false;
+        }
+
+        for (var candidate : ifNoneMatch.split(","))
+        {
+            candidate = candidate.trim();
+
+            if (candidate.equals("*") || opaqueTag(candidate).equals(opaqueTag(etag)))
+            {
+                context.response().setStatusCode(304).putHeader("ETag", etag).end();
+
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static String opaqueTag(String etag)
+    {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
     }
 
     // Abstract methods to be implemented by subclasses.
@@ -47,6 +110,13 @@ public abstract class AbstractAPI
      */
     protected void getAll(RoutingContext context, String getAllQueryConstant)
     {
+        var etag = TableVersions.etag(tables);
+
+        if (notModified(context, etag))
+        {
+            return;
+        }
+
         LOGGER.info("Fetching all {}", entityName.toLowerCase());
 
         var query = new JsonObject().put(QUERY, getAllQueryConstant);
@@ -61,6 +131,8 @@ public abstract class AbstractAPI
                     // Ensure result is not null, though executeQuery should return non-null JsonArray
                     if (result != null && !result.isEmpty())
                     {
+                        context.response().putHeader("ETag", etag);
+
                         APIUtils.sendSuccess(context, 200, entityName, result);
                     }
                     else
@@ -85,6 +157,18 @@ public abstract class AbstractAPI
      * @param getByIdQueryConstant The database query constant (from QueryConstant class) for fetching an entity by ID.
      */
     protected void getById(RoutingContext context, String getByIdQueryConstant)
+    {
+        getById(context, getByIdQueryConstant, true);
+    }
+
+    /**
+     * Handles GET requests to fetch a specific entity by its ID.
+     * @param context The routing context from Vert.x.
+     * @param getByIdQueryConstant The database query constant (from QueryConstant class) for fetching an entity by ID.
+     * @param conditional False for data that changes without a write through the handlers, which gets no ETag
+     *                    and is never cached.
+     */
+    protected void getById(RoutingContext context, String getByIdQueryConstant, boolean conditional)
     {
         try
         {
@@ -95,15 +179,20 @@ public abstract class AbstractAPI
                 return;
             }
 
-            LOGGER.info("Fetching {} with ID: {}", entityName.toLowerCase(), id);
+            var etag = conditional ? TableVersions.etag(tables) : null;
 
-            var queryParams = new JsonArray().add(id);
+            if (etag != null && notModified(context, etag))
+            {
+                return;
+            }
+
+            LOGGER.info("Fetching {} with ID: {}", entityName.toLowerCase(), id);
 
             var query = new JsonObject()
                 .put(QUERY, getByIdQueryConstant)
-                .put(PARAMS, queryParams);
+                .put(PARAMS, new JsonArray().add(id));
 
-            DBUtils.executeQuery(query)
+            (etag != null ? cachedQuery(getByIdQueryConstant, id, etag) : DBUtils.executeQuery(query))
                 .onComplete(queryResult -> {
                     if (queryResult.succeeded())
                     {
@@ -111,6 +200,11 @@ public abstract class AbstractAPI
 
                         if (result != null && !result.isEmpty())
                         {
+                            if (etag != null)
+                            {
+                                context.response().putHeader("ETag", etag);
+                            }
+
                             APIUtils.sendSuccess(context, 200, entityName + " details", result);
                         }
                         else
@@ -139,6 +233,42 @@ public abstract class AbstractAPI
         }
     }
 
+    /**
+     * Runs a single-entity query through the EntityCache. Empty results are not cached.
+     * @param queryConstant The database query constant taking the entity ID as its only parameter.
+     * @param id The entity ID.
+     * @param version The current versions of the entity's tables, read before the query so that a racing write
+     *                leaves the cached entry already stale.
+     * @return The query result; callers must not modify it.
+     */
+    protected Future<JsonArray> cachedQuery(String queryConstant, long id, String version)
+    {
+        var key = queryConstant + "#" + id;
+
+        var cached = EntityCache.get(key, version);
+
+        if (cached != null)
+        {
+            cacheHits.increment();
+
+            return Future.succeededFuture(cached);
+        }
+
+        cacheMisses.increment();
+
+        var query = new JsonObject()
+            .put(QUERY, queryConstant)
+            .put(PARAMS, new JsonArray().add(id));
+
+        return DBUtils.executeQuery(query).onSuccess(result ->
+        {
+            if (result != null && !result.isEmpty())
+            {
+                EntityCache.put(key, version, result, cacheTtlSeconds);
+            }
+        });
+    }
+
     /**
      * Handles DELETE requests to remove an entity by its ID.
      * Subclasses can override this method if additional actions are needed upon deletion (e.g., cache clearing).
@@ -174,6 +304,8 @@ public abstract class AbstractAPI
 
                         if (result != null && !result.isEmpty())
                         {
+                            TableVersions.bump(tables);
+
                             LOGGER.info("{} with ID {} deleted successfully.", entityName, id);
 
                             APIUtils.sendSuccess(context, 200, entityName + " deleted successfully", result);
@@ -0,0 +1,90 @@
+package com.example.NMS.api.handlers;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static com.example.NMS.constant.QueryConstant.AGGREGATE_POLLED_DATA;
+
+/**
+ * Builds the SQL of a polled data aggregation and turns its rows into columns.
+ * Only whitelisted functions reach the SQL: avg, min, max, sum, count and percentiles p1 to p99. The field path and
+ * the other request values are bound as parameters, so the generated text never contains client input.
+ */
+final class Aggregation
+{
+    private static final Pattern PERCENTILE = Pattern.compile("p([1-9][0-9]?)");
+
+    private Aggregation(){}
+
+    /**
+     * Returns the SQL expression of an aggregate function over the sample value, or null if it is not allowed.
+     *
+     * @param function The function name, e.g. "avg" or "p95".
+     */
+    static String column(String function)
+    {
+        switch (function)
+        {
+            case "avg", "min", "max", "sum", "count" ->
+            {
+                return function + "(value)";
+            }
+            default ->
+            {
+                var percentile = PERCENTILE.matcher(function);
+
+                return percentile.matches()
+                    ? "percentile_cont(" + Integer.parseInt(percentile.group(1)) / 100d + ") WITHIN GROUP (ORDER BY value)"
+                    : null;
+            }
+        }
+    }
+
+    /**
+     * Returns the aggregation query for the given functions, which must all be allowed.
+     *
+     * @param functions The distinct function names, in response column order.
+     */
+    static String query(List<String> functions)
+    {
+        var columns = new StringBuilder();
+
+        for (var function : functions)
+        {
+            columns.append(", ").append(column(function)).append(" AS \"").append(function).append('"');
+        }
+
+        return AGGREGATE_POLLED_DATA.formatted(columns);
+    }
+
+    /**
+     * Transposes the query rows into one array per column: the bucket start in epoch millis, then each function.
+     *
+     * @param rows      The rows, ordered by bucket.
+     * @param functions The function names the query was built with.
+     * @return The column names and their values.
+     */
+    static JsonObject columns(JsonArray rows, List<String> functions)
+    {
+        var columns = new LinkedHashMap<String, JsonArray>();
+
+        columns.put("bucket", new JsonArray());
+
+        functions.forEach(function -> columns.put(function, new JsonArray()));
+
+        for (var i = 0; i < rows.size(); i++)
+        {
+            var row = rows.getJsonObject(i);
+
+            columns.forEach((name, values) -> values.add(row.getValue(name)));
+        }
+
+        return new JsonObject()
+            .put("columns", new JsonArray(List.copyOf(columns.keySet())))
+            .put("data", new JsonArray(List.copyOf(columns.values())));
+    }
+}
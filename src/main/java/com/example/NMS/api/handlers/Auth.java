@@ -1,16 +1,19 @@
 package com.example.NMS.api.handlers;
 
+import com.example.NMS.api.TokenAuthHandler;
 import com.example.NMS.constant.QueryConstant;
 import com.example.NMS.utility.APIUtils;
+import com.example.NMS.utility.PasswordHasher;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import io.vertx.ext.auth.jwt.JWTAuth;
 import io.vertx.ext.web.Router;
 import io.vertx.ext.web.RoutingContext;
-import org.mindrot.jbcrypt.BCrypt;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.concurrent.RejectedExecutionException;
+
 import static com.example.NMS.constant.Constant.*;
 import static com.example.NMS.utility.DBUtils.executeQuery;
 
@@ -18,6 +21,8 @@ import static com.example.NMS.utility.DBUtils.executeQuery;
  * Handles user authentication for Lite NMS, including registration and login with JWT token generation.
  * This class provides endpoints for user registration and login, ensuring secure password storage
  * using BCrypt and generating JWT tokens for authenticated users.
+ * BCrypt runs on the PasswordHasher's bounded worker pool, never on the event loop; when that pool is saturated
+ * the request is answered with 503 and Retry-After.
  */
 public class Auth
 {
@@ -40,6 +45,32 @@ public class Auth
         router.post("/api/register").handler(this::register);
 
         router.post("/api/login").handler(this::login);
+
+        router.post("/api/logout").handler(this::logout);
+    }
+
+    /**
+     * Handles logout by revoking the bearer token the request was authenticated with.
+     * The token is refused from then on, on every node and across restarts, until it would have expired. If the
+     * revocation cannot be stored the token stays valid and the client is asked to retry.
+     *
+     * @param context The routing context of the authenticated logout request.
+     */
+    private void logout(RoutingContext context)
+    {
+        TokenAuthHandler.revoke(context)
+            .onSuccess(ignored ->
+            {
+                LOGGER.info("User logged out: {}", context.user().subject());
+
+                APIUtils.sendSuccess(context, 200, "Logout successful", new JsonArray());
+            })
+            .onFailure(error ->
+            {
+                LOGGER.error("Failed to store token revocation: {}", error.getMessage());
+
+                APIUtils.sendRetryLater(context, 503, "Logout failed, retry later", RETRY_AFTER_SECONDS);
+            });
     }
 
     /**
@@ -78,16 +109,11 @@ public class Auth
                 return;
             }
 
-            // Hash the password using BCrypt for secure storage.
-            var hashedPassword = BCrypt.hashpw(password, BCrypt.gensalt());
-
-            // Prepare query to register the user.
-            var query = new JsonObject()
-              .put(QUERY, QueryConstant.REGISTER_USER)
-              .put(PARAMS, new JsonArray().add(username).add(hashedPassword));
-
-            // Execute the registration query
-            executeQuery(query)
+            // Hash the password using BCrypt for secure storage, then register the user.
+            PasswordHasher.hash(password)
+                .compose(hashedPassword -> executeQuery(new JsonObject()
+                    .put(QUERY, QueryConstant.REGISTER_USER)
+                    .put(PARAMS, new JsonArray().add(username).add(hashedPassword))))
                 .onComplete(queryResult ->
                 {
                     if (queryResult.succeeded())
@@ -111,8 +137,12 @@ public class Auth
                     {
                         var error = queryResult.cause();
 
+                        if (error instanceof RejectedExecutionException)
+                        {
+                            APIUtils.sendRetryLater(context, 503, "Server busy, retry registration later", RETRY_AFTER_SECONDS);
+                        }
                         // Handle case where username is already taken
-                        if(error.getMessage().contains("users_username_key"))
+                        else if(error.getMessage().contains("users_username_key"))
                         {
                             LOGGER.warn("Registration failed for username={}: Username already exists", username);
 
@@ -187,33 +217,48 @@ public class Auth
 
                             var storedHash = user.getString(PASSWORD);
 
-                            // Verify password against stored hash.
-                            if (BCrypt.checkpw(password, storedHash))
+                            // Verify password against stored hash on the BCrypt pool.
+                            PasswordHasher.verify(username, password, storedHash).onComplete(verification ->
                             {
-                              // Set token expiration to 24 hours
-                                var currentTimeSeconds = System.currentTimeMillis() / 1000;
-
-                                var expiryTimeSeconds = currentTimeSeconds + (24 * 60 * 60); // 24 hours
-
-                                // Create JWT claims (Token)
-                                var claims = new JsonObject()
-                                  .put("sub", username)
-                                  .put("exp", expiryTimeSeconds);
-
-                                var token = jwtAuth.generateToken(claims);
-
-                                LOGGER.info("User logged in: {}", username);
-
-                                // sending the response
-                                APIUtils.sendSuccess(context,200,"Login successful", new JsonArray().add(token));
-
-                            }
-                            else
-                            {
-                                LOGGER.warn("Failed login attempt for username: {} (Incorrect password)", username);
-
-                                APIUtils.sendError(context, 401, "Invalid username or password");
-                            }
+                                if (verification.failed())
+                                {
+                                    if (verification.cause() instanceof RejectedExecutionException)
+                                    {
+                                        APIUtils.sendRetryLater(context, 503, "Server busy, retry login later", RETRY_AFTER_SECONDS);
+                                    }
+                                    else
+                                    {
+                                        LOGGER.error("Password verification failed for username {}: {}", username, verification.cause().getMessage());
+
+                                        APIUtils.sendError(context, 500, "Login failed due to a server error");
+                                    }
+                                }
+                                else if (verification.result())
+                                {
+                                  // Set token expiration to 24 hours
+                                    var currentTimeSeconds = System.currentTimeMillis() / 1000;
+
+                                    var expiryTimeSeconds = currentTimeSeconds + (24 * 60 * 60); // 24 hours
+
+                                    // Create JWT claims (Token); HS256 signing takes microseconds, so it stays on the event loop
+                                    var claims = new JsonObject()
+                                      .put("sub", username)
+                                      .put("exp", expiryTimeSeconds);
+
+                                    var token = jwtAuth.generateToken(claims);
+
+                                    LOGGER.info("User logged in: {}", username);
+
+                                    // sending the response
+                                    APIUtils.sendSuccess(context,200,"Login successful", new JsonArray().add(token));
+                                }
+                                else
+                                {
+                                    LOGGER.warn("Failed login attempt for username: {} (Incorrect password)", username);
+
+                                    APIUtils.sendError(context, 401, "Invalid username or password");
+                                }
+                            });
                         }
                         else
                         {
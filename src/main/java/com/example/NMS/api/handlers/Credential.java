@@ -2,6 +2,7 @@ package com.example.NMS.api.handlers;
 
 import com.example.NMS.constant.QueryConstant;
 import com.example.NMS.utility.APIUtils;
+import com.example.NMS.utility.TableVersions;
 import com.example.NMS.utility.Validator;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -24,7 +25,7 @@ public class Credential extends AbstractAPI
 
     public Credential()
     {
-        super(LOGGER, "Credential"); // Pass logger and names to AbstractAPI
+        super(LOGGER, "Credential", CREDENTIAL_CACHE_TTL_SECONDS, "credential_profile"); // Pass logger and names to AbstractAPI
     }
 
   /**
@@ -104,6 +105,8 @@ public class Credential extends AbstractAPI
                             APIUtils.sendError(context, 409, "Cannot create credential");
                         }
 
+                        TableVersions.bump(tables);
+
                         APIUtils.sendSuccess(context,201, "Credential profile created", result);
 
                     }
@@ -197,6 +200,8 @@ public class Credential extends AbstractAPI
                         {
                             LOGGER.info("Credential updated successfully: ID={}", id);
 
+                            TableVersions.bump(tables);
+
                             APIUtils.sendSuccess(context, 200, "Credential profile updated", result);
                         }
                         else
@@ -2,6 +2,7 @@ package com.example.NMS.api.handlers;
 
 import com.example.NMS.constant.QueryConstant;
 import com.example.NMS.utility.APIUtils;
+import com.example.NMS.utility.TableVersions;
 import com.example.NMS.utility.Validator;
 import io.vertx.core.Future;
 import io.vertx.core.json.JsonArray;
@@ -27,7 +28,7 @@ public class Discovery extends AbstractAPI
     private static final Logger LOGGER = LoggerFactory.getLogger(Discovery.class);
 
     public Discovery() {
-        super(LOGGER, "Discovery Profiles");
+        super(LOGGER, "Discovery Profiles", DISCOVERY_CACHE_TTL_SECONDS, "discovery_profiles", "discovery_credential_mapping", "credential_profile");
     }
     /**
      * Initializes API routes for discovery profile management endpoints.
@@ -125,6 +126,8 @@ public class Discovery extends AbstractAPI
                     {
                         var result = queryResult.result();
 
+                        TableVersions.bump(tables);
+
                         APIUtils.sendSuccess(context, 201, "discovery profile created",new JsonArray().add(result));
                     }
                     else
@@ -219,6 +222,8 @@ public class Discovery extends AbstractAPI
                 {
                     if(queryResult.succeeded())
                     {
+                        TableVersions.bump(tables);
+
                         APIUtils.sendSuccess(context, 200, "Discovery Profile Updated Successfully",new JsonArray().add(id));
                     }
                     else
@@ -264,11 +269,7 @@ public class Discovery extends AbstractAPI
                 return;
             }
 
-            var checkQuery = new JsonObject()
-                .put(QUERY, QueryConstant.GET_BY_RUN_ID)
-                .put(PARAMS, new JsonArray().add(id));
-
-            executeQuery(checkQuery).onComplete(queryResult ->
+            cachedQuery(QueryConstant.GET_BY_RUN_ID, id, TableVersions.etag(tables)).onComplete(queryResult ->
             {
                 if (queryResult.succeeded())
                 {
@@ -0,0 +1,80 @@
+package com.example.NMS.api.handlers;
+
+import io.vertx.core.json.JsonArray;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.example.NMS.constant.Constant.*;
+
+/**
+ * Read-through cache of single-entity query results, shared by every AbstractAPI handler and server instance.
+ * An entry remembers the table versions it was read at and is only served while those versions are still current,
+ * so any write through the handlers or announced by the database invalidates it without a separate eviction path.
+ * The TTL bounds how long an entry may be served regardless. The cache is bounded and least-recently-used entries
+ * are evicted.
+ */
+final class EntityCache
+{
+    // query + id -> result; access-ordered so the least recently used entry is evicted first
+    private static final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest)
+        {
+            return size() > ENTITY_CACHE_SIZE;
+        }
+    };
+
+    private record Entry(JsonArray result, String version, long expiresAt)
+    {
+    }
+
+    private EntityCache(){}
+
+    /**
+     * Returns the cached result of a query if it was read at the given version and has not expired.
+     *
+     * @param key     The query and its parameters.
+     * @param version The current version of the tables the result is built from.
+     * @return The cached result, or null on a miss.
+     */
+    static JsonArray get(String key, String version)
+    {
+        synchronized (entries)
+        {
+            var entry = entries.get(key);
+
+            if (entry == null)
+            {
+                return null;
+            }
+
+            if (!entry.version().equals(version) || entry.expiresAt() <= System.currentTimeMillis())
+            {
+                entries.remove(key);
+
+                return null;
+            }
+
+            return entry.result();
+        }
+    }
+
+    /**
+     * Caches a query result.
+     *
+     * @param key        The query and its parameters.
+     * @param version    The version of the tables read before the query ran, so a write racing the query leaves
+     *                   the entry already stale.
+     * @param result     The query result; it must not be modified afterwards.
+     * @param ttlSeconds How long the entry may be served at most.
+     */
+    static void put(String key, String version, JsonArray result, int ttlSeconds)
+    {
+        synchronized (entries)
+        {
+            entries.put(key, new Entry(result, version, System.currentTimeMillis() + ttlSeconds * 1000L));
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package com.example.NMS.api.handlers;
 
+import com.example.NMS.cache.LatestValues;
 import com.example.NMS.cache.MetricCache;
+import com.example.NMS.cache.MetricJob;
 import com.example.NMS.constant.QueryConstant;
+import com.example.NMS.polling.DeviceHealth;
 import com.example.NMS.utility.APIUtils;
+import com.example.NMS.utility.TableVersions;
 import com.example.NMS.utility.Validator;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -11,6 +15,11 @@ import io.vertx.ext.web.RoutingContext;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
 import static com.example.NMS.constant.Constant.*;
 import static com.example.NMS.constant.QueryConstant.*;
 import static com.example.NMS.constant.QueryConstant.GET_PROVISIONING_JOB_AND_METRICS;
@@ -27,7 +36,7 @@ public class Provision extends AbstractAPI
 
     public Provision()
     {
-        super(LOGGER, "Provisioning Jobs");
+        super(LOGGER, "Provisioning Jobs", PROVISION_CACHE_TTL_SECONDS, "provisioning_jobs", "metrics", "credential_profile");
     }
     /**
      * Initializes API routes for provisioning job management endpoints.
@@ -37,12 +46,21 @@ public class Provision extends AbstractAPI
      */
     public void init(Router provisionRouter)
     {
+        // Registered before the :id routes so "bulk" is not parsed as an ID
+        provisionRouter.post("/api/provision/bulk").handler(this::createBulk);
+
+        provisionRouter.put("/api/provision/bulk/metrics").handler(this::updateBulk);
+
         provisionRouter.post("/api/provision/:id").handler(this::create);
 
 //        provisionRouter.get("/api/provision").handler(this::getAll);
 //
 //        provisionRouter.get("/api/provision/:id").handler(this::getById);
 
+        // Registered before the :id route so "health" is not parsed as a provisioning job ID
+        provisionRouter.get("/api/provision/health").handler(ctx ->
+            APIUtils.sendSuccess(ctx, 200, "Devices with an open circuit breaker", DeviceHealth.unhealthy()));
+
         provisionRouter.get("/api/provision").handler(ctx ->
             super.getAll(ctx, QueryConstant.GET_ALL_PROVISIONING_JOBS)
         );
@@ -54,11 +72,28 @@ public class Provision extends AbstractAPI
 
         provisionRouter.put("/api/provision/:id/metrics").handler(this::update);
 
+        provisionRouter.put("/api/provision/:id/priority").handler(this::updatePriority);
+
+        // Registered before the :id route so "ip" is not parsed as a provisioning job ID
+        provisionRouter.get("/api/provision/ip/:ip/metrics").handler(this::getCachedMetricsByIp);
+
+        provisionRouter.get("/api/provision/:id/metrics").handler(this::getCachedMetrics);
+
+        provisionRouter.get("/api/provision/:id/health").handler(this::getHealth);
+
+        // Served from memory, never from polled_data; node-local, rows name the node polling the device
+        provisionRouter.get("/api/provision/:id/latest").handler(this::getLatest);
+
+        provisionRouter.get("/api/provision/:id/aggregate").handler(this::getAggregate);
+
+        provisionRouter.get("/api/status").handler(ctx ->
+            APIUtils.sendSuccess(ctx, 200, "Fleet status", LatestValues.status()));
+
         provisionRouter.get("/api/polled-data").handler(this::getAllPolledData);
 
 
         provisionRouter.get("/api/polled-data/:id").handler(ctx ->
-            super.getById(ctx, QueryConstant.GET_POLLED_DATA_BY_JOB_ID)
+            super.getById(ctx, QueryConstant.GET_POLLED_DATA_BY_JOB_ID, false)
         );
 
     }
@@ -154,6 +189,8 @@ public class Provision extends AbstractAPI
                     .put("invalidIps", invalidIps)
                     .put("insertedRecords", insertedRecords);
 
+                TableVersions.bump(tables);
+
                 APIUtils.sendSuccess(context, 201, "Provisioning successful", new JsonArray().add(response));
             });
         }
@@ -198,6 +235,8 @@ public class Provision extends AbstractAPI
                         {
                             MetricCache.getInstance().delete(id);
 
+                            TableVersions.bump(tables);
+
                             APIUtils.sendSuccess(context,200, "Provision deleted successfully" ,result);
 
                         }
@@ -236,7 +275,7 @@ public class Provision extends AbstractAPI
 
             if (id == -1) return;
 
-            var fields = new String[]{"metrics"};
+            var fields = new String[]{METRICS};
 
             if (Validator.checkRequestFields(context, fields, true))
             {
@@ -245,7 +284,7 @@ public class Provision extends AbstractAPI
 
             var body = context.body().asJsonObject();
 
-            var metrics = body.getJsonArray("metrics");
+            var metrics = body.getJsonArray(METRICS);
 
             // Build batch parameters and validate metrics
             var batchParams = new JsonArray();
@@ -254,29 +293,18 @@ public class Provision extends AbstractAPI
             {
                 var metric = metrics.getJsonObject(i);
 
-                var name = metric.getString(METRIC_NAME);
-
-                var isEnabled = metric.getBoolean(IS_ENABLED);
+                var error = validateMetric(metric);
 
-                if (name == null || isEnabled == null)
+                if (error != null)
                 {
-                    APIUtils.sendError(context, 400, "Invalid metric configuration: metric_name and is_enabled are required");
+                    APIUtils.sendError(context, 400, "Invalid metric configuration: " + error);
 
                     return;
                 }
 
-                var interval = metric.getInteger(POLLING_INTERVAL);
-
-                if (isEnabled && (interval == null || interval <= 0))
-                {
-                    APIUtils.sendError(context, 400, "Invalid metric configuration: polling_interval must be positive when is_enabled is true");
-
-                    return;
-                }
-
-                int effectiveInterval = (interval != null && interval > 0) ? interval : 300;
-
-                batchParams.add(new JsonArray().add(id).add(name).add(effectiveInterval).add(isEnabled));
+                batchParams.add(new JsonArray().add(id).add(metric.getString(METRIC_NAME)).add(effectiveInterval(metric))
+                    .add(metric.getBoolean(IS_ENABLED)).add(metric.getInteger(MIN_POLLING_INTERVAL))
+                    .add(metric.getInteger(MAX_POLLING_INTERVAL)).add(metric.getString(PRIORITY)));
             }
 
             // Upsert metrics and fetch updated data in one query
@@ -331,6 +359,8 @@ public class Provision extends AbstractAPI
                     MetricCache.getInstance().update(cacheObject);
                 }
 
+                TableVersions.bump(tables);
+
                 APIUtils.sendSuccess(context, 200, "Updated metrics successfully", new JsonArray().add(id));
             });
         }
@@ -342,6 +372,578 @@ public class Provision extends AbstractAPI
         }
     }
 
+    /**
+     * Handles PUT requests to set the dispatch class of all metrics of a provisioning job's device.
+     * Metrics with their own class keep it; a null priority restores the per-metric defaults. The metric cache picks
+     * the change up through the database's change notifications.
+     *
+     * @param context The routing context containing the HTTP request with provisioning job ID and priority.
+     */
+    public void updatePriority(RoutingContext context)
+    {
+        try
+        {
+            var id = APIUtils.parseIdFromPath(context, ID);
+
+            if (id == -1) return;
+
+            var body = context.body().asJsonObject();
+
+            if (body == null || !body.containsKey(PRIORITY))
+            {
+                APIUtils.sendError(context, 400, "Missing required field: priority");
+
+                return;
+            }
+
+            var priority = body.getValue(PRIORITY);
+
+            if (priority != null && !(priority instanceof String name && isPriority(name)))
+            {
+                APIUtils.sendError(context, 400, "Invalid priority: must be one of HIGH, NORMAL, LOW or null");
+
+                return;
+            }
+
+            executeQuery(new JsonObject()
+                    .put(QUERY, UPDATE_PROVISIONING_JOB_PRIORITY)
+                    .put(PARAMS, new JsonArray().add(id).add(priority)))
+                .onComplete(result ->
+                {
+                    if (result.failed())
+                    {
+                        APIUtils.sendError(context, 500, "Failed to update priority: " + result.cause().getMessage());
+                    }
+                    else if (result.result().isEmpty())
+                    {
+                        APIUtils.sendError(context, 404, "Provisioning job not found");
+                    }
+                    else
+                    {
+                        TableVersions.bump(tables);
+
+                        APIUtils.sendSuccess(context, 200, "Updated priority successfully", new JsonArray().add(id));
+                    }
+                });
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error updating priority: {}", exception.getMessage());
+
+            APIUtils.sendError(context, 500, "Internal server error");
+        }
+    }
+
+    /**
+     * Handles POST requests to provision many devices, possibly from different discovery profiles, in one statement.
+     * Each item is reported by its index in the request: created, skipped if already provisioned, or failed with the
+     * reason. Created jobs enter the metric cache in one pass.
+     *
+     * @param context The routing context containing the HTTP request with a "jobs" array of discovery_id and ip.
+     */
+    public void createBulk(RoutingContext context)
+    {
+        try
+        {
+            var jobs = bulkItems(context);
+
+            if (jobs == null)
+            {
+                return;
+            }
+
+            executeQuery(new JsonObject()
+                    .put(QUERY, INSERT_PROVISIONING_BULK)
+                    .put(PARAMS, new JsonArray().add(jobs)))
+                .onComplete(res ->
+                {
+                    if (res.failed())
+                    {
+                        APIUtils.sendError(context, 500, "Bulk provisioning failed: " + res.cause().getMessage());
+
+                        return;
+                    }
+
+                    var row = res.result().getJsonObject(0);
+
+                    var records = row.getJsonArray("records", new JsonArray());
+
+                    var cacheObjects = new ArrayList<JsonObject>(records.size());
+
+                    for (var i = 0; i < records.size(); i++)
+                    {
+                        cacheObjects.add(new JsonObject(records.getJsonObject(i).getMap())
+                            .put(ORIGINAL_INTERVAL, DEFAULT_POLLING_INTERVAL)
+                            .put(REMAINING_TIME, DEFAULT_POLLING_INTERVAL));
+                    }
+
+                    if (!cacheObjects.isEmpty())
+                    {
+                        MetricCache.getInstance().updateAll(cacheObjects);
+
+                        TableVersions.bump(tables);
+                    }
+
+                    LOGGER.info("Bulk provisioning of {} items created {} metric jobs", jobs.size(), cacheObjects.size());
+
+                    APIUtils.sendSuccess(context, 200, "Bulk provisioning processed", row.getJsonArray("items", new JsonArray()));
+                });
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error in bulk provisioning: {}", exception.getMessage());
+
+            APIUtils.sendError(context, 500, "Internal server error");
+        }
+    }
+
+    /**
+     * Handles PUT requests to update the metrics of many provisioning jobs in one statement.
+     * Items are validated up front; the valid ones are upserted together and applied to the metric cache in one pass.
+     * Each item is reported by its index in the request: updated, or failed with the reason.
+     *
+     * @param context The routing context containing the HTTP request with a "jobs" array of provisioning_job_id
+     *                and metrics.
+     */
+    public void updateBulk(RoutingContext context)
+    {
+        try
+        {
+            var jobs = bulkItems(context);
+
+            if (jobs == null)
+            {
+                return;
+            }
+
+            var results = new JsonArray();
+
+            var rows = new JsonArray();
+
+            // provisioning_job_id -> result of the item awaiting the upsert
+            var pending = new HashMap<Long, JsonObject>();
+
+            for (var i = 0; i < jobs.size(); i++)
+            {
+                var job = jobs.getJsonObject(i);
+
+                var id = job.getValue(PROVISIONING_JOB_ID) instanceof Number number ? number.longValue() : null;
+
+                var metrics = job.getValue(METRICS) instanceof JsonArray array ? array : null;
+
+                var result = new JsonObject().put("index", i).put(PROVISIONING_JOB_ID, id);
+
+                results.add(result);
+
+                var error = id == null || metrics == null || metrics.isEmpty()
+                    ? "provisioning_job_id and metrics are required"
+                    : pending.containsKey(id) ? "Duplicate provisioning_job_id in request" : validateMetrics(metrics);
+
+                if (error != null)
+                {
+                    result.put(STATUS, "failed").put(ERROR, error);
+
+                    continue;
+                }
+
+                pending.put(id, result);
+
+                for (var j = 0; j < metrics.size(); j++)
+                {
+                    var metric = metrics.getJsonObject(j);
+
+                    rows.add(new JsonObject()
+                        .put(PROVISIONING_JOB_ID, id)
+                        .put(METRIC_NAME, metric.getString(METRIC_NAME))
+                        .put(POLLING_INTERVAL, effectiveInterval(metric))
+                        .put(IS_ENABLED, metric.getBoolean(IS_ENABLED))
+                        .put(MIN_POLLING_INTERVAL, metric.getInteger(MIN_POLLING_INTERVAL))
+                        .put(MAX_POLLING_INTERVAL, metric.getInteger(MAX_POLLING_INTERVAL))
+                        .put(PRIORITY, metric.getString(PRIORITY)));
+                }
+            }
+
+            if (pending.isEmpty())
+            {
+                APIUtils.sendSuccess(context, 200, "Bulk metric update processed", results);
+
+                return;
+            }
+
+            executeQuery(new JsonObject()
+                    .put(QUERY, UPSERT_METRICS_BULK)
+                    .put(PARAMS, new JsonArray().add(rows)))
+                .onComplete(res ->
+                {
+                    if (res.failed())
+                    {
+                        APIUtils.sendError(context, 500, "Bulk metric update failed: " + res.cause().getMessage());
+
+                        return;
+                    }
+
+                    var updated = res.result();
+
+                    var cacheObjects = new ArrayList<JsonObject>(updated.size());
+
+                    for (var i = 0; i < updated.size(); i++)
+                    {
+                        var row = updated.getJsonObject(i);
+
+                        cacheObjects.add(new JsonObject(row.getMap())
+                            .put(CRED_DATA, row.getJsonObject(CRED_DATA, new JsonObject()))
+                            .put(ORIGINAL_INTERVAL, row.getInteger(POLLING_INTERVAL))
+                            .put(REMAINING_TIME, row.getInteger(POLLING_INTERVAL)));
+
+                        var result = pending.get(row.getLong(PROVISIONING_JOB_ID));
+
+                        if (result != null)
+                        {
+                            result.put(STATUS, "updated").put("updated_metrics", result.getInteger("updated_metrics", 0) + 1);
+                        }
+                    }
+
+                    // Jobs with no upserted row did not exist
+                    pending.values().forEach(result ->
+                    {
+                        if (!result.containsKey(STATUS))
+                        {
+                            result.put(STATUS, "failed").put(ERROR, "Provisioning job not found");
+                        }
+                    });
+
+                    if (!cacheObjects.isEmpty())
+                    {
+                        MetricCache.getInstance().updateAll(cacheObjects);
+
+                        TableVersions.bump(tables);
+                    }
+
+                    LOGGER.info("Bulk metric update of {} items upserted {} metrics", jobs.size(), cacheObjects.size());
+
+                    APIUtils.sendSuccess(context, 200, "Bulk metric update processed", results);
+                });
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error in bulk metric update: {}", exception.getMessage());
+
+            APIUtils.sendError(context, 500, "Internal server error");
+        }
+    }
+
+    /**
+     * Returns the "jobs" array of a bulk request, or sends 400 and returns null if it is missing, empty, too large
+     * or holds anything but objects.
+     */
+    private static JsonArray bulkItems(RoutingContext context)
+    {
+        if (Validator.checkRequestFields(context, new String[]{JOBS}, true))
+        {
+            return null;
+        }
+
+        var jobs = context.body().asJsonObject().getValue(JOBS) instanceof JsonArray array ? array : null;
+
+        if (jobs == null || jobs.isEmpty() || jobs.size() > BULK_MAX_ITEMS)
+        {
+            APIUtils.sendError(context, 400, "jobs must be an array of 1 to " + BULK_MAX_ITEMS + " items");
+
+            return null;
+        }
+
+        for (var item : jobs)
+        {
+            if (!(item instanceof JsonObject))
+            {
+                APIUtils.sendError(context, 400, "jobs must only contain objects");
+
+                return null;
+            }
+        }
+
+        return jobs;
+    }
+
+    /**
+     * Validates the metrics of one bulk item, which must name each metric at most once.
+     *
+     * @return The first error, or null if all metrics are valid.
+     */
+    private static String validateMetrics(JsonArray metrics)
+    {
+        var names = new HashSet<String>();
+
+        for (var metric : metrics)
+        {
+            var error = metric instanceof JsonObject object ? validateMetric(object) : "each metric must be an object";
+
+            if (error != null)
+            {
+                return error;
+            }
+
+            if (!names.add(((JsonObject) metric).getString(METRIC_NAME)))
+            {
+                return "Duplicate metric_name " + ((JsonObject) metric).getString(METRIC_NAME);
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * Validates one metric configuration.
+     *
+     * @return The error, or null if the configuration is valid.
+     */
+    private static String validateMetric(JsonObject metric)
+    {
+        var name = metric.getValue(METRIC_NAME);
+
+        var isEnabled = metric.getValue(IS_ENABLED);
+
+        if (!(name instanceof String) || !(isEnabled instanceof Boolean enabled))
+        {
+            return "metric_name and is_enabled are required";
+        }
+
+        if (!METRIC_NAMES.contains(name))
+        {
+            return "metric_name must be one of " + String.join(", ", METRIC_NAMES);
+        }
+
+        var interval = metric.getValue(POLLING_INTERVAL);
+
+        if (enabled && !(interval instanceof Integer value && value > 0))
+        {
+            return "polling_interval must be positive when is_enabled is true";
+        }
+
+        // Optional adaptive polling bounds; omitted bounds keep their stored value
+        var minInterval = metric.getValue(MIN_POLLING_INTERVAL);
+
+        var maxInterval = metric.getValue(MAX_POLLING_INTERVAL);
+
+        if ((minInterval != null && !(minInterval instanceof Integer min && min > 0))
+            || (maxInterval != null && !(maxInterval instanceof Integer max && max > 0))
+            || (minInterval != null && maxInterval != null && (Integer) minInterval > (Integer) maxInterval))
+        {
+            return "min_polling_interval and max_polling_interval must be positive and min <= max";
+        }
+
+        // Optional dispatch class of the metric, overriding the device's
+        var priority = metric.getValue(PRIORITY);
+
+        if (priority != null && !(priority instanceof String value && isPriority(value)))
+        {
+            return "priority must be one of HIGH, NORMAL, LOW";
+        }
+
+        return null;
+    }
+
+    // Disabled metrics may omit the interval
+    private static int effectiveInterval(JsonObject metric)
+    {
+        var interval = metric.getInteger(POLLING_INTERVAL);
+
+        return interval != null && interval > 0 ? interval : DEFAULT_POLLING_INTERVAL;
+    }
+
+    private static boolean isPriority(String priority)
+    {
+        for (var value : MetricJob.Priority.values())
+        {
+            if (value.name().equals(priority))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Handles GET requests for the metric jobs currently scheduled for a provisioning job.
+     * Served from the metric cache, so it reflects what the scheduler will poll next; credentials are not returned.
+     *
+     * @param context The routing context containing the HTTP request with provisioning job ID.
+     */
+    public void getCachedMetrics(RoutingContext context)
+    {
+        var id = APIUtils.parseIdFromPath(context, ID);
+
+        if (id == -1) return;
+
+        sendCachedMetrics(context, MetricCache.getInstance().getByProvisioningJob(id), "provisioning job " + id);
+    }
+
+    /**
+     * Handles GET requests for the metric jobs currently scheduled for the device with a given IP.
+     *
+     * @param context The routing context containing the HTTP request with the device IP.
+     */
+    public void getCachedMetricsByIp(RoutingContext context)
+    {
+        var ip = context.pathParam(IP);
+
+        sendCachedMetrics(context, MetricCache.getInstance().getByIp(ip), "ip " + ip);
+    }
+
+    /**
+     * Handles GET requests for the polling circuit breaker state of a provisioning job's device.
+     *
+     * @param context The routing context containing the HTTP request with provisioning job ID.
+     */
+    public void getHealth(RoutingContext context)
+    {
+        var id = APIUtils.parseIdFromPath(context, ID);
+
+        if (id == -1) return;
+
+        APIUtils.sendSuccess(context, 200, "Device health", new JsonArray().add(DeviceHealth.state(id)));
+    }
+
+    /**
+     * Handles GET requests for the latest polled value of each metric of a provisioning job.
+     *
+     * @param context The routing context containing the HTTP request with provisioning job ID.
+     */
+    public void getLatest(RoutingContext context)
+    {
+        var id = APIUtils.parseIdFromPath(context, ID);
+
+        if (id == -1) return;
+
+        APIUtils.sendSuccess(context, 200, "Latest values", LatestValues.get(id));
+    }
+
+    /**
+     * Handles GET requests to aggregate one numeric field of a metric over time buckets, computed in the database.
+     * Query parameters: metric_name and field (a dotted path into the polled data), from and to in epoch millis
+     * (default: the last hour), bucket in seconds (default 60) and functions, a comma list of avg, min, max, sum,
+     * count and p1 to p99 (default avg,min,max). The result is columnar: bucket starts followed by one array per
+     * function.
+     *
+     * @param context The routing context containing the HTTP request with provisioning job ID.
+     */
+    public void getAggregate(RoutingContext context)
+    {
+        try
+        {
+            var id = APIUtils.parseIdFromPath(context, ID);
+
+            if (id == -1) return;
+
+            var request = context.request();
+
+            var metricName = request.getParam(METRIC_NAME);
+
+            var field = request.getParam("field");
+
+            if (metricName == null || !METRIC_NAMES.contains(metricName) || field == null || field.isBlank())
+            {
+                APIUtils.sendError(context, 400, "metric_name and field are required");
+
+                return;
+            }
+
+            long to;
+
+            long from;
+
+            int bucket;
+
+            try
+            {
+                to = Long.parseLong(request.getParam("to", String.valueOf(System.currentTimeMillis())));
+
+                from = Long.parseLong(request.getParam("from", String.valueOf(to - 3_600_000L)));
+
+                bucket = Integer.parseInt(request.getParam("bucket", "60"));
+            }
+            catch (NumberFormatException exception)
+            {
+                APIUtils.sendError(context, 400, "from, to and bucket must be integers");
+
+                return;
+            }
+
+            if (bucket <= 0 || from >= to || (to - from) / (bucket * 1000L) >= AGGREGATE_MAX_BUCKETS)
+            {
+                APIUtils.sendError(context, 400, "bucket must be positive, from before to, and the range at most "
+                    + AGGREGATE_MAX_BUCKETS + " buckets");
+
+                return;
+            }
+
+            var functions = new ArrayList<String>();
+
+            for (var function : request.getParam("functions", AGGREGATE_DEFAULT_FUNCTIONS).split(","))
+            {
+                function = function.trim().toLowerCase();
+
+                if (Aggregation.column(function) == null)
+                {
+                    APIUtils.sendError(context, 400, "Unsupported function " + function
+                        + ": use avg, min, max, sum, count or p1 to p99");
+
+                    return;
+                }
+
+                if (!functions.contains(function))
+                {
+                    functions.add(function);
+                }
+            }
+
+            var query = new JsonObject()
+                .put(QUERY, Aggregation.query(functions))
+                .put(PARAMS, new JsonArray().add(id).add(metricName).add(field).add(from).add(to).add(bucket));
+
+            executeQuery(query).onComplete(result ->
+            {
+                if (result.failed())
+                {
+                    APIUtils.sendError(context, 500, "Aggregation failed: " + result.cause().getMessage());
+
+                    return;
+                }
+
+                var response = Aggregation.columns(result.result(), functions)
+                    .put(PROVISIONING_JOB_ID, id)
+                    .put(METRIC_NAME, metricName)
+                    .put("field", field)
+                    .put("bucket_seconds", bucket);
+
+                APIUtils.sendSuccess(context, 200, "Aggregated polled data", new JsonArray().add(response));
+            });
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Error aggregating polled data: {}", exception.getMessage());
+
+            APIUtils.sendError(context, 500, "Internal server error");
+        }
+    }
+
+    private void sendCachedMetrics(RoutingContext context, List<MetricJob> jobs, String device)
+    {
+        if (jobs.isEmpty())
+        {
+            APIUtils.sendError(context, 404, "No scheduled metrics for " + device);
+
+            return;
+        }
+
+        var result = new JsonArray();
+
+        jobs.forEach(job -> result.add(job.toJson()));
+
+        APIUtils.sendSuccess(context, 200, "Scheduled metrics", result);
+    }
+
     /**
      * Handles GET requests to retrieve all polled data for provisioning jobs.
      * Fetches polled data from the database and returns it.
@@ -0,0 +1,204 @@
+package com.example.NMS.api.handlers;
+
+import com.example.NMS.cluster.ClusterMembership;
+import com.example.NMS.metrics.Counter;
+import com.example.NMS.metrics.Metrics;
+import com.example.NMS.utility.APIUtils;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+
+/**
+ * Live metrics stream over Server-Sent Events.
+ * A client subscribes to one provisioning job, optionally narrowed to one metric, and receives each poll result as
+ * the ResponseProcessor ingests it, instead of re-querying polled data. Results are only published for provisioning
+ * jobs that have a subscriber. Each connection buffers at most LIVE_STREAM_QUEUE_SIZE events while the socket is
+ * not writable; beyond that the oldest event is dropped, so a slow consumer sees the latest values and never holds
+ * memory or back-pressures ingestion. Results are published by the node that polls the device, so a stream opened
+ * on another cluster node stays silent apart from heartbeats; the subscription comment names the owner node.
+ */
+public class Stream
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(Stream.class);
+
+    private static final Counter DROPPED = Metrics.counter("nms_stream_dropped_events_total",
+        "Live stream events dropped because a subscriber could not keep up");
+
+    // provisioning_job_id -> open subscriptions, read by the ResponseProcessor before publishing; counts change only
+    // inside the map's atomic updates, so a subscription never lands on an entry another instance is removing
+    static final ConcurrentHashMap<Long, Integer> subscribers = new ConcurrentHashMap<>();
+
+    private static final AtomicInteger connections = new AtomicInteger();
+
+    static
+    {
+        Metrics.gauge("nms_stream_connections", "Open live stream connections", connections::get);
+    }
+
+    public void init(Router router)
+    {
+        router.get("/api/stream").handler(this::subscribe);
+    }
+
+    /**
+     * Returns whether any connection is subscribed to the provisioning job's results.
+     *
+     * @param provisioningJobId The provisioning job ID.
+     */
+    public static boolean hasSubscribers(long provisioningJobId)
+    {
+        return subscribers.containsKey(provisioningJobId);
+    }
+
+    /**
+     * Publishes a poll result to the subscribers of its provisioning job.
+     *
+     * @param provisioningJobId The provisioning job ID.
+     * @param metricName        The metric name.
+     * @param data              The polled values.
+     * @param timestamp         The poll time in epoch millis.
+     */
+    public static void publish(long provisioningJobId, String metricName, JsonObject data, Long timestamp)
+    {
+        vertx.eventBus().publish(LIVE_METRICS + "." + provisioningJobId, new JsonObject()
+            .put(PROVISIONING_JOB_ID, provisioningJobId)
+            .put(METRIC_NAME, metricName)
+            .put("data", data)
+            .put("timestamp", timestamp));
+    }
+
+    /**
+     * Handles GET /api/stream?provisioning_job_id=..[&metric_name=..] by opening an event stream.
+     *
+     * @param context The routing context of the subscription request.
+     */
+    private void subscribe(RoutingContext context)
+    {
+        long provisioningJobId;
+
+        try
+        {
+            provisioningJobId = Long.parseLong(context.request().getParam(PROVISIONING_JOB_ID));
+        }
+        catch (NumberFormatException exception)
+        {
+            APIUtils.sendError(context, 400, "Missing or invalid provisioning_job_id");
+
+            return;
+        }
+
+        var metricName = context.request().getParam(METRIC_NAME);
+
+        var response = context.response()
+            .setChunked(true)
+            .putHeader("Content-Type", "text/event-stream")
+            .putHeader("Cache-Control", "no-cache")
+            .putHeader("Connection", "keep-alive");
+
+        response.write(": subscribed, polled by " + ClusterMembership.owner(provisioningJobId) + "\n\n");
+
+        new Subscription(response, provisioningJobId, metricName, LIVE_STREAM_HEARTBEAT_SECONDS * 1000L);
+    }
+
+    /**
+     * One open event stream. Runs entirely on the event loop of the server instance that accepted it.
+     */
+    static final class Subscription
+    {
+        private final HttpServerResponse response;
+
+        private final long provisioningJobId;
+
+        private final String metricName;
+
+        private final ArrayDeque<String> queue = new ArrayDeque<>();
+
+        private final MessageConsumer<JsonObject> consumer;
+
+        private final long heartbeatTimerId;
+
+        /**
+         * @param heartbeatMs The period of the keep-alive comments, in milliseconds.
+         */
+        Subscription(HttpServerResponse response, long provisioningJobId, String metricName, long heartbeatMs)
+        {
+            this.response = response;
+
+            this.provisioningJobId = provisioningJobId;
+
+            this.metricName = metricName;
+
+            subscribers.merge(provisioningJobId, 1, Integer::sum);
+
+            connections.incrementAndGet();
+
+            consumer = vertx.eventBus().<JsonObject>localConsumer(LIVE_METRICS + "." + provisioningJobId,
+                message -> offer(message.body()));
+
+            // Comment lines keep idle connections open through proxies
+            heartbeatTimerId = vertx.setPeriodic(heartbeatMs, id -> offerRaw(": heartbeat\n\n"));
+
+            response.drainHandler(ignored -> drain());
+
+            response.closeHandler(ignored -> close());
+
+            LOGGER.debug("Live stream opened for provisioning_job_id={}", provisioningJobId);
+        }
+
+        private void offer(JsonObject event)
+        {
+            if (metricName == null || metricName.equals(event.getString(METRIC_NAME)))
+            {
+                offerRaw("event: metric\ndata: " + event.encode() + "\n\n");
+            }
+        }
+
+        private void offerRaw(String event)
+        {
+            if (queue.size() == LIVE_STREAM_QUEUE_SIZE)
+            {
+                queue.poll();
+
+                DROPPED.increment();
+            }
+
+            queue.add(event);
+
+            drain();
+        }
+
+        private void drain()
+        {
+            while (!queue.isEmpty() && !response.writeQueueFull() && !response.closed())
+            {
+                response.write(queue.poll());
+            }
+        }
+
+        private void close()
+        {
+            consumer.unregister();
+
+            vertx.cancelTimer(heartbeatTimerId);
+
+            queue.clear();
+
+            subscribers.computeIfPresent(provisioningJobId, (key, count) -> count == 1 ? null : count - 1);
+
+            connections.decrementAndGet();
+
+            LOGGER.debug("Live stream closed for provisioning_job_id={}", provisioningJobId);
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.NMS.cache;
+
+import com.example.NMS.api.TokenAuthHandler;
+import com.example.NMS.database.DatabaseClient;
+import com.example.NMS.metrics.Counter;
+import com.example.NMS.metrics.Metrics;
+import com.example.NMS.utility.DBUtils;
+import com.example.NMS.utility.TableVersions;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.pgclient.pubsub.PgSubscriber;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import static com.example.NMS.constant.Constant.*;
+import static com.example.NMS.constant.QueryConstant.*;
+
+/**
+ * Vert.x verticle keeping the MetricCache in step with the database.
+ * Listens on the channel fed by the schema's cache triggers and applies each announced row change as a narrow
+ * reload of the affected metric jobs, so changes made by any NMS node, or directly in the database, reach the
+ * cache without full reloads. The listener deploys before the Scheduler loads the cache, so it is listening before the
+ * load reads the database and the first subscription needs no resync. A full resync happens only after the listening
+ * connection is re-established, since notifications sent while it was down are lost. Statements changing many
+ * metrics, such as bulk provisioning, are announced as runs of consecutive metric_ids and reloaded with one query per
+ * notification, touching only the changed metrics. Every announced change also bumps the table's
+ * version, invalidating the API's ETags for it; other changes announced without an ID only do that. Token
+ * revocations travel on the same channel and are handed to the TokenAuthHandler, which reloads them all on every
+ * (re)connection.
+ */
+public class CacheListener extends AbstractVerticle
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(CacheListener.class);
+
+    private static final Counter NOTIFICATIONS = Metrics.counter("nms_cache_notifications_total",
+        "Cache change notifications received from the database");
+
+    private static final Counter RESYNCS = Metrics.counter("nms_cache_resyncs_total",
+        "Full cache reloads after the notification listener reconnected");
+
+    private PgSubscriber subscriber;
+
+    // Deltas are applied one at a time, in notification order
+    private Future<Void> applying = Future.succeededFuture();
+
+    private boolean subscribed = false;
+
+    /**
+     * Starts the listener verticle.
+     * Opens a dedicated LISTEN connection that reconnects with capped exponential backoff.
+     *
+     * @param startPromise The promise to complete or fail based on startup success.
+     */
+    @Override
+    public void start(Promise<Void> startPromise)
+    {
+        subscriber = PgSubscriber.subscriber(vertx, DatabaseClient.connectOptions())
+            .reconnectPolicy(retries -> Math.min(1000L << Math.min(retries, 5), CACHE_LISTENER_MAX_RECONNECT_DELAY_MS));
+
+        subscriber.channel(CACHE_CHANNEL)
+            .handler(this::onNotification)
+            .subscribeHandler(ignored -> onSubscribed());
+
+        subscriber.closeHandler(ignored -> LOGGER.warn("Cache listener connection closed"));
+
+        subscriber.connect()
+            .onSuccess(ignored ->
+            {
+                LOGGER.info("CacheListener started on channel {}", CACHE_CHANNEL);
+
+                startPromise.complete();
+            })
+            .onFailure(error ->
+            {
+                LOGGER.error("Failed to start CacheListener: {}", error.getMessage());
+
+                startPromise.fail(error);
+            });
+    }
+
+    /**
+     * Handles each (re)subscription of the channel. The connection completes only once LISTEN is active, and the
+     * Scheduler's initial load starts after that, so the first subscription has missed nothing; later ones may have.
+     */
+    void onSubscribed()
+    {
+        if (subscribed)
+        {
+            RESYNCS.increment();
+
+            enqueue(() -> MetricCache.getInstance().resync());
+        }
+
+        subscribed = true;
+
+        TokenAuthHandler.loadRevocations()
+            .onFailure(error -> LOGGER.error("Failed to load token revocations: {}", error.getMessage()));
+    }
+
+    /**
+     * Maps a notification to the reload it requires.
+     *
+     * @param payload The notification payload: {"table", "op", "id"}, {"table", "op": "BULK", "ranges": [[first, last],
+     *                ...]}, or for a token revocation {"table", "op", "id", "expires_at"}.
+     */
+    void onNotification(String payload)
+    {
+        NOTIFICATIONS.increment();
+
+        try
+        {
+            var change = new JsonObject(payload);
+
+            var table = change.getString(TABLE);
+
+            var operation = change.getString(OPERATION);
+
+            TableVersions.bump(table);
+
+            if ("metrics".equals(table) && "BULK".equals(operation))
+            {
+                var ranges = change.getJsonArray("ranges");
+
+                LOGGER.debug("Cache change: bulk metrics in {} ranges", ranges.size());
+
+                var cache = MetricCache.getInstance();
+
+                enqueue(() -> DBUtils.executeQuery(new JsonObject()
+                        .put(QUERY, GET_ACTIVE_METRIC_JOBS_BY_METRIC_RANGES)
+                        .put(PARAMS, new JsonArray().add(ranges)))
+                    .compose(rows -> run(() -> cache.replace(MetricCache.metricJobCache.values().stream()
+                        .filter(job -> covers(ranges, job.metricId()))
+                        .collect(Collectors.toList()), rows))));
+
+                return;
+            }
+
+            if ("revoked_tokens".equals(table))
+            {
+                TokenAuthHandler.revoked(change.getString(ID), change.getLong(EXPIRES_AT));
+
+                return;
+            }
+
+            if (change.getString(ID) == null)
+            {
+                return;
+            }
+
+            var id = Long.parseLong(change.getString(ID));
+
+            LOGGER.debug("Cache change: {} {} {}", table, operation, id);
+
+            var cache = MetricCache.getInstance();
+
+            switch (table)
+            {
+                case "metrics" ->
+                {
+                    if ("DELETE".equals(operation))
+                    {
+                        enqueue(() -> run(() -> cache.remove(id)));
+                    }
+                    else
+                    {
+                        enqueue(() -> reload(GET_ACTIVE_METRIC_JOB_BY_METRIC_ID, id)
+                            .compose(rows -> run(() ->
+                            {
+                                var cached = cache.get(id);
+
+                                cache.replace(cached == null ? List.of() : List.of(cached), rows);
+                            })));
+                    }
+                }
+
+                case "provisioning_jobs" ->
+                {
+                    if ("DELETE".equals(operation))
+                    {
+                        enqueue(() -> run(() -> cache.delete(id)));
+                    }
+                    else
+                    {
+                        enqueue(() -> reload(GET_ACTIVE_METRIC_JOBS_BY_PROVISIONING_JOB, id)
+                            .compose(rows -> run(() -> cache.replace(cache.getByProvisioningJob(id), rows))));
+                    }
+                }
+
+                case "credential_profile" ->
+                    enqueue(() -> reload(GET_ACTIVE_METRIC_JOBS_BY_CREDENTIAL, id)
+                        .compose(rows -> run(() -> cache.replace(MetricCache.metricJobCache.values().stream()
+                            .filter(job -> job.credential().credentialProfileId() == id)
+                            .collect(Collectors.toList()), rows))));
+
+                default -> LOGGER.debug("Ignoring change on table {}", table);
+            }
+        }
+        catch (Exception exception)
+        {
+            LOGGER.error("Invalid cache notification {}: {}", payload, exception.getMessage());
+        }
+    }
+
+    // Whether a metric_id falls in one of the [first, last] runs of a bulk notification
+    private static boolean covers(JsonArray ranges, long metricId)
+    {
+        for (var i = 0; i < ranges.size(); i++)
+        {
+            var range = ranges.getJsonArray(i);
+
+            if (metricId >= range.getLong(0) && metricId <= range.getLong(1))
+            {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private Future<JsonArray> reload(String query, long id)
+    {
+        return DBUtils.executeQuery(new JsonObject()
+            .put(QUERY, query)
+            .put(PARAMS, new JsonArray().add(id)));
+    }
+
+    private void enqueue(Supplier<Future<Void>> delta)
+    {
+        applying = applying
+            .compose(ignored -> delta.get())
+            .recover(error ->
+            {
+                LOGGER.error("Failed to apply cache change: {}", error.getMessage());
+
+                return Future.succeededFuture();
+            });
+    }
+
+    private static Future<Void> run(Runnable action)
+    {
+        action.run();
+
+        return Future.succeededFuture();
+    }
+
+    @Override
+    public void stop(Promise<Void> stopPromise)
+    {
+        subscriber.close().onComplete(ignored -> stopPromise.complete());
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.NMS.cache;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Compact CBOR snapshot of the MetricCache and the scheduler's phase, used to warm-restart without re-querying
+ * the full metric join or resetting every countdown to its full interval.
+ * The file is a CBOR array [version, taken-at epoch millis, [job...]], each job being a flat array of its fields.
+ * Credentials are not written: restored jobs carry only the credential profile ID until the background
+ * reconciliation with the database fills the login details in.
+ */
+public class CacheSnapshot
+{
+    private static final int FORMAT_VERSION = 3;
+
+    private static final CBORFactory CBOR = new CBORFactory();
+
+    private CacheSnapshot(){}
+
+    /**
+     * Writes the snapshot to a temporary file and atomically moves it into place, so a crash mid-write leaves
+     * the previous snapshot intact.
+     *
+     * @param file The snapshot file.
+     * @param jobs The cached metric jobs.
+     * @return The number of jobs written.
+     * @throws IOException If the snapshot cannot be written.
+     */
+    public static int write(Path file, Collection<MetricJob> jobs) throws IOException
+    {
+        var directory = file.toAbsolutePath().getParent();
+
+        Files.createDirectories(directory);
+
+        var temporary = directory.resolve(file.getFileName() + ".tmp");
+
+        var written = 0;
+
+        try (var generator = CBOR.createGenerator(new BufferedOutputStream(Files.newOutputStream(temporary))))
+        {
+            generator.writeStartArray();
+
+            generator.writeNumber(FORMAT_VERSION);
+
+            generator.writeNumber(System.currentTimeMillis());
+
+            generator.writeStartArray();
+
+            for (var job : jobs)
+            {
+                var device = job.device();
+
+                generator.writeStartArray();
+
+                generator.writeNumber(job.metricId());
+
+                generator.writeString(job.metricName());
+
+                generator.writeNumber(job.interval());
+
+                generator.writeNumber(job.minInterval());
+
+                generator.writeNumber(job.maxInterval());
+
+                generator.writeNumber(job.effectiveInterval());
+
+                generator.writeNumber(job.priority().ordinal());
+
+                generator.writeNumber(job.remainingTime());
+
+                generator.writeNumber(device.provisioningJobId());
+
+                generator.writeString(device.ip());
+
+                generator.writeNumber(device.port());
+
+                generator.writeString(device.protocol());
+
+                generator.writeNumber(job.credential().credentialProfileId());
+
+                generator.writeEndArray();
+
+                written++;
+            }
+
+            generator.writeEndArray();
+
+            generator.writeEndArray();
+        }
+
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        return written;
+    }
+
+    /**
+     * Reads a snapshot, moving each job's countdown forward by the time elapsed since the snapshot was taken.
+     *
+     * @param file The snapshot file.
+     * @return The restored metric jobs, with interned devices and credential placeholders.
+     * @throws IOException If the file cannot be read or is not a snapshot of the current format.
+     */
+    public static List<MetricJob> read(Path file) throws IOException
+    {
+        try (var parser = CBOR.createParser(new BufferedInputStream(Files.newInputStream(file))))
+        {
+            expect(parser, JsonToken.START_ARRAY);
+
+            var version = nextInt(parser);
+
+            if (version != FORMAT_VERSION)
+            {
+                throw new IOException("Unsupported snapshot version " + version);
+            }
+
+            var elapsedSeconds = Math.max(0, (System.currentTimeMillis() - nextLong(parser)) / 1000);
+
+            expect(parser, JsonToken.START_ARRAY);
+
+            var jobs = new ArrayList<MetricJob>();
+
+            while (parser.nextToken() == JsonToken.START_ARRAY)
+            {
+                var metricId = nextLong(parser);
+
+                var metricName = nextString(parser);
+
+                var interval = nextInt(parser);
+
+                var minInterval = nextInt(parser);
+
+                var maxInterval = nextInt(parser);
+
+                var effectiveInterval = nextInt(parser);
+
+                var priority = MetricJob.Priority.values()[nextInt(parser)];
+
+                var remainingTime = resume(nextInt(parser), effectiveInterval, elapsedSeconds);
+
+                var device = new MetricJob.Device(nextLong(parser), nextString(parser), nextInt(parser), nextString(parser));
+
+                var credential = new MetricJob.Credential(nextLong(parser), null, null);
+
+                expect(parser, JsonToken.END_ARRAY);
+
+                var job = MetricCache.intern(metricId, metricName, interval, minInterval, maxInterval, priority, remainingTime,
+                    device, credential);
+
+                job.schedule(effectiveInterval, remainingTime);
+
+                jobs.add(job);
+            }
+
+            return jobs;
+        }
+    }
+
+    /**
+     * Moves a countdown forward by the elapsed time while keeping the job on its original polling grid,
+     * i.e. as if the scheduler had kept ticking while the process was down.
+     *
+     * @param remainingTime  The countdown when the snapshot was taken.
+     * @param interval       The polling interval.
+     * @param elapsedSeconds The seconds since the snapshot was taken.
+     * @return The countdown, in (0, interval].
+     */
+    static int resume(int remainingTime, int interval, long elapsedSeconds)
+    {
+        return (int) (Math.floorMod(remainingTime - 1 - elapsedSeconds, (long) interval) + 1);
+    }
+
+    private static void expect(JsonParser parser, JsonToken token) throws IOException
+    {
+        if (parser.nextToken() != token)
+        {
+            throw new IOException("Malformed snapshot: expected " + token + " but found " + parser.currentToken());
+        }
+    }
+
+    private static int nextInt(JsonParser parser) throws IOException
+    {
+        parser.nextToken();
+
+        return parser.getIntValue();
+    }
+
+    private static long nextLong(JsonParser parser) throws IOException
+    {
+        parser.nextToken();
+
+        return parser.getLongValue();
+    }
+
+    private static String nextString(JsonParser parser) throws IOException
+    {
+        parser.nextToken();
+
+        return parser.getValueAsString();
+    }
+}
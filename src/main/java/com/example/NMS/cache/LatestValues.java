@@ -0,0 +1,146 @@
+package com.example.NMS.cache;
+
+import com.example.NMS.cluster.ClusterMembership;
+import com.example.NMS.polling.DeviceHealth;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.NMS.constant.Constant.*;
+
+/**
+ * Most recent polled value of every metric of every device, kept by the ResponseProcessor as results arrive.
+ * Serves "current status" reads from memory instead of sorting polled_data history. Values are not persisted: after
+ * a restart each metric reappears with its next poll.
+ * Values and breaker states are node-local: only the node owning a device on the cluster ring polls it, so another
+ * node answers with the values it had before a rebalance, or none. Every row therefore names the owner node and
+ * whether it is the answering one; clients needing fresh values of a device not owned here should ask its owner.
+ */
+public class LatestValues
+{
+    // provisioning_job_id -> metric name -> latest sample
+    private static final ConcurrentHashMap<Long, ConcurrentHashMap<String, Sample>> values = new ConcurrentHashMap<>();
+
+    private record Sample(JsonObject data, long polledAt)
+    {
+    }
+
+    private LatestValues(){}
+
+    /**
+     * Records a polled value unless a newer one is already stored, e.g. from a batch that finished earlier.
+     *
+     * @param provisioningJobId The provisioning job ID.
+     * @param metricName        The metric name.
+     * @param data              The polled values.
+     * @param polledAt          The poll time in epoch millis.
+     */
+    public static void update(long provisioningJobId, String metricName, JsonObject data, long polledAt)
+    {
+        values.computeIfAbsent(provisioningJobId, key -> new ConcurrentHashMap<>())
+            .merge(metricName, new Sample(data, polledAt), (current, next) -> next.polledAt() >= current.polledAt() ? next : current);
+    }
+
+    /**
+     * Returns the latest value of each metric of a device.
+     *
+     * @param provisioningJobId The provisioning job ID.
+     * @return One row per metric with its data, poll time and owner; empty if nothing was polled here since startup.
+     */
+    public static JsonArray get(long provisioningJobId)
+    {
+        var rows = new JsonArray();
+
+        var metrics = values.get(provisioningJobId);
+
+        if (metrics != null)
+        {
+            var owner = ClusterMembership.owner(provisioningJobId);
+
+            var owned = ClusterMembership.owns(provisioningJobId);
+
+            metrics.forEach((metricName, sample) -> rows.add(new JsonObject()
+                .put(METRIC_NAME, metricName)
+                .put("data", sample.data())
+                .put(POLLED_AT, sample.polledAt())
+                .put(OWNER_NODE, owner)
+                .put(OWNED, owned)));
+        }
+
+        return rows;
+    }
+
+    /**
+     * Returns the status of every cached device: its polling health, when each of its metrics was last polled and
+     * which node polls it. Health and poll times are only current on rows this node owns.
+     */
+    public static JsonArray status()
+    {
+        var rows = new JsonArray();
+
+        var cache = MetricCache.getInstance();
+
+        for (var provisioningJobId : cache.provisioningJobIds())
+        {
+            var jobs = cache.getByProvisioningJob(provisioningJobId);
+
+            if (jobs.isEmpty())
+            {
+                continue;
+            }
+
+            var polled = new JsonObject();
+
+            var lastPolledAt = 0L;
+
+            var metrics = values.get(provisioningJobId);
+
+            for (var job : jobs)
+            {
+                var sample = metrics == null ? null : metrics.get(job.metricName());
+
+                polled.put(job.metricName(), sample == null ? null : sample.polledAt());
+
+                lastPolledAt = sample == null ? lastPolledAt : Math.max(lastPolledAt, sample.polledAt());
+            }
+
+            rows.add(new JsonObject()
+                .put(PROVISIONING_JOB_ID, provisioningJobId)
+                .put(IP, jobs.get(0).ip())
+                .put(STATE, DeviceHealth.state(provisioningJobId).getString(STATE))
+                .put("last_polled_at", lastPolledAt == 0 ? null : lastPolledAt)
+                .put("metrics", polled)
+                .put(OWNER_NODE, ClusterMembership.owner(provisioningJobId))
+                .put(OWNED, ClusterMembership.owns(provisioningJobId)));
+        }
+
+        return rows;
+    }
+
+    /**
+     * Drops the value of a removed metric.
+     *
+     * @param provisioningJobId The provisioning job ID.
+     * @param metricName        The metric name.
+     */
+    static void forget(long provisioningJobId, String metricName)
+    {
+        values.computeIfPresent(provisioningJobId, (key, metrics) ->
+        {
+            metrics.remove(metricName);
+
+            return metrics.isEmpty() ? null : metrics;
+        });
+    }
+
+    /**
+     * Drops the values of a deprovisioned device.
+     *
+     * @param provisioningJobId The provisioning job ID.
+     */
+    static void forget(long provisioningJobId)
+    {
+        values.remove(provisioningJobId);
+    }
+}
@@ -1,22 +1,36 @@
 package com.example.NMS.cache;
 
+import com.example.NMS.metrics.Startup;
+import com.example.NMS.polling.AdaptiveInterval;
+import com.example.NMS.polling.DeviceHealth;
 import com.example.NMS.utility.DBUtils;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 
+import static com.example.NMS.Main.vertx;
 import static com.example.NMS.constant.Constant.*;
 import static com.example.NMS.constant.QueryConstant.GET_ACTIVE_METRIC_JOBS;
+import static com.example.NMS.constant.QueryConstant.GET_ACTIVE_METRIC_JOBS_PAGE;
 
 /**
  * In-memory cache for managing metric jobs in Lite NMS.
  * Stores metric job details (e.g., metric ID, provisioning job ID, IP, port, credentials) in a thread-safe
  * ConcurrentHashMap and handles initialization, updates, and polling intervals for metric collection.
+ * Rows arrive as JSON and are converted to compact MetricJob entries whose device and credential references are
+ * interned, so every metric of a host shares one Device and every host of a profile shares one Credential.
  */
 public class MetricCache implements cache
 {
@@ -37,74 +51,409 @@ public class MetricCache implements cache
 
     private static final Logger LOGGER = LoggerFactory.getLogger(MetricCache.class);
 
-    // Thread-safe cache of metric jobs: metric_id -> JsonObject
-    public static final ConcurrentHashMap<Long, JsonObject> metricJobCache = new ConcurrentHashMap<>();
+    // Thread-safe cache of metric jobs: metric_id -> MetricJob
+    public static final ConcurrentHashMap<Long, MetricJob> metricJobCache = new ConcurrentHashMap<>();
+
+    // Secondary indexes: provisioning_job_id -> metric ids, ip -> metric ids, credential_profile_id -> number of jobs;
+    // maintained under the instance lock, and package-private so tests can check them against the primary map
+    static final ConcurrentHashMap<Long, Set<Long>> metricIdsByProvisioningJob = new ConcurrentHashMap<>();
+
+    static final ConcurrentHashMap<String, Set<Long>> metricIdsByIp = new ConcurrentHashMap<>();
+
+    static final ConcurrentHashMap<Long, Integer> jobCountsByCredentialProfile = new ConcurrentHashMap<>();
+
+    // Canonical device instances keyed by provisioning job, and credential instances keyed by credential profile, so
+    // each holds one entry per live device or profile and a changed profile replaces its old value. Entries are
+    // dropped once no cached job uses them.
+    static final ConcurrentHashMap<Long, MetricJob.Device> devices = new ConcurrentHashMap<>();
+
+    static final ConcurrentHashMap<Long, MetricJob.Credential> credentials = new ConcurrentHashMap<>();
 
     // Flag to ensure cache is initialized only once
     private static boolean isCacheInitialized = false;
 
     /**
-     * Initializes the cache by querying the database for enabled metric jobs.
-     * Populates the cache with metric details, including IP, port, and credentials, and sets the initialization flag.
-     * Skips initialization if the cache is already populated.
+     * Initializes the cache, preferring the local snapshot over the database.
+     * With a snapshot, jobs resume at their previous polling phase right away and the cache is reconciled with the
+     * database in the background. Without one, jobs are loaded in keyset-paginated pages so polling can begin with
+     * the first page while the rest streams in. Skips initialization if the cache is already populated.
+     *
+     * @return A future completing once the snapshot or the first page is cached, or failing if neither can be loaded.
+     *         Later pages that fail to load are retried until they succeed.
      */
-    public void init()
+    public Future<Void> init()
     {
         if (isCacheInitialized)
         {
             LOGGER.info("Cache already initialized, skipping refresh");
 
-            return;
+            return Future.succeededFuture();
         }
 
-        // Execute the query and populate the cache
-        DBUtils.executeQuery(new JsonObject().put(QUERY, GET_ACTIVE_METRIC_JOBS))
+        var snapshot = Path.of(SNAPSHOT_FILE);
+
+        if (!Files.exists(snapshot))
+        {
+            return loadFromDatabase();
+        }
+
+        return vertx.executeBlocking(() -> CacheSnapshot.read(snapshot))
+            .compose(jobs ->
+            {
+                jobs.forEach(this::put);
+
+                isCacheInitialized = true;
+
+                Startup.reached(STARTUP_CACHE_LOADED);
+
+                LOGGER.info("Restored {} jobs from snapshot, reconciling with database", jobs.size());
+
+                resync().onFailure(error -> LOGGER.error("Snapshot reconciliation failed: {}", error.getMessage()));
+
+                return Future.<Void>succeededFuture();
+            }, error ->
+            {
+                LOGGER.warn("Ignoring unreadable snapshot {}: {}", snapshot, error.getMessage());
+
+                return loadFromDatabase();
+            });
+    }
+
+    /**
+     * Writes the cache and the scheduler's phase to the snapshot file, off the event loop.
+     * Countdowns are read while the scheduler may be ticking; a job captured one tick early or late only shifts
+     * its resumed phase by one tick.
+     *
+     * @return A future with the number of jobs written, or 0 if the cache has not finished loading.
+     */
+    public Future<Integer> snapshot()
+    {
+        if (!isCacheInitialized)
+        {
+            return Future.succeededFuture(0);
+        }
+
+        return vertx.executeBlocking(() -> CacheSnapshot.write(Path.of(SNAPSHOT_FILE), metricJobCache.values()));
+    }
+
+    private Future<Void> loadFromDatabase()
+    {
+        var firstPage = Promise.<Void>promise();
+
+        loadPage(0L, firstPage);
+
+        return firstPage.future();
+    }
+
+    /**
+     * Loads the page of active metric jobs following a metric ID, then the next page until a short page ends the load.
+     *
+     * @param afterMetricId The last metric ID of the previous page, 0 for the first page.
+     * @param firstPage     Completed once the first page is cached.
+     */
+    private void loadPage(long afterMetricId, Promise<Void> firstPage)
+    {
+        var query = new JsonObject()
+            .put(QUERY, GET_ACTIVE_METRIC_JOBS_PAGE)
+            .put(PARAMS, new JsonArray().add(afterMetricId).add(CACHE_LOAD_PAGE_SIZE));
+
+        DBUtils.executeQuery(query)
             .onComplete(queryResult ->
             {
                 if(queryResult.succeeded())
                 {
                     var result = queryResult.result();
 
-                    result.forEach(entry ->
+                    var lastMetricId = afterMetricId;
+
+                    for (var i = 0; i < result.size(); i++)
                     {
-                        var metric = (JsonObject) entry;
+                        var job = toJob(result.getJsonObject(i));
 
-                        var metricId = metric.getLong(METRIC_ID);
+                        put(job);
 
-                        var job = new JsonObject()
-                            .put(METRIC_ID, metricId)
-                            .put(PROVISIONING_JOB_ID, metric.getLong(PROVISIONING_JOB_ID))
-                            .put(METRIC_NAME, metric.getString(METRIC_NAME))
-                            .put(IP, metric.getString(IP))
-                            .put(PORT, metric.getInteger(PORT))
-                            .put(PROTOCOL, metric.getString(PROTOCOL))
-                            .put(CRED_DATA, metric.getJsonObject(CRED_DATA))
-                            .put(ORIGINAL_INTERVAL, metric.getInteger(POLLING_INTERVAL))
-                            .put(REMAINING_TIME, metric.getInteger(POLLING_INTERVAL))
-                            .put(IS_ENABLED, metric.getBoolean(IS_ENABLED));
+                        lastMetricId = job.metricId();
+                    }
 
+                    firstPage.tryComplete();
+
+                    if (result.size() == CACHE_LOAD_PAGE_SIZE)
+                    {
+                        loadPage(lastMetricId, firstPage);
 
-                        metricJobCache.put(metricId, job);
-                    });
+                        return;
+                    }
 
                     isCacheInitialized = true;
 
+                    Startup.reached(STARTUP_CACHE_LOADED);
+
                     LOGGER.info("Initial cache populated with {} jobs", metricJobCache.size());
                 }
                 else
                 {
                     var error = queryResult.cause();
 
-                    LOGGER.error("Initial cache refresh failed: {}", error.getMessage());
+                    LOGGER.error("Initial cache refresh failed after metric_id={}: {}", afterMetricId, error.getMessage());
+
+                    // Once polling runs on the pages loaded so far, the rest must still stream in
+                    if (!firstPage.tryFail(error))
+                    {
+                        vertx.setTimer(CACHE_LOAD_RETRY_DELAY_MS, id -> loadPage(afterMetricId, firstPage));
+                    }
                 }
             });
     }
 
+    /**
+     * Reloads every active metric job and drops cached jobs that are no longer active.
+     * Used only when change notifications may have been missed, e.g. after the listener reconnects.
+     *
+     * @return A future completing once the cache matches the database.
+     */
+    public Future<Void> resync()
+    {
+        return DBUtils.executeQuery(new JsonObject().put(QUERY, GET_ACTIVE_METRIC_JOBS))
+            .map(rows ->
+            {
+                replace(metricJobCache.values(), rows);
+
+                LOGGER.info("Cache resynchronized with {} jobs", metricJobCache.size());
+
+                return null;
+            });
+    }
+
+    /**
+     * Replaces a set of cached jobs with freshly loaded rows: rows are refreshed, and jobs of the set that were
+     * not returned are removed.
+     *
+     * @param cached The cached jobs covered by the reload.
+     * @param rows   The reloaded metric job rows.
+     */
+    public void replace(Collection<MetricJob> cached, JsonArray rows)
+    {
+        var active = new HashSet<Long>();
+
+        for (var i = 0; i < rows.size(); i++)
+        {
+            var row = rows.getJsonObject(i);
+
+            active.add(row.getLong(METRIC_ID));
+
+            refresh(row);
+        }
+
+        cached.stream()
+            .map(MetricJob::metricId)
+            .filter(metricId -> !active.contains(metricId))
+            .toList()
+            .forEach(this::remove);
+    }
+
     public void insert(JsonObject job)
     {
-        metricJobCache.put(job.getLong(METRIC_ID), job);
+        put(toJob(job));
+
+        LOGGER.debug("Added metric job to cache: metric_id={}", job.getLong(METRIC_ID));
+    }
+
+    /**
+     * Adds or replaces the metric jobs of a bulk request in one pass, taking the cache lock once instead of per job.
+     * Disabled jobs are removed.
+     *
+     * @param rows The metric job rows.
+     */
+    public void updateAll(List<JsonObject> rows)
+    {
+        var enabled = new ArrayList<MetricJob>(rows.size());
+
+        for (var row : rows)
+        {
+            if (row.getBoolean(IS_ENABLED, true))
+            {
+                enabled.add(toJob(row));
+            }
+            else
+            {
+                remove(row.getLong(METRIC_ID));
+            }
+        }
+
+        putAll(enabled);
+
+        LOGGER.debug("Updated {} metric jobs in cache", rows.size());
+    }
+
+    /**
+     * Returns the cached metric job with the given ID, or null if it is not cached.
+     *
+     * @param metricId The metric ID.
+     */
+    public MetricJob get(long metricId)
+    {
+        return metricJobCache.get(metricId);
+    }
+
+    /**
+     * Returns the cached metric jobs of a provisioning job.
+     *
+     * @param provisioningJobId The provisioning job ID.
+     * @return The metric jobs, empty if the device has none cached.
+     */
+    public List<MetricJob> getByProvisioningJob(long provisioningJobId)
+    {
+        return resolve(metricIdsByProvisioningJob.get(provisioningJobId));
+    }
+
+    /**
+     * Returns the provisioning job IDs that have cached metric jobs.
+     */
+    public Set<Long> provisioningJobIds()
+    {
+        return metricIdsByProvisioningJob.keySet();
+    }
+
+    /**
+     * Returns the cached metric jobs of the device with the given IP.
+     *
+     * @param ip The device IP.
+     * @return The metric jobs, empty if the device has none cached.
+     */
+    public List<MetricJob> getByIp(String ip)
+    {
+        return resolve(metricIdsByIp.get(ip));
+    }
+
+    private List<MetricJob> resolve(Set<Long> metricIds)
+    {
+        var jobs = new ArrayList<MetricJob>();
+
+        if (metricIds != null)
+        {
+            for (var metricId : metricIds)
+            {
+                var job = metricJobCache.get(metricId);
 
-        LOGGER.info("Added metric job to cache: metric_id={}", job.getLong(METRIC_ID));
+                if (job != null)
+                {
+                    jobs.add(job);
+                }
+            }
+        }
+
+        return jobs;
+    }
+
+    /**
+     * Adds or replaces a metric job, keeping the secondary indexes in step with the primary map.
+     *
+     * @param job The metric job to cache.
+     */
+    private synchronized void put(MetricJob job)
+    {
+        var previous = metricJobCache.put(job.metricId(), job);
+
+        if (previous != null)
+        {
+            unindex(previous);
+        }
+
+        metricIdsByProvisioningJob.computeIfAbsent(job.provisioningJobId(), key -> ConcurrentHashMap.newKeySet()).add(job.metricId());
+
+        metricIdsByIp.computeIfAbsent(job.ip(), key -> ConcurrentHashMap.newKeySet()).add(job.metricId());
+
+        jobCountsByCredentialProfile.merge(job.credential().credentialProfileId(), 1, Integer::sum);
+
+        // Only drops what the new job does not use, e.g. the profile a job was moved away from
+        if (previous != null)
+        {
+            prune(previous);
+        }
+    }
+
+    private synchronized void putAll(List<MetricJob> jobs)
+    {
+        for (var job : jobs)
+        {
+            put(job);
+        }
+    }
+
+    /**
+     * Applies a reloaded metric job row, keeping the poll countdown of the job it replaces so a change
+     * announced by the database does not reset or bunch up polling. Synchronized like the other mutators, so a
+     * delete cannot land between reading the old job and putting the new one.
+     *
+     * @param row The metric job row, as returned by the active metric job queries.
+     */
+    public synchronized void refresh(JsonObject row)
+    {
+        var job = toJob(row);
+
+        var existing = metricJobCache.get(job.metricId());
+
+        if (existing != null)
+        {
+            job.inherit(existing);
+        }
+
+        put(job);
+    }
+
+    /**
+     * Removes a single metric job and its index entries.
+     *
+     * @param metricId The metric ID.
+     */
+    public synchronized void remove(long metricId)
+    {
+        var previous = metricJobCache.remove(metricId);
+
+        if (previous != null)
+        {
+            unindex(previous);
+
+            prune(previous);
+
+            AdaptiveInterval.forget(metricId);
+
+            LatestValues.forget(previous.provisioningJobId(), previous.metricName());
+        }
+    }
+
+    private void unindex(MetricJob job)
+    {
+        removeFromIndex(metricIdsByProvisioningJob, job.provisioningJobId(), job.metricId());
+
+        removeFromIndex(metricIdsByIp, job.ip(), job.metricId());
+
+        jobCountsByCredentialProfile.computeIfPresent(job.credential().credentialProfileId(),
+            (key, count) -> count == 1 ? null : count - 1);
+    }
+
+    // Drops the interned device and credential of a job once no cached job uses them any more
+    private void prune(MetricJob job)
+    {
+        if (!metricIdsByProvisioningJob.containsKey(job.provisioningJobId()))
+        {
+            devices.remove(job.provisioningJobId());
+        }
+
+        if (!jobCountsByCredentialProfile.containsKey(job.credential().credentialProfileId()))
+        {
+            credentials.remove(job.credential().credentialProfileId());
+        }
+    }
+
+    private static <K> void removeFromIndex(ConcurrentHashMap<K, Set<Long>> index, K key, long metricId)
+    {
+        index.computeIfPresent(key, (k, metricIds) ->
+        {
+            metricIds.remove(metricId);
+
+            return metricIds.isEmpty() ? null : metricIds;
+        });
     }
 
 
@@ -113,14 +462,34 @@ public class MetricCache implements cache
      *
      * @param provisioningJobId The provisioning job ID whose metric jobs should be removed.
      */
-    public void delete(Long provisioningJobId)
+    public synchronized void delete(Long provisioningJobId)
     {
-        var removedIds = metricJobCache.entrySet().stream()
-            .filter(entry -> provisioningJobId.equals(entry.getValue().getLong(PROVISIONING_JOB_ID)))
-            .map(Map.Entry::getKey)
-            .toList();
+        var removedIds = metricIdsByProvisioningJob.remove(provisioningJobId);
+
+        devices.remove(provisioningJobId);
+
+        DeviceHealth.forget(provisioningJobId);
+
+        LatestValues.forget(provisioningJobId);
+
+        if (removedIds == null)
+        {
+            return;
+        }
 
-        removedIds.forEach(metricJobCache::remove);
+        for (var metricId : removedIds)
+        {
+            var job = metricJobCache.remove(metricId);
+
+            if (job != null)
+            {
+                unindex(job);
+
+                prune(job);
+
+                AdaptiveInterval.forget(metricId);
+            }
+        }
 
         if (!removedIds.isEmpty())
         {
@@ -134,17 +503,62 @@ public class MetricCache implements cache
 
         if (job.getBoolean(IS_ENABLED))
         {
-            metricJobCache.put(job.getLong(METRIC_ID), job);
+            put(toJob(job));
         }
         else
         {
-            metricJobCache.remove(job.getLong(METRIC_ID));
+            remove(job.getLong(METRIC_ID));
         }
 
 
-        LOGGER.info("Updated metric job in cache: metric_id={}", job.getLong(METRIC_ID));
+        LOGGER.debug("Updated metric job in cache: metric_id={}", job.getLong(METRIC_ID));
+    }
+
+
+    /**
+     * Converts a metric job row into a MetricJob, sharing device and credential instances with the jobs already
+     * cached. Rows from provisioning carry no interval of their own and fall back to the polling interval column.
+     *
+     * @param row The metric job row, as returned by the provisioning and cache queries.
+     * @return The compact metric job.
+     */
+    static MetricJob toJob(JsonObject row)
+    {
+        var interval = row.getInteger(ORIGINAL_INTERVAL, row.getInteger(POLLING_INTERVAL, DEFAULT_POLLING_INTERVAL));
+
+        var device = new MetricJob.Device(row.getLong(PROVISIONING_JOB_ID), row.getString(IP), row.getInteger(PORT),
+            row.getString(PROTOCOL));
+
+        var credData = row.getJsonObject(CRED_DATA, new JsonObject());
+
+        var credential = new MetricJob.Credential(row.getLong(CREDENTIAL_PROFILE_ID, 0L), credData.getString(USER),
+            credData.getString(PASSWORD));
+
+        var priority = MetricJob.Priority.of(row.getString(PRIORITY), row.getString(METRIC_NAME));
+
+        return intern(row.getLong(METRIC_ID), row.getString(METRIC_NAME), interval, bound(row, MIN_POLLING_INTERVAL),
+            bound(row, MAX_POLLING_INTERVAL), priority, row.getInteger(REMAINING_TIME, interval), device, credential);
     }
 
+    // Adaptive interval bounds are nullable columns; 0 means the default bound
+    private static int bound(JsonObject row, String column)
+    {
+        var value = row.getInteger(column);
+
+        return value == null ? 0 : value;
+    }
+
+    /**
+     * Builds a MetricJob whose metric name, device and credential are replaced by their canonical instances.
+     */
+    static MetricJob intern(long metricId, String metricName, int interval, int minInterval, int maxInterval,
+                            MetricJob.Priority priority, int remainingTime, MetricJob.Device device,
+                            MetricJob.Credential credential)
+    {
+        return new MetricJob(metricId, metricName.intern(), interval, minInterval, maxInterval, priority, remainingTime,
+            devices.compute(device.provisioningJobId(), (key, existing) -> device.equals(existing) ? existing : device),
+            credentials.compute(credential.credentialProfileId(), (key, existing) -> credential.equals(existing) ? existing : credential));
+    }
 
 //    /**
 //     * Handles the polling timer by decrementing remaining times for all metric jobs.
@@ -0,0 +1,255 @@
+package com.example.NMS.cache;
+
+import io.vertx.core.json.JsonObject;
+
+import static com.example.NMS.constant.Constant.*;
+
+/**
+ * A metric job held in the MetricCache.
+ * Identity fields are final primitives, and the device and credential are shared references so that the six metrics
+ * of one host point at the same two objects instead of each carrying its own copy.
+ * The only mutable state is the countdown to the next poll and the interval currently in effect, both owned by the
+ * Scheduler; the effective interval differs from the configured one only when adaptive polling retunes it.
+ * They are written only on the Scheduler's event loop, or before the job is published to the cache, and are volatile
+ * so that readers on other threads (the snapshot writer, refresh taking over a job's schedule, API responses) see
+ * current values. Those readers may be one tick behind, which only shifts a job's phase by one tick.
+ */
+public final class MetricJob
+{
+    /**
+     * A provisioned device, shared by all metric jobs of the same provisioning job.
+     */
+    public record Device(long provisioningJobId, String ip, int port, String protocol)
+    {
+    }
+
+    /**
+     * Login details of a credential profile, shared by all metric jobs polled with that profile.
+     */
+    public record Credential(long credentialProfileId, String user, String password)
+    {
+    }
+
+    /**
+     * Dispatch class of a metric job, highest first. Under overload the scheduler sheds the lowest class first.
+     */
+    public enum Priority
+    {
+        HIGH, NORMAL, LOW;
+
+        /**
+         * Resolves the class of a metric job: an explicit metric or device setting, else the metric's default.
+         * Liveness checks are cheap and most urgent; process listings are heavy and least urgent.
+         *
+         * @param priority   The configured class, or null if none is set.
+         * @param metricName The metric name.
+         */
+        public static Priority of(String priority, String metricName)
+        {
+            if (priority != null)
+            {
+                return valueOf(priority);
+            }
+
+            return switch (metricName)
+            {
+                case "UPTIME" -> HIGH;
+
+                case "PROCESS" -> LOW;
+
+                default -> NORMAL;
+            };
+        }
+    }
+
+    private final long metricId;
+
+    private final String metricName;
+
+    private final int interval;
+
+    // Adaptive polling bounds in seconds; 0 means the bound is derived from the configured interval
+    private final int minInterval;
+
+    private final int maxInterval;
+
+    private final Priority priority;
+
+    private final Device device;
+
+    private final Credential credential;
+
+    // Seconds until the next poll, and the interval the countdown restarts from; single writer, see the class comment
+    private volatile int remainingTime;
+
+    private volatile int effectiveInterval;
+
+    /**
+     * @param metricId      The metric ID.
+     * @param metricName    The metric name, interned by the cache.
+     * @param interval      The configured polling interval in seconds.
+     * @param minInterval   The lower adaptive bound in seconds, or 0 for the default.
+     * @param maxInterval   The upper adaptive bound in seconds, or 0 for the default.
+     * @param priority      The dispatch class.
+     * @param remainingTime The seconds left until the first poll.
+     * @param device        The shared device reference.
+     * @param credential    The shared credential reference.
+     */
+    public MetricJob(long metricId, String metricName, int interval, int minInterval, int maxInterval, Priority priority,
+                     int remainingTime, Device device, Credential credential)
+    {
+        this.metricId = metricId;
+
+        this.metricName = metricName;
+
+        this.interval = interval;
+
+        this.minInterval = minInterval;
+
+        this.maxInterval = maxInterval;
+
+        this.priority = priority;
+
+        this.remainingTime = remainingTime;
+
+        this.effectiveInterval = interval;
+
+        this.device = device;
+
+        this.credential = credential;
+    }
+
+    public long metricId()
+    {
+        return metricId;
+    }
+
+    public String metricName()
+    {
+        return metricName;
+    }
+
+    public int interval()
+    {
+        return interval;
+    }
+
+    public int minInterval()
+    {
+        return minInterval;
+    }
+
+    public int maxInterval()
+    {
+        return maxInterval;
+    }
+
+    public Priority priority()
+    {
+        return priority;
+    }
+
+    public int effectiveInterval()
+    {
+        return effectiveInterval;
+    }
+
+    public Device device()
+    {
+        return device;
+    }
+
+    public Credential credential()
+    {
+        return credential;
+    }
+
+    public long provisioningJobId()
+    {
+        return device.provisioningJobId();
+    }
+
+    public String ip()
+    {
+        return device.ip();
+    }
+
+    public int remainingTime()
+    {
+        return remainingTime;
+    }
+
+    /**
+     * Returns the job as JSON for API responses. Credentials are deliberately left out.
+     */
+    public JsonObject toJson()
+    {
+        return new JsonObject()
+            .put(METRIC_ID, metricId)
+            .put(METRIC_NAME, metricName)
+            .put(POLLING_INTERVAL, interval)
+            .put(MIN_POLLING_INTERVAL, minInterval == 0 ? null : minInterval)
+            .put(MAX_POLLING_INTERVAL, maxInterval == 0 ? null : maxInterval)
+            .put(EFFECTIVE_POLLING_INTERVAL, effectiveInterval)
+            .put(PRIORITY, priority.name())
+            .put(REMAINING_TIME, remainingTime)
+            .put(PROVISIONING_JOB_ID, device.provisioningJobId())
+            .put(IP, device.ip())
+            .put(PORT, device.port())
+            .put(PROTOCOL, device.protocol());
+    }
+
+    /**
+     * Advances the countdown by one scheduler tick.
+     *
+     * @param elapsedSeconds The seconds elapsed since the previous tick.
+     * @return True if the job is due, in which case the countdown restarts from the effective interval.
+     */
+    public boolean tick(int elapsedSeconds)
+    {
+        var remaining = remainingTime - elapsedSeconds;
+
+        if (remaining > 0)
+        {
+            remainingTime = remaining;
+
+            return false;
+        }
+
+        remainingTime = effectiveInterval;
+
+        return true;
+    }
+
+    /**
+     * Restarts the countdown from a new effective interval; called by the scheduler right after the job became due.
+     *
+     * @param newInterval The new effective interval in seconds.
+     */
+    public void retune(int newInterval)
+    {
+        effectiveInterval = newInterval;
+
+        remainingTime = newInterval;
+    }
+
+    /**
+     * Takes over the schedule of the job this one replaces: its phase, and its adapted interval as long as the
+     * configured interval is unchanged.
+     *
+     * @param previous The cached job being replaced.
+     */
+    void inherit(MetricJob previous)
+    {
+        var inherited = previous.interval == interval ? previous.effectiveInterval : interval;
+
+        schedule(inherited, Math.min(previous.remainingTime, inherited));
+    }
+
+    void schedule(int effectiveInterval, int remainingTime)
+    {
+        this.effectiveInterval = effectiveInterval;
+
+        this.remainingTime = remainingTime;
+    }
+}
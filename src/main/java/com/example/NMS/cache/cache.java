@@ -6,7 +6,7 @@ import io.vertx.core.json.JsonObject;
 
 public interface cache
 {
-    void init();
+    Future<Void> init();
 
     void insert(JsonObject jsonObject);
 
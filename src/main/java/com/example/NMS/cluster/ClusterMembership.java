@@ -0,0 +1,161 @@
+package com.example.NMS.cluster;
+
+import com.example.NMS.metrics.Metrics;
+import com.example.NMS.utility.DBUtils;
+import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static com.example.NMS.constant.Constant.*;
+import static com.example.NMS.constant.QueryConstant.*;
+
+/**
+ * Vert.x verticle tracking which NMS nodes share the database and deciding which devices this node polls.
+ * Each node holds a lease row in cluster_nodes and renews it periodically; nodes whose lease expired are treated
+ * as gone. The live nodes form a consistent-hash ring over provisioning job IDs, so devices rebalance on the next
+ * heartbeat after a node joins, leaves gracefully or stops renewing.
+ */
+public class ClusterMembership extends AbstractVerticle
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(ClusterMembership.class);
+
+    // Stable per process unless set explicitly with -Dnms.node.id
+    public static final String NODE_ID = System.getProperty(NODE_ID_PROPERTY, ManagementFactory.getRuntimeMXBean().getName());
+
+    private static volatile HashRing ring = new HashRing(List.of(NODE_ID), CLUSTER_VIRTUAL_NODES);
+
+    private static volatile long leaseRenewedAt = System.nanoTime();
+
+    /**
+     * Starts the membership verticle.
+     * Takes the first lease and reads the membership before completing, so the scheduler starts with a ring.
+     *
+     * @param startPromise The promise to complete or fail based on startup success.
+     */
+    @Override
+    public void start(Promise<Void> startPromise)
+    {
+        Metrics.gauge("nms_cluster_nodes", "Live NMS nodes sharing the polling load", () -> ring.nodes().size());
+
+        heartbeat(System.nanoTime())
+            .onComplete(result ->
+            {
+                vertx.setPeriodic(CLUSTER_HEARTBEAT_INTERVAL_SECONDS * 1000L, id -> heartbeat(System.nanoTime()));
+
+                if (result.succeeded())
+                {
+                    LOGGER.info("ClusterMembership started as node {}", NODE_ID);
+
+                    startPromise.complete();
+                }
+                else
+                {
+                    LOGGER.error("Failed to start ClusterMembership: {}", result.cause().getMessage());
+
+                    startPromise.fail(result.cause());
+                }
+            });
+    }
+
+    /**
+     * Returns whether this node polls the given device.
+     * If the lease could not be renewed for a full lease period while other nodes were known, the other nodes will
+     * have taken over, so this node polls nothing until it renews again. A node that believes it is alone keeps
+     * polling through database outages.
+     *
+     * @param provisioningJobId The provisioning job ID of the device.
+     */
+    public static boolean owns(long provisioningJobId)
+    {
+        return owns(provisioningJobId, System.nanoTime());
+    }
+
+    /**
+     * @param provisioningJobId The provisioning job ID of the device.
+     * @param nowNanos          The current System.nanoTime().
+     */
+    static boolean owns(long provisioningJobId, long nowNanos)
+    {
+        var current = ring;
+
+        if (current.nodes().size() > 1 && nowNanos - leaseRenewedAt > CLUSTER_LEASE_SECONDS * 1_000_000_000L)
+        {
+            return false;
+        }
+
+        return NODE_ID.equals(current.owner(provisioningJobId));
+    }
+
+    /**
+     * Returns the node that polls the given device according to the current ring, which may be this node.
+     *
+     * @param provisioningJobId The provisioning job ID of the device.
+     */
+    public static String owner(long provisioningJobId)
+    {
+        return ring.owner(provisioningJobId);
+    }
+
+    /**
+     * Returns the live nodes of the current ring, in node ID order.
+     */
+    static List<String> nodes()
+    {
+        return ring.nodes();
+    }
+
+    /**
+     * Renews this node's lease, drops long-expired leases and rebuilds the ring from the live nodes.
+     *
+     * @param nowNanos The System.nanoTime() at which the renewal is sent; the lease is counted from then, which errs
+     *                 on the side of expiring it early.
+     */
+    static Future<Void> heartbeat(long nowNanos)
+    {
+        return DBUtils.executeQuery(new JsonObject()
+                .put(QUERY, RENEW_CLUSTER_LEASE)
+                .put(PARAMS, new JsonArray().add(NODE_ID).add(CLUSTER_LEASE_SECONDS)))
+            .compose(renewed ->
+            {
+                leaseRenewedAt = nowNanos;
+
+                return DBUtils.executeQuery(new JsonObject().put(QUERY, GET_LIVE_CLUSTER_NODES));
+            })
+            .map(rows ->
+            {
+                var nodes = rows.stream()
+                    .map(row -> ((JsonObject) row).getString(NODE_ID_COLUMN))
+                    .toList();
+
+                if (!nodes.equals(ring.nodes()))
+                {
+                    ring = new HashRing(nodes, CLUSTER_VIRTUAL_NODES);
+
+                    LOGGER.info("Cluster membership changed, {} live nodes: {}", nodes.size(), nodes);
+                }
+
+                return null;
+            });
+    }
+
+    /**
+     * Releases the lease so the other nodes take over this node's devices on their next heartbeat.
+     *
+     * @param stopPromise The promise to complete once the lease is released or the attempt failed.
+     */
+    @Override
+    public void stop(Promise<Void> stopPromise)
+    {
+        DBUtils.executeQuery(new JsonObject()
+                .put(QUERY, RELEASE_CLUSTER_LEASE)
+                .put(PARAMS, new JsonArray().add(NODE_ID)))
+            .onComplete(ignored -> stopPromise.complete());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.NMS.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * Immutable consistent-hash ring assigning keys (provisioning job IDs) to cluster nodes.
+ * Every node is placed on the ring at several virtual points so keys spread evenly, and a node joining or
+ * leaving only moves the keys adjacent to its own points.
+ */
+public final class HashRing
+{
+    private final long[] points;
+
+    private final String[] owners;
+
+    private final List<String> nodes;
+
+    /**
+     * @param nodes        The member node IDs.
+     * @param virtualNodes The number of ring points per node.
+     */
+    public HashRing(Collection<String> nodes, int virtualNodes)
+    {
+        var ring = new TreeMap<Long, String>();
+
+        for (var node : nodes)
+        {
+            for (var i = 0; i < virtualNodes; i++)
+            {
+                // On the rare point collision the lexically smaller node wins, so every member builds the same ring
+                ring.merge(hash(node + "#" + i), node, (current, candidate) -> current.compareTo(candidate) <= 0 ? current : candidate);
+            }
+        }
+
+        this.points = new long[ring.size()];
+
+        this.owners = new String[ring.size()];
+
+        var index = 0;
+
+        for (var entry : ring.entrySet())
+        {
+            points[index] = entry.getKey();
+
+            owners[index] = entry.getValue();
+
+            index++;
+        }
+
+        this.nodes = nodes.stream().distinct().sorted().toList();
+    }
+
+    /**
+     * Returns the node owning a key, or null if the ring is empty.
+     *
+     * @param key The key, e.g. a provisioning job ID.
+     */
+    public String owner(long key)
+    {
+        if (points.length == 0)
+        {
+            return null;
+        }
+
+        var index = Arrays.binarySearch(points, mix(key));
+
+        if (index < 0)
+        {
+            index = -index - 1;
+        }
+
+        return owners[index == points.length ? 0 : index];
+    }
+
+    public List<String> nodes()
+    {
+        return nodes;
+    }
+
+    // FNV-1a over the UTF-8 bytes, finished with the 64-bit mixer for a uniform spread
+    private static long hash(String value)
+    {
+        var hash = 0xcbf29ce484222325L;
+
+        for (var b : value.getBytes(StandardCharsets.UTF_8))
+        {
+            hash ^= b & 0xff;
+
+            hash *= 0x100000001b3L;
+        }
+
+        return mix(hash);
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long value)
+    {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+
+        return value ^ (value >>> 31);
+    }
+}
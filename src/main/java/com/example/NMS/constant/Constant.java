@@ -1,5 +1,7 @@
 package com.example.NMS.constant;
 
+import java.util.Set;
+
 public class Constant {
 
     public static final String DB_HOST = "localhost";
@@ -12,10 +14,145 @@ public class Constant {
 
     public static final String DB_PASSWORD = "Mind@123";
 
+    public static final int DB_POOL_MAX_SIZE = 10;
+
+    public static final String CHECKSUM = "checksum";
+
+    public static final int CACHE_LOAD_PAGE_SIZE = 5_000;
+
+    // Delay before a failed metric cache load, or a failed page of it, is retried
+    public static final long CACHE_LOAD_RETRY_DELAY_MS = 5_000;
+
+    public static final String SNAPSHOT_FILE = "snapshot/metric-cache.cbor";
+
+    public static final int SNAPSHOT_INTERVAL_SECONDS = 60;
+
+    // Startup phases reported as seconds since process start
+    public static final String STARTUP_DEPLOYED = "deployed";
+
+    public static final String STARTUP_CACHE_LOADED = "cache_loaded";
+
+    public static final String STARTUP_FIRST_POLL = "first_poll";
+
+    // Per-device circuit breaker: consecutive failed rounds before opening, and the backoff bounds
+    public static final int BREAKER_FAILURE_THRESHOLD = 3;
+
+    public static final long BREAKER_BASE_BACKOFF_SECONDS = 60;
+
+    public static final long BREAKER_MAX_BACKOFF_SECONDS = 3_600;
+
+    public static final long BREAKER_PROBE_TIMEOUT_MS = 180_000;
+
+    public static final String STATE = "state";
+
+    // Cluster membership: nodes renew a lease in cluster_nodes and split devices on a consistent-hash ring
+    public static final String NODE_ID_PROPERTY = "nms.node.id";
+
+    public static final String NODE_ID_COLUMN = "node_id";
+
+    public static final int CLUSTER_HEARTBEAT_INTERVAL_SECONDS = 5;
+
+    public static final int CLUSTER_LEASE_SECONDS = 15;
+
+    public static final int CLUSTER_VIRTUAL_NODES = 128;
+
+    // Fields marking node-local reads with the node that polls the device, and whether that is the answering node
+    public static final String OWNER_NODE = "owner_node";
+
+    public static final String OWNED = "owned";
+
+    // LISTEN/NOTIFY channel announcing changes to cached tables, and the fields of its payload
+    public static final String CACHE_CHANNEL = "nms_cache";
+
+    public static final String TABLE = "table";
+
+    public static final String OPERATION = "op";
+
+    public static final long CACHE_LISTENER_MAX_RECONNECT_DELAY_MS = 30_000;
+
     public static final String JWT_SECRET = "MySecretKey";
 
+    // BCrypt worker threads and the calls allowed to queue or run on them before logins are shed with 503
+    public static final int BCRYPT_POOL_SIZE = Integer.getInteger("nms.bcrypt.threads", 2);
+
+    public static final int BCRYPT_MAX_PENDING = Integer.getInteger("nms.bcrypt.max.pending", 32);
+
+    public static final int RETRY_AFTER_SECONDS = 1;
+
+    // Per-client token buckets of the API by route class: sustained requests per second and burst size
+    public static final double RATE_LIMIT_AUTH_PER_SECOND = 1;
+
+    public static final int RATE_LIMIT_AUTH_BURST = 5;
+
+    public static final double RATE_LIMIT_READ_PER_SECOND = 20;
+
+    public static final int RATE_LIMIT_READ_BURST = 50;
+
+    public static final double RATE_LIMIT_HISTORY_PER_SECOND = 2;
+
+    public static final int RATE_LIMIT_HISTORY_BURST = 10;
+
+    public static final double RATE_LIMIT_WRITE_PER_SECOND = 5;
+
+    public static final int RATE_LIMIT_WRITE_BURST = 20;
+
+    public static final double RATE_LIMIT_BULK_PER_SECOND = 0.2;
+
+    public static final int RATE_LIMIT_BULK_BURST = 2;
+
+    public static final int RATE_LIMIT_MAX_CLIENTS = 10_000;
+
+    // Database pool connections kept free of API requests for ingest, and the API requests that may wait for the rest
+    public static final int DB_POOL_RESERVED_FOR_INGEST = 4;
+
+    public static final int API_DB_CONCURRENCY = DB_POOL_MAX_SIZE - DB_POOL_RESERVED_FOR_INGEST;
+
+    public static final int API_ADMISSION_QUEUE_SIZE = 64;
+
+    // Longest a request waits in the admission queue for a database slot before it is refused with 503
+    public static final long API_ADMISSION_QUEUE_TIMEOUT_MS = Long.getLong("nms.api.admission.queue.timeout.ms", 2_000);
+
+    public static final int LOGIN_CACHE_SIZE = 10_000;
+
+    public static final int LOGIN_CACHE_TTL_SECONDS = 600;
+
+    public static final String BEARER = "Bearer ";
+
+    public static final String DIGEST = "digest";
+
+    public static final String EXPIRES_AT = "expires_at";
+
+    public static final int TOKEN_CACHE_SIZE = 10_000;
+
+    public static final int TOKEN_CACHE_MAX_TTL_SECONDS = 300;
+
+    // Single-entity API reads; entries are also invalidated by any write to their tables, the TTL is a backstop
+    public static final int ENTITY_CACHE_SIZE = 10_000;
+
+    public static final int CREDENTIAL_CACHE_TTL_SECONDS = 300;
+
+    public static final int DISCOVERY_CACHE_TTL_SECONDS = 120;
+
+    public static final int PROVISION_CACHE_TTL_SECONDS = 60;
+
     public static final int SERVER_PORT = 8080;
 
+    // API server instances; Vert.x spreads connections to the one port across their event loops
+    public static final int SERVER_INSTANCES = Integer.getInteger("nms.server.instances", Runtime.getRuntime().availableProcessors());
+
+    // Connections without reads or writes for this long are closed; must exceed the live stream heartbeat
+    public static final int SERVER_IDLE_TIMEOUT_SECONDS = Integer.getInteger("nms.server.idle.timeout.seconds", 120);
+
+    public static final int SERVER_ACCEPT_BACKLOG = Integer.getInteger("nms.server.accept.backlog", 1024);
+
+    // HTTP/2 over cleartext, by prior knowledge or upgrade; HTTP/1.1 clients are unaffected
+    public static final boolean SERVER_H2C_ENABLED = Boolean.parseBoolean(System.getProperty("nms.server.h2c", "true"));
+
+    public static final int SERVER_H2_MAX_CONCURRENT_STREAMS = Integer.getInteger("nms.server.h2.max.streams", 100);
+
+    // SO_REUSEPORT lets the kernel balance accepts across instances; only honoured with the native transport
+    public static final boolean SERVER_REUSE_PORT = Boolean.getBoolean("nms.server.reuse.port");
+
     public static final int MAX_WORKER_EXECUTION_TIME = 900;
 
     public static final int TIMER_INTERVAL_SECONDS = 10;
@@ -87,14 +224,50 @@ public class Constant {
 
     public static final String SELECTED_IPS = "selected_ips";
 
+    public static final String JOBS = "jobs";
+
+    public static final String METRICS = "metrics";
+
+    // Items accepted by one bulk provisioning or bulk metric update request
+    public static final int BULK_MAX_ITEMS = 10_000;
+
+    // Polled data aggregation: buckets one response may hold, and the functions used when none are requested
+    public static final int AGGREGATE_MAX_BUCKETS = 10_000;
+
+    public static final String AGGREGATE_DEFAULT_FUNCTIONS = "avg,min,max";
+
+    public static final Set<String> METRIC_NAMES = Set.of("CPU", "MEMORY", "DISK", "NETWORK", "PROCESS", "UPTIME");
+
     public static final String PROVISIONING_JOB_ID = "provisioning_job_id";
 
     public static final String METRIC_ID = "metric_id";
 
     public static final String METRIC_NAME = "metric_name";
 
+    public static final String POLLED_AT = "polled_at";
+
     public static final String POLLING_INTERVAL = "polling_interval";
 
+    public static final int DEFAULT_POLLING_INTERVAL = 300;
+
+    public static final String MIN_POLLING_INTERVAL = "min_polling_interval";
+
+    public static final String MAX_POLLING_INTERVAL = "max_polling_interval";
+
+    public static final String EFFECTIVE_POLLING_INTERVAL = "effective_polling_interval";
+
+    // Adaptive polling (-Dnms.polling.adaptive=true) retunes intervals from value volatility within a global budget
+    public static final boolean ADAPTIVE_POLLING_ENABLED = Boolean.getBoolean("nms.polling.adaptive");
+
+    public static final int POLL_BUDGET_PER_SECOND = Integer.getInteger("nms.polling.budget", 200);
+
+    // Mean relative change between samples above which the interval halves, and below which it grows by half
+    public static final double VOLATILITY_HIGH = 0.20;
+
+    public static final double VOLATILITY_LOW = 0.02;
+
+    public static final String PRIORITY = "priority";
+
     public static final String ORIGINAL_INTERVAL = "original_interval";
 
     public static final String REMAINING_TIME = "remaining_time";
@@ -121,11 +294,67 @@ public class Constant {
 
     public static final String PLUGIN_EXECUTE = "plugin.execute";
 
+    // Overridable so a stub plugin can stand in for batch size and throughput measurements
+    public static final String PLUGIN_PATH = System.getProperty("nms.plugin.path", "./plugin/Lite_NMS_Plugin");
+
+    // Plugin worker verticles; each runs one plugin process at a time
+    public static final int PLUGIN_INSTANCES = Integer.getInteger("nms.plugin.instances", 4);
+
+    // Due polls per plugin run, and the IPv4 prefix whose devices share a batch (0 keeps only a host's metrics together)
+    public static final int POLL_BATCH_SIZE = Integer.getInteger("nms.polling.batch.size", 250);
+
+    public static final int POLL_BATCH_SUBNET_PREFIX = Integer.getInteger("nms.polling.batch.subnet.prefix", 0);
+
+    // Polls dispatched per scheduler tick at most; due polls beyond it wait in the dispatch queue or are shed.
+    // Defaults to one full batch per plugin worker per tick; 0 or less dispatches every due poll and turns shedding off
+    public static final int POLL_DISPATCH_CAPACITY = Integer.getInteger("nms.polling.capacity", PLUGIN_INSTANCES * POLL_BATCH_SIZE);
+
     public static final String STORAGE_DISCOVERY_RESULTS = "storage.discovery.results";
 
     public static final String STORAGE_RESULTS = "storage.results";
 
-    public static final int BATCH_SIZE = 25;
+    // Live stream of ingested results; the address is suffixed with the provisioning job ID
+    public static final String LIVE_METRICS = "live.metrics";
+
+    public static final int LIVE_STREAM_QUEUE_SIZE = 256;
+
+    public static final int LIVE_STREAM_HEARTBEAT_SECONDS = 15;
+
+    public static final String TRACE = "trace";
+
+    public static final String TRACE_SCHEDULED = "scheduled";
+
+    public static final String TRACE_DISPATCHED = "dispatched";
+
+    public static final String TRACE_PLUGIN_STARTED = "plugin.started";
+
+    public static final String TRACE_RECEIVED = "received";
+
+    public static final String TRACE_BUFFERED = "buffered";
+
+    public static final long LATE_POLL_THRESHOLD_MS = TIMER_INTERVAL_SECONDS * 1000L;
+
+    public static final int POLL_REPORT_INTERVAL_SECONDS = 60;
+
+    public static final int BATCH_SIZE_MIN = 25;
+
+    public static final int BATCH_SIZE_MAX = 2_000;
+
+    public static final long BATCH_MAX_LINGER_MS = 1_000;
+
+    public static final long BATCH_INSERT_LATENCY_SLO_MS = 250;
+
+    public static final String SPILL_DIRECTORY = "spill";
+
+    public static final int SPILL_SEGMENT_SIZE_BYTES = 16 * 1024 * 1024;
+
+    public static final long SPILL_MAX_BYTES = Long.getLong("nms.spill.max.bytes", 1024L * 1024 * 1024);
+
+    public static final int MAX_BUFFERED_BATCHES = 64;
+
+    public static final long BATCH_RETRY_DELAY_MS = 5_000;
+
+    public static final long BATCH_STOP_TIMEOUT_MS = 10_000;
 
 
 }
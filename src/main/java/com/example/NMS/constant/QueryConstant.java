@@ -2,6 +2,25 @@ package com.example.NMS.constant;
 
 public class QueryConstant
 {
+    public static final String GET_SCHEMA_CHECKSUM = "SELECT checksum FROM schema_version WHERE id = 1";
+
+    public static final String UPSERT_SCHEMA_CHECKSUM = "INSERT INTO schema_version (id, checksum) VALUES (1, $1) " +
+        "ON CONFLICT (id) DO UPDATE SET checksum = EXCLUDED.checksum, applied_at = CURRENT_TIMESTAMP";
+
+    // Renews this node's lease and drops leases expired for over a day
+    public static final String RENEW_CLUSTER_LEASE = """
+        WITH expired AS (
+            DELETE FROM cluster_nodes WHERE lease_expires_at < now() - interval '1 day'
+        )
+        INSERT INTO cluster_nodes (node_id, lease_expires_at)
+        VALUES ($1, now() + $2::int * interval '1 second')
+        ON CONFLICT (node_id) DO UPDATE SET lease_expires_at = EXCLUDED.lease_expires_at
+        """;
+
+    public static final String GET_LIVE_CLUSTER_NODES = "SELECT node_id FROM cluster_nodes WHERE lease_expires_at > now() ORDER BY node_id";
+
+    public static final String RELEASE_CLUSTER_LEASE = "DELETE FROM cluster_nodes WHERE node_id = $1";
+
     public static final String GET_ALL_CREDENTIALS = "SELECT * FROM credential_profile";
 
     public static final String GET_CREDENTIAL_BY_ID = "SELECT * FROM credential_profile WHERE id = $1";
@@ -48,16 +67,20 @@ public class QueryConstant
         "RETURNING id";
 
     public static final String UPSERT_METRICS =
-        "INSERT INTO metrics (provisioning_job_id, name, polling_interval, is_enabled) " +
-            "VALUES ($1, $2, COALESCE($3, 300), $4) " +
+        "INSERT INTO metrics (provisioning_job_id, name, polling_interval, is_enabled, min_polling_interval, max_polling_interval, priority) " +
+            "VALUES ($1, $2, COALESCE($3, 300), $4, $5, $6, $7) " +
             "ON CONFLICT (provisioning_job_id, name) " +
             "DO UPDATE SET polling_interval = COALESCE(EXCLUDED.polling_interval, metrics.polling_interval), " +
-            "is_enabled = EXCLUDED.is_enabled " +
+            "is_enabled = EXCLUDED.is_enabled, " +
+            "min_polling_interval = COALESCE(EXCLUDED.min_polling_interval, metrics.min_polling_interval), " +
+            "max_polling_interval = COALESCE(EXCLUDED.max_polling_interval, metrics.max_polling_interval), " +
+            "priority = COALESCE(EXCLUDED.priority, metrics.priority) " +
             "RETURNING metric_id as id";
 
+    // Rows for jobs deprovisioned while their batch was buffered or spilled are skipped instead of failing the batch
     public static final String INSERT_POLLED_DATA =
         "INSERT INTO polled_data (job_id, metric_type, data, polled_at) " +
-            "VALUES ($1, $2, $3::jsonb, $4) returning id";
+            "SELECT $1, $2, $3::jsonb, $4 WHERE EXISTS (SELECT 1 FROM provisioning_jobs WHERE id = $1) returning id";
 
     public static final String GET_ALL_PROVISIONING_JOBS =
         "SELECT pj.*, cp.credential_name, cp.system_type " +
@@ -79,10 +102,42 @@ public class QueryConstant
             ORDER BY polled_at DESC""";
 
 
+    // Aggregates one numeric field of a job's metric over fixed time buckets; %s is the whitelisted function list.
+    // Non-numeric samples count as NULL. Bounds and bucket starts are epoch millis. polled_at holds UTC wall-clock
+    // time without a zone, so the bounds are converted to UTC timestamps rather than compared in the session's zone.
+    public static final String AGGREGATE_POLLED_DATA = """
+            SELECT (floor(extract(epoch FROM polled_at) / $6::integer) * $6::integer * 1000)::bigint AS bucket%s
+            FROM (
+                SELECT
+                    polled_at,
+                    CASE WHEN jsonb_typeof(data #> string_to_array($3::text, '.')) = 'number'
+                        THEN (data #>> string_to_array($3::text, '.'))::double precision
+                    END AS value
+                FROM polled_data
+                WHERE job_id = $1
+                AND metric_type = $2
+                AND polled_at >= to_timestamp($4::bigint / 1000.0) AT TIME ZONE 'UTC'
+                AND polled_at < to_timestamp($5::bigint / 1000.0) AT TIME ZONE 'UTC'
+            ) samples
+            GROUP BY bucket
+            ORDER BY bucket""";
+
     public static final String REGISTER_USER = "INSERT INTO users (username, password) VALUES ($1, $2) RETURNING id";
 
     public static final String GET_USER_BY_USERNAME = "SELECT id, username, password FROM users WHERE username = $1";
 
+    // Records a revoked token by digest and exp in epoch millis, dropping revocations of tokens expired since
+    public static final String INSERT_REVOKED_TOKEN = """
+            WITH pruned AS (DELETE FROM revoked_tokens WHERE expires_at <= now())
+            INSERT INTO revoked_tokens (digest, expires_at)
+            VALUES ($1, to_timestamp($2::bigint / 1000.0))
+            ON CONFLICT (digest) DO NOTHING""";
+
+    public static final String GET_REVOKED_TOKENS = """
+            SELECT digest, (extract(epoch FROM expires_at) * 1000)::bigint AS expires_at
+            FROM revoked_tokens
+            WHERE expires_at > now()""";
+
     public static final String GET_BY_RUN_ID =
         """
                       SELECT
@@ -174,7 +229,8 @@ public class QueryConstant
                     'port', pj.port,
                     'metric_id', m.metric_id,
                     'metric_name', m.name,
-                    'cred_data', cp.cred_data
+                    'cred_data', cp.cred_data,
+                    'protocol', cp.system_type
                 )
             )
             FROM inserted_provisioning_jobs pj
@@ -199,14 +255,157 @@ public class QueryConstant
         ) AS invalid_ips
     """;
 
+    // Provisions many (discovery_id, ip) items in one statement and reports each item by its index in the request
+    public static final String INSERT_PROVISIONING_BULK = """
+    WITH items AS (
+        SELECT i.index - 1 AS index, i.discovery_id, i.ip
+        FROM ROWS FROM (jsonb_to_recordset($1::jsonb) AS (discovery_id INTEGER, ip TEXT))
+            WITH ORDINALITY AS i(discovery_id, ip, index)
+    ),
+    validated AS (
+        SELECT
+            it.index,
+            it.discovery_id,
+            it.ip,
+            dr.credential_profile_id,
+            dr.port,
+            CASE
+                WHEN it.discovery_id IS NULL OR it.ip IS NULL THEN 'discovery_id and ip are required'
+                WHEN dr.ip IS NULL THEN 'IP not found in discovery results'
+                WHEN dr.result != 'success' THEN 'Discovery not completed'
+                WHEN it.index > MIN(it.index) OVER (PARTITION BY it.ip) THEN 'Duplicate IP in request'
+            END AS error
+        FROM items it
+        LEFT JOIN discovery_result dr ON dr.discovery_id = it.discovery_id AND dr.ip = it.ip
+    ),
+    inserted_provisioning_jobs AS (
+        INSERT INTO provisioning_jobs (credential_profile_id, ip, port)
+        SELECT
+            v.credential_profile_id,
+            v.ip,
+            v.port
+        FROM validated v
+        WHERE v.error IS NULL
+        ON CONFLICT (ip, port) DO NOTHING
+        RETURNING id AS provisioning_job_id, credential_profile_id, ip, port
+    ),
+    metric_names AS (
+        SELECT name
+        FROM (VALUES ('CPU'), ('MEMORY'), ('DISK'), ('UPTIME'), ('NETWORK'), ('PROCESS')) AS metrics (name)
+    ),
+    inserted_metrics AS (
+        INSERT INTO metrics (provisioning_job_id, name, polling_interval, is_enabled)
+        SELECT
+            pj.provisioning_job_id,
+            mn.name,
+            300,
+            TRUE
+        FROM inserted_provisioning_jobs pj
+        CROSS JOIN metric_names mn
+        RETURNING metric_id, provisioning_job_id, name
+    )
+    SELECT
+        COALESCE(
+            (SELECT json_agg(
+                json_build_object(
+                    'ip', pj.ip,
+                    'provisioning_job_id', pj.provisioning_job_id,
+                    'credential_profile_id', pj.credential_profile_id,
+                    'port', pj.port,
+                    'metric_id', m.metric_id,
+                    'metric_name', m.name,
+                    'cred_data', cp.cred_data,
+                    'protocol', cp.system_type
+                )
+            )
+            FROM inserted_provisioning_jobs pj
+            JOIN inserted_metrics m ON m.provisioning_job_id = pj.provisioning_job_id
+            JOIN credential_profile cp ON pj.credential_profile_id = cp.id),
+            '[]'::json
+        ) AS records,
+        COALESCE(
+            (SELECT json_agg(
+                json_build_object(
+                    'index', v.index,
+                    'discovery_id', v.discovery_id,
+                    'ip', v.ip,
+                    'provisioning_job_id', pj.provisioning_job_id,
+                    'status', CASE
+                        WHEN v.error IS NOT NULL THEN 'failed'
+                        WHEN pj.provisioning_job_id IS NULL THEN 'skipped'
+                        ELSE 'created'
+                    END,
+                    'error', COALESCE(v.error, CASE WHEN pj.provisioning_job_id IS NULL THEN 'Already provisioned' END)
+                )
+                ORDER BY v.index
+            )
+            FROM validated v
+            LEFT JOIN inserted_provisioning_jobs pj ON v.error IS NULL AND pj.ip = v.ip AND pj.port = v.port),
+            '[]'::json
+        ) AS items
+    """;
+
+    // Upserts the metrics of many provisioning jobs in one statement; rows of unknown jobs are skipped, not failed
+    public static final String UPSERT_METRICS_BULK = """
+    WITH input AS (
+        SELECT *
+        FROM jsonb_to_recordset($1::jsonb) AS i(provisioning_job_id INTEGER, metric_name VARCHAR(50),
+            polling_interval INTEGER, is_enabled BOOLEAN, min_polling_interval INTEGER, max_polling_interval INTEGER,
+            priority VARCHAR(10))
+    ),
+    upserted AS (
+        INSERT INTO metrics (provisioning_job_id, name, polling_interval, is_enabled, min_polling_interval, max_polling_interval, priority)
+        SELECT
+            i.provisioning_job_id,
+            i.metric_name,
+            COALESCE(i.polling_interval, 300),
+            i.is_enabled,
+            i.min_polling_interval,
+            i.max_polling_interval,
+            i.priority
+        FROM input i
+        JOIN provisioning_jobs pj ON pj.id = i.provisioning_job_id
+        ON CONFLICT (provisioning_job_id, name)
+        DO UPDATE SET polling_interval = COALESCE(EXCLUDED.polling_interval, metrics.polling_interval),
+            is_enabled = EXCLUDED.is_enabled,
+            min_polling_interval = COALESCE(EXCLUDED.min_polling_interval, metrics.min_polling_interval),
+            max_polling_interval = COALESCE(EXCLUDED.max_polling_interval, metrics.max_polling_interval),
+            priority = COALESCE(EXCLUDED.priority, metrics.priority)
+        RETURNING metric_id, provisioning_job_id, name, polling_interval, min_polling_interval, max_polling_interval,
+            priority, is_enabled
+    )
+    SELECT
+        u.provisioning_job_id,
+        pj.ip,
+        pj.port,
+        pj.credential_profile_id,
+        cp.cred_data,
+        cp.system_type AS protocol,
+        u.metric_id,
+        u.name AS metric_name,
+        u.polling_interval,
+        u.min_polling_interval,
+        u.max_polling_interval,
+        COALESCE(u.priority, pj.priority) AS priority,
+        u.is_enabled
+    FROM upserted u
+    JOIN provisioning_jobs pj ON pj.id = u.provisioning_job_id
+    LEFT JOIN credential_profile cp ON pj.credential_profile_id = cp.id
+    """;
+
     public static final String GET_PROVISIONING_JOB_AND_METRICS = """
     SELECT
         pj.ip,
         pj.port,
+        pj.credential_profile_id,
         cp.cred_data,
+        cp.system_type AS protocol,
         m.metric_id,
         m.name AS metric_name,
         m.polling_interval,
+        m.min_polling_interval,
+        m.max_polling_interval,
+        COALESCE(m.priority, pj.priority) AS priority,
         m.is_enabled
     FROM provisioning_jobs pj
     LEFT JOIN credential_profile cp ON pj.credential_profile_id = cp.id
@@ -222,9 +421,13 @@ public class QueryConstant
                 m.provisioning_job_id,
                 m.name AS metric_name,
                 m.polling_interval,
+                m.min_polling_interval,
+                m.max_polling_interval,
+                COALESCE(m.priority, pj.priority) AS priority,
                 m.is_enabled,
                 pj.ip,
                 pj.port,
+                pj.credential_profile_id,
                 cp.cred_data,
                 cp.system_type AS protocol
             FROM metrics m
@@ -233,6 +436,24 @@ public class QueryConstant
             WHERE m.is_enabled = true
             """;
 
+    // Keyset page of the initial cache load
+    public static final String GET_ACTIVE_METRIC_JOBS_PAGE = GET_ACTIVE_METRIC_JOBS + "AND m.metric_id > $1 ORDER BY m.metric_id LIMIT $2";
+
+    // Narrowed reloads applied by the CacheListener when a row change is announced
+    public static final String GET_ACTIVE_METRIC_JOB_BY_METRIC_ID = GET_ACTIVE_METRIC_JOBS + "AND m.metric_id = $1";
+
+    // Reload of a bulk statement's changed metric_ids, announced as a JSON array of [first, last] runs instead of per row
+    public static final String GET_ACTIVE_METRIC_JOBS_BY_METRIC_RANGES = GET_ACTIVE_METRIC_JOBS +
+        "AND EXISTS (SELECT 1 FROM jsonb_array_elements($1::jsonb) AS r(run) " +
+        "WHERE m.metric_id BETWEEN (r.run ->> 0)::bigint AND (r.run ->> 1)::bigint)";
+
+    public static final String GET_ACTIVE_METRIC_JOBS_BY_PROVISIONING_JOB = GET_ACTIVE_METRIC_JOBS + "AND m.provisioning_job_id = $1";
+
+    public static final String GET_ACTIVE_METRIC_JOBS_BY_CREDENTIAL = GET_ACTIVE_METRIC_JOBS + "AND pj.credential_profile_id = $1";
+
+    // Device-wide dispatch class; the cache picks the change up through the provisioning_jobs trigger
+    public static final String UPDATE_PROVISIONING_JOB_PRIORITY = "UPDATE provisioning_jobs SET priority = $2 WHERE id = $1 RETURNING id";
+
     public static final String GET_PROVISIONING_JOB_BY_ID = """
         SELECT
             pj.id,
@@ -1,11 +1,12 @@
 package com.example.NMS.database;
 
+import com.example.NMS.metrics.Metrics;
 import io.vertx.core.AbstractVerticle;
-import io.vertx.core.CompositeFuture;
 import io.vertx.core.Future;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
+import io.vertx.pgclient.PgException;
 import io.vertx.sqlclient.Row;
 import io.vertx.sqlclient.RowSet;
 import io.vertx.sqlclient.SqlClient;
@@ -14,10 +15,16 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
 import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 import static com.example.NMS.constant.Constant.*;
+import static com.example.NMS.constant.QueryConstant.GET_SCHEMA_CHECKSUM;
+import static com.example.NMS.constant.QueryConstant.UPSERT_SCHEMA_CHECKSUM;
 
 /**
  * The Database verticle handles database operations by listening on the event bus.
@@ -29,6 +36,9 @@ public class Database extends AbstractVerticle
 
     private SqlClient client; // Instance of the shared SQL client
 
+    // Queries sent to the pool and not yet completed; beyond the pool size they wait for a connection
+    private final AtomicInteger queriesInFlight = new AtomicInteger();
+
     @Override
     public void start(Promise<Void> startPromise)
     {
@@ -36,6 +46,10 @@ public class Database extends AbstractVerticle
         // This ensures that all Database verticle instances share the same client and connection pool
         client =  DatabaseClient.getInstance(vertx).getClient();
 
+        Metrics.gauge("nms_db_queries_in_flight", "Queries waiting for or holding a pooled connection", queriesInFlight::get);
+
+        Metrics.gauge("nms_db_pool_max_size", "Maximum connections in the database pool", () -> DB_POOL_MAX_SIZE);
+
         // Initialize the database schema
         initializeSchema()
             .onComplete(result ->
@@ -79,9 +93,11 @@ public class Database extends AbstractVerticle
 
             LOGGER.debug("Executing query: {} with params: {}", query, params);
 
+            queriesInFlight.incrementAndGet();
 
             client.preparedQuery(query).execute(params).map(this::toJsonArray).onComplete(result ->
             {
+                queriesInFlight.decrementAndGet();
 
                 if(result.succeeded())
                 {
@@ -100,7 +116,7 @@ public class Database extends AbstractVerticle
 
                     if (message.replyAddress() != null)
                     {
-                        message.fail(500, result.cause().getMessage());
+                        message.fail(failureCode(result.cause()), result.cause().getMessage());
                     }
                 }
             });
@@ -131,13 +147,17 @@ public class Database extends AbstractVerticle
 
             LOGGER.debug("Executing batch query: {}, number of tuples: {}", query, batch.size());
 
+            queriesInFlight.incrementAndGet();
+
             client.preparedQuery(query).executeBatch(batch).map(this::toJsonArray).onComplete(result ->
             {
+                queriesInFlight.decrementAndGet();
+
                 if(result.succeeded())
                 {
                     var insertedIds = result.result();
 
-                    LOGGER.info("Batch query successful: {}, extracted IDs: {}", query, insertedIds.size());
+                    LOGGER.debug("Batch query successful: {}, extracted IDs: {}", query, insertedIds.size());
 
                     if (message.replyAddress() != null)
                     {
@@ -150,7 +170,7 @@ public class Database extends AbstractVerticle
 
                     if (message.replyAddress() != null)
                     {
-                        message.fail(500, result.cause().getMessage());
+                        message.fail(failureCode(result.cause()), result.cause().getMessage());
                     }
                 }
             });
@@ -187,44 +207,13 @@ public class Database extends AbstractVerticle
 
                 inputStream.close();
 
-                // Split schema into individual DDL statements
-                var ddlStatements = schema.split(";");
-
-                var executionFutures = new ArrayList<Future>();
-
-                for (var statement : ddlStatements)
-                {
-                    var trimmedStatement = statement.trim();
+                var checksum = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                    .digest(schema.getBytes(StandardCharsets.UTF_8)));
 
-                    if (!trimmedStatement.isEmpty())
-                    {
-                        // Execute each DDL statement
-                        var statementPromise = Promise.<Void>promise();
-
-                        LOGGER.debug("Executing DDL: {}", trimmedStatement);
-
-                        client.query(trimmedStatement).execute()
-                            .onSuccess(result ->
-                            {
-                                LOGGER.debug("Successfully executed DDL: {}", trimmedStatement);
-
-                                statementPromise.complete();
-                            })
-                            .onFailure(error ->
-                            {
-                                LOGGER.error("Failed to execute DDL: {} - Error: {}", trimmedStatement, error.getMessage());
-
-                                statementPromise.fail(error);
-                            });
-                        executionFutures.add(statementPromise.future());
-                    }
-                }
-
-                // Wait for all DDL statements to complete
-                CompositeFuture.all((executionFutures))
+                migrate(schema, checksum)
                     .onSuccess(result ->
                     {
-                        LOGGER.info("All DDL statements processed.");
+                        LOGGER.info("Schema is up to date.");
 
                         blockingPromise.complete();
                     })
@@ -256,6 +245,196 @@ public class Database extends AbstractVerticle
         return promise.future();
     }
 
+    /**
+     * Applies the schema script unless the database records it as already applied, then records its checksum.
+     *
+     * @param schema   The SQL script.
+     * @param checksum The SHA-256 of the script, hex encoded.
+     * @return A Future that completes when the schema is up to date.
+     */
+    Future<Void> migrate(String schema, String checksum)
+    {
+        return appliedChecksum().compose(appliedChecksum ->
+        {
+            if (checksum.equals(appliedChecksum))
+            {
+                LOGGER.info("Schema {} already applied, skipping migration", checksum.substring(0, 12));
+
+                return Future.succeededFuture();
+            }
+
+            return applySchema(schema).compose(ignored -> recordChecksum(checksum));
+        });
+    }
+
+    /**
+     * Reads the checksum of the last applied schema script.
+     *
+     * @return A Future of the checksum, or of null when the schema has never been applied.
+     */
+    Future<String> appliedChecksum()
+    {
+        // A missing schema_version table means the schema has never been applied
+        return client.query(GET_SCHEMA_CHECKSUM).execute()
+            .map(rows -> rows.iterator().hasNext() ? rows.iterator().next().getString(CHECKSUM) : null)
+            .otherwise((String) null);
+    }
+
+    /**
+     * Records the checksum of the schema script just applied.
+     *
+     * @param checksum The SHA-256 of the script, hex encoded.
+     * @return A Future that completes once the checksum is stored.
+     */
+    Future<Void> recordChecksum(String checksum)
+    {
+        return client.preparedQuery(UPSERT_SCHEMA_CHECKSUM).execute(Tuple.of(checksum)).mapEmpty();
+    }
+
+    /**
+     * Executes the statements of a schema script one after another; later statements (e.g. triggers) depend on
+     * earlier ones.
+     *
+     * @param schema The SQL script.
+     * @return A Future that completes when every statement has run, or fails on the first failing statement.
+     */
+    Future<Void> applySchema(String schema)
+    {
+        var execution = Future.<Void>succeededFuture();
+
+        for (var statement : splitStatements(schema))
+        {
+            execution = execution.compose(ignored ->
+            {
+                LOGGER.debug("Executing DDL: {}", statement);
+
+                return client.query(statement).execute()
+                    .onFailure(error -> LOGGER.error("Failed to execute DDL: {} - Error: {}", statement, error.getMessage()))
+                    .<Void>mapEmpty();
+            });
+        }
+
+        return execution;
+    }
+
+    /**
+     * Splits a SQL script into statements on semicolons that are not inside quotes, dollar-quoted bodies or
+     * line comments, so plpgsql functions survive as single statements.
+     *
+     * @param script The SQL script.
+     * @return The trimmed, non-empty statements in script order.
+     */
+    static List<String> splitStatements(String script)
+    {
+        var statements = new ArrayList<String>();
+
+        var current = new StringBuilder();
+
+        String dollarTag = null;
+
+        var inQuote = false;
+
+        var i = 0;
+
+        while (i < script.length())
+        {
+            var c = script.charAt(i);
+
+            if (dollarTag != null)
+            {
+                if (script.startsWith(dollarTag, i))
+                {
+                    current.append(dollarTag);
+
+                    i += dollarTag.length();
+
+                    dollarTag = null;
+
+                    continue;
+                }
+            }
+            else if (inQuote)
+            {
+                inQuote = c != '\'';
+            }
+            else if (c == '\'')
+            {
+                inQuote = true;
+            }
+            else if (c == '-' && script.startsWith("--", i))
+            {
+                var end = script.indexOf('\n', i);
+
+                i = end == -1 ? script.length() : end;
+
+                continue;
+            }
+            else if (c == '$')
+            {
+                var end = script.indexOf('$', i + 1);
+
+                var tag = end == -1 ? null : script.substring(i, end + 1);
+
+                if (tag != null && tag.substring(1, tag.length() - 1).chars().allMatch(ch -> Character.isLetterOrDigit(ch) || ch == '_'))
+                {
+                    current.append(tag);
+
+                    i += tag.length();
+
+                    dollarTag = tag;
+
+                    continue;
+                }
+            }
+            else if (c == ';')
+            {
+                addStatement(statements, current);
+
+                i++;
+
+                continue;
+            }
+
+            current.append(c);
+
+            i++;
+        }
+
+        addStatement(statements, current);
+
+        return statements;
+    }
+
+    private static void addStatement(List<String> statements, StringBuilder current)
+    {
+        var statement = current.toString().trim();
+
+        if (!statement.isEmpty())
+        {
+            statements.add(statement);
+        }
+
+        current.setLength(0);
+    }
+
+    /**
+     * Maps a query failure to a reply failure code so callers can tell bad data from an unavailable database.
+     * Data exceptions (SQLSTATE class 22) and integrity violations (class 23) will fail again on retry.
+     *
+     * @param cause The query failure.
+     * @return 400 for failures that will not succeed on retry, 500 otherwise.
+     */
+    private int failureCode(Throwable cause)
+    {
+        if (cause instanceof PgException pgException && pgException.getSqlState() != null
+            && (pgException.getSqlState().startsWith("22") || pgException.getSqlState().startsWith("23")))
+        {
+            return 400;
+        }
+
+        return 500;
+    }
+
     private JsonArray toJsonArray(RowSet<Row> rows)
     {
         var results = new JsonArray();
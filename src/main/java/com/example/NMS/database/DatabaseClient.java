@@ -25,20 +25,13 @@ public class DatabaseClient
     {
       LOGGER.info("Initializing database connection pool...");
 
-      var connectOptions = new PgConnectOptions()
-        .setHost(DB_HOST)
-        .setPort(DB_PORT)
-        .setDatabase(DB_NAME)
-        .setUser(DB_USER)
-        .setPassword(DB_PASSWORD);
-
       var poolOptions = new PoolOptions()
-        .setMaxSize(10)
+        .setMaxSize(DB_POOL_MAX_SIZE)
         .setIdleTimeout(30);
 
       client = PgBuilder.client()
         .with(poolOptions)
-        .connectingTo(connectOptions)
+        .connectingTo(connectOptions())
         .using(vertx)
         .build();
     }
@@ -53,6 +46,19 @@ public class DatabaseClient
     return instance;
   }
 
+  /**
+   * Connection settings of the NMS database, for components that need a dedicated connection (e.g. LISTEN).
+   */
+  public static PgConnectOptions connectOptions()
+  {
+    return new PgConnectOptions()
+      .setHost(DB_HOST)
+      .setPort(DB_PORT)
+      .setDatabase(DB_NAME)
+      .setUser(DB_USER)
+      .setPassword(DB_PASSWORD);
+  }
+
   public SqlClient getClient()
   {
     return client;
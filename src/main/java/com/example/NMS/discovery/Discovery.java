@@ -140,7 +140,8 @@ public class Discovery extends AbstractVerticle
             .put(DISCOVERY_ID, discoveryId)
             .put(TARGETS, targets);
 
-        LOGGER.info("Plugin input: {}", pluginInput.encodePrettily());
+        // The plugin input carries credentials, so only its size is logged
+        LOGGER.info("Sending discovery {} to plugin with {} reachable targets", discoveryId, targets.size());
 
         vertx.eventBus().send(PLUGIN_EXECUTE, pluginInput);
 
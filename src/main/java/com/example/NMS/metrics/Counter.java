@@ -0,0 +1,47 @@
+package com.example.NMS.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Monotonic counter safe for concurrent increments.
+ */
+public class Counter
+{
+    private final String name;
+
+    private final String help;
+
+    private final LongAdder value = new LongAdder();
+
+    Counter(String name, String help)
+    {
+        this.name = name;
+
+        this.help = help;
+    }
+
+    public void increment()
+    {
+        value.increment();
+    }
+
+    public void add(long amount)
+    {
+        value.add(amount);
+    }
+
+    public long value()
+    {
+        return value.sum();
+    }
+
+    public String name()
+    {
+        return name;
+    }
+
+    public String help()
+    {
+        return help;
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.NMS.metrics;
+
+import io.vertx.core.eventbus.Message;
+import io.vertx.core.metrics.MetricsOptions;
+import io.vertx.core.spi.metrics.VertxMetrics;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.example.NMS.constant.Constant.*;
+
+/**
+ * Tracks messages waiting on the pipeline's event bus addresses.
+ * Plugged into Vert.x as its event bus metrics: a message is pending from the moment it is queued on a consumer of
+ * the address until that consumer handles or discards it. A send to an address with no consumer is never queued, so
+ * it is never counted.
+ */
+public class EventBusMetrics implements io.vertx.core.spi.metrics.EventBusMetrics<LongAdder>
+{
+    private static final String[] ADDRESSES = {POLLING_BATCH_PROCESS, PLUGIN_EXECUTE, STORAGE_RESULTS, DB_EXECUTE_QUERY, DB_EXECUTE_BATCH_QUERY};
+
+    private static final Map<String, LongAdder> PENDING = new HashMap<>();
+
+    private static final EventBusMetrics INSTANCE = new EventBusMetrics();
+
+    static
+    {
+        for (var address : ADDRESSES)
+        {
+            var pending = new LongAdder();
+
+            PENDING.put(address, pending);
+
+            Metrics.gauge("nms_eventbus_pending_messages{address=\"" + address + "\"}",
+                "Messages queued on a consumer of an address and not yet handled", pending::sum);
+        }
+    }
+
+    private EventBusMetrics(){}
+
+    /**
+     * Builds the Vert.x metrics options that install the pending-messages tracking on the event bus.
+     *
+     * @return Metrics options to set on the VertxOptions the instance is created with.
+     */
+    public static MetricsOptions options()
+    {
+        return new MetricsOptions()
+            .setEnabled(true)
+            .setFactory(options -> new VertxMetrics()
+            {
+                @Override
+                public io.vertx.core.spi.metrics.EventBusMetrics<?> createEventBusMetrics()
+                {
+                    return INSTANCE;
+                }
+            });
+    }
+
+    @Override
+    public LongAdder handlerRegistered(String address, String repliedAddress)
+    {
+        // null for reply handlers and addresses outside the pipeline; Vert.x hands it back to the calls below
+        return PENDING.get(address);
+    }
+
+    @Override
+    public void scheduleMessage(LongAdder pending, boolean local)
+    {
+        if (pending != null)
+        {
+            pending.increment();
+        }
+    }
+
+    @Override
+    public void messageDelivered(LongAdder pending, boolean local)
+    {
+        if (pending != null)
+        {
+            pending.decrement();
+        }
+    }
+
+    @Override
+    public void discardMessage(LongAdder pending, boolean local, Message<?> message)
+    {
+        if (pending != null)
+        {
+            pending.decrement();
+        }
+    }
+}
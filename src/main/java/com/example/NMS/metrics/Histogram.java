@@ -0,0 +1,148 @@
+package com.example.NMS.metrics;
+
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-bucket histogram safe for concurrent recording from event loops and worker threads.
+ * Bucket upper bounds are inclusive; values above the last bound fall into an overflow bucket.
+ */
+public class Histogram
+{
+    private final String name;
+
+    private final String help;
+
+    private final double[] bounds;
+
+    // One counter per bound plus the overflow bucket
+    private final LongAdder[] buckets;
+
+    private final DoubleAdder sum = new DoubleAdder();
+
+    private final LongAdder count = new LongAdder();
+
+    Histogram(String name, String help, double[] bounds)
+    {
+        this.name = name;
+
+        this.help = help;
+
+        this.bounds = bounds.clone();
+
+        this.buckets = new LongAdder[bounds.length + 1];
+
+        for (var i = 0; i < buckets.length; i++)
+        {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Builds bucket bounds that grow geometrically, e.g. (1, 2, 4) gives 1, 2, 4, 8.
+     *
+     * @param start  The first upper bound.
+     * @param factor The ratio between consecutive bounds.
+     * @param count  The number of bounds.
+     * @return The bucket upper bounds.
+     */
+    public static double[] exponentialBounds(double start, double factor, int count)
+    {
+        var bounds = new double[count];
+
+        for (var i = 0; i < count; i++)
+        {
+            bounds[i] = start * Math.pow(factor, i);
+        }
+
+        return bounds;
+    }
+
+    public void record(double value)
+    {
+        var index = 0;
+
+        while (index < bounds.length && value > bounds[index])
+        {
+            index++;
+        }
+
+        buckets[index].increment();
+
+        sum.add(value);
+
+        count.increment();
+    }
+
+    /**
+     * Estimates a quantile from the bucket counts, returning the upper bound of the bucket that contains it.
+     *
+     * @param quantile The quantile between 0 and 1.
+     * @return The estimated value, or 0 when nothing has been recorded.
+     */
+    public double quantile(double quantile)
+    {
+        var total = count.sum();
+
+        if (total == 0)
+        {
+            return 0;
+        }
+
+        var rank = Math.ceil(quantile * total);
+
+        var cumulative = 0L;
+
+        for (var i = 0; i < bounds.length; i++)
+        {
+            cumulative += buckets[i].sum();
+
+            if (cumulative >= rank)
+            {
+                return bounds[i];
+            }
+        }
+
+        return Double.POSITIVE_INFINITY;
+    }
+
+    public String name()
+    {
+        return name;
+    }
+
+    public String help()
+    {
+        return help;
+    }
+
+    public double[] bounds()
+    {
+        return bounds.clone();
+    }
+
+    /**
+     * @return The per-bucket counts, the last entry being the overflow bucket.
+     */
+    public long[] bucketCounts()
+    {
+        var counts = new long[buckets.length];
+
+        for (var i = 0; i < buckets.length; i++)
+        {
+            counts[i] = buckets[i].sum();
+        }
+
+        return counts;
+    }
+
+    public double sum()
+    {
+        return sum.sum();
+    }
+
+    public long count()
+    {
+        return count.sum();
+    }
+}
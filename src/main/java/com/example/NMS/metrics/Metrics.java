@@ -0,0 +1,204 @@
+package com.example.NMS.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Process-wide registry of runtime metrics, rendered in the Prometheus text exposition format.
+ * Metrics are created on first use and shared by name, so verticles register them as static fields.
+ * Labels are part of the name, e.g. {@code nms_poll_stage_latency_seconds{stage="plugin"}}; series sharing a
+ * base name are rendered under one HELP and TYPE header.
+ */
+public class Metrics
+{
+    private static final ConcurrentHashMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+
+    private static final ConcurrentHashMap<String, Counter> counters = new ConcurrentHashMap<>();
+
+    private static final ConcurrentHashMap<String, Sampled> sampled = new ConcurrentHashMap<>();
+
+    static
+    {
+        registerJvmMetrics();
+    }
+
+    private Metrics(){}
+
+    /**
+     * Returns the histogram registered under the given name, creating it with the given bounds if needed.
+     *
+     * @param name   The metric name.
+     * @param help   A one-line description of the metric.
+     * @param bounds The bucket upper bounds, in ascending order.
+     * @return The shared histogram.
+     */
+    public static Histogram histogram(String name, String help, double... bounds)
+    {
+        return histograms.computeIfAbsent(name, key -> new Histogram(name, help, bounds));
+    }
+
+    /**
+     * Returns the counter registered under the given name, creating it if needed.
+     *
+     * @param name The metric name.
+     * @param help A one-line description of the metric.
+     * @return The shared counter.
+     */
+    public static Counter counter(String name, String help)
+    {
+        return counters.computeIfAbsent(name, key -> new Counter(name, help));
+    }
+
+    /**
+     * Registers a counter whose value is read from the supplier at scrape time, for totals kept elsewhere.
+     *
+     * @param name     The metric name.
+     * @param help     A one-line description of the metric.
+     * @param supplier Reads the current total.
+     */
+    public static void counter(String name, String help, DoubleSupplier supplier)
+    {
+        sampled.put(name, new Sampled(help, "counter", supplier));
+    }
+
+    /**
+     * Registers a gauge whose value is read from the supplier at scrape time.
+     * Registering the same name again replaces the previous supplier.
+     *
+     * @param name     The metric name.
+     * @param help     A one-line description of the metric.
+     * @param supplier Reads the current value.
+     */
+    public static void gauge(String name, String help, DoubleSupplier supplier)
+    {
+        sampled.put(name, new Sampled(help, "gauge", supplier));
+    }
+
+    /**
+     * Renders every registered metric in the Prometheus text exposition format.
+     *
+     * @return The metrics page.
+     */
+    public static String scrape()
+    {
+        // Group series by base name so each family gets a single header
+        var families = new TreeMap<String, StringBuilder>();
+
+        var headers = new TreeMap<String, String>();
+
+        counters.values().forEach(counter ->
+        {
+            header(headers, counter.name(), counter.help(), "counter");
+
+            family(families, counter.name()).append(counter.name()).append(' ').append(counter.value()).append('\n');
+        });
+
+        sampled.forEach((name, metric) ->
+        {
+            header(headers, name, metric.help(), metric.type());
+
+            family(families, name).append(name).append(' ').append(format(metric.supplier().getAsDouble())).append('\n');
+        });
+
+        histograms.values().forEach(histogram ->
+        {
+            var name = histogram.name();
+
+            header(headers, name, histogram.help(), "histogram");
+
+            var base = baseName(name);
+
+            var labels = labels(name);
+
+            var bounds = histogram.bounds();
+
+            var counts = histogram.bucketCounts();
+
+            var cumulative = 0L;
+
+            var lines = family(families, name);
+
+            for (var i = 0; i < counts.length; i++)
+            {
+                cumulative += counts[i];
+
+                var bound = i < bounds.length ? format(bounds[i]) : "+Inf";
+
+                lines.append(base).append("_bucket{").append(labels.isEmpty() ? "" : labels + ",")
+                    .append("le=\"").append(bound).append("\"} ").append(cumulative).append('\n');
+            }
+
+            var suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+
+            lines.append(base).append("_sum").append(suffix).append(' ').append(format(histogram.sum())).append('\n');
+
+            lines.append(base).append("_count").append(suffix).append(' ').append(histogram.count()).append('\n');
+        });
+
+        var page = new StringBuilder();
+
+        families.forEach((base, lines) -> page.append(headers.get(base)).append(lines));
+
+        return page.toString();
+    }
+
+    private static void registerJvmMetrics()
+    {
+        var memory = ManagementFactory.getMemoryMXBean();
+
+        gauge("nms_jvm_memory_heap_used_bytes", "Heap memory in use", () -> memory.getHeapMemoryUsage().getUsed());
+
+        gauge("nms_jvm_memory_heap_max_bytes", "Maximum heap memory", () -> memory.getHeapMemoryUsage().getMax());
+
+        for (var collector : ManagementFactory.getGarbageCollectorMXBeans())
+        {
+            var label = "{gc=\"" + collector.getName() + "\"}";
+
+            counter("nms_jvm_gc_collections_total" + label, "Garbage collections performed", collector::getCollectionCount);
+
+            counter("nms_jvm_gc_collection_seconds_total" + label, "Time spent in garbage collection", () -> collector.getCollectionTime() / 1000.0);
+        }
+
+        var threads = ManagementFactory.getThreadMXBean();
+
+        gauge("nms_jvm_threads", "Live JVM threads", threads::getThreadCount);
+    }
+
+    private static StringBuilder family(Map<String, StringBuilder> families, String name)
+    {
+        return families.computeIfAbsent(baseName(name), key -> new StringBuilder());
+    }
+
+    private static void header(Map<String, String> headers, String name, String help, String type)
+    {
+        var base = baseName(name);
+
+        headers.putIfAbsent(base, "# HELP " + base + " " + help + "\n# TYPE " + base + " " + type + "\n");
+    }
+
+    private static String baseName(String name)
+    {
+        var brace = name.indexOf('{');
+
+        return brace == -1 ? name : name.substring(0, brace);
+    }
+
+    private static String labels(String name)
+    {
+        var brace = name.indexOf('{');
+
+        return brace == -1 ? "" : name.substring(brace + 1, name.length() - 1);
+    }
+
+    private static String format(double value)
+    {
+        return value == Math.rint(value) && !Double.isInfinite(value) ? String.valueOf((long) value) : String.valueOf(value);
+    }
+
+    private record Sampled(String help, String type, DoubleSupplier supplier)
+    {
+    }
+}
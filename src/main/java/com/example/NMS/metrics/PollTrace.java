@@ -0,0 +1,180 @@
+package com.example.NMS.metrics;
+
+import io.vertx.core.json.JsonObject;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static com.example.NMS.constant.Constant.*;
+
+/**
+ * Records the latency of each stage a scheduled poll goes through, from the scheduler tick to the database commit.
+ * A poll carries its trace as a JsonObject of System.nanoTime() stamps keyed by stage; each stage transition is
+ * recorded into a log-bucketed histogram. Also counts polls scheduled, committed, committed late and missed per
+ * reporting window, to show whether the deployment keeps up with its polling load.
+ */
+public class PollTrace
+{
+    private static final String STAGE_METRIC = "nms_poll_stage_latency_seconds";
+
+    private static final String STAGE_HELP = "Latency between consecutive stages of a poll";
+
+    // Buckets from 1 ms to about 3 minutes, each 41% wider than the last
+    private static final double[] STAGE_BOUNDS = Histogram.exponentialBounds(0.001, Math.sqrt(2), 36);
+
+    private static final Histogram DISPATCH = stage("dispatch");
+
+    private static final Histogram PLUGIN_START = stage("plugin_start");
+
+    private static final Histogram PLUGIN = stage("plugin");
+
+    private static final Histogram BUFFER = stage("buffer");
+
+    private static final Histogram COMMIT = stage("commit");
+
+    private static final Histogram END_TO_END = stage("end_to_end");
+
+    private static final Counter SCHEDULED_TOTAL = Metrics.counter("nms_polls_scheduled_total", "Polls selected by the scheduler");
+
+    private static final Counter COMMITTED_TOTAL = Metrics.counter("nms_polls_committed_total", "Poll results committed to the database");
+
+    private static final Counter LATE_TOTAL = Metrics.counter("nms_polls_late_total", "Poll results committed after the late-poll threshold");
+
+    private static final Counter MISSED_TOTAL = Metrics.counter("nms_polls_missed_total", "Polls that will not be committed");
+
+    // Counts of the current reporting window
+    private static final LongAdder scheduled = new LongAdder();
+
+    private static final LongAdder committed = new LongAdder();
+
+    private static final LongAdder late = new LongAdder();
+
+    private static final LongAdder missed = new LongAdder();
+
+    private static long windowStart = System.nanoTime();
+
+    private PollTrace(){}
+
+    private static Histogram stage(String stage)
+    {
+        return Metrics.histogram(STAGE_METRIC + "{stage=\"" + stage + "\"}", STAGE_HELP, STAGE_BOUNDS);
+    }
+
+    public static void scheduled(int polls)
+    {
+        scheduled.add(polls);
+
+        SCHEDULED_TOTAL.add(polls);
+    }
+
+    /**
+     * Counts polls that were scheduled but will never be committed, e.g. unreachable targets or failed results.
+     */
+    public static void missed(int polls)
+    {
+        missed.add(polls);
+
+        MISSED_TOTAL.add(polls);
+    }
+
+    /**
+     * Records the stages up to the moment a poll result entered the ingest buffer.
+     *
+     * @param trace The trace of the poll, already stamped with {@link com.example.NMS.constant.Constant#TRACE_BUFFERED}.
+     */
+    public static void buffered(JsonObject trace)
+    {
+        record(DISPATCH, trace, TRACE_SCHEDULED, TRACE_DISPATCHED);
+
+        record(PLUGIN_START, trace, TRACE_DISPATCHED, TRACE_PLUGIN_STARTED);
+
+        record(PLUGIN, trace, TRACE_PLUGIN_STARTED, TRACE_RECEIVED);
+
+        record(BUFFER, trace, TRACE_RECEIVED, TRACE_BUFFERED);
+    }
+
+    /**
+     * Records the commit of a batch of poll results.
+     *
+     * @param traces      The traces of the polls in the batch.
+     * @param committedAt The System.nanoTime() at which the database acknowledged the batch.
+     */
+    public static void committed(List<JsonObject> traces, long committedAt)
+    {
+        for (var trace : traces)
+        {
+            var bufferedAt = trace.getLong(TRACE_BUFFERED);
+
+            if (bufferedAt != null)
+            {
+                COMMIT.record(toSeconds(committedAt - bufferedAt));
+            }
+
+            var scheduledAt = trace.getLong(TRACE_SCHEDULED);
+
+            if (scheduledAt != null)
+            {
+                var endToEnd = committedAt - scheduledAt;
+
+                END_TO_END.record(toSeconds(endToEnd));
+
+                if (endToEnd > TimeUnit.MILLISECONDS.toNanos(LATE_POLL_THRESHOLD_MS))
+                {
+                    late.increment();
+
+                    LATE_TOTAL.increment();
+                }
+            }
+        }
+
+        committed.add(traces.size());
+
+        COMMITTED_TOTAL.add(traces.size());
+
+        if (!traces.isEmpty())
+        {
+            Startup.reached(STARTUP_FIRST_POLL);
+        }
+    }
+
+    /**
+     * Summarizes the current reporting window and starts a new one.
+     *
+     * @return The poll counts of the window and the end-to-end latency quantiles since startup.
+     */
+    public static synchronized JsonObject report()
+    {
+        var now = System.nanoTime();
+
+        var report = new JsonObject()
+            .put("window.seconds", TimeUnit.NANOSECONDS.toSeconds(now - windowStart))
+            .put("scheduled", scheduled.sumThenReset())
+            .put("committed", committed.sumThenReset())
+            .put("late", late.sumThenReset())
+            .put("missed", missed.sumThenReset())
+            .put("end.to.end.p50.seconds", END_TO_END.quantile(0.5))
+            .put("end.to.end.p99.seconds", END_TO_END.quantile(0.99));
+
+        windowStart = now;
+
+        return report;
+    }
+
+    private static void record(Histogram histogram, JsonObject trace, String from, String to)
+    {
+        var start = trace.getLong(from);
+
+        var end = trace.getLong(to);
+
+        if (start != null && end != null)
+        {
+            histogram.record(toSeconds(end - start));
+        }
+    }
+
+    private static double toSeconds(long nanos)
+    {
+        return nanos / 1_000_000_000.0;
+    }
+}
@@ -0,0 +1,44 @@
+package com.example.NMS.metrics;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records when startup phases are first reached, in seconds since the JVM started.
+ * Each phase is logged once and exported as nms_startup_seconds{phase="..."}; later calls for the same phase are
+ * cheap no-ops, so hot paths such as the batch commit can report the first poll without extra bookkeeping.
+ */
+public class Startup
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(Startup.class);
+
+    private static final ConcurrentHashMap<String, Double> phases = new ConcurrentHashMap<>();
+
+    private Startup(){}
+
+    /**
+     * Marks a startup phase as reached, if it has not been reached before.
+     *
+     * @param phase The phase name.
+     */
+    public static void reached(String phase)
+    {
+        if (phases.containsKey(phase))
+        {
+            return;
+        }
+
+        var seconds = ManagementFactory.getRuntimeMXBean().getUptime() / 1000.0;
+
+        if (phases.putIfAbsent(phase, seconds) == null)
+        {
+            Metrics.gauge("nms_startup_seconds{phase=\"" + phase + "\"}", "Seconds from process start until a startup phase was reached",
+                () -> seconds);
+
+            LOGGER.info("Startup phase {} reached after {} s", phase, seconds);
+        }
+    }
+}
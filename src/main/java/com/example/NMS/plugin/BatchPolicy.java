@@ -0,0 +1,114 @@
+package com.example.NMS.plugin;
+
+/**
+ * Adaptive sizing policy for poll result inserts.
+ * The target batch size follows the arrival rate, so a batch holds roughly the rows expected to arrive within one
+ * linger window. The size ceiling is tuned by insert latency: it shrinks in proportion when a batch misses the
+ * latency SLO, and grows by a tenth when a batch of at least half the ceiling meets it. Smaller batches say nothing
+ * about larger ones and leave it unchanged. Not thread-safe; it is owned by the ResponseProcessor.
+ */
+public class BatchPolicy
+{
+    // Weight of the newest one-second window in the arrival rate average
+    private static final double RATE_SMOOTHING = 0.3;
+
+    private static final long RATE_WINDOW_MS = 1_000;
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    private final long maxLingerMs;
+
+    private final long latencySloMs;
+
+    private int sizeCeiling;
+
+    // Smoothed arrival rate in rows per second
+    private double arrivalRate = 0;
+
+    private long windowStart = -1;
+
+    private long windowRows = 0;
+
+    /**
+     * @param minSize      The smallest batch the policy will ask for.
+     * @param maxSize      The largest batch the policy will ask for.
+     * @param maxLingerMs  The longest a row may wait in the buffer before it is flushed.
+     * @param latencySloMs The target latency of a single batch insert.
+     */
+    public BatchPolicy(int minSize, int maxSize, long maxLingerMs, long latencySloMs)
+    {
+        this.minSize = minSize;
+
+        this.maxSize = maxSize;
+
+        this.maxLingerMs = maxLingerMs;
+
+        this.latencySloMs = latencySloMs;
+
+        this.sizeCeiling = maxSize;
+    }
+
+    /**
+     * Records rows arriving in the buffer and folds each completed one-second window into the arrival rate.
+     *
+     * @param rows  The number of rows that arrived.
+     * @param nowMs The current time in milliseconds.
+     */
+    public void onArrival(int rows, long nowMs)
+    {
+        if (windowStart < 0)
+        {
+            windowStart = nowMs;
+        }
+
+        var elapsed = nowMs - windowStart;
+
+        if (elapsed >= RATE_WINDOW_MS)
+        {
+            var windowRate = windowRows * 1000.0 / elapsed;
+
+            arrivalRate = RATE_SMOOTHING * windowRate + (1 - RATE_SMOOTHING) * arrivalRate;
+
+            windowStart = nowMs;
+
+            windowRows = 0;
+        }
+
+        windowRows += rows;
+    }
+
+    /**
+     * @return The number of buffered rows at which the buffer should be flushed.
+     */
+    public int targetSize()
+    {
+        var expectedRows = (int) Math.ceil(arrivalRate * maxLingerMs / 1000.0);
+
+        return Math.max(minSize, Math.min(sizeCeiling, expectedRows));
+    }
+
+    /**
+     * Adjusts the size ceiling from the observed latency of a completed batch insert.
+     *
+     * @param rows      The number of rows in the batch.
+     * @param latencyMs The time the database took to acknowledge the batch.
+     */
+    public void onBatchCompleted(int rows, long latencyMs)
+    {
+        if (latencyMs > latencySloMs)
+        {
+            sizeCeiling = Math.max(minSize, (int) (rows * latencySloMs / latencyMs));
+        }
+        else if (rows * 2 >= sizeCeiling)
+        {
+            sizeCeiling = Math.min(maxSize, sizeCeiling + Math.max(1, sizeCeiling / 10));
+        }
+    }
+
+    public long maxLingerMs()
+    {
+        return maxLingerMs;
+    }
+}
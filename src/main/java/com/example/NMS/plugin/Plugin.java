@@ -1,6 +1,12 @@
 package com.example.NMS.plugin;
 
+import com.example.NMS.metrics.Counter;
+import com.example.NMS.metrics.Histogram;
+import com.example.NMS.metrics.Metrics;
+import com.example.NMS.metrics.PollTrace;
+import com.example.NMS.utility.SampledLogger;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.MultiMap;
 import io.vertx.core.Promise;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
@@ -25,6 +31,30 @@ public class Plugin extends AbstractVerticle
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(Plugin.class);
 
+    private static final SampledLogger SAMPLED_LOGGER = SampledLogger.of(LOGGER, 10);
+
+    private static final Histogram BATCH_DURATION = Metrics.histogram("nms_plugin_batch_duration_seconds",
+        "Wall time of one plugin process run", Histogram.exponentialBounds(0.1, 2, 14));
+
+    private static final Counter RESULTS = Metrics.counter("nms_plugin_results_total", "Results decoded from plugin output");
+
+    private static final Counter DECODE_FAILURES = Metrics.counter("nms_plugin_decode_failures_total", "Plugin output lines that could not be decoded");
+
+    private final String pluginPath;
+
+    public Plugin()
+    {
+        this(PLUGIN_PATH);
+    }
+
+    /**
+     * @param pluginPath The plugin executable; benchmarks pass a stub in place of the SSH plugin.
+     */
+    Plugin(String pluginPath)
+    {
+        this.pluginPath = pluginPath;
+    }
+
     @Override
     public void start(Promise<Void> startPromise)
     {
@@ -33,9 +63,13 @@ public class Plugin extends AbstractVerticle
         {
             var pluginJson = message.body();
 
-            LOGGER.info("Received plugin execution request: {}", pluginJson.encodePrettily());
+            // Never log the request itself: targets carry device credentials
+            SAMPLED_LOGGER.atInfo().setMessage("Received plugin execution request")
+                .addKeyValue(REQUEST_TYPE, pluginJson.getString(REQUEST_TYPE))
+                .addKeyValue(TARGETS, pluginJson.getJsonArray(TARGETS, new JsonArray()).size())
+                .log();
 
-            executePlugin(pluginJson);
+            executePlugin(pluginJson, traceOf(message.headers()));
         });
 
         LOGGER.info("PluginVerticle deployed");
@@ -43,15 +77,50 @@ public class Plugin extends AbstractVerticle
         startPromise.complete();
     }
 
+    /**
+     * Builds the trace of a polling batch from the stamps carried in the message headers.
+     *
+     * @param headers The headers of the plugin execution request.
+     * @return The trace, or null if the request is not a traced poll.
+     */
+    private JsonObject traceOf(MultiMap headers)
+    {
+        var dispatchedAt = headers.get(TRACE_DISPATCHED);
+
+        if (dispatchedAt == null)
+        {
+            return null;
+        }
+
+        var trace = new JsonObject().put(TRACE_DISPATCHED, Long.parseLong(dispatchedAt));
+
+        var scheduledAt = headers.get(TRACE_SCHEDULED);
+
+        if (scheduledAt != null)
+        {
+            trace.put(TRACE_SCHEDULED, Long.parseLong(scheduledAt));
+        }
+
+        return trace;
+    }
+
     /**
      * Executes the SSH plugin with the provided JSON configuration.
      * Sends Base64-encoded JSON input to the plugin via stdin, reads Base64-encoded JSON results from stdout,
      * and forwards the results to the StorageVerticle.
      *
      * @param pluginJson The JSON object containing the plugin configuration.
+     * @param trace      The trace shared by the polls in this batch, or null if untraced.
      */
-    private void executePlugin(JsonObject pluginJson)
+    private void executePlugin(JsonObject pluginJson, JsonObject trace)
     {
+        var startedAt = System.nanoTime();
+
+        if (trace != null)
+        {
+            trace.put(TRACE_PLUGIN_STARTED, startedAt);
+        }
+
         var results = new JsonArray();
 
         Process process = null;
@@ -65,7 +134,7 @@ public class Plugin extends AbstractVerticle
         try
         {
             // Start the SSH plugin process
-            var pb = new ProcessBuilder("./plugin/Lite_NMS_Plugin");
+            var pb = new ProcessBuilder(pluginPath);
 
             process = pb.start();
 
@@ -97,11 +166,28 @@ public class Plugin extends AbstractVerticle
 
                     resultObj.put("timestamp", System.currentTimeMillis());
 
+                    if (trace != null)
+                    {
+                        resultObj.put(TRACE, trace.copy().put(TRACE_RECEIVED, System.nanoTime()));
+                    }
+
                     vertx.eventBus().send(STORAGE_RESULTS, resultObj);
+
+                    RESULTS.increment();
                 }
                 catch (Exception exception)
                 {
-                    LOGGER.error("Failed to decode stdout line '{}': {}", line, exception.getMessage());
+                    DECODE_FAILURES.increment();
+
+                    if (trace != null)
+                    {
+                        PollTrace.missed(1);
+                    }
+
+                    SAMPLED_LOGGER.atError().setMessage("Failed to decode plugin output line")
+                        .addKeyValue("length", line.length())
+                        .addKeyValue(ERROR, exception.getMessage())
+                        .log();
                 }
             }
 
@@ -154,6 +240,8 @@ public class Plugin extends AbstractVerticle
                 LOGGER.error("Error cleaning up SSH plugin process: {}", exception.getMessage());
             }
 
+            BATCH_DURATION.record((System.nanoTime() - startedAt) / 1_000_000_000.0);
+
             vertx.eventBus().send(EVENT_COMPLETION, pluginJson);
         }
     }
@@ -1,34 +1,114 @@
 package com.example.NMS.plugin;
 
+import com.example.NMS.api.handlers.Stream;
+import com.example.NMS.cache.LatestValues;
 import com.example.NMS.constant.QueryConstant;
+import com.example.NMS.metrics.Counter;
+import com.example.NMS.metrics.Histogram;
+import com.example.NMS.metrics.Metrics;
+import com.example.NMS.metrics.PollTrace;
+import com.example.NMS.polling.AdaptiveInterval;
+import com.example.NMS.polling.DeviceHealth;
+import com.example.NMS.utility.DBUtils;
+import com.example.NMS.utility.SampledLogger;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.eventbus.ReplyException;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 import static com.example.NMS.constant.Constant.*;
 
 /**
  * Vert.x verticle for storing polling and discovery results in the database.
  * Listens for plugin results on a single event bus address and batches results for database storage.
+ * Poll batches are written one at a time in arrival order. Batches waiting for the database are held in a bounded
+ * in-memory queue; once that is full they spill to a local {@link SpillLog} and are replayed after the queue drains,
+ * so a slow or unavailable database neither loses polled data nor grows the heap. The spill log is capped in size;
+ * batches arriving once it is full are dropped and counted.
+ * Batch sizes are chosen by a {@link BatchPolicy}, and no row waits in the buffer longer than the max-linger deadline.
+ * A batch the database rejects as invalid is split until the offending rows are isolated; only those are dropped.
  */
 public class ResponseProcessor extends AbstractVerticle
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(ResponseProcessor.class);
 
-    private static final long BATCH_TIMEOUT_MS = 15_000; // 30 seconds
+    private static final SampledLogger SAMPLED_LOGGER = SampledLogger.of(LOGGER, 10);
 
-    private final JsonArray pollResultsBuffer = new JsonArray();
+    private static final Histogram BATCH_SIZES = Metrics.histogram("nms_ingest_batch_size_rows",
+        "Rows per polled data insert batch", Histogram.exponentialBounds(BATCH_SIZE_MIN, 2, 8));
 
-    private long timerId = -1;
+    private static final Counter DROPPED_ROWS = Metrics.counter("nms_ingest_dropped_rows_total",
+        "Polled data rows dropped because the spill log was full or could not be written");
+
+    private static final Counter REJECTED_ROWS = Metrics.counter("nms_ingest_rejected_rows_total",
+        "Polled data rows dropped because the database rejected them as invalid");
+
+    private static final Histogram INSERT_DURATION = Metrics.histogram("nms_ingest_batch_insert_duration_seconds",
+        "Time for the database to acknowledge a polled data batch", Histogram.exponentialBounds(0.001, 2, 16));
+
+    private final BatchPolicy batchPolicy = new BatchPolicy(BATCH_SIZE_MIN, BATCH_SIZE_MAX, BATCH_MAX_LINGER_MS, BATCH_INSERT_LATENCY_SLO_MS);
+
+    // Rows of the batch being filled, and one trace entry per row: a poll's trace sits on its last row, null elsewhere
+    private JsonArray pollRowsBuffer = new JsonArray();
+
+    private List<JsonObject> pollTracesBuffer = new ArrayList<>();
+
+    // Batches waiting for the database, oldest first; always older than anything in the spill log
+    private final ArrayDeque<PendingBatch> pendingBatches = new ArrayDeque<>();
+
+    // Pieces of a rejected batch being bisected, older than everything else; together they take the slot of the
+    // batch they came from, and there are never more than about log2(BATCH_SIZE_MAX) of them
+    private final ArrayDeque<PendingBatch> splitBatches = new ArrayDeque<>();
+
+    private SpillLog spillLog;
+
+    // True while a batch insert or its retry delay is outstanding
+    private boolean batchInFlight = false;
+
+    // Delay before retrying the batch whose insert failed, -1 while no retry is pending
+    private long retryTimerId = -1;
+
+    // Max-linger deadline of the batch being filled, -1 while the buffer is empty
+    private long lingerTimerId = -1;
+
+    // Set once stop() begins; the verticle then only waits for the insert in flight before spilling the rest
+    private Promise<Void> stopping;
+
+    // True once the spill log is closed; replies arriving later must not touch the queues
+    private boolean closed = false;
 
     @Override
     public void start(Promise<Void> startPromise)
     {
+        spillLog = new SpillLog(Path.of(SPILL_DIRECTORY), SPILL_SEGMENT_SIZE_BYTES, SPILL_MAX_BYTES);
+
+        try
+        {
+            spillLog.open();
+        }
+        catch (IOException exception)
+        {
+            LOGGER.error("Failed to open spill log in {}: {}", SPILL_DIRECTORY, exception.getMessage());
+
+            startPromise.fail(exception);
+
+            return;
+        }
+
         vertx.eventBus().<JsonObject>localConsumer(STORAGE_RESULTS, message ->
         {
             var data = message.body();
@@ -41,14 +121,7 @@ public class ResponseProcessor extends AbstractVerticle
             }
             else if (POLLING.equals(requestType))
             {
-                pollResultsBuffer.add(data);
-
-                if (pollResultsBuffer.size() >= BATCH_SIZE)
-                {
-                    storePollResults(new JsonObject().put("results", pollResultsBuffer));
-
-                    pollResultsBuffer.clear();
-                }
+                bufferPollResult(data);
             }
             else
             {
@@ -76,15 +149,15 @@ public class ResponseProcessor extends AbstractVerticle
             });
 
 
-        timerId = vertx.setPeriodic(BATCH_TIMEOUT_MS, id ->
-        {
-            if (!pollResultsBuffer.isEmpty())
-            {
-                storePollResults(new JsonObject().put("results", pollResultsBuffer));
+        Metrics.gauge("nms_ingest_buffer_rows", "Rows in the batch being filled", () -> pollRowsBuffer.size());
 
-                pollResultsBuffer.clear();
-            }
-        });
+        Metrics.gauge("nms_ingest_queued_batches", "Batches waiting in memory for the database",
+            () -> pendingBatches.size() + splitBatches.size());
+
+        Metrics.gauge("nms_ingest_spilled_batches", "Batches waiting on disk for the database", () -> spillLog.size());
+
+        // Replay batches spilled before the last shutdown
+        drainBatches();
 
         LOGGER.info("ResponseProcessor deployed with batching");
 
@@ -94,63 +167,448 @@ public class ResponseProcessor extends AbstractVerticle
     @Override
     public void stop(Promise<Void> stopPromise)
     {
-        if (timerId != -1)
+        if (lingerTimerId != -1)
+        {
+            vertx.cancelTimer(lingerTimerId);
+
+            lingerTimerId = -1;
+        }
+
+        stopping = stopPromise;
+
+        if (!pollRowsBuffer.isEmpty())
+        {
+            enqueueBatch(new PendingBatch(pollRowsBuffer, pollTracesBuffer));
+
+            pollRowsBuffer = new JsonArray();
+
+            pollTracesBuffer = new ArrayList<>();
+        }
+
+        // A batch waiting out its retry delay is not at the database, so it can be spilled straight away
+        if (retryTimerId != -1)
+        {
+            vertx.cancelTimer(retryTimerId);
+
+            retryTimerId = -1;
+
+            batchInFlight = false;
+        }
+
+        if (!batchInFlight)
+        {
+            finishStop();
+
+            return;
+        }
+
+        // The head batch is already at the database; spilling it now would insert its rows twice on replay
+        vertx.setTimer(BATCH_STOP_TIMEOUT_MS, id ->
+        {
+            if (!closed)
+            {
+                LOGGER.warn("No reply to the batch in flight after {} ms, spilling it; its rows may be inserted twice",
+                    BATCH_STOP_TIMEOUT_MS);
+
+                finishStop();
+            }
+        });
+    }
+
+    /**
+     * Spills whatever is still queued in memory and closes the spill log, completing the stop.
+     * Rows carry their own timestamps, so replay order is not critical here.
+     */
+    private void finishStop()
+    {
+        if (closed)
+        {
+            return;
+        }
+
+        while (!splitBatches.isEmpty())
+        {
+            spill(splitBatches.pollFirst());
+        }
+
+        while (!pendingBatches.isEmpty())
+        {
+            spill(pendingBatches.pollFirst());
+        }
+
+        spillLog.close();
+
+        closed = true;
+
+        stopping.complete();
+    }
+
+    /**
+     * Converts a polling result into insert rows and adds them to the batch being filled.
+     * The first row of a batch arms its max-linger deadline; reaching the policy's target size flushes it early.
+     *
+     * @param result The polling result from the plugin.
+     */
+    private void bufferPollResult(JsonObject result)
+    {
+        var trace = result.getJsonObject(TRACE);
+
+        var jobId = result.getLong(PROVISIONING_JOB_ID);
+
+        if (!SUCCESS.equals(result.getString(STATUS)))
+        {
+            if (trace != null)
+            {
+                PollTrace.missed(1);
+            }
+
+            if (jobId != null)
+            {
+                DeviceHealth.failure(jobId, String.valueOf(result.getValue(ERROR)));
+            }
+
+            SAMPLED_LOGGER.atWarn().setMessage("Skipping failed polling result")
+                .addKeyValue(PROVISIONING_JOB_ID, result.getValue(PROVISIONING_JOB_ID))
+                .addKeyValue(ERROR, result.getValue(ERROR))
+                .log();
+
+            return;
+        }
+
+        var metricsData = result.getJsonObject("data");
+
+        if (metricsData == null || metricsData.isEmpty())
+        {
+            return;
+        }
+
+        if (jobId != null)
+        {
+            DeviceHealth.success(jobId);
+
+            if (ADAPTIVE_POLLING_ENABLED)
+            {
+                AdaptiveInterval.observe(jobId, metricsData);
+            }
+        }
+
+        var timestamp = result.getLong("timestamp");
+
+        LOGGER.debug("Buffering polling data: job={}, metrics={}", jobId, metricsData.size());
+
+        // Live subscribers get results as they arrive, before the batch reaches the database
+        var live = jobId != null && Stream.hasSubscribers(jobId);
+
+        for (var metric : metricsData.fieldNames())
+        {
+            pollRowsBuffer.add(new JsonArray()
+                .add(jobId)
+                .add(metric)
+                .add(metricsData.getJsonObject(metric))
+                .add(timestamp));
+
+            pollTracesBuffer.add(null);
+
+            if (jobId != null && timestamp != null)
+            {
+                LatestValues.update(jobId, metric, metricsData.getJsonObject(metric), timestamp);
+            }
+
+            if (live)
+            {
+                Stream.publish(jobId, metric, metricsData.getJsonObject(metric), timestamp);
+            }
+        }
+
+        if (trace != null)
+        {
+            PollTrace.buffered(trace.put(TRACE_BUFFERED, System.nanoTime()));
+
+            pollTracesBuffer.set(pollTracesBuffer.size() - 1, trace);
+        }
+
+        batchPolicy.onArrival(metricsData.size(), System.currentTimeMillis());
+
+        if (pollRowsBuffer.size() >= batchPolicy.targetSize())
+        {
+            flushPollRows();
+        }
+        else if (lingerTimerId == -1)
+        {
+            lingerTimerId = vertx.setTimer(batchPolicy.maxLingerMs(), id ->
+            {
+                lingerTimerId = -1;
+
+                flushPollRows();
+            });
+        }
+    }
+
+    /**
+     * Hands the batch being filled to the insert queue and disarms its max-linger deadline.
+     */
+    private void flushPollRows()
+    {
+        if (lingerTimerId != -1)
+        {
+            vertx.cancelTimer(lingerTimerId);
+
+            lingerTimerId = -1;
+        }
+
+        if (pollRowsBuffer.isEmpty())
+        {
+            return;
+        }
+
+        var batch = new PendingBatch(pollRowsBuffer, pollTracesBuffer);
+
+        pollRowsBuffer = new JsonArray();
+
+        pollTracesBuffer = new ArrayList<>();
+
+        BATCH_SIZES.record(batch.rows().size());
+
+        enqueueBatch(batch);
+    }
+
+    /**
+     * Queues a batch for insertion, spilling it to disk when the in-memory queue is full or older batches
+     * are already spilled, then starts draining. While stopping, nothing new is sent; the queue is spilled
+     * once the batch in flight is answered.
+     *
+     * @param batch The batch to insert.
+     */
+    private void enqueueBatch(PendingBatch batch)
+    {
+        if (closed)
+        {
+            LOGGER.warn("Dropping batch of {} rows received after the spill log was closed", batch.rows().size());
+
+            return;
+        }
+
+        var buffered = pendingBatches.size() + (splitBatches.isEmpty() ? 0 : 1);
+
+        if (spillLog.isEmpty() && buffered < MAX_BUFFERED_BATCHES)
         {
-            vertx.cancelTimer(timerId);
+            pendingBatches.addLast(batch);
+        }
+        else
+        {
+            spill(batch);
+        }
+
+        if (stopping == null)
+        {
+            drainBatches();
         }
-        stopPromise.complete();
     }
 
-    private void storePollResults(JsonObject data)
+    /**
+     * Writes a batch's rows to the spill log. Only rows are spilled: trace stamps are System.nanoTime() values that
+     * mean nothing after a restart, so the batch's polls leave the trace statistics here and are counted as missed.
+     *
+     * @param batch The batch to spill.
+     */
+    private void spill(PendingBatch batch)
     {
-        var results = data.getJsonArray("results");
+        var batchParams = batch.rows();
+
+        PollTrace.missed(polls(batch.traces()).size());
 
-        if (results == null || results.isEmpty())
+        try
         {
-            LOGGER.info("No polling results to store");
+            if (spillLog.append(batchParams.toBuffer().getBytes()))
+            {
+                LOGGER.debug("Spilled batch of {} rows, {} batches on disk", batchParams.size(), spillLog.size());
+            }
+            else
+            {
+                DROPPED_ROWS.add(batchParams.size());
 
+                SAMPLED_LOGGER.atError().setMessage("Spill log is full, dropping batch")
+                    .addKeyValue("rows", batchParams.size())
+                    .addKeyValue("max.bytes", SPILL_MAX_BYTES)
+                    .log();
+            }
+        }
+        catch (IOException exception)
+        {
+            DROPPED_ROWS.add(batchParams.size());
+
+            LOGGER.error("Failed to spill batch of {} rows, dropping it: {}", batchParams.size(), exception.getMessage());
+        }
+    }
+
+    /**
+     * Inserts the oldest waiting batch, taking the pieces of a batch being bisected first, then the in-memory queue
+     * and then the spill log.
+     * Only one batch is in flight at a time so rows are committed in the order they were buffered.
+     * A batch is removed only after the database acknowledges it; transient failures are retried after a delay.
+     */
+    private void drainBatches()
+    {
+        if (batchInFlight)
+        {
             return;
         }
 
-        var batchParams = new JsonArray();
+        var batch = splitBatches.isEmpty() ? pendingBatches.peekFirst() : splitBatches.peekFirst();
+
+        // The queue the batch is taken from, null for the spill log
+        var queue = batch == null ? null : splitBatches.isEmpty() ? pendingBatches : splitBatches;
 
-        results.forEach(result ->
+        if (batch == null)
         {
-            var resultObj = (JsonObject) result;
+            var record = spillLog.peek();
 
-            if (SUCCESS.equals(resultObj.getString(STATUS)))
+            if (record == null)
             {
-                var jobId = resultObj.getLong(PROVISIONING_JOB_ID);
+                return;
+            }
 
-                var metricsData = resultObj.getJsonObject("data");
+            var spilledRows = new JsonArray(Buffer.buffer(record));
 
-                var timestamp = resultObj.getLong("timestamp");
+            batch = new PendingBatch(spilledRows, Collections.nCopies(spilledRows.size(), null));
+        }
 
-                LOGGER.info("Storing polling data: {}", metricsData);
+        batchInFlight = true;
+
+        var batchQuery = new JsonObject()
+            .put(QUERY, QueryConstant.INSERT_POLLED_DATA)
+            .put(BATCHPARAMS, batch.rows());
 
-                if (metricsData != null)
+        var batchRows = batch.rows();
+
+        var rows = batchRows.size();
+
+        var traces = batch.traces();
+
+        var startedAt = System.nanoTime();
+
+        DBUtils.executeBatchQuery(batchQuery).onComplete(result ->
+        {
+            // The stop gave up waiting for this reply and has already spilled the batch
+            if (closed)
+            {
+                return;
+            }
+
+            if (result.succeeded())
+            {
+                var committedAt = System.nanoTime();
+
+                batchPolicy.onBatchCompleted(rows, TimeUnit.NANOSECONDS.toMillis(committedAt - startedAt));
+
+                INSERT_DURATION.record((committedAt - startedAt) / 1_000_000_000.0);
+
+                PollTrace.committed(polls(traces), committedAt);
+
+                removeHead(queue);
+            }
+            else if (isPermanentFailure(result.cause()))
+            {
+                removeHead(queue);
+
+                if (rows == 1)
                 {
-                    metricsData.fieldNames().forEach(metric ->
-                        batchParams.add(new JsonArray()
-                            .add(jobId)
-                            .add(metric)
-                            .add(metricsData.getJsonObject(metric))
-                            .add(timestamp)));
+                    REJECTED_ROWS.increment();
+
+                    PollTrace.missed(polls(traces).size());
+
+                    LOGGER.error("Dropping row rejected by the database: {}: {}", batchRows.getValue(0), result.cause().getMessage());
+                }
+                else
+                {
+                    // Halving isolates each rejected row in about log2(rows) inserts while the good rows still commit.
+                    // The halves go to the front of the split queue, which is drained before anything else, so they
+                    // stay in order and take no more room than the batch they replace. Traces are split with their
+                    // rows, so a poll is committed or missed with its last row.
+                    var half = rows / 2;
+
+                    splitBatches.addFirst(new PendingBatch(slice(batchRows, half, rows), new ArrayList<>(traces.subList(half, rows))));
+
+                    splitBatches.addFirst(new PendingBatch(slice(batchRows, 0, half), new ArrayList<>(traces.subList(0, half))));
+
+                    LOGGER.warn("Batch of {} rows rejected by the database, retrying it in halves: {}", rows, result.cause().getMessage());
                 }
             }
             else
             {
-                LOGGER.info("Skipping failed polling result: {}", resultObj.encodePrettily());
+                if (stopping != null)
+                {
+                    batchInFlight = false;
+
+                    finishStop();
+
+                    return;
+                }
+
+                LOGGER.warn("Batch insert failed, retrying in {} ms ({} batches queued, {} spilled): {}",
+                    BATCH_RETRY_DELAY_MS, pendingBatches.size(), spillLog.size(), result.cause().getMessage());
+
+                retryTimerId = vertx.setTimer(BATCH_RETRY_DELAY_MS, id ->
+                {
+                    retryTimerId = -1;
+
+                    batchInFlight = false;
+
+                    drainBatches();
+                });
+
+                return;
+            }
+
+            batchInFlight = false;
+
+            if (stopping != null)
+            {
+                finishStop();
+            }
+            else
+            {
+                drainBatches();
             }
         });
+    }
+
+    // Removes the batch just acknowledged from the queue drainBatches took it from, or from the spill log if null
+    private void removeHead(ArrayDeque<PendingBatch> queue)
+    {
+        if (queue == null)
+        {
+            spillLog.commit();
+        }
+        else
+        {
+            queue.pollFirst();
+        }
+    }
 
+    private static JsonArray slice(JsonArray rows, int from, int to)
+    {
+        return new JsonArray(new ArrayList<>(rows.getList().subList(from, to)));
+    }
 
-        var batchQuery = new JsonObject()
-            .put(QUERY, QueryConstant.INSERT_POLLED_DATA)
-            .put(BATCHPARAMS, batchParams);
+    // The traces of the polls whose last row is in a batch
+    private static List<JsonObject> polls(List<JsonObject> traces)
+    {
+        return traces.stream().filter(Objects::nonNull).toList();
+    }
 
-        vertx.eventBus().send(DB_EXECUTE_BATCH_QUERY, batchQuery);
+    // The Database verticle replies 400 for data and constraint errors that would fail again on every retry
+    private boolean isPermanentFailure(Throwable cause)
+    {
+        return cause instanceof ReplyException replyException && replyException.failureCode() == 400;
+    }
 
+    /**
+     * Rows of a poll insert batch, together with one trace entry per row: the trace of a poll on its last row,
+     * null on every other row.
+     */
+    private record PendingBatch(JsonArray rows, List<JsonObject> traces)
+    {
     }
 
     private void storeDiscoveryResults(JsonObject data)
@@ -163,7 +621,7 @@ public class ResponseProcessor extends AbstractVerticle
             .add(data.getString(RESULT))
             .add(data.getValue(CREDENTIAL_ID));
 
-        LOGGER.info("Storing discovery results: {}", queryParams.encodePrettily());
+        LOGGER.debug("Storing discovery result: discovery={}, ip={}, status={}", data.getValue(DISCOVERY_ID), data.getString(IP), data.getString(STATUS));
 
         var query = new JsonObject()
             .put(QUERY, QueryConstant.INSERT_DISCOVERY_RESULT)
@@ -0,0 +1,409 @@
+package com.example.NMS.plugin;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.stream.Collectors;
+
+/**
+ * Append-only, memory-mapped segment log used by the ResponseProcessor to spill poll batches to local disk
+ * while the database is slow or unavailable.
+ * Each record is stored as a 4-byte length followed by its payload. A positive length marks a pending record,
+ * a negative length marks a record that has been committed to the database, and a zero length marks the end
+ * of the written part of a segment. Fully committed segments are deleted, and pending records survive restarts.
+ * The segments together never take more than a maximum size of disk; appends past it are refused.
+ * Not thread-safe; it is owned by a single verticle.
+ */
+public class SpillLog
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(SpillLog.class);
+
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private static final int HEADER_SIZE = Integer.BYTES;
+
+    private final Path directory;
+
+    private final int segmentSize;
+
+    private final long maxBytes;
+
+    // Total size of the segments currently on disk
+    private long diskBytes = 0;
+
+    // Segments in append order; the head is read from, the tail is written to
+    private final ArrayDeque<Segment> segments = new ArrayDeque<>();
+
+    private long nextSequence = 0;
+
+    private long pendingRecords = 0;
+
+    /**
+     * @param directory   The directory holding the segment files.
+     * @param segmentSize The size in bytes of each mapped segment.
+     */
+    public SpillLog(Path directory, int segmentSize)
+    {
+        this(directory, segmentSize, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param directory   The directory holding the segment files.
+     * @param segmentSize The size in bytes of each mapped segment.
+     * @param maxBytes    The most disk the segments may take together.
+     */
+    public SpillLog(Path directory, int segmentSize, long maxBytes)
+    {
+        this.directory = directory;
+
+        this.segmentSize = segmentSize;
+
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Opens the log, mapping any segments left over from a previous run and recovering their pending records.
+     *
+     * @throws IOException If the directory or an existing segment cannot be opened.
+     */
+    public void open() throws IOException
+    {
+        Files.createDirectories(directory);
+
+        try (var files = Files.list(directory))
+        {
+            var existing = files
+                .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                .sorted()
+                .collect(Collectors.toList());
+
+            for (var file : existing)
+            {
+                var segment = Segment.recover(file, sequenceOf(file));
+
+                nextSequence = Math.max(nextSequence, segment.sequence + 1);
+
+                if (segment.pending == 0)
+                {
+                    segment.delete();
+                }
+                else
+                {
+                    pendingRecords += segment.pending;
+
+                    diskBytes += segment.size;
+
+                    segments.addLast(segment);
+                }
+            }
+        }
+
+        if (pendingRecords > 0)
+        {
+            LOGGER.info("Recovered {} spilled batches from {} segments", pendingRecords, segments.size());
+        }
+    }
+
+    /**
+     * Appends a record to the tail segment, rolling over to a new segment when it is full.
+     *
+     * @param record The serialized record.
+     * @return False if a new segment would take the log past its maximum size; the record is then not written.
+     * @throws IOException If a new segment cannot be created.
+     */
+    public boolean append(byte[] record) throws IOException
+    {
+        var tail = segments.peekLast();
+
+        if (tail == null || !tail.fits(record.length))
+        {
+            var size = Math.max(segmentSize, record.length + 2 * HEADER_SIZE);
+
+            if (diskBytes + size > maxBytes)
+            {
+                return false;
+            }
+
+            tail = Segment.create(directory.resolve(segmentName(nextSequence)), nextSequence, size);
+
+            nextSequence++;
+
+            diskBytes += size;
+
+            segments.addLast(tail);
+        }
+
+        tail.write(record);
+
+        pendingRecords++;
+
+        return true;
+    }
+
+    /**
+     * Returns the oldest pending record without removing it, or null if the log is empty.
+     */
+    public byte[] peek()
+    {
+        var head = head();
+
+        return head == null ? null : head.read();
+    }
+
+    /**
+     * Marks the oldest pending record as committed and deletes its segment once nothing in it is pending.
+     */
+    public void commit()
+    {
+        var head = head();
+
+        if (head == null || !head.commit())
+        {
+            return;
+        }
+
+        pendingRecords--;
+
+        head();
+    }
+
+    public boolean isEmpty()
+    {
+        return pendingRecords == 0;
+    }
+
+    public long size()
+    {
+        return pendingRecords;
+    }
+
+    /**
+     * Forces mapped pages to disk and releases the segments.
+     */
+    public void close()
+    {
+        for (var segment : segments)
+        {
+            segment.close();
+        }
+
+        segments.clear();
+
+        diskBytes = 0;
+    }
+
+    // Drops fully committed segments from the front, keeping the tail open for appends
+    private Segment head()
+    {
+        while (segments.size() > 1 && segments.peekFirst().pending == 0)
+        {
+            var segment = segments.pollFirst();
+
+            segment.delete();
+
+            diskBytes -= segment.size;
+        }
+
+        return segments.peekFirst();
+    }
+
+    private static String segmentName(long sequence)
+    {
+        return String.format("%s%020d%s", SEGMENT_PREFIX, sequence, SEGMENT_SUFFIX);
+    }
+
+    private static long sequenceOf(Path file)
+    {
+        var name = file.getFileName().toString();
+
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+
+    /**
+     * A single memory-mapped segment file with independent read and write positions.
+     */
+    private static final class Segment
+    {
+        private final Path file;
+
+        private final long sequence;
+
+        private final int size;
+
+        private final FileChannel channel;
+
+        private MappedByteBuffer buffer;
+
+        private int readPosition;
+
+        private int writePosition;
+
+        private long pending;
+
+        private Segment(Path file, long sequence, FileChannel channel, MappedByteBuffer buffer)
+        {
+            this.file = file;
+
+            this.sequence = sequence;
+
+            this.channel = channel;
+
+            this.buffer = buffer;
+
+            this.size = buffer.capacity();
+        }
+
+        static Segment create(Path file, long sequence, int size) throws IOException
+        {
+            var channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            return new Segment(file, sequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, size));
+        }
+
+        static Segment recover(Path file, long sequence) throws IOException
+        {
+            var channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+            var segment = new Segment(file, sequence, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size()));
+
+            segment.scan();
+
+            return segment;
+        }
+
+        // Rebuilds positions by walking the records; a truncated trailing record is treated as the end
+        private void scan()
+        {
+            var position = 0;
+
+            var firstPending = -1;
+
+            while (position + HEADER_SIZE <= buffer.capacity())
+            {
+                var length = buffer.getInt(position);
+
+                if (length == 0 || position + HEADER_SIZE + Math.abs(length) > buffer.capacity())
+                {
+                    break;
+                }
+
+                if (length > 0)
+                {
+                    pending++;
+
+                    if (firstPending == -1)
+                    {
+                        firstPending = position;
+                    }
+                }
+
+                position += HEADER_SIZE + Math.abs(length);
+            }
+
+            writePosition = position;
+
+            readPosition = firstPending == -1 ? position : firstPending;
+        }
+
+        // Keeps room for the zero terminator that marks the end of the segment
+        boolean fits(int length)
+        {
+            return writePosition + 2 * HEADER_SIZE + length <= buffer.capacity();
+        }
+
+        void write(byte[] record)
+        {
+            buffer.put(writePosition + HEADER_SIZE, record);
+
+            // Publish the length last so a crash mid-write leaves the record invisible
+            buffer.putInt(writePosition, record.length);
+
+            writePosition += HEADER_SIZE + record.length;
+
+            pending++;
+        }
+
+        byte[] read()
+        {
+            skipCommitted();
+
+            if (readPosition >= writePosition)
+            {
+                return null;
+            }
+
+            var record = new byte[buffer.getInt(readPosition)];
+
+            buffer.get(readPosition + HEADER_SIZE, record);
+
+            return record;
+        }
+
+        boolean commit()
+        {
+            skipCommitted();
+
+            if (readPosition >= writePosition)
+            {
+                return false;
+            }
+
+            var length = buffer.getInt(readPosition);
+
+            buffer.putInt(readPosition, -length);
+
+            readPosition += HEADER_SIZE + length;
+
+            pending--;
+
+            return true;
+        }
+
+        private void skipCommitted()
+        {
+            while (readPosition < writePosition && buffer.getInt(readPosition) < 0)
+            {
+                readPosition += HEADER_SIZE - buffer.getInt(readPosition);
+            }
+        }
+
+        void close()
+        {
+            try
+            {
+                buffer.force();
+
+                channel.close();
+            }
+            catch (IOException exception)
+            {
+                LOGGER.error("Failed to close spill segment {}: {}", file, exception.getMessage());
+            }
+
+            buffer = null;
+        }
+
+        void delete()
+        {
+            close();
+
+            try
+            {
+                Files.deleteIfExists(file);
+            }
+            catch (IOException exception)
+            {
+                LOGGER.error("Failed to delete spill segment {}: {}", file, exception.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.NMS.polling;
+
+import com.example.NMS.cache.MetricCache;
+import com.example.NMS.cache.MetricJob;
+import com.example.NMS.metrics.Counter;
+import com.example.NMS.metrics.Metrics;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.NMS.constant.Constant.*;
+
+/**
+ * Adaptive polling intervals driven by how fast a metric's values change.
+ * Each result updates an exponentially weighted mean of the relative change of the metric's numeric fields.
+ * When a job becomes due the scheduler asks for its next interval: volatile metrics are polled twice as often,
+ * flat ones half again as rarely, always within the job's min/max bounds. Shortening is only allowed while the
+ * estimated total poll rate stays under POLL_BUDGET_PER_SECOND, so resolution moves to where it matters without
+ * raising the collection load.
+ */
+public class AdaptiveInterval
+{
+    private static final double SMOOTHING = 0.5;
+
+    private static final Counter SHORTENED = Metrics.counter("nms_adaptive_interval_shortened_total",
+        "Polling intervals shortened because values changed fast");
+
+    private static final Counter LENGTHENED = Metrics.counter("nms_adaptive_interval_lengthened_total",
+        "Polling intervals lengthened because values stayed flat");
+
+    private static final Counter BUDGET_DENIED = Metrics.counter("nms_adaptive_interval_budget_denied_total",
+        "Interval reductions refused because the poll budget was exhausted");
+
+    // metric_id -> volatility of its values; written by the ResponseProcessor, read by the Scheduler
+    private static final ConcurrentHashMap<Long, Volatility> volatilities = new ConcurrentHashMap<>();
+
+    // Estimated polls per second at the current effective intervals; written on the Scheduler event loop only,
+    // volatile so the metrics scrape reads the latest value
+    private static volatile double pollRate = 0;
+
+    static
+    {
+        Metrics.gauge("nms_poll_rate_per_second", "Estimated polls per second at the current effective intervals", () -> pollRate);
+    }
+
+    private AdaptiveInterval(){}
+
+    /**
+     * Records a new sample of each metric of a device.
+     *
+     * @param provisioningJobId The provisioning job ID of the device.
+     * @param metricsData       The polled values, keyed by metric name.
+     */
+    public static void observe(long provisioningJobId, JsonObject metricsData)
+    {
+        for (var job : MetricCache.getInstance().getByProvisioningJob(provisioningJobId))
+        {
+            var values = metricsData.getValue(job.metricName());
+
+            if (values instanceof JsonObject sample)
+            {
+                volatilities.computeIfAbsent(job.metricId(), key -> new Volatility()).observe(sample);
+            }
+        }
+    }
+
+    /**
+     * Drops the history of a removed metric.
+     *
+     * @param metricId The metric ID.
+     */
+    public static void forget(long metricId)
+    {
+        volatilities.remove(metricId);
+    }
+
+    /**
+     * Sets the poll rate estimated by the scheduler's last pass over all jobs.
+     *
+     * @param rate The sum of 1 / effective interval over all jobs.
+     */
+    static void pollRate(double rate)
+    {
+        pollRate = rate;
+    }
+
+    /**
+     * Chooses the next interval of a job that has just become due, and retunes the job if it changes.
+     *
+     * @param job The due metric job.
+     */
+    static void retune(MetricJob job)
+    {
+        var volatility = volatilities.get(job.metricId());
+
+        if (volatility == null)
+        {
+            return;
+        }
+
+        var mean = volatility.mean();
+
+        var current = job.effectiveInterval();
+
+        int target;
+
+        if (mean > VOLATILITY_HIGH)
+        {
+            target = current / 2;
+        }
+        else if (mean < VOLATILITY_LOW)
+        {
+            target = current + current / 2;
+        }
+        else
+        {
+            return;
+        }
+
+        target = clamp(job, target);
+
+        if (target == current)
+        {
+            return;
+        }
+
+        var rateChange = 1.0 / target - 1.0 / current;
+
+        if (rateChange > 0 && pollRate + rateChange > POLL_BUDGET_PER_SECOND)
+        {
+            BUDGET_DENIED.increment();
+
+            return;
+        }
+
+        pollRate += rateChange;
+
+        (rateChange > 0 ? SHORTENED : LENGTHENED).increment();
+
+        job.retune(target);
+    }
+
+    // Bounds default to a quarter and four times the configured interval; intervals are whole scheduler ticks
+    private static int clamp(MetricJob job, int interval)
+    {
+        var min = job.minInterval() > 0 ? job.minInterval() : Math.max(TIMER_INTERVAL_SECONDS, job.interval() / 4);
+
+        var max = job.maxInterval() > 0 ? job.maxInterval() : job.interval() * 4;
+
+        var bounded = Math.max(min, Math.min(max, interval));
+
+        var ticks = Math.max(1, Math.round(bounded / (float) TIMER_INTERVAL_SECONDS));
+
+        return ticks * TIMER_INTERVAL_SECONDS;
+    }
+
+    /**
+     * Smoothed mean relative change of a metric's numeric fields between consecutive samples.
+     */
+    private static final class Volatility
+    {
+        private double[] previous;
+
+        private double mean = Double.NaN;
+
+        synchronized double mean()
+        {
+            return Double.isNaN(mean) ? (VOLATILITY_LOW + VOLATILITY_HIGH) / 2 : mean;
+        }
+
+        synchronized void observe(JsonObject values)
+        {
+            var current = numbers(values);
+
+            if (previous != null && previous.length == current.length && current.length > 0)
+            {
+                var change = 0.0;
+
+                for (var i = 0; i < current.length; i++)
+                {
+                    change += Math.abs(current[i] - previous[i]) / Math.max(1.0, Math.abs(previous[i]));
+                }
+
+                change /= current.length;
+
+                mean = Double.isNaN(mean) ? change : SMOOTHING * change + (1 - SMOOTHING) * mean;
+            }
+
+            previous = current;
+        }
+
+        // Top-level numeric fields and the numeric fields of nested objects, in field order
+        private static double[] numbers(JsonObject values)
+        {
+            var numbers = new ArrayList<Double>();
+
+            values.forEach(entry ->
+            {
+                if (entry.getValue() instanceof Number number)
+                {
+                    numbers.add(number.doubleValue());
+                }
+                else if (entry.getValue() instanceof JsonObject nested)
+                {
+                    nested.forEach(field ->
+                    {
+                        if (field.getValue() instanceof Number number)
+                        {
+                            numbers.add(number.doubleValue());
+                        }
+                    });
+                }
+            });
+
+            return numbers.stream().mapToDouble(Double::doubleValue).toArray();
+        }
+    }
+}
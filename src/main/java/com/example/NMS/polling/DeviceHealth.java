@@ -0,0 +1,267 @@
+package com.example.NMS.polling;
+
+import com.example.NMS.metrics.Counter;
+import com.example.NMS.metrics.Metrics;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import static com.example.NMS.constant.Constant.*;
+
+/**
+ * Per-device circuit breaker for polling, keyed by provisioning job ID.
+ * After BREAKER_FAILURE_THRESHOLD consecutive failed polling rounds (unreachable device, or a failed plugin result
+ * such as bad credentials) the breaker opens and the device is skipped for an exponentially growing backoff, capped
+ * at BREAKER_MAX_BACKOFF_SECONDS. When the backoff expires a single metric job is let through as a probe; its
+ * result closes the breaker or reopens it with a longer backoff. Devices without state are healthy.
+ */
+public class DeviceHealth
+{
+    private static final Logger LOGGER = LoggerFactory.getLogger(DeviceHealth.class);
+
+    private static final Counter SKIPPED = Metrics.counter("nms_breaker_skipped_polls_total",
+        "Polls skipped because the device's circuit breaker is open");
+
+    private static final ConcurrentHashMap<Long, Breaker> breakers = new ConcurrentHashMap<>();
+
+    static
+    {
+        Metrics.gauge("nms_breaker_open_devices", "Devices whose circuit breaker is open or probing",
+            () -> breakers.values().stream().filter(breaker -> breaker.state() != State.CLOSED).count());
+    }
+
+    private DeviceHealth(){}
+
+    public enum State
+    {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    /**
+     * Returns whether a due metric job of the device may be polled now, counting it as skipped otherwise.
+     *
+     * @param provisioningJobId The provisioning job ID of the device.
+     */
+    public static boolean allow(long provisioningJobId)
+    {
+        return allow(provisioningJobId, System.currentTimeMillis());
+    }
+
+    /**
+     * @param provisioningJobId The provisioning job ID of the device.
+     * @param nowMs             The current time in milliseconds.
+     */
+    static boolean allow(long provisioningJobId, long nowMs)
+    {
+        var breaker = breakers.get(provisioningJobId);
+
+        if (breaker == null || breaker.allow(nowMs))
+        {
+            return true;
+        }
+
+        SKIPPED.increment();
+
+        return false;
+    }
+
+    /**
+     * Records a successful poll, closing the device's breaker.
+     *
+     * @param provisioningJobId The provisioning job ID of the device.
+     */
+    public static void success(long provisioningJobId)
+    {
+        var breaker = breakers.get(provisioningJobId);
+
+        if (breaker != null && breaker.success())
+        {
+            LOGGER.info("Circuit breaker closed for provisioning_job_id={}", provisioningJobId);
+        }
+    }
+
+    /**
+     * Records a failed poll of the device.
+     *
+     * @param provisioningJobId The provisioning job ID of the device.
+     * @param reason            A short description of the failure.
+     */
+    public static void failure(long provisioningJobId, String reason)
+    {
+        failure(provisioningJobId, reason, System.currentTimeMillis());
+    }
+
+    /**
+     * @param provisioningJobId The provisioning job ID of the device.
+     * @param reason            A short description of the failure.
+     * @param nowMs             The current time in milliseconds.
+     */
+    static void failure(long provisioningJobId, String reason, long nowMs)
+    {
+        var breaker = breakers.computeIfAbsent(provisioningJobId, key -> new Breaker());
+
+        var backoffSeconds = breaker.failure(reason, nowMs);
+
+        if (backoffSeconds > 0)
+        {
+            LOGGER.warn("Circuit breaker open for provisioning_job_id={}, retrying in {} s: {}", provisioningJobId, backoffSeconds, reason);
+        }
+    }
+
+    /**
+     * Drops the state of a deprovisioned device.
+     *
+     * @param provisioningJobId The provisioning job ID of the device.
+     */
+    public static void forget(long provisioningJobId)
+    {
+        breakers.remove(provisioningJobId);
+    }
+
+    /**
+     * Returns the breaker state of one device; devices without recorded failures are reported as closed.
+     *
+     * @param provisioningJobId The provisioning job ID of the device.
+     */
+    public static JsonObject state(long provisioningJobId)
+    {
+        var breaker = breakers.get(provisioningJobId);
+
+        return (breaker == null ? new Breaker() : breaker).toJson().put(PROVISIONING_JOB_ID, provisioningJobId);
+    }
+
+    /**
+     * Returns the breaker state of every device that is not closed.
+     */
+    public static JsonArray unhealthy()
+    {
+        var result = new JsonArray();
+
+        breakers.forEach((provisioningJobId, breaker) ->
+        {
+            if (breaker.state() != State.CLOSED)
+            {
+                result.add(breaker.toJson().put(PROVISIONING_JOB_ID, provisioningJobId));
+            }
+        });
+
+        return result;
+    }
+
+    /**
+     * Breaker of a single device. Polling and result processing run on different event loops, hence the locking.
+     */
+    private static final class Breaker
+    {
+        private State state = State.CLOSED;
+
+        private int consecutiveFailures;
+
+        private long lastFailureAt;
+
+        private long retryAt;
+
+        private long backoffSeconds;
+
+        private String lastError;
+
+        synchronized State state()
+        {
+            return state;
+        }
+
+        synchronized boolean allow(long now)
+        {
+            switch (state)
+            {
+                case CLOSED:
+                    return true;
+
+                case OPEN:
+                    if (now < retryAt)
+                    {
+                        return false;
+                    }
+
+                    break;
+
+                default:
+                    // A probe whose result never arrived must not hold the device half-open forever
+                    if (now < retryAt + BREAKER_PROBE_TIMEOUT_MS)
+                    {
+                        return false;
+                    }
+            }
+
+            state = State.HALF_OPEN;
+
+            retryAt = now;
+
+            return true;
+        }
+
+        synchronized boolean success()
+        {
+            var wasOpen = state != State.CLOSED;
+
+            state = State.CLOSED;
+
+            consecutiveFailures = 0;
+
+            backoffSeconds = 0;
+
+            return wasOpen;
+        }
+
+        /**
+         * @return The backoff in seconds if this failure opened the breaker, 0 otherwise.
+         */
+        synchronized long failure(String reason, long now)
+        {
+            lastError = reason;
+
+            // The metrics of one device fail together; failures within one scheduler tick count as one round
+            if (state == State.CLOSED && now - lastFailureAt < TIMER_INTERVAL_SECONDS * 1000L)
+            {
+                return 0;
+            }
+
+            lastFailureAt = now;
+
+            if (state == State.OPEN)
+            {
+                return 0;
+            }
+
+            consecutiveFailures++;
+
+            if (state == State.CLOSED && consecutiveFailures < BREAKER_FAILURE_THRESHOLD)
+            {
+                return 0;
+            }
+
+            backoffSeconds = backoffSeconds == 0
+                ? BREAKER_BASE_BACKOFF_SECONDS
+                : Math.min(backoffSeconds * 2, BREAKER_MAX_BACKOFF_SECONDS);
+
+            state = State.OPEN;
+
+            retryAt = now + backoffSeconds * 1000;
+
+            return backoffSeconds;
+        }
+
+        synchronized JsonObject toJson()
+        {
+            return new JsonObject()
+                .put(STATE, state.name())
+                .put("consecutive_failures", consecutiveFailures)
+                .put("backoff_seconds", backoffSeconds)
+                .put("retry_at", state == State.CLOSED ? null : retryAt)
+                .put("last_error", lastError);
+        }
+    }
+}
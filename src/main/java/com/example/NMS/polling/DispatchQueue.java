@@ -0,0 +1,144 @@
+package com.example.NMS.polling;
+
+import com.example.NMS.cache.MetricJob;
+import com.example.NMS.cache.MetricJob.Priority;
+import com.example.NMS.metrics.Counter;
+import com.example.NMS.metrics.Metrics;
+import io.vertx.core.json.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.example.NMS.constant.Constant.*;
+
+/**
+ * Earliest-deadline-first queue between the jobs the scheduler finds due and the polling pipeline.
+ * A due poll is worth sending until the same job becomes due again, so its deadline is one effective interval after
+ * it became due. With a capacity set, each tick dispatches at most that many polls: classes are served from HIGH
+ * down, earliest deadline first within a class, and the batch leaves in deadline order. Polls that do not fit wait
+ * for a later tick, and those still waiting at their deadline are shed, so under sustained overload LOW polls are
+ * shed first while HIGH polls keep their schedule. Without a capacity every due poll leaves on the tick it became due.
+ * Used only on the Scheduler's event loop.
+ */
+final class DispatchQueue
+{
+    private static final EnumMap<Priority, Counter> SHED = new EnumMap<>(Priority.class);
+
+    static
+    {
+        for (var priority : Priority.values())
+        {
+            SHED.put(priority, Metrics.counter("nms_polls_shed_total{class=\"" + priority.name().toLowerCase() + "\"}",
+                "Due polls dropped because they could not be dispatched before the job was due again"));
+        }
+    }
+
+    private record Entry(MetricJob job, long deadline)
+    {
+    }
+
+    private final int capacity;
+
+    private final EnumMap<Priority, PriorityQueue<Entry>> pending = new EnumMap<>(Priority.class);
+
+    // metric_id -> its current entry; an entry no longer mapped here was superseded and is skipped lazily
+    private final HashMap<Long, Entry> queued = new HashMap<>();
+
+    // Scheduler ticks so far; deadlines are expressed in ticks
+    private long tick = 0;
+
+    /**
+     * @param capacity The maximum number of polls dispatched per tick; 0 or less for no limit.
+     */
+    DispatchQueue(int capacity)
+    {
+        this.capacity = capacity > 0 ? capacity : Integer.MAX_VALUE;
+
+        for (var priority : Priority.values())
+        {
+            pending.put(priority, new PriorityQueue<>(Comparator.comparingLong(Entry::deadline)));
+        }
+    }
+
+    /**
+     * Advances one tick: sheds polls that missed their deadline, queues the newly due jobs and selects this tick's batch.
+     *
+     * @param due The jobs that became due this tick.
+     * @return The jobs to dispatch now, in deadline order.
+     */
+    List<MetricJob> next(List<MetricJob> due)
+    {
+        tick++;
+
+        for (var entry : pending.entrySet())
+        {
+            var queue = entry.getValue();
+
+            while (!queue.isEmpty() && queue.peek().deadline() <= tick)
+            {
+                var expired = queue.poll();
+
+                if (queued.remove(expired.job().metricId(), expired))
+                {
+                    SHED.get(entry.getKey()).increment();
+                }
+            }
+        }
+
+        for (var job : due)
+        {
+            var entry = new Entry(job, tick + Math.max(1, job.effectiveInterval() / TIMER_INTERVAL_SECONDS));
+
+            // A job due again while its previous poll still waits, e.g. after its interval was shortened, replaces it
+            if (queued.put(job.metricId(), entry) != null)
+            {
+                SHED.get(job.priority()).increment();
+            }
+
+            pending.get(job.priority()).add(entry);
+        }
+
+        var batch = new ArrayList<Entry>();
+
+        for (var queue : pending.values())
+        {
+            while (batch.size() < capacity && !queue.isEmpty())
+            {
+                var entry = queue.poll();
+
+                if (queued.remove(entry.job().metricId(), entry))
+                {
+                    batch.add(entry);
+                }
+            }
+        }
+
+        batch.sort(Comparator.comparingLong(Entry::deadline));
+
+        return batch.stream().map(Entry::job).toList();
+    }
+
+    /**
+     * Returns the number of due polls waiting for dispatch.
+     */
+    int size()
+    {
+        return queued.size();
+    }
+
+    /**
+     * Returns the polls shed so far, per class.
+     */
+    static JsonObject shed()
+    {
+        var shed = new JsonObject();
+
+        SHED.forEach((priority, counter) -> shed.put(priority.name().toLowerCase(), counter.value()));
+
+        return shed;
+    }
+}
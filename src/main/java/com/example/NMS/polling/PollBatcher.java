@@ -0,0 +1,110 @@
+package com.example.NMS.polling;
+
+import com.example.NMS.cache.MetricJob;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Splits the polls dispatched in one scheduler tick into plugin-sized batches.
+ * All metrics of a host always share a batch, so each host is probed for reachability once. With a subnet prefix
+ * the unit becomes the whole subnet, keeping neighbouring devices in the same plugin run for network locality.
+ * Units are packed in the order they first appear in the dispatch order, so batches keep earliest deadlines first;
+ * a unit larger than a batch is split across consecutive batches.
+ */
+final class PollBatcher
+{
+    private PollBatcher(){}
+
+    /**
+     * @param jobs         The jobs dispatched this tick, in dispatch order.
+     * @param batchSize    The target number of jobs per batch; 0 or less puts everything in one batch.
+     * @param subnetPrefix The IPv4 prefix length to group by, or 0 to group by host only.
+     * @return The batches, none of them empty.
+     */
+    static List<List<MetricJob>> split(List<MetricJob> jobs, int batchSize, int subnetPrefix)
+    {
+        if (batchSize <= 0 || jobs.size() <= batchSize)
+        {
+            return jobs.isEmpty() ? List.of() : List.of(jobs);
+        }
+
+        var units = new LinkedHashMap<String, List<MetricJob>>();
+
+        for (var job : jobs)
+        {
+            units.computeIfAbsent(subnetPrefix > 0 ? subnet(job.ip(), subnetPrefix) : job.ip(), key -> new ArrayList<>())
+                .add(job);
+        }
+
+        var batches = new ArrayList<List<MetricJob>>();
+
+        var batch = new ArrayList<MetricJob>(batchSize);
+
+        for (var unit : units.values())
+        {
+            // Start a new batch rather than splitting a unit that would fit in one
+            if (!batch.isEmpty() && batch.size() + unit.size() > batchSize && unit.size() <= batchSize)
+            {
+                batches.add(batch);
+
+                batch = new ArrayList<>(batchSize);
+            }
+
+            for (var job : unit)
+            {
+                batch.add(job);
+
+                if (batch.size() == batchSize)
+                {
+                    batches.add(batch);
+
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        }
+
+        if (!batch.isEmpty())
+        {
+            batches.add(batch);
+        }
+
+        return batches;
+    }
+
+    /**
+     * Returns the network address of an IPv4 address under the given prefix; other addresses are their own subnet.
+     *
+     * @param ip     The device IP.
+     * @param prefix The prefix length, 1 to 32.
+     */
+    static String subnet(String ip, int prefix)
+    {
+        var octets = ip.split("\\.");
+
+        if (octets.length != 4)
+        {
+            return ip;
+        }
+
+        try
+        {
+            var address = 0L;
+
+            for (var octet : octets)
+            {
+                address = (address << 8) | Integer.parseInt(octet);
+            }
+
+            var network = address & (0xFFFFFFFFL << (32 - Math.min(prefix, 32)));
+
+            return (network >> 24 & 0xFF) + "." + (network >> 16 & 0xFF) + "." + (network >> 8 & 0xFF) + "." + (network & 0xFF)
+                + "/" + prefix;
+        }
+        catch (NumberFormatException exception)
+        {
+            return ip;
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package com.example.NMS.polling;
 
+import com.example.NMS.cache.MetricCache;
+import com.example.NMS.cache.MetricJob;
+import com.example.NMS.metrics.Histogram;
+import com.example.NMS.metrics.Metrics;
+import com.example.NMS.metrics.PollTrace;
+import com.example.NMS.utility.SampledLogger;
 import com.example.NMS.utility.Utility;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Promise;
+import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.json.JsonArray;
 import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -22,6 +31,11 @@ public class Polling extends AbstractVerticle
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(Polling.class);
 
+    private static final SampledLogger SAMPLED_LOGGER = SampledLogger.of(LOGGER, 10);
+
+    private static final Histogram REACHABILITY_DURATION = Metrics.histogram("nms_polling_reachability_duration_seconds",
+        "Time to probe reachability and port state of one polling batch", Histogram.exponentialBounds(0.01, 2, 14));
+
 
     /**
      * Starts the polling verticle.
@@ -37,18 +51,35 @@ public class Polling extends AbstractVerticle
             // Set up event bus consumer for polling jobs
             vertx.eventBus().<JsonArray>localConsumer(POLLING_BATCH_PROCESS, message ->
             {
-                var jobs = message.body();
+                var metricIds = message.body();
 
-                if (!jobs.isEmpty())
+                if (!metricIds.isEmpty())
                 {
-                    LOGGER.info("Received {} jobs for polling", jobs.size());
+                    LOGGER.debug("Received {} jobs for polling", metricIds.size());
+
+                    // Resolve metric IDs against the cache; jobs removed since scheduling are skipped
+                    var cache = MetricCache.getInstance();
+
+                    var jobsToPoll = new ArrayList<MetricJob>(metricIds.size());
 
-                    // Convert JSON array to list of JSON objects
-                    var jobsToPoll = jobs.stream()
-                        .map(obj -> (JsonObject) obj)
-                        .collect(Collectors.toList());
+                    for (var i = 0; i < metricIds.size(); i++)
+                    {
+                        var job = cache.get(metricIds.getLong(i));
 
-                    pollJobs(jobsToPoll);
+                        // Jobs restored from a snapshot have no login details until the cache is reconciled,
+                        // and devices with an open circuit breaker are skipped until their backoff expires
+                        if (job != null && job.credential().user() != null && DeviceHealth.allow(job.provisioningJobId()))
+                        {
+                            jobsToPoll.add(job);
+                        }
+                    }
+
+                    PollTrace.missed(metricIds.size() - jobsToPoll.size());
+
+                    if (!jobsToPoll.isEmpty())
+                    {
+                        pollJobs(jobsToPoll, message.headers().get(TRACE_SCHEDULED));
+                    }
                 }
                 else
                 {
@@ -69,129 +100,87 @@ public class Polling extends AbstractVerticle
         }
     }
 
-
-//    private void pollJobs(List<JsonObject> jobs)
-//    {
-//        try
-//        {
-//            // Extract unique IPs from jobs
-//            var ips = jobs.stream()
-//                .map(job -> job.getString(IP))
-//                .distinct()
-//                .collect(Collectors.toList());
-//
-//            // Check reachability for all IPs
-//            var reachResults = Utility.checkReachability(ips, 22);
-//
-//            var targets = new JsonArray();
-//
-//            // Process each job individually
-//            for (var job : jobs)
-//            {
-//                var ip = job.getString(IP);
-//
-//                // Find reachability result for this IP
-//                var reachResult = reachResults.stream()
-//                    .map(obj -> (JsonObject) obj)
-//                    .filter(res -> res.getString(IP).equals(ip))
-//                    .findFirst()
-//                    .orElse(null);
-//
-//                if (reachResult != null && reachResult.getBoolean("reachable") && reachResult.getBoolean("port_open"))
-//                {
-//                    // Create a target for this individual metric job
-//                    targets.add(new JsonObject()
-//                        .put(IP_ADDRESS, ip)
-//                        .put(PORT, job.getInteger(PORT))
-//                        .put(USER, job.getJsonObject(CRED_DATA).getString(USER))
-//                        .put(PASSWORD, job.getJsonObject(CRED_DATA).getString(PASSWORD))
-//                        .put(PROVISIONING_JOB_ID, job.getLong(PROVISIONING_JOB_ID))
-//                        .put(METRIC_NAME, job.getString(METRIC_NAME))
-//                        .put(PROTOCOL, job.getString(PROTOCOL))
-//                        .put(PLUGIN_TYPE, LINUX + job.getString(METRIC_NAME).toLowerCase()));
-//                }
-//            }
-//
-//            if (targets.isEmpty())
-//            {
-//                LOGGER.info("No reachable targets for polling");
-//
-//                return;
-//            }
-//
-//            var pluginInput = new JsonObject()
-//                .put(REQUEST_TYPE, POLLING)
-//                .put(TARGETS, targets);
-//
-//            // send for plugin
-//            vertx.eventBus().send(PLUGIN_EXECUTE, pluginInput);
-//
-//            LOGGER.info("Sent polling plugin input: {}", pluginInput.encodePrettily());
-//        }
-//        catch (Exception exception)
-//        {
-//            LOGGER.error("Polling failed: {}", exception.getMessage());
-//        }
-//    }
-
-    private void pollJobs(List<JsonObject> jobs)
+    /**
+     * Checks reachability of the jobs' devices and sends the reachable targets to the plugin.
+     *
+     * @param jobs        The metric jobs due for polling.
+     * @param scheduledAt The scheduler's trace stamp for these jobs, or null if untraced.
+     */
+    private void pollJobs(List<MetricJob> jobs, String scheduledAt)
     {
         try
         {
             // Extract unique IPs from jobs
             var ips = jobs.stream()
-                .map(job -> job.getString(IP))
+                .map(MetricJob::ip)
                 .distinct()
                 .collect(Collectors.toList());
 
-            // Use executeBlocking to avoid blocking the event loop
+            // Use executeBlocking to avoid blocking the event loop; unordered so the batches of one tick probe in parallel
             vertx.<JsonArray>executeBlocking(promise -> {
                 try
                 {
+                    var probeStart = System.nanoTime();
+
                     var reachResults = Utility.checkReachability(ips, 22);
 
+                    REACHABILITY_DURATION.record((System.nanoTime() - probeStart) / 1_000_000_000.0);
+
                     promise.complete(reachResults);
                 }
                 catch (Exception e)
                 {
                     promise.fail(e);
                 }
-            }, res -> {
+            }, false, res -> {
                 if (res.succeeded())
                 {
                     var reachResults = res.result();
 
                     var targets = new JsonArray();
 
+                    var unreachable = new HashSet<Long>();
+
                     // Process each job individually
                     for (var job : jobs)
                     {
-                        var ip = job.getString(IP);
+                        var device = job.device();
 
                         // Find reachability result for this IP
                         var reachResult = reachResults.stream()
                             .map(obj -> (JsonObject) obj)
-                            .filter(resObj -> resObj.getString(IP).equals(ip))
+                            .filter(resObj -> resObj.getString(IP).equals(device.ip()))
                             .findFirst()
                             .orElse(null);
 
                         if (reachResult != null && reachResult.getBoolean("reachable") && reachResult.getBoolean("port_open"))
                         {
                             targets.add(new JsonObject()
-                                .put(IP_ADDRESS, ip)
-                                .put(PORT, job.getInteger(PORT))
-                                .put(USER, job.getJsonObject(CRED_DATA).getString(USER))
-                                .put(PASSWORD, job.getJsonObject(CRED_DATA).getString(PASSWORD))
-                                .put(PROVISIONING_JOB_ID, job.getLong(PROVISIONING_JOB_ID))
-                                .put(METRIC_NAME, job.getString(METRIC_NAME))
-                                .put(PROTOCOL, job.getString(PROTOCOL))
-                                .put(PLUGIN_TYPE, LINUX + job.getString(METRIC_NAME).toLowerCase()));
+                                .put(IP_ADDRESS, device.ip())
+                                .put(PORT, device.port())
+                                .put(USER, job.credential().user())
+                                .put(PASSWORD, job.credential().password())
+                                .put(PROVISIONING_JOB_ID, device.provisioningJobId())
+                                .put(METRIC_NAME, job.metricName())
+                                .put(PROTOCOL, device.protocol())
+                                .put(PLUGIN_TYPE, LINUX + job.metricName().toLowerCase()));
+                        }
+                        else
+                        {
+                            unreachable.add(device.provisioningJobId());
                         }
                     }
 
+                    unreachable.forEach(provisioningJobId -> DeviceHealth.failure(provisioningJobId, "unreachable"));
+
+                    PollTrace.missed(jobs.size() - targets.size());
+
                     if (targets.isEmpty())
                     {
-                        LOGGER.info("No reachable targets for polling");
+                        SAMPLED_LOGGER.atInfo().setMessage("No reachable targets for polling batch")
+                            .addKeyValue("jobs", jobs.size())
+                            .log();
+
                         return;
                     }
 
@@ -199,12 +188,25 @@ public class Polling extends AbstractVerticle
                         .put(REQUEST_TYPE, POLLING)
                         .put(TARGETS, targets);
 
-                    vertx.eventBus().send(PLUGIN_EXECUTE, pluginInput);
+                    // Trace stamps travel as headers so they never reach the plugin process
+                    var deliveryOptions = new DeliveryOptions().addHeader(TRACE_DISPATCHED, String.valueOf(System.nanoTime()));
 
-                    LOGGER.info("Sent polling plugin input: {}", pluginInput.encodePrettily());
+                    if (scheduledAt != null)
+                    {
+                        deliveryOptions.addHeader(TRACE_SCHEDULED, scheduledAt);
+                    }
+
+                    vertx.eventBus().send(PLUGIN_EXECUTE, pluginInput, deliveryOptions);
+
+                    SAMPLED_LOGGER.atInfo().setMessage("Sent polling batch to plugin")
+                        .addKeyValue("jobs", jobs.size())
+                        .addKeyValue(TARGETS, targets.size())
+                        .log();
                 }
                 else
                 {
+                    PollTrace.missed(jobs.size());
+
                     LOGGER.error("Reachability check failed", res.cause());
                 }
             });
@@ -1,10 +1,16 @@
 package com.example.NMS.polling;
 
 import com.example.NMS.cache.MetricCache;
+import com.example.NMS.cache.MetricJob;
+import com.example.NMS.cluster.ClusterMembership;
+import com.example.NMS.metrics.Histogram;
+import com.example.NMS.metrics.Metrics;
+import com.example.NMS.metrics.PollTrace;
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.Future;
 import io.vertx.core.Promise;
+import io.vertx.core.eventbus.DeliveryOptions;
 import io.vertx.core.json.JsonArray;
-import io.vertx.core.json.JsonObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -13,7 +19,6 @@ import java.util.List;
 
 import static com.example.NMS.cache.MetricCache.metricJobCache;
 import static com.example.NMS.constant.Constant.*;
-import static com.example.NMS.constant.Constant.REMAINING_TIME;
 
 /**
  * Vert.x verticle for scheduling metric polling in Lite NMS.
@@ -24,9 +29,22 @@ public class Scheduler extends AbstractVerticle
 {
     private static final Logger LOGGER = LoggerFactory.getLogger(Scheduler.class);
 
+    private static final Histogram TICK_DURATION = Metrics.histogram("nms_scheduler_tick_duration_seconds",
+        "Time spent selecting due jobs in one scheduler tick", Histogram.exponentialBounds(0.0001, 2, 16));
+
+    private static final Histogram JOBS_DUE = Metrics.histogram("nms_scheduler_jobs_due",
+        "Metric jobs due per scheduler tick", Histogram.exponentialBounds(1, 4, 10));
+
+    private static final Histogram BATCH_SIZE = Metrics.histogram("nms_polling_batch_size",
+        "Metric jobs per polling batch sent to the plugin", Histogram.exponentialBounds(1, 2, 14));
+
+    private final DispatchQueue dispatchQueue = new DispatchQueue(POLL_DISPATCH_CAPACITY);
+
   /**
    * Starts the scheduler verticle.
-   * Initializes the metric cache and sets up a periodic timer to trigger polling based on the configured interval.
+   * Starts loading the metric cache and sets up a periodic timer to trigger polling once its first page is in,
+   * so the first ticks do not run over an empty cache. Deployment does not wait for the load; a failed load is
+   * retried until it succeeds, and the scheduler does not tick before then.
    *
    * @param startPromise The promise to complete or fail based on startup success.
    */
@@ -34,13 +52,28 @@ public class Scheduler extends AbstractVerticle
     {
         try
         {
-            // Initialize the metric cache
-            MetricCache.getInstance().init();
+            // Initialize the metric cache, then set up the periodic timer for scheduling
+            loadCache();
+
+            // Periodically snapshot the cache and each job's phase for warm restarts
+            vertx.setPeriodic(SNAPSHOT_INTERVAL_SECONDS * 1000, id -> writeSnapshot());
+
+            Metrics.gauge("nms_dispatch_queue_depth", "Due polls waiting for dispatch capacity", dispatchQueue::size);
 
-            // Set up periodic timer for scheduling (convert seconds to milliseconds)
-            vertx.setPeriodic(TIMER_INTERVAL_SECONDS * 1000, this::handleScheduling);
+            // Periodically report how many polls were committed, late, missed or shed
+            vertx.setPeriodic(POLL_REPORT_INTERVAL_SECONDS * 1000, id -> LOGGER.info("Polling report: {}",
+                PollTrace.report().put("shed", DispatchQueue.shed()).encode()));
 
-            LOGGER.info("Scheduler started with timer interval 10 seconds");
+            if (POLL_DISPATCH_CAPACITY > 0)
+            {
+                LOGGER.info("Scheduler started with timer interval {} seconds, dispatching at most {} polls per tick",
+                    TIMER_INTERVAL_SECONDS, POLL_DISPATCH_CAPACITY);
+            }
+            else
+            {
+                LOGGER.warn("Scheduler started with timer interval {} seconds and no dispatch capacity; every due poll is dispatched and none is shed under overload",
+                    TIMER_INTERVAL_SECONDS);
+            }
 
             startPromise.complete();
         }
@@ -52,23 +85,80 @@ public class Scheduler extends AbstractVerticle
         }
     }
 
+    /**
+     * Loads the metric cache and arms the scheduling timer once the snapshot or the first page is in.
+     * A failed load is logged and retried after CACHE_LOAD_RETRY_DELAY_MS.
+     */
+    private void loadCache()
+    {
+        MetricCache.getInstance().init()
+            .onSuccess(loaded -> vertx.setPeriodic(TIMER_INTERVAL_SECONDS * 1000, this::handleScheduling))
+            .onFailure(error ->
+            {
+                LOGGER.error("Failed to load the metric cache, retrying in {} ms: {}", CACHE_LOAD_RETRY_DELAY_MS, error.getMessage());
+
+                vertx.setTimer(CACHE_LOAD_RETRY_DELAY_MS, id -> loadCache());
+            });
+    }
+
+    /**
+     * Writes a final snapshot so the next start resumes from the current phase.
+     *
+     * @param stopPromise The promise to complete once the snapshot attempt is done.
+     */
+    @Override
+    public void stop(Promise<Void> stopPromise)
+    {
+        writeSnapshot().onComplete(ignored -> stopPromise.complete());
+    }
+
+    private Future<Integer> writeSnapshot()
+    {
+        return MetricCache.getInstance().snapshot()
+            .onSuccess(jobs -> LOGGER.debug("Snapshot written with {} jobs", jobs))
+            .onFailure(error -> LOGGER.error("Failed to write cache snapshot: {}", error.getMessage()));
+    }
+
   /**
    * Handles periodic scheduling by checking for metric jobs ready to be polled.
-   * Retrieves jobs from the metric cache and sends them to the event bus for batch processing.
+   * Retrieves due jobs from the metric cache, passes them through the dispatch queue, and sends the selected jobs
+   * to the event bus in plugin-sized batches, which the plugin workers run in parallel.
    *
    * @param timerId The unique identifier of the timer event.
    */
     private void handleScheduling(Long timerId)
     {
+        var scheduledAt = System.nanoTime();
+
         // Get metric jobs ready for polling
-        var jobsToPoll = handleTimer();
+        var jobsDue = handleTimer();
+
+        JOBS_DUE.record(jobsDue.size());
+
+        // Highest classes and earliest deadlines first, within the per-tick dispatch capacity
+        var jobsToPoll = dispatchQueue.next(jobsDue);
+
+        TICK_DURATION.record((System.nanoTime() - scheduledAt) / 1_000_000_000.0);
 
         if (!jobsToPoll.isEmpty())
         {
-            LOGGER.info("{} jobs to poll", jobsToPoll.size());
+            LOGGER.debug("{} jobs to poll", jobsToPoll.size());
+
+            PollTrace.scheduled(jobsToPoll.size());
+
+            var deliveryOptions = new DeliveryOptions().addHeader(TRACE_SCHEDULED, String.valueOf(scheduledAt));
+
+            for (var batch : PollBatcher.split(jobsToPoll, POLL_BATCH_SIZE, POLL_BATCH_SUBNET_PREFIX))
+            {
+                var metricIds = new JsonArray(new ArrayList<>(batch.size()));
+
+                batch.forEach(job -> metricIds.add(job.metricId()));
+
+                BATCH_SIZE.record(batch.size());
 
-            // Send jobs to the event bus for batch processing
-            vertx.eventBus().send(POLLING_BATCH_PROCESS, new JsonArray(jobsToPoll));
+                // Send the due metric IDs for batch processing, stamping the start of their trace
+                vertx.eventBus().send(POLLING_BATCH_PROCESS, metricIds, deliveryOptions);
+            }
         }
     }
 
@@ -76,34 +166,37 @@ public class Scheduler extends AbstractVerticle
      * Handles the polling timer by decrementing remaining times for all metric jobs.
      * Returns a list of jobs ready to be polled (remaining time <= 0), resetting their intervals.
      *
-     * @return A list of metric job JSON objects ready for polling.
+     * @return A list of metric jobs ready for polling.
      */
-    public static List<JsonObject> handleTimer()
+    public static List<MetricJob> handleTimer()
     {
-        var jobsToPoll = new ArrayList<JsonObject>();
+        var jobsToPoll = new ArrayList<MetricJob>();
+
+        var pollRate = new double[1];
 
-        // Decrement remaining time and collect jobs ready to poll
+        // Decrement remaining time and collect jobs ready to poll; due jobs restart from their interval.
+        // Every node ticks every job so phases survive rebalancing, but only dispatches the devices it owns
         metricJobCache.forEach((metricId, job) ->
         {
-            var newRemainingTime = job.getInteger(REMAINING_TIME) - TIMER_INTERVAL_SECONDS;
-
-            if (newRemainingTime <= 0)
+            if (job.tick(TIMER_INTERVAL_SECONDS) && ClusterMembership.owns(job.provisioningJobId()))
             {
                 jobsToPoll.add(job);
 
-                // Reset remaining time to original interval
-                job.put(REMAINING_TIME, job.getInteger(ORIGINAL_INTERVAL));
-            }
-            else
-            {
-                // Update remaining time
-                job.put(REMAINING_TIME, newRemainingTime);
+                // Due jobs may move to a shorter or longer interval for their next countdown
+                if (ADAPTIVE_POLLING_ENABLED)
+                {
+                    AdaptiveInterval.retune(job);
+                }
             }
+
+            pollRate[0] += 1.0 / job.effectiveInterval();
         });
 
+        AdaptiveInterval.pollRate(pollRate[0]);
+
         if (!jobsToPoll.isEmpty())
         {
-            LOGGER.info("Found {} jobs to poll", jobsToPoll.size());
+            LOGGER.debug("Found {} jobs to poll", jobsToPoll.size());
         }
 
         return jobsToPoll;
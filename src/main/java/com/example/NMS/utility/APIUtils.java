@@ -62,6 +62,21 @@ public class APIUtils
             .encode());
     }
 
+  /**
+   * Sends an error response asking the client to retry later, for requests shed under load.
+   *
+   * @param context           The routing context for the HTTP response.
+   * @param statusCode        The HTTP status code (e.g., 429, 503).
+   * @param errorMessage      The error message to include in the response.
+   * @param retryAfterSeconds The seconds the client should wait before retrying.
+   */
+    public static void sendRetryLater(RoutingContext context, int statusCode, String errorMessage, long retryAfterSeconds)
+    {
+        context.response().putHeader("Retry-After", String.valueOf(retryAfterSeconds));
+
+        sendError(context, statusCode, errorMessage);
+    }
+
 
   /**
    * Parses a path parameter as a long ID, sending a 400 error response if invalid.
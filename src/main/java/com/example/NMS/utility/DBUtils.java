@@ -28,7 +28,7 @@ public class DBUtils
                    {
                        var result = message.body();
 
-                       LOGGER.info("Database query executed: {}", query);
+                       LOGGER.debug("Database query executed: {}", query.getString(QUERY));
 
                        return result;
                    })
@@ -59,7 +59,7 @@ public class DBUtils
                 {
                     var result = queryResult.body();
 
-                    LOGGER.info("Batch query executed: {}", batchQuery.getString(QUERY));
+                    LOGGER.debug("Batch query executed: {}", batchQuery.getString(QUERY));
 
                     return result;
                 })
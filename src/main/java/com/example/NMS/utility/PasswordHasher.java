@@ -0,0 +1,168 @@
+package com.example.NMS.utility;
+
+import com.example.NMS.metrics.Counter;
+import com.example.NMS.metrics.Histogram;
+import com.example.NMS.metrics.Metrics;
+import io.vertx.core.Future;
+import io.vertx.core.WorkerExecutor;
+import org.mindrot.jbcrypt.BCrypt;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+
+/**
+ * BCrypt hashing and verification off the event loops.
+ * Each BCrypt call burns about 100 ms of CPU, so calls run on a small dedicated worker pool; once
+ * BCRYPT_MAX_PENDING calls are queued or running, further calls fail fast with a RejectedExecutionException that
+ * the API turns into 503 + Retry-After, instead of queueing without bound.
+ * Successful logins are remembered for LOGIN_CACHE_TTL_SECONDS as an HMAC of the password under a per-process
+ * random key, bound to the stored hash, so repeated logins skip BCrypt and a password change invalidates the entry.
+ * Plain passwords are never kept.
+ */
+public class PasswordHasher
+{
+    private static final Counter REJECTED = Metrics.counter("nms_bcrypt_rejected_total",
+        "Password hash or verify calls rejected because the BCrypt pool was saturated");
+
+    private static final Counter CACHE_HITS = Metrics.counter("nms_login_cache_hits_total",
+        "Logins verified from the login cache without BCrypt");
+
+    private static final Histogram DURATION = Metrics.histogram("nms_bcrypt_duration_seconds",
+        "Time from submitting a BCrypt call to its completion, queueing included", Histogram.exponentialBounds(0.01, 2, 12));
+
+    private static final WorkerExecutor EXECUTOR = vertx.createSharedWorkerExecutor("nms-bcrypt", BCRYPT_POOL_SIZE);
+
+    private static final AtomicInteger pending = new AtomicInteger();
+
+    private static final SecretKeySpec CACHE_KEY = newCacheKey();
+
+    // username -> last verified login; access-ordered so the least recently used user is evicted first
+    private static final Map<String, Verified> verified = new LinkedHashMap<>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Verified> eldest)
+        {
+            return size() > LOGIN_CACHE_SIZE;
+        }
+    };
+
+    private record Verified(String storedHash, byte[] digest, long expiresAt)
+    {
+    }
+
+    static
+    {
+        Metrics.gauge("nms_bcrypt_pending", "BCrypt calls queued or running", pending::get);
+    }
+
+    private PasswordHasher(){}
+
+    /**
+     * Hashes a password for storage.
+     *
+     * @param password The plain password.
+     * @return The BCrypt hash, or a failed future with a RejectedExecutionException if the pool is saturated.
+     */
+    public static Future<String> hash(String password)
+    {
+        return submit(() -> BCrypt.hashpw(password, BCrypt.gensalt()));
+    }
+
+    /**
+     * Verifies a password against the stored hash of a user.
+     *
+     * @param username   The username, used as the login cache key.
+     * @param password   The plain password.
+     * @param storedHash The BCrypt hash stored for the user.
+     * @return Whether the password matches, or a failed future with a RejectedExecutionException if the pool is saturated.
+     */
+    public static Future<Boolean> verify(String username, String password, String storedHash)
+    {
+        var digest = digest(password);
+
+        synchronized (verified)
+        {
+            var entry = verified.get(username);
+
+            if (entry != null && entry.expiresAt() > System.currentTimeMillis() && entry.storedHash().equals(storedHash)
+                && MessageDigest.isEqual(entry.digest(), digest))
+            {
+                CACHE_HITS.increment();
+
+                return Future.succeededFuture(true);
+            }
+        }
+
+        return submit(() -> BCrypt.checkpw(password, storedHash))
+            .onSuccess(matches ->
+            {
+                if (matches)
+                {
+                    synchronized (verified)
+                    {
+                        verified.put(username, new Verified(storedHash, digest,
+                            System.currentTimeMillis() + LOGIN_CACHE_TTL_SECONDS * 1000L));
+                    }
+                }
+            });
+    }
+
+    private static <T> Future<T> submit(Callable<T> call)
+    {
+        if (pending.incrementAndGet() > BCRYPT_MAX_PENDING)
+        {
+            pending.decrementAndGet();
+
+            REJECTED.increment();
+
+            return Future.failedFuture(new RejectedExecutionException("Password hashing is saturated"));
+        }
+
+        var submittedAt = System.nanoTime();
+
+        return EXECUTOR.executeBlocking(call, false)
+            .onComplete(ignored ->
+            {
+                pending.decrementAndGet();
+
+                DURATION.record((System.nanoTime() - submittedAt) / 1_000_000_000.0);
+            });
+    }
+
+    private static byte[] digest(String password)
+    {
+        try
+        {
+            var mac = Mac.getInstance("HmacSHA256");
+
+            mac.init(CACHE_KEY);
+
+            return mac.doFinal(password.getBytes(StandardCharsets.UTF_8));
+        }
+        catch (GeneralSecurityException exception)
+        {
+            throw new IllegalStateException("HmacSHA256 unavailable", exception);
+        }
+    }
+
+    private static SecretKeySpec newCacheKey()
+    {
+        var key = new byte[32];
+
+        new SecureRandom().nextBytes(key);
+
+        return new SecretKeySpec(key, "HmacSHA256");
+    }
+}
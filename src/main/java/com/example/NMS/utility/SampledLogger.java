@@ -0,0 +1,85 @@
+package com.example.NMS.utility;
+
+import org.slf4j.Logger;
+import org.slf4j.spi.LoggingEventBuilder;
+import org.slf4j.spi.NOPLoggingEventBuilder;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rate-limited logger for hot paths, built on the SLF4J fluent API.
+ * At most a fixed number of events per second are emitted; events over the limit are counted and the count is
+ * attached as a "suppressed" key-value to the next emitted event. Disabled or suppressed events return a no-op
+ * builder, so callers pay no formatting or serialization cost for them.
+ * Usage: {@code SAMPLED.atInfo().setMessage("Polling batch sent").addKeyValue("targets", count).log();}
+ */
+public class SampledLogger
+{
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+
+    private final Logger logger;
+
+    private final int eventsPerSecond;
+
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+
+    private final AtomicInteger emitted = new AtomicInteger();
+
+    private final AtomicLong suppressed = new AtomicLong();
+
+    private SampledLogger(Logger logger, int eventsPerSecond)
+    {
+        this.logger = logger;
+
+        this.eventsPerSecond = eventsPerSecond;
+    }
+
+    /**
+     * @param logger          The logger events are written to.
+     * @param eventsPerSecond The maximum number of events emitted per second.
+     * @return A rate-limited view of the logger.
+     */
+    public static SampledLogger of(Logger logger, int eventsPerSecond)
+    {
+        return new SampledLogger(logger, eventsPerSecond);
+    }
+
+    public LoggingEventBuilder atInfo()
+    {
+        return logger.isInfoEnabled() ? sample(logger.atInfo()) : NOPLoggingEventBuilder.singleton();
+    }
+
+    public LoggingEventBuilder atWarn()
+    {
+        return logger.isWarnEnabled() ? sample(logger.atWarn()) : NOPLoggingEventBuilder.singleton();
+    }
+
+    public LoggingEventBuilder atError()
+    {
+        return logger.isErrorEnabled() ? sample(logger.atError()) : NOPLoggingEventBuilder.singleton();
+    }
+
+    private LoggingEventBuilder sample(LoggingEventBuilder builder)
+    {
+        var now = System.nanoTime();
+
+        var start = windowStart.get();
+
+        if (now - start >= WINDOW_NANOS && windowStart.compareAndSet(start, now))
+        {
+            emitted.set(0);
+        }
+
+        if (emitted.incrementAndGet() > eventsPerSecond)
+        {
+            suppressed.incrementAndGet();
+
+            return NOPLoggingEventBuilder.singleton();
+        }
+
+        var dropped = suppressed.getAndSet(0);
+
+        return dropped > 0 ? builder.addKeyValue("suppressed", dropped) : builder;
+    }
+}
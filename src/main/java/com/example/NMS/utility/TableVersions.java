@@ -0,0 +1,55 @@
+package com.example.NMS.utility;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-table change counters backing the ETags of the list and detail endpoints.
+ * The API handlers bump a table after each successful write, which gives a client read-your-writes on this node;
+ * the CacheListener bumps it for every change the database announces, covering writes made by other nodes or
+ * outside the API. An ETag combines the counters of every table a response is built from with a per-process
+ * epoch, so counters restarting from zero never reproduce an ETag issued before a restart.
+ */
+public class TableVersions
+{
+    private static final String EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private static final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    private TableVersions(){}
+
+    /**
+     * Marks tables as changed.
+     *
+     * @param tables The changed tables.
+     */
+    public static void bump(String... tables)
+    {
+        for (var table : tables)
+        {
+            versions.computeIfAbsent(table, key -> new AtomicLong()).incrementAndGet();
+        }
+    }
+
+    /**
+     * Returns the weak ETag of a response built from the given tables at their current versions.
+     * It is weak because the same version is served gzip, deflate or identity encoded, and a strong ETag would have
+     * to differ per encoding. Read it before querying, so a write racing the query can only make the ETag older than
+     * the data, never newer.
+     *
+     * @param tables The tables the response is built from.
+     */
+    public static String etag(String... tables)
+    {
+        var etag = new StringBuilder("W/\"").append(EPOCH);
+
+        for (var table : tables)
+        {
+            var version = versions.get(table);
+
+            etag.append('-').append(version == null ? 0 : version.get());
+        }
+
+        return etag.append('"').toString();
+    }
+}
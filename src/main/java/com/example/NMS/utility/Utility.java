@@ -196,7 +196,7 @@ public class Utility
 
             var process = processBuilder.start();
 
-            LOGGER.info("Ip {} fping command: {}", ipAddresses, String.join(" ", command));
+            LOGGER.debug("Running fping for {} addresses", ipAddresses.size());
 
             // Read alive IPs from stdout (fping -a outputs alive hosts directly)
             var reader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
@@ -212,7 +212,7 @@ public class Utility
                 }
             }
 
-            LOGGER.info("fping alive IPs: {}", aliveIps);
+            LOGGER.debug("fping found {} of {} addresses alive", aliveIps.size(), ipAddresses.size());
 
             // Log stderr for debugging
             var stderrReader = new BufferedReader(new InputStreamReader(process.getErrorStream()));
@@ -274,7 +274,10 @@ public class Utility
               .put("port_open", isPortOpen));
         }
 
-        LOGGER.info("Reachability results: {}", results.encode());
+        if (LOGGER.isDebugEnabled())
+        {
+            LOGGER.debug("Reachability results: {}", results.encode());
+        }
 
         return results;
     }
@@ -47,6 +47,16 @@ CREATE TABLE IF NOT EXISTS metrics (
   UNIQUE(provisioning_job_id, name)
   );
 
+-- Optional bounds for adaptive polling; NULL falls back to a quarter / four times polling_interval
+ALTER TABLE metrics ADD COLUMN IF NOT EXISTS min_polling_interval INTEGER CHECK (min_polling_interval > 0);
+
+ALTER TABLE metrics ADD COLUMN IF NOT EXISTS max_polling_interval INTEGER CHECK (max_polling_interval > 0);
+
+-- Dispatch class overrides; a metric's own class wins over its device's, NULL falls back to the metric default
+ALTER TABLE provisioning_jobs ADD COLUMN IF NOT EXISTS priority VARCHAR(10) CHECK (priority IN ('HIGH', 'NORMAL', 'LOW'));
+
+ALTER TABLE metrics ADD COLUMN IF NOT EXISTS priority VARCHAR(10) CHECK (priority IN ('HIGH', 'NORMAL', 'LOW'));
+
 
 CREATE TABLE IF NOT EXISTS polled_data (
                                          id SERIAL PRIMARY KEY,
@@ -62,7 +72,151 @@ CREATE TABLE IF NOT EXISTS users (
   password TEXT NOT NULL
   );
 
+-- Checksum of the last applied schema.sql; boot skips migration when it matches
+CREATE TABLE IF NOT EXISTS schema_version (
+                                            id INTEGER PRIMARY KEY CHECK (id = 1),
+  checksum TEXT NOT NULL,
+  applied_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+  );
+
+-- Leases of the NMS nodes sharing this database; a node is live while its lease has not expired
+CREATE TABLE IF NOT EXISTS cluster_nodes (
+                                           node_id TEXT PRIMARY KEY,
+  lease_expires_at TIMESTAMPTZ NOT NULL,
+  joined_at TIMESTAMPTZ DEFAULT CURRENT_TIMESTAMP
+  );
+
+-- Logged-out tokens by SHA-256 digest, kept until the token would have expired anyway
+CREATE TABLE IF NOT EXISTS revoked_tokens (
+                                            digest TEXT PRIMARY KEY,
+  expires_at TIMESTAMPTZ NOT NULL
+  );
+
 -- Indexes for frequently queried columns
 CREATE INDEX IF NOT EXISTS idx_discovery_profiles_status ON discovery_profiles(status);
 CREATE INDEX IF NOT EXISTS idx_provisioning_jobs_ip ON provisioning_jobs(ip);
 CREATE INDEX IF NOT EXISTS idx_polled_data_polled_at ON polled_data(polled_at);
+
+-- Serves the time-range scans of aggregation queries, which always filter by job and metric
+CREATE INDEX IF NOT EXISTS idx_polled_data_job_metric_time ON polled_data(job_id, metric_type, polled_at);
+
+-- Cache invalidation: row changes on the tables mirrored by the MetricCache are announced on the nms_cache channel
+-- as {"table", "op", "id"}, where id is the value of the key column passed as the trigger argument
+CREATE OR REPLACE FUNCTION notify_cache_change() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('nms_cache', json_build_object(
+        'table', TG_TABLE_NAME,
+        'op', TG_OP,
+        'id', (CASE WHEN TG_OP = 'DELETE' THEN to_jsonb(OLD) ELSE to_jsonb(NEW) END) ->> TG_ARGV[0]
+    )::text);
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Metrics are announced once per statement so that bulk writes cost one notification instead of one per row:
+-- statements changing up to TG_ARGV[1] rows announce each row as above, larger ones announce the changed key values
+-- as runs of consecutive values, {"table", "op": "BULK", "ranges": [[first, last], ...]}, which the listener reloads
+-- in one query. At most 128 runs go in one notification to stay under pg_notify's 8000 byte payload limit.
+CREATE OR REPLACE FUNCTION notify_cache_changes() RETURNS trigger AS $$
+DECLARE
+    changed_rows INTEGER;
+BEGIN
+    SELECT count(*) INTO changed_rows FROM changed;
+
+    IF changed_rows > TG_ARGV[1]::integer THEN
+        PERFORM pg_notify('nms_cache', json_build_object(
+            'table', TG_TABLE_NAME,
+            'op', 'BULK',
+            'ranges', json_agg(json_build_array(first_key, last_key) ORDER BY first_key)
+        )::text)
+        FROM (
+            SELECT min(changed_key) AS first_key,
+                   max(changed_key) AS last_key,
+                   (row_number() OVER (ORDER BY min(changed_key)) - 1) / 128 AS chunk
+            FROM (
+                SELECT changed_key, changed_key - row_number() OVER (ORDER BY changed_key) AS run
+                FROM (SELECT DISTINCT (to_jsonb(c) ->> TG_ARGV[0])::bigint AS changed_key FROM changed c) keys
+            ) numbered
+            GROUP BY run
+        ) runs
+        GROUP BY chunk;
+    ELSE
+        PERFORM pg_notify('nms_cache', json_build_object(
+            'table', TG_TABLE_NAME,
+            'op', TG_OP,
+            'id', to_jsonb(c) ->> TG_ARGV[0]
+        )::text)
+        FROM changed c;
+    END IF;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS metrics_cache_change ON metrics;
+
+CREATE OR REPLACE TRIGGER metrics_cache_insert
+    AFTER INSERT ON metrics REFERENCING NEW TABLE AS changed
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_cache_changes('metric_id', '64');
+
+CREATE OR REPLACE TRIGGER metrics_cache_update
+    AFTER UPDATE ON metrics REFERENCING NEW TABLE AS changed
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_cache_changes('metric_id', '64');
+
+CREATE OR REPLACE TRIGGER metrics_cache_delete
+    AFTER DELETE ON metrics REFERENCING OLD TABLE AS changed
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_cache_changes('metric_id', '64');
+
+CREATE OR REPLACE TRIGGER provisioning_jobs_cache_change
+    AFTER UPDATE OR DELETE ON provisioning_jobs
+    FOR EACH ROW EXECUTE FUNCTION notify_cache_change('id');
+
+CREATE OR REPLACE TRIGGER credential_profile_cache_change
+    AFTER UPDATE ON credential_profile
+    FOR EACH ROW EXECUTE FUNCTION notify_cache_change('id');
+
+-- API response versions: writes the cache does not mirror are announced once per statement as {"table", "op"},
+-- so every node invalidates the ETags built from the table
+CREATE OR REPLACE FUNCTION notify_table_change() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('nms_cache', json_build_object('table', TG_TABLE_NAME, 'op', TG_OP)::text);
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE TRIGGER provisioning_jobs_table_change
+    AFTER INSERT ON provisioning_jobs
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+CREATE OR REPLACE TRIGGER credential_profile_table_change
+    AFTER INSERT OR DELETE ON credential_profile
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+CREATE OR REPLACE TRIGGER discovery_profiles_table_change
+    AFTER INSERT OR UPDATE OR DELETE ON discovery_profiles
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+CREATE OR REPLACE TRIGGER discovery_credential_mapping_table_change
+    AFTER INSERT OR UPDATE OR DELETE ON discovery_credential_mapping
+    FOR EACH STATEMENT EXECUTE FUNCTION notify_table_change();
+
+-- Token revocations are announced as {"table", "op", "id", "expires_at"} with the digest as id and the expiry in
+-- epoch millis, so every node refuses the token without reading the table
+CREATE OR REPLACE FUNCTION notify_token_revoked() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('nms_cache', json_build_object(
+        'table', TG_TABLE_NAME,
+        'op', TG_OP,
+        'id', NEW.digest,
+        'expires_at', (extract(epoch FROM NEW.expires_at) * 1000)::bigint
+    )::text);
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE TRIGGER revoked_tokens_change
+    AFTER INSERT ON revoked_tokens
+    FOR EACH ROW EXECUTE FUNCTION notify_token_revoked();
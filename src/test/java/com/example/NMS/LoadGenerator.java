@@ -0,0 +1,156 @@
+package com.example.NMS;
+
+import io.vertx.core.Future;
+import io.vertx.core.Vertx;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpClient;
+import io.vertx.core.http.HttpClientOptions;
+import io.vertx.core.http.PoolOptions;
+import io.vertx.core.http.RequestOptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
+
+// Closed-loop HTTP load for the benchmark-tagged tests, in the manner of wrk: a fixed number of keep-alive connections
+// spread over several event loops, each sending its next request as soon as the previous response is read.
+// Requests completing during the warmup are not recorded.
+public final class LoadGenerator {
+
+  // One request to send; the body may be null
+  public record Request(RequestOptions options, Buffer body) {
+  }
+
+  // Recorded outcome of a run; status -1 counts requests that failed without a response
+  public record Result(long requests, double seconds, Map<Integer, Long> statuses, long[] latenciesNanos) {
+
+    public double throughput() {
+      return requests / seconds;
+    }
+
+    public double latencyMs(double percentile) {
+      if (latenciesNanos.length == 0) {
+        return 0;
+      }
+      var index = (int) Math.ceil(percentile / 100 * latenciesNanos.length) - 1;
+      return latenciesNanos[Math.max(0, Math.min(index, latenciesNanos.length - 1))] / 1_000_000.0;
+    }
+
+    public long count(int status) {
+      return statuses.getOrDefault(status, 0L);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d requests in %.1f s, %.0f req/s, latency p50 %.2f ms, p90 %.2f ms, p99 %.2f ms, "
+              + "p99.9 %.2f ms, max %.2f ms, statuses %s", requests, seconds, throughput(), latencyMs(50), latencyMs(90),
+          latencyMs(99), latencyMs(99.9), latencyMs(100), statuses);
+    }
+  }
+
+  // Confined to the event loop of one client
+  private static final class Recorder {
+
+    private long[] latencies = new long[1 << 16];
+
+    private int size;
+
+    private final Map<Integer, Long> statuses = new TreeMap<>();
+
+    void record(int status, long latency) {
+      if (size == latencies.length) {
+        latencies = Arrays.copyOf(latencies, size * 2);
+      }
+      latencies[size++] = latency;
+      statuses.merge(status, 1L, Long::sum);
+    }
+  }
+
+  private LoadGenerator() {
+  }
+
+  public static Result run(Vertx vertx, int port, int connections, int threads, Duration warmup, Duration duration,
+                           LongFunction<Request> requests) throws InterruptedException {
+    var sequence = new AtomicLong();
+    var measuredFrom = System.nanoTime() + warmup.toNanos();
+    var end = measuredFrom + duration.toNanos();
+    var finished = new CountDownLatch(connections);
+    var recorders = new ArrayList<Recorder>();
+    var clients = new ArrayList<HttpClient>();
+
+    for (var thread = 0; thread < threads; thread++) {
+      var share = connections / threads + (thread < connections % threads ? 1 : 0);
+      if (share == 0) {
+        continue;
+      }
+
+      var recorder = new Recorder();
+      recorders.add(recorder);
+
+      // Outside Vert.x threads every call creates a new context, so each client gets an event loop of its own
+      vertx.getOrCreateContext().runOnContext(ignored -> {
+        var client = vertx.createHttpClient(new HttpClientOptions()
+            .setDefaultHost("localhost").setDefaultPort(port).setKeepAlive(true), new PoolOptions().setHttp1MaxSize(share));
+
+        synchronized (clients) {
+          clients.add(client);
+        }
+
+        for (var connection = 0; connection < share; connection++) {
+          next(client, recorder, sequence, requests, measuredFrom, end, finished);
+        }
+      });
+    }
+
+    if (!finished.await(warmup.plus(duration).toSeconds() + 60, TimeUnit.SECONDS)) {
+      throw new IllegalStateException("Load generator did not finish");
+    }
+
+    synchronized (clients) {
+      clients.forEach(HttpClient::close);
+    }
+
+    var statuses = new TreeMap<Integer, Long>();
+    var latencies = new long[recorders.stream().mapToInt(recorder -> recorder.size).sum()];
+    var offset = 0;
+
+    for (var recorder : recorders) {
+      recorder.statuses.forEach((status, count) -> statuses.merge(status, count, Long::sum));
+      System.arraycopy(recorder.latencies, 0, latencies, offset, recorder.size);
+      offset += recorder.size;
+    }
+
+    Arrays.sort(latencies);
+
+    return new Result(latencies.length, duration.toNanos() / 1_000_000_000.0, statuses, latencies);
+  }
+
+  private static void next(HttpClient client, Recorder recorder, AtomicLong sequence, LongFunction<Request> requests,
+                           long measuredFrom, long end, CountDownLatch finished) {
+    if (System.nanoTime() >= end) {
+      finished.countDown();
+      return;
+    }
+
+    var request = requests.apply(sequence.getAndIncrement());
+    var sentAt = System.nanoTime();
+
+    client.request(request.options())
+        .compose(outgoing -> request.body() == null ? outgoing.send() : outgoing.send(request.body()))
+        .compose(response -> response.body().map(ignored -> response.statusCode()))
+        .recover(error -> Future.succeededFuture(-1))
+        .onComplete(status -> {
+          var now = System.nanoTime();
+          if (sentAt >= measuredFrom && now <= end) {
+            recorder.record(status.result(), now - sentAt);
+          }
+          next(client, recorder, sequence, requests, measuredFrom, end, finished);
+        });
+  }
+}
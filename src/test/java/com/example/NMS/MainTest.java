@@ -0,0 +1,97 @@
+package com.example.NMS;
+
+import com.example.NMS.api.Server;
+import com.example.NMS.cache.CacheListener;
+import com.example.NMS.cluster.ClusterMembership;
+import com.example.NMS.database.Database;
+import com.example.NMS.discovery.Discovery;
+import com.example.NMS.plugin.Plugin;
+import com.example.NMS.plugin.ResponseProcessor;
+import com.example.NMS.polling.Polling;
+import com.example.NMS.polling.Scheduler;
+import io.vertx.core.Future;
+import io.vertx.core.Promise;
+import io.vertx.core.ThreadingModel;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.example.NMS.constant.Constant.PLUGIN_INSTANCES;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Deploys the graph through a fake deployer whose deployments complete only when the test says so
+public class MainTest {
+
+  private static final Set<String> INDEPENDENT = Set.of(Database.class.getName(), Polling.class.getName(),
+      Server.class.getName(), Discovery.class.getName(), Plugin.class.getName(),
+      ResponseProcessor.class.getName());
+
+  // verticle class name -> its pending deployment, in the order they were requested
+  private final Map<String, Promise<String>> deployments = new LinkedHashMap<>();
+
+  private Future<?> deploy() {
+    return Main.deploy((name, options) -> {
+      if (name.equals(Plugin.class.getName())) {
+        assertEquals(ThreadingModel.WORKER, options.getThreadingModel());
+        assertEquals(PLUGIN_INSTANCES, options.getInstances());
+      }
+
+      var deployment = Promise.<String>promise();
+      assertNull(deployments.put(name, deployment), name + " deployed twice");
+      return deployment.future();
+    });
+  }
+
+  private void complete(Class<?> verticle) {
+    deployments.get(verticle.getName()).complete(verticle.getSimpleName());
+  }
+
+  @Test
+  void verticles_deploy_only_after_their_dependencies() {
+    var started = deploy();
+
+    // everything without dependencies starts at once
+    assertEquals(INDEPENDENT, deployments.keySet());
+
+    complete(Database.class);
+    assertFalse(deployments.containsKey(ClusterMembership.class.getName()));
+
+    complete(Polling.class);
+    assertTrue(deployments.containsKey(ClusterMembership.class.getName()));
+    assertFalse(deployments.containsKey(CacheListener.class.getName()));
+
+    complete(ClusterMembership.class);
+    assertTrue(deployments.containsKey(CacheListener.class.getName()));
+    assertFalse(deployments.containsKey(Scheduler.class.getName()));
+
+    complete(CacheListener.class);
+    assertTrue(deployments.containsKey(Scheduler.class.getName()));
+
+    complete(Scheduler.class);
+    assertFalse(started.isComplete());
+
+    INDEPENDENT.stream().filter(name -> !deployments.get(name).future().isComplete())
+        .forEach(name -> deployments.get(name).complete(name));
+
+    assertTrue(started.succeeded());
+    assertEquals(List.copyOf(deployments.keySet()).subList(INDEPENDENT.size(), deployments.size()), List.of(
+        ClusterMembership.class.getName(), CacheListener.class.getName(), Scheduler.class.getName()));
+  }
+
+  @Test
+  void failed_dependency_stops_its_dependents_and_the_startup() {
+    var started = deploy();
+
+    complete(Polling.class);
+    deployments.get(Database.class.getName()).fail("connection refused");
+
+    INDEPENDENT.stream().filter(name -> !deployments.get(name).future().isComplete())
+        .forEach(name -> deployments.get(name).complete(name));
+
+    assertTrue(started.failed());
+    assertEquals(INDEPENDENT, deployments.keySet());
+  }
+}
@@ -0,0 +1,111 @@
+package com.example.NMS.api;
+
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.HttpServer;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdmissionHandlerTest {
+
+  @Test
+  void bucket_allows_a_burst_then_refills_at_its_rate() {
+    var bucket = new AdmissionHandler.TokenBucket(2, 2);
+    var now = System.nanoTime();
+
+    assertEquals(0, bucket.take(now));
+    assertEquals(0, bucket.take(now));
+    assertEquals(1, bucket.take(now));
+
+    // half a second refills one token at 2 per second
+    assertEquals(0, bucket.take(now + 500_000_000L));
+    assertTrue(bucket.take(now + 500_000_000L) > 0);
+  }
+
+  @Test
+  void retry_after_covers_slow_buckets() {
+    var bucket = new AdmissionHandler.TokenBucket(0.2, 1);
+    var now = System.nanoTime();
+
+    assertEquals(0, bucket.take(now));
+    assertEquals(5, bucket.take(now));
+  }
+
+  @Test
+  void routes_are_classified_by_cost() {
+    assertEquals(AdmissionHandler.RouteClass.AUTH, AdmissionHandler.RouteClass.of(HttpMethod.POST, "/api/login"));
+    assertEquals(AdmissionHandler.RouteClass.BULK, AdmissionHandler.RouteClass.of(HttpMethod.PUT, "/api/provision/bulk/metrics"));
+    assertEquals(AdmissionHandler.RouteClass.HISTORY, AdmissionHandler.RouteClass.of(HttpMethod.GET, "/api/polled-data/4"));
+    assertEquals(AdmissionHandler.RouteClass.WRITE, AdmissionHandler.RouteClass.of(HttpMethod.DELETE, "/api/credential/4"));
+    assertEquals(AdmissionHandler.RouteClass.READ, AdmissionHandler.RouteClass.of(HttpMethod.GET, "/api/credential/4"));
+  }
+
+  @Test
+  void queued_request_is_refused_at_its_deadline() throws Exception {
+    // requests holding a database slot until the test ends them
+    var held = new CopyOnWriteArrayList<RoutingContext>();
+
+    var router = Router.router(vertx);
+    router.route("/api/*").handler(new AdmissionHandler());
+    router.get("/api/credential/:id").handler(held::add);
+
+    var server = vertx.createHttpServer().requestHandler(router).listen(0)
+        .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    try {
+      for (var i = 0; i < API_DB_CONCURRENCY; i++) {
+        get(client, server, i);
+      }
+      while (held.size() < API_DB_CONCURRENCY) {
+        Thread.sleep(20);
+      }
+
+      var queuedAt = System.nanoTime();
+      var response = get(client, server, API_DB_CONCURRENCY).get(10, TimeUnit.SECONDS);
+      var waitedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - queuedAt);
+
+      assertEquals(503, response.statusCode());
+      assertEquals(String.valueOf(RETRY_AFTER_SECONDS), response.headers().firstValue("Retry-After").orElse(null));
+      assertTrue(waitedMs >= API_ADMISSION_QUEUE_TIMEOUT_MS, "refused after " + waitedMs + " ms");
+
+      // the expired request left the queue, so a freed slot goes to the next arrival
+      var next = get(client, server, API_DB_CONCURRENCY + 1);
+      Thread.sleep(100);
+      end(held.get(0));
+
+      while (held.size() < API_DB_CONCURRENCY + 1) {
+        Thread.sleep(20);
+      }
+      end(held.get(API_DB_CONCURRENCY));
+
+      assertEquals(200, next.get(10, TimeUnit.SECONDS).statusCode());
+    } finally {
+      held.forEach(AdmissionHandlerTest::end);
+      server.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+  }
+
+  private static CompletableFuture<HttpResponse<String>> get(HttpClient client, HttpServer server, int id) {
+    return client.sendAsync(HttpRequest.newBuilder(URI.create("http://localhost:" + server.actualPort() + "/api/credential/" + id))
+        .build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  private static void end(RoutingContext context) {
+    if (!context.response().ended()) {
+      context.response().end();
+    }
+  }
+}
@@ -0,0 +1,68 @@
+package com.example.NMS.api;
+
+import com.example.NMS.LoadGenerator;
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.PubSecKeyOptions;
+import io.vertx.ext.auth.jwt.JWTAuth;
+import io.vertx.ext.auth.jwt.JWTAuthOptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Load harness for the API server: drives an authenticated in-memory route with one instance and with one per core.
+// Run with: mvn test -Dtest.excludedGroups= -Dgroups=benchmark -Dtest=ServerLoadTest [-Dnms.load.seconds=30]
+@Tag("benchmark")
+public class ServerLoadTest {
+
+  private static final int SECONDS = Integer.getInteger("nms.load.seconds", 10);
+
+  private static final int CONNECTIONS = Integer.getInteger("nms.load.connections", 64);
+
+  // Enough distinct clients that the per-client rate limits never bind
+  private static final int CLIENTS = 5_000;
+
+  @Test
+  void status_route_throughput_by_server_instances() throws Exception {
+    var jwtAuth = JWTAuth.create(vertx, new JWTAuthOptions()
+        .addPubSecKey(new PubSecKeyOptions().setAlgorithm("HS256").setBuffer(JWT_SECRET)));
+
+    var cores = Runtime.getRuntime().availableProcessors();
+
+    for (var instances : new TreeSet<>(List.of(1, cores))) {
+      var run = "load-" + instances + "-";
+      var tokens = new String[CLIENTS];
+      for (var i = 0; i < CLIENTS; i++) {
+        tokens[i] = BEARER + jwtAuth.generateToken(new JsonObject()
+            .put("sub", run + i).put("exp", System.currentTimeMillis() / 1000 + 3_600));
+      }
+
+      var deployment = vertx.deployVerticle(Server.class.getName(), new DeploymentOptions().setInstances(instances))
+          .toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+
+      try {
+        var result = LoadGenerator.run(vertx, SERVER_PORT, CONNECTIONS, Math.max(1, cores / 2),
+            Duration.ofSeconds(3), Duration.ofSeconds(SECONDS), sequence -> new LoadGenerator.Request(
+                new RequestOptions().setMethod(HttpMethod.GET).setURI("/api/status")
+                    .putHeader("Authorization", tokens[(int) (sequence % CLIENTS)]), null));
+
+        System.out.printf("GET /api/status, %d server instance(s), %d cores, %d connections: %s%n",
+            instances, cores, CONNECTIONS, result);
+
+        assertTrue(result.count(200) > result.requests() * 0.99, result.toString());
+      } finally {
+        vertx.undeploy(deployment).toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+      }
+    }
+  }
+}
@@ -0,0 +1,219 @@
+package com.example.NMS.api;
+
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.PubSecKeyOptions;
+import io.vertx.ext.auth.jwt.JWTAuth;
+import io.vertx.ext.auth.jwt.JWTAuthOptions;
+import io.vertx.ext.web.Router;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+import static com.example.NMS.constant.QueryConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Drives the handler over HTTP; revocations are stored in a stub of the database verticle's event bus address
+public class TokenAuthHandlerTest {
+
+  private static final List<JsonObject> queries = new CopyOnWriteArrayList<>();
+
+  private static final JsonArray stored = new JsonArray();
+
+  private static volatile boolean databaseDown;
+
+  private static JWTAuth jwtAuth;
+
+  private static MessageConsumer<JsonObject> database;
+
+  private static HttpServer server;
+
+  private static final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+  @BeforeAll
+  static void start() throws Exception {
+    jwtAuth = JWTAuth.create(vertx, new JWTAuthOptions()
+        .addPubSecKey(new PubSecKeyOptions().setAlgorithm("HS256").setBuffer(JWT_SECRET)));
+
+    database = vertx.eventBus().localConsumer(DB_EXECUTE_QUERY, message -> {
+      var query = message.body();
+      queries.add(query);
+
+      if (databaseDown) {
+        message.fail(500, "connection refused");
+      } else if (INSERT_REVOKED_TOKEN.equals(query.getString(QUERY))) {
+        message.reply(new JsonArray());
+      } else if (GET_REVOKED_TOKENS.equals(query.getString(QUERY))) {
+        message.reply(stored.copy());
+      } else {
+        message.fail(500, "unexpected query");
+      }
+    });
+
+    var router = Router.router(vertx);
+    var handler = new TokenAuthHandler(jwtAuth);
+    router.route("/api/*").handler(handler);
+    router.get("/api/me").handler(context -> context.response().end(context.user().subject()));
+    // Revokes a token from another thread while the request is still inside the handler chain
+    router.get("/api/revoke-elsewhere").handler(context -> {
+      try {
+        CompletableFuture.runAsync(() -> TokenAuthHandler.revoked("unrelated", System.currentTimeMillis() + 60_000))
+            .get(2, TimeUnit.SECONDS);
+        context.response().end();
+      } catch (Exception exception) {
+        context.response().setStatusCode(500).end();
+      }
+    });
+    router.post("/api/logout").handler(context -> TokenAuthHandler.revoke(context)
+        .onSuccess(ignored -> context.response().end())
+        .onFailure(error -> context.response().setStatusCode(503).end()));
+
+    server = vertx.createHttpServer().requestHandler(router).listen(0)
+        .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @AfterAll
+  static void stop() throws Exception {
+    database.unregister().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    server.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @BeforeEach
+  void clear() {
+    queries.clear();
+    stored.clear();
+    databaseDown = false;
+  }
+
+  @Test
+  void refuses_missing_forged_and_expired_tokens() throws Exception {
+    assertEquals(401, send("GET", "/api/me", null).statusCode());
+    assertEquals(401, send("GET", "/api/me", token("alice", 3_600) + "x").statusCode());
+    assertEquals(401, send("GET", "/api/me", token("alice", -60)).statusCode());
+  }
+
+  @Test
+  void cached_token_is_refused_once_its_exp_passes() throws Exception {
+    var token = token("bob", 2);
+
+    var first = send("GET", "/api/me", token);
+    assertEquals(200, first.statusCode());
+    assertEquals("bob", first.body());
+    assertEquals(200, send("GET", "/api/me", token).statusCode());
+
+    Thread.sleep(3_000);
+
+    assertEquals(401, send("GET", "/api/me", token).statusCode());
+  }
+
+  @Test
+  void logout_stores_the_revocation_and_refuses_the_token() throws Exception {
+    var token = token("carol", 3_600);
+
+    assertEquals(200, send("GET", "/api/me", token).statusCode());
+    assertEquals(200, send("POST", "/api/logout", token).statusCode());
+
+    var insert = queries.get(queries.size() - 1);
+    assertEquals(INSERT_REVOKED_TOKEN, insert.getString(QUERY));
+    assertEquals(digest(token), insert.getJsonArray(PARAMS).getString(0));
+
+    assertEquals(401, send("GET", "/api/me", token).statusCode());
+  }
+
+  @Test
+  void logout_that_cannot_be_stored_leaves_the_token_valid() throws Exception {
+    var token = token("dave", 3_600);
+
+    databaseDown = true;
+
+    assertEquals(503, send("POST", "/api/logout", token).statusCode());
+    assertEquals(200, send("GET", "/api/me", token).statusCode());
+  }
+
+  @Test
+  void revocations_stored_by_other_nodes_are_loaded() throws Exception {
+    var token = token("erin", 3_600);
+
+    assertEquals(200, send("GET", "/api/me", token).statusCode());
+
+    stored.add(new JsonObject().put(DIGEST, digest(token)).put(EXPIRES_AT, System.currentTimeMillis() + 3_600_000));
+    TokenAuthHandler.loadRevocations().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+    assertEquals(401, send("GET", "/api/me", token).statusCode());
+  }
+
+  @Test
+  void announced_revocation_evicts_the_cached_token() throws Exception {
+    var token = token("frank", 3_600);
+
+    assertEquals(200, send("GET", "/api/me", token).statusCode());
+
+    TokenAuthHandler.revoked(digest(token), System.currentTimeMillis() + 3_600_000);
+
+    assertEquals(401, send("GET", "/api/me", token).statusCode());
+  }
+
+  @Test
+  void downstream_handlers_do_not_run_under_a_cache_lock() throws Exception {
+    var token = token("grace", 3_600);
+
+    // a miss, then a hit served from the cache
+    assertEquals(200, send("GET", "/api/revoke-elsewhere", token).statusCode());
+    assertEquals(200, send("GET", "/api/revoke-elsewhere", token).statusCode());
+  }
+
+  @Test
+  void cache_stays_within_its_bound() throws Exception {
+    for (var first = 0; first < TOKEN_CACHE_SIZE + 500; first += 100) {
+      var responses = new ArrayList<CompletableFuture<HttpResponse<String>>>();
+      for (var i = first; i < first + 100; i++) {
+        responses.add(client.sendAsync(HttpRequest.newBuilder(URI.create("http://localhost:" + server.actualPort() + "/api/me"))
+            .header("Authorization", BEARER + token("bulk-" + i, 3_600)).build(), HttpResponse.BodyHandlers.ofString()));
+      }
+      for (var response : responses) {
+        assertEquals(200, response.get(10, TimeUnit.SECONDS).statusCode());
+      }
+    }
+
+    assertTrue(TokenAuthHandler.cachedTokens() <= TOKEN_CACHE_SIZE, "cached " + TokenAuthHandler.cachedTokens());
+  }
+
+  private static String token(String subject, long expiresInSeconds) {
+    return jwtAuth.generateToken(new JsonObject()
+        .put("sub", subject)
+        .put("exp", System.currentTimeMillis() / 1000 + expiresInSeconds));
+  }
+
+  private static String digest(String token) throws Exception {
+    return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+  }
+
+  private static HttpResponse<String> send(String method, String path, String token) throws Exception {
+    var request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.actualPort() + path))
+        .method(method, HttpRequest.BodyPublishers.noBody());
+
+    if (token != null) {
+      request.header("Authorization", BEARER + token);
+    }
+
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+}
@@ -0,0 +1,34 @@
+package com.example.NMS.api.handlers;
+
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AggregationTest {
+
+  @Test
+  void only_whitelisted_functions_become_sql() {
+    assertEquals("avg(value)", Aggregation.column("avg"));
+    assertEquals("percentile_cont(0.95) WITHIN GROUP (ORDER BY value)", Aggregation.column("p95"));
+    assertNull(Aggregation.column("p100"));
+    assertNull(Aggregation.column("stddev"));
+    assertNull(Aggregation.column("avg(value)); DROP TABLE polled_data; --"));
+  }
+
+  @Test
+  void rows_are_transposed_into_columns() {
+    var rows = new JsonArray()
+        .add(new JsonObject().put("bucket", 0L).put("avg", 1.5).put("p95", 2.0))
+        .add(new JsonObject().put("bucket", 60_000L).put("avg", 3.0).put("p95", null));
+
+    var result = Aggregation.columns(rows, List.of("avg", "p95"));
+
+    assertEquals(new JsonArray().add("bucket").add("avg").add("p95"), result.getJsonArray("columns"));
+    assertEquals(new JsonArray().add(0L).add(60_000L), result.getJsonArray("data").getJsonArray(0));
+    assertEquals(new JsonArray().add(2.0).addNull(), result.getJsonArray("data").getJsonArray(2));
+  }
+}
@@ -0,0 +1,79 @@
+package com.example.NMS.api.handlers;
+
+import com.example.NMS.database.DatabaseClient;
+import io.vertx.pgclient.PgConnection;
+import io.vertx.sqlclient.Row;
+import io.vertx.sqlclient.Tuple;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.NMS.Main.vertx;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+// Runs the aggregation query against the NMS database in a session whose TimeZone is not UTC; skipped without one
+@Tag("integration")
+public class AggregationTimeZoneTest {
+
+  private static PgConnection connection;
+
+  @BeforeAll
+  static void connect() throws Exception {
+    try {
+      connection = PgConnection.connect(vertx, DatabaseClient.connectOptions().setConnectTimeout(2_000))
+          .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    } catch (Exception exception) {
+      assumeTrue(false, "NMS database not reachable: " + exception.getMessage());
+    }
+
+    execute("SET TIME ZONE 'America/New_York'");
+
+    // Shadows the real table for this session only
+    execute("CREATE TEMP TABLE polled_data (job_id INTEGER, metric_type VARCHAR(50), data JSONB, polled_at TIMESTAMP)");
+
+    execute("""
+        INSERT INTO polled_data VALUES
+            (1, 'CPU', '{"cpu": {"usage": 10}}', '2024-01-01 00:00:30'),
+            (1, 'CPU', '{"cpu": {"usage": 20}}', '2024-01-01 00:00:50'),
+            (1, 'CPU', '{"cpu": {"usage": 40}}', '2024-01-01 00:01:10'),
+            (1, 'CPU', '{"cpu": {"usage": 80}}', '2024-01-01 05:00:00')""");
+  }
+
+  @AfterAll
+  static void close() throws Exception {
+    if (connection != null) {
+      connection.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+  }
+
+  @Test
+  void range_and_buckets_are_utc_whatever_the_session_time_zone() throws Exception {
+    var from = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    var to = Instant.parse("2024-01-01T01:00:00Z").toEpochMilli();
+
+    var rows = connection.preparedQuery(Aggregation.query(List.of("count", "avg")))
+        .execute(Tuple.of(1, "CPU", "cpu.usage", from, to, 60))
+        .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+    var buckets = new ArrayList<Row>();
+    rows.forEach(buckets::add);
+
+    assertEquals(2, buckets.size());
+    assertEquals(from, buckets.get(0).getLong("bucket"));
+    assertEquals(2, buckets.get(0).getLong("count"));
+    assertEquals(15.0, buckets.get(0).getDouble("avg"));
+    assertEquals(from + 60_000, buckets.get(1).getLong("bucket"));
+    assertEquals(1, buckets.get(1).getLong("count"));
+  }
+
+  private static void execute(String sql) throws Exception {
+    connection.query(sql).execute().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+}
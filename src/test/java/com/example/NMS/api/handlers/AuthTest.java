@@ -0,0 +1,152 @@
+package com.example.NMS.api.handlers;
+
+import com.example.NMS.metrics.Metrics;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.PubSecKeyOptions;
+import io.vertx.ext.auth.jwt.JWTAuth;
+import io.vertx.ext.auth.jwt.JWTAuthOptions;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.handler.BodyHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+import static com.example.NMS.constant.QueryConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Drives login over HTTP; users are served from a stub of the database verticle's event bus address
+public class AuthTest {
+
+  // username -> stored BCrypt hash
+  private static final Map<String, String> users = new ConcurrentHashMap<>();
+
+  private static MessageConsumer<JsonObject> database;
+
+  private static HttpServer server;
+
+  private static final HttpClient client = HttpClient.newHttpClient();
+
+  @BeforeAll
+  static void start() throws Exception {
+    var jwtAuth = JWTAuth.create(vertx, new JWTAuthOptions()
+        .addPubSecKey(new PubSecKeyOptions().setAlgorithm("HS256").setBuffer(JWT_SECRET)));
+
+    database = vertx.eventBus().localConsumer(DB_EXECUTE_QUERY, message -> {
+      var query = message.body();
+
+      if (GET_USER_BY_USERNAME.equals(query.getString(QUERY))) {
+        var username = query.getJsonArray(PARAMS).getString(0);
+        var hash = users.get(username);
+
+        message.reply(hash == null ? new JsonArray()
+            : new JsonArray().add(new JsonObject().put(ID, 1).put(USERNAME, username).put(PASSWORD, hash)));
+      } else {
+        message.fail(500, "unexpected query");
+      }
+    });
+
+    var router = Router.router(vertx);
+    router.route("/api/*").handler(BodyHandler.create());
+    new Auth(jwtAuth).init(router);
+
+    server = vertx.createHttpServer().requestHandler(router).listen(0)
+        .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @AfterAll
+  static void stop() throws Exception {
+    database.unregister().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    server.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void repeated_login_is_verified_from_the_cache() throws Exception {
+    users.put("alice", BCrypt.hashpw("alice-password", BCrypt.gensalt(4)));
+
+    var first = login("alice", "alice-password");
+    assertEquals(200, first.statusCode(), first.body());
+    var hits = cacheHits();
+
+    assertEquals(200, login("alice", "alice-password").statusCode());
+    assertEquals(hits + 1, cacheHits());
+
+    // a wrong password never matches the cached entry
+    assertEquals(401, login("alice", "wrong-password").statusCode());
+    assertEquals(hits + 1, cacheHits());
+  }
+
+  @Test
+  void changed_password_hash_invalidates_the_cached_login() throws Exception {
+    users.put("bob", BCrypt.hashpw("old-password", BCrypt.gensalt(4)));
+
+    assertEquals(200, login("bob", "old-password").statusCode());
+    assertEquals(200, login("bob", "old-password").statusCode());
+
+    users.put("bob", BCrypt.hashpw("new-password", BCrypt.gensalt(4)));
+    var hits = cacheHits();
+
+    assertEquals(401, login("bob", "old-password").statusCode());
+    assertEquals(200, login("bob", "new-password").statusCode());
+    assertEquals(hits, cacheHits());
+  }
+
+  @Test
+  void saturated_bcrypt_pool_answers_503_with_retry_after() throws Exception {
+    // Slow enough that the pool cannot drain while the burst arrives
+    users.put("carol", BCrypt.hashpw("carol-password", BCrypt.gensalt(10)));
+
+    var burst = new ArrayList<CompletableFuture<HttpResponse<String>>>();
+    for (var i = 0; i < BCRYPT_MAX_PENDING + 16; i++) {
+      // wrong passwords always miss the login cache
+      burst.add(client.sendAsync(loginRequest("carol", "wrong-password-" + i), HttpResponse.BodyHandlers.ofString()));
+    }
+
+    var rejected = 0;
+    for (var response : burst) {
+      var status = response.get(2, TimeUnit.MINUTES).statusCode();
+
+      if (status == 503) {
+        rejected++;
+        assertEquals(String.valueOf(RETRY_AFTER_SECONDS), response.get().headers().firstValue("Retry-After").orElse(null));
+      } else {
+        assertEquals(401, status);
+      }
+    }
+
+    assertTrue(rejected > 0, "No login was shed");
+
+    // the pool drains and serves logins again
+    assertEquals(200, login("carol", "carol-password").statusCode());
+  }
+
+  private static long cacheHits() {
+    return Metrics.counter("nms_login_cache_hits_total", "Logins verified from the login cache without BCrypt").value();
+  }
+
+  private static HttpRequest loginRequest(String username, String password) {
+    return HttpRequest.newBuilder(URI.create("http://localhost:" + server.actualPort() + "/api/login"))
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(new JsonObject().put(USERNAME, username).put(PASSWORD, password).encode()))
+        .build();
+  }
+
+  private static HttpResponse<String> login(String username, String password) throws Exception {
+    return client.send(loginRequest(username, password), HttpResponse.BodyHandlers.ofString());
+  }
+}
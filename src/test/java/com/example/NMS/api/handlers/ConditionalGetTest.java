@@ -0,0 +1,102 @@
+package com.example.NMS.api.handlers;
+
+import com.example.NMS.utility.TableVersions;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.http.HttpServerOptions;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.RoutingContext;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.NMS.Main.vertx;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Serves a versioned response through a compressing server, as the API does, and revalidates it
+public class ConditionalGetTest {
+
+  private static final String TABLE = "conditional_get_test";
+
+  private static HttpServer server;
+
+  private static final HttpClient client = HttpClient.newHttpClient();
+
+  private static final class Versioned extends AbstractAPI {
+
+    Versioned() {
+      super(LoggerFactory.getLogger(ConditionalGetTest.class), "Thing", 60, TABLE);
+    }
+
+    void get(RoutingContext context) {
+      var etag = TableVersions.etag(tables);
+
+      if (!notModified(context, etag)) {
+        context.response().putHeader("ETag", etag).end("x".repeat(4096));
+      }
+    }
+
+    @Override
+    protected void create(RoutingContext context) {
+    }
+
+    @Override
+    protected void update(RoutingContext context) {
+    }
+  }
+
+  @BeforeAll
+  static void start() throws Exception {
+    var router = Router.router(vertx);
+    var handler = new Versioned();
+    router.get("/api/things").handler(handler::get);
+
+    server = vertx.createHttpServer(new HttpServerOptions().setCompressionSupported(true)).requestHandler(router).listen(0)
+        .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @AfterAll
+  static void stop() throws Exception {
+    server.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void etag_is_weak_and_shared_by_every_encoding() throws Exception {
+    var gzip = send("gzip", null);
+    var identity = send("identity", null);
+
+    assertEquals("gzip", gzip.headers().firstValue("Content-Encoding").orElse(null));
+    assertTrue(gzip.headers().firstValue("ETag").orElseThrow().startsWith("W/\""));
+    assertEquals(gzip.headers().firstValue("ETag"), identity.headers().firstValue("ETag"));
+  }
+
+  @Test
+  void if_none_match_compares_weakly() throws Exception {
+    var etag = send("gzip", null).headers().firstValue("ETag").orElseThrow();
+
+    assertEquals(304, send("identity", etag).statusCode());
+    assertEquals(304, send("deflate", etag.substring(2)).statusCode());
+    assertEquals(304, send("gzip", "W/\"other\", " + etag).statusCode());
+
+    TableVersions.bump(TABLE);
+
+    assertEquals(200, send("gzip", etag).statusCode());
+  }
+
+  private static HttpResponse<String> send(String encoding, String ifNoneMatch) throws Exception {
+    var request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.actualPort() + "/api/things"))
+        .header("Accept-Encoding", encoding);
+
+    if (ifNoneMatch != null) {
+      request.header("If-None-Match", ifNoneMatch);
+    }
+
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+}
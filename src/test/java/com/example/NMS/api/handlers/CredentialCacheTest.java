@@ -0,0 +1,97 @@
+package com.example.NMS.api.handlers;
+
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.handler.BodyHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+import static com.example.NMS.constant.QueryConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Drives the credential routes over HTTP against a stub of the database verticle's event bus address
+public class CredentialCacheTest {
+
+  private static final AtomicInteger reads = new AtomicInteger();
+
+  private static volatile String name = "original";
+
+  private static MessageConsumer<JsonObject> database;
+
+  private static HttpServer server;
+
+  private static final HttpClient client = HttpClient.newHttpClient();
+
+  @BeforeAll
+  static void start() throws Exception {
+    database = vertx.eventBus().localConsumer(DB_EXECUTE_QUERY, message -> {
+      var query = message.body();
+      var id = query.getJsonArray(PARAMS).getLong(query.getJsonArray(PARAMS).size() - 1);
+
+      if (GET_CREDENTIAL_BY_ID.equals(query.getString(QUERY))) {
+        reads.incrementAndGet();
+        message.reply(new JsonArray().add(new JsonObject().put(ID, id).put(CREDENTIAL_NAME, name)));
+      } else if (UPDATE_CREDENTIAL.equals(query.getString(QUERY))) {
+        name = query.getJsonArray(PARAMS).getString(0);
+        message.reply(new JsonArray().add(new JsonObject().put(ID, id)));
+      } else {
+        message.fail(500, "unexpected query");
+      }
+    });
+
+    var router = Router.router(vertx);
+    router.route("/api/*").handler(BodyHandler.create());
+    new Credential().init(router);
+
+    server = vertx.createHttpServer().requestHandler(router).listen(0)
+        .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @AfterAll
+  static void stop() throws Exception {
+    database.unregister().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    server.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @Test
+  void update_through_the_handler_makes_the_next_read_miss() throws Exception {
+    var first = send("GET", "/api/credential/7", null);
+    assertEquals(200, first.statusCode());
+    assertTrue(first.body().contains("original"));
+    var readsAfterFirst = reads.get();
+
+    var second = send("GET", "/api/credential/7", null);
+    assertEquals(first.body(), second.body());
+    assertEquals(first.headers().firstValue("ETag"), second.headers().firstValue("ETag"));
+    assertEquals(readsAfterFirst, reads.get());
+
+    assertEquals(200, send("PATCH", "/api/credential/7", new JsonObject().put(CREDENTIAL_NAME, "renamed")).statusCode());
+
+    var third = send("GET", "/api/credential/7", null);
+    assertEquals(200, third.statusCode());
+    assertTrue(third.body().contains("renamed"));
+    assertNotEquals(first.headers().firstValue("ETag"), third.headers().firstValue("ETag"));
+    assertEquals(readsAfterFirst + 1, reads.get());
+  }
+
+  private static HttpResponse<String> send(String method, String path, JsonObject body) throws Exception {
+    var request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.actualPort() + path))
+        .header("Content-Type", "application/json")
+        .method(method, body == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(body.encode()));
+
+    return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+  }
+}
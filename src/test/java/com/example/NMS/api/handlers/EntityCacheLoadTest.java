@@ -0,0 +1,67 @@
+package com.example.NMS.api.handlers;
+
+import com.example.NMS.LoadGenerator;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+import static com.example.NMS.constant.QueryConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Single-entity read latency with and without the entity cache, against a stub database answering after a fixed delay.
+// Run with: mvn test -Dtest.excludedGroups= -Dgroups=benchmark -Dtest=EntityCacheLoadTest [-Dnms.bench.db.ms=5]
+@Tag("benchmark")
+public class EntityCacheLoadTest {
+
+  private static final int SECONDS = Integer.getInteger("nms.load.seconds", 10);
+
+  private static final int CONNECTIONS = Integer.getInteger("nms.load.connections", 64);
+
+  private static final long DATABASE_MS = Long.getLong("nms.bench.db.ms", 5);
+
+  private static final int ENTITIES = 1_000;
+
+  @Test
+  void credential_read_latency_with_and_without_the_cache() throws Exception {
+    var database = vertx.eventBus().<JsonObject>localConsumer(DB_EXECUTE_QUERY, message -> {
+      var id = message.body().getJsonArray(PARAMS).getLong(0);
+
+      vertx.setTimer(DATABASE_MS, timer -> message.reply(new JsonArray().add(new JsonObject()
+          .put(ID, id).put(CREDENTIAL_NAME, "credential-" + id).put(PROTOCOL, "ssh"))));
+    });
+
+    var credential = new Credential();
+    var router = Router.router(vertx);
+    router.get("/api/credential/:id").handler(context -> credential.getById(context, GET_CREDENTIAL_BY_ID));
+    router.get("/api/uncached/credential/:id").handler(context ->
+        credential.getById(context, GET_CREDENTIAL_BY_ID, false));
+
+    var server = vertx.createHttpServer().requestHandler(router).listen(0)
+        .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+    try {
+      for (var path : new String[]{"/api/uncached/credential/", "/api/credential/"}) {
+        var result = LoadGenerator.run(vertx, server.actualPort(), CONNECTIONS, 1, Duration.ofSeconds(3),
+            Duration.ofSeconds(SECONDS), sequence -> new LoadGenerator.Request(new RequestOptions()
+                .setMethod(HttpMethod.GET).setURI(path + (sequence % ENTITIES + 1)), null));
+
+        System.out.printf("GET %s:id, %d entities, database %d ms, %d connections: %s%n", path, ENTITIES,
+            DATABASE_MS, CONNECTIONS, result);
+
+        assertEquals(result.requests(), result.count(200), result.toString());
+      }
+    } finally {
+      database.unregister().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+      server.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+  }
+}
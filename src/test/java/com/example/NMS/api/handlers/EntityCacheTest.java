@@ -0,0 +1,28 @@
+package com.example.NMS.api.handlers;
+
+import io.vertx.core.json.JsonArray;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EntityCacheTest {
+
+  @Test
+  void serves_an_entry_only_at_the_version_it_was_read() {
+    var result = new JsonArray().add(7);
+
+    EntityCache.put("GET#7", "\"e-1\"", result, 60);
+
+    assertSame(result, EntityCache.get("GET#7", "\"e-1\""));
+    assertNull(EntityCache.get("GET#7", "\"e-2\""));
+    // a stale entry is dropped, not kept for the old version
+    assertNull(EntityCache.get("GET#7", "\"e-1\""));
+  }
+
+  @Test
+  void expires_entries_after_their_ttl() {
+    EntityCache.put("GET#8", "\"e-1\"", new JsonArray().add(8), 0);
+
+    assertNull(EntityCache.get("GET#8", "\"e-1\""));
+  }
+}
@@ -0,0 +1,107 @@
+package com.example.NMS.api.handlers;
+
+import com.example.NMS.LoadGenerator;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.core.http.HttpMethod;
+import io.vertx.core.http.RequestOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.auth.PubSecKeyOptions;
+import io.vertx.ext.auth.jwt.JWTAuth;
+import io.vertx.ext.auth.jwt.JWTAuthOptions;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.handler.BodyHandler;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+import static com.example.NMS.constant.QueryConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Login storm: floods /api/login while a light load measures a cheap route on the same server, once with every
+// login a different user (each one a BCrypt call) and once with a small set of repeating users (login cache hits).
+// Run with: mvn test -Dtest.excludedGroups= -Dgroups=benchmark -Dtest=LoginStormTest [-Dnms.load.seconds=30]
+@Tag("benchmark")
+public class LoginStormTest {
+
+  private static final int SECONDS = Integer.getInteger("nms.load.seconds", 10);
+
+  private static final int LOGIN_CONNECTIONS = Integer.getInteger("nms.load.connections", 64);
+
+  private static final int PING_CONNECTIONS = 4;
+
+  private static final int REPEATING_USERS = 100;
+
+  private static final String PASSWORD_TEXT = "storm-password";
+
+  @Test
+  void login_storm_is_shed_without_stalling_other_routes() throws Exception {
+    var jwtAuth = JWTAuth.create(vertx, new JWTAuthOptions()
+        .addPubSecKey(new PubSecKeyOptions().setAlgorithm("HS256").setBuffer(JWT_SECRET)));
+
+    // Every user shares one hash at the library's default cost; the login cache is keyed by username
+    var hash = BCrypt.hashpw(PASSWORD_TEXT, BCrypt.gensalt());
+
+    var database = vertx.eventBus().<JsonObject>localConsumer(DB_EXECUTE_QUERY, message -> {
+      var username = message.body().getJsonArray(PARAMS).getString(0);
+
+      message.reply(new JsonArray().add(new JsonObject().put(ID, 1).put(USERNAME, username).put(PASSWORD, hash)));
+    });
+
+    var router = Router.router(vertx);
+    router.route("/api/*").handler(BodyHandler.create());
+    new Auth(jwtAuth).init(router);
+    router.get("/api/ping").handler(context -> context.response().end("pong"));
+
+    var server = vertx.createHttpServer().requestHandler(router).listen(0)
+        .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+    var background = Executors.newSingleThreadExecutor();
+
+    try {
+      var port = server.actualPort();
+
+      storm(port, "distinct users", sequence -> login("cold-" + sequence), background);
+      storm(port, REPEATING_USERS + " repeating users", sequence -> login("warm-" + sequence % REPEATING_USERS),
+          background);
+    } finally {
+      background.shutdownNow();
+      database.unregister().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+      server.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+  }
+
+  private static void storm(int port, String label, LongFunction<LoadGenerator.Request> logins,
+                            ExecutorService background) throws Exception {
+    var warmup = Duration.ofSeconds(3);
+    var duration = Duration.ofSeconds(SECONDS);
+
+    var stormResult = background.submit(() -> LoadGenerator.run(vertx, port, LOGIN_CONNECTIONS, 1, warmup, duration,
+        logins));
+
+    var ping = LoadGenerator.run(vertx, port, PING_CONNECTIONS, 1, warmup, duration, sequence ->
+        new LoadGenerator.Request(new RequestOptions().setMethod(HttpMethod.GET).setURI("/api/ping"), null));
+
+    var storm = stormResult.get(SECONDS + 120, TimeUnit.SECONDS);
+
+    System.out.printf("POST /api/login, %s, %d connections: %s%n", label, LOGIN_CONNECTIONS, storm);
+    System.out.printf("GET /api/ping during the storm, %d connections: %s%n", PING_CONNECTIONS, ping);
+
+    assertEquals(storm.requests(), storm.count(200) + storm.count(503), storm.toString());
+    assertEquals(ping.requests(), ping.count(200), ping.toString());
+  }
+
+  private static LoadGenerator.Request login(String username) {
+    return new LoadGenerator.Request(new RequestOptions().setMethod(HttpMethod.POST).setURI("/api/login")
+        .putHeader("Content-Type", "application/json"),
+        Buffer.buffer(new JsonObject().put(USERNAME, username).put(PASSWORD, PASSWORD_TEXT).encode()));
+  }
+}
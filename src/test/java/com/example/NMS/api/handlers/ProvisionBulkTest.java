@@ -0,0 +1,166 @@
+package com.example.NMS.api.handlers;
+
+import com.example.NMS.cache.MetricCache;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.http.HttpServer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import io.vertx.ext.web.Router;
+import io.vertx.ext.web.handler.BodyHandler;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+import static com.example.NMS.constant.QueryConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Drives the bulk endpoints over HTTP against a stub of the database verticle's event bus address
+public class ProvisionBulkTest {
+
+  private static final List<JsonObject> queries = new CopyOnWriteArrayList<>();
+
+  private static MessageConsumer<JsonObject> database;
+
+  private static HttpServer server;
+
+  private static final HttpClient client = HttpClient.newHttpClient();
+
+  @BeforeAll
+  static void start() throws Exception {
+    database = vertx.eventBus().localConsumer(DB_EXECUTE_QUERY, message -> {
+      var query = message.body();
+      queries.add(query);
+
+      if (INSERT_PROVISIONING_BULK.equals(query.getString(QUERY))) {
+        message.reply(new JsonArray().add(new JsonObject()
+            .put("records", new JsonArray().add(new JsonObject()
+                .put(IP, "10.0.0.1").put(PROVISIONING_JOB_ID, 901L).put(CREDENTIAL_PROFILE_ID, 5L).put(PORT, 22)
+                .put(METRIC_ID, 9011L).put(METRIC_NAME, "CPU").put(PROTOCOL, "LINUX")
+                .put(CRED_DATA, new JsonObject().put(USER, "u").put(PASSWORD, "p"))))
+            .put("items", new JsonArray()
+                .add(new JsonObject().put("index", 0).put(IP, "10.0.0.1").put(STATUS, "created").put(PROVISIONING_JOB_ID, 901L))
+                .add(new JsonObject().put("index", 1).put(IP, "10.0.0.9").put(STATUS, "failed")
+                    .put(ERROR, "IP not found in discovery results")))));
+      } else if (UPSERT_METRICS_BULK.equals(query.getString(QUERY))) {
+        // Only job 902 exists
+        message.reply(new JsonArray().add(new JsonObject()
+            .put(PROVISIONING_JOB_ID, 902L).put(IP, "10.0.0.2").put(PORT, 22).put(CREDENTIAL_PROFILE_ID, 5L)
+            .put(CRED_DATA, new JsonObject()).put(PROTOCOL, "LINUX").put(METRIC_ID, 9021L).put(METRIC_NAME, "CPU")
+            .put(POLLING_INTERVAL, 60).put(IS_ENABLED, true)));
+      } else {
+        message.fail(500, "unexpected query");
+      }
+    });
+
+    var router = Router.router(vertx);
+    router.route().handler(BodyHandler.create());
+    new Provision().init(router);
+
+    server = vertx.createHttpServer().requestHandler(router).listen(0)
+        .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @AfterAll
+  static void stop() throws Exception {
+    database.unregister().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    server.close().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @BeforeEach
+  void clear() {
+    queries.clear();
+  }
+
+  @Test
+  void bulk_provisioning_runs_one_statement_and_caches_created_jobs() throws Exception {
+    var jobs = new JsonArray()
+        .add(new JsonObject().put(DISCOVERY_ID, 1).put(IP, "10.0.0.1"))
+        .add(new JsonObject().put(DISCOVERY_ID, 1).put(IP, "10.0.0.9"));
+
+    var response = send("POST", "/api/provision/bulk", new JsonObject().put(JOBS, jobs));
+
+    assertEquals(200, response.statusCode());
+    assertEquals(1, queries.size());
+    assertEquals(jobs, queries.get(0).getJsonArray(PARAMS).getJsonArray(0));
+
+    var items = new JsonObject(response.body()).getJsonArray(RESULT);
+    assertEquals("created", items.getJsonObject(0).getString(STATUS));
+    assertEquals("failed", items.getJsonObject(1).getString(STATUS));
+    assertNotNull(MetricCache.getInstance().get(9011L));
+  }
+
+  @Test
+  void bulk_provisioning_rejects_malformed_requests_without_a_query() throws Exception {
+    assertEquals(400, send("POST", "/api/provision/bulk", new JsonObject().put(JOBS, new JsonArray())).statusCode());
+    assertEquals(400, send("POST", "/api/provision/bulk", new JsonObject().put(JOBS, new JsonArray().add(7))).statusCode());
+    assertTrue(queries.isEmpty());
+  }
+
+  @Test
+  void bulk_metric_update_reports_every_item() throws Exception {
+    var cpu = new JsonObject().put(METRIC_NAME, "CPU").put(IS_ENABLED, true).put(POLLING_INTERVAL, 60);
+
+    var jobs = new JsonArray()
+        .add(new JsonObject().put(PROVISIONING_JOB_ID, 902).put(METRICS, new JsonArray().add(cpu)))
+        .add(new JsonObject().put(PROVISIONING_JOB_ID, 903).put(METRICS, new JsonArray().add(cpu)))
+        .add(new JsonObject().put(PROVISIONING_JOB_ID, 902).put(METRICS, new JsonArray().add(cpu)))
+        .add(new JsonObject().put(PROVISIONING_JOB_ID, 904))
+        .add(new JsonObject().put(PROVISIONING_JOB_ID, 905).put(METRICS, new JsonArray()
+            .add(cpu.copy().put(METRIC_NAME, "BOGUS"))))
+        .add(new JsonObject().put(PROVISIONING_JOB_ID, 906).put(METRICS, new JsonArray().add(cpu).add(cpu)));
+
+    var response = send("PUT", "/api/provision/bulk/metrics", new JsonObject().put(JOBS, jobs));
+
+    assertEquals(200, response.statusCode());
+
+    // Only the two valid items reach the single statement
+    assertEquals(1, queries.size());
+    var rows = queries.get(0).getJsonArray(PARAMS).getJsonArray(0);
+    assertEquals(2, rows.size());
+    assertEquals(902, rows.getJsonObject(0).getInteger(PROVISIONING_JOB_ID));
+    assertEquals(903, rows.getJsonObject(1).getInteger(PROVISIONING_JOB_ID));
+
+    var results = new JsonObject(response.body()).getJsonArray(RESULT);
+    assertEquals(6, results.size());
+    assertEquals("updated", results.getJsonObject(0).getString(STATUS));
+    assertEquals(1, results.getJsonObject(0).getInteger("updated_metrics"));
+    assertEquals("Provisioning job not found", results.getJsonObject(1).getString(ERROR));
+    assertEquals("Duplicate provisioning_job_id in request", results.getJsonObject(2).getString(ERROR));
+    assertEquals("provisioning_job_id and metrics are required", results.getJsonObject(3).getString(ERROR));
+    assertTrue(results.getJsonObject(4).getString(ERROR).startsWith("metric_name must be one of"));
+    assertEquals("Duplicate metric_name CPU", results.getJsonObject(5).getString(ERROR));
+
+    assertEquals(60, MetricCache.getInstance().get(9021L).interval());
+  }
+
+  @Test
+  void bulk_metric_update_with_no_valid_item_skips_the_database() throws Exception {
+    var jobs = new JsonArray().add(new JsonObject().put(PROVISIONING_JOB_ID, 907));
+
+    var response = send("PUT", "/api/provision/bulk/metrics", new JsonObject().put(JOBS, jobs));
+
+    assertEquals(200, response.statusCode());
+    assertTrue(queries.isEmpty());
+    assertEquals("failed", new JsonObject(response.body()).getJsonArray(RESULT).getJsonObject(0).getString(STATUS));
+  }
+
+  private static HttpResponse<String> send(String method, String path, JsonObject body) throws Exception {
+    var request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.actualPort() + path))
+        .header("Content-Type", "application/json")
+        .method(method, HttpRequest.BodyPublishers.ofString(body.encode()))
+        .build();
+
+    return client.send(request, HttpResponse.BodyHandlers.ofString());
+  }
+}
@@ -0,0 +1,167 @@
+package com.example.NMS.api.handlers;
+
+import com.example.NMS.metrics.Metrics;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.http.HttpServerResponse;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Subscriptions write to a stub response whose write queue the test fills and drains by hand
+public class StreamTest {
+
+  private static final long DEVICE = 9_501;
+
+  private static final long HOUR_MS = 3_600_000;
+
+  private final Context context = vertx.getOrCreateContext();
+
+  @Test
+  void full_write_queue_drops_the_oldest_events() throws Exception {
+    var response = new StubResponse();
+    response.writeQueueFull = true;
+    open(response, "CPU", HOUR_MS);
+
+    var dropped = Metrics.counter("nms_stream_dropped_events_total", "").value();
+    var events = LIVE_STREAM_QUEUE_SIZE + 5;
+
+    for (var i = 0; i < events; i++) {
+      Stream.publish(DEVICE, "CPU", new JsonObject().put("sequence", i), 0L);
+      // filtered out by the subscription's metric
+      Stream.publish(DEVICE, "Memory", new JsonObject().put("sequence", i), 0L);
+    }
+
+    await(() -> Metrics.counter("nms_stream_dropped_events_total", "").value() == dropped + 5);
+    assertTrue(response.written.isEmpty());
+
+    response.writeQueueFull = false;
+    run(() -> response.drainHandler.handle(null));
+
+    assertEquals(LIVE_STREAM_QUEUE_SIZE, response.written.size());
+    for (var i = 0; i < LIVE_STREAM_QUEUE_SIZE; i++) {
+      assertEquals(5 + i, sequence(response.written.get(i)));
+    }
+
+    run(() -> response.closeHandler.handle(null));
+  }
+
+  @Test
+  void subscriber_count_returns_to_zero_when_clients_disconnect() throws Exception {
+    var first = new StubResponse();
+    var second = new StubResponse();
+
+    open(first, null, HOUR_MS);
+    open(second, null, HOUR_MS);
+
+    assertTrue(Stream.hasSubscribers(DEVICE));
+    assertEquals(2, Stream.subscribers.get(DEVICE));
+
+    run(() -> first.closeHandler.handle(null));
+
+    assertEquals(1, Stream.subscribers.get(DEVICE));
+
+    run(() -> second.closeHandler.handle(null));
+
+    assertFalse(Stream.hasSubscribers(DEVICE));
+    assertFalse(Stream.subscribers.containsKey(DEVICE));
+
+    // the closed connections no longer receive results
+    Stream.publish(DEVICE, "CPU", new JsonObject(), 0L);
+    Thread.sleep(100);
+
+    assertTrue(first.written.isEmpty());
+    assertTrue(second.written.isEmpty());
+  }
+
+  @Test
+  void heartbeats_keep_an_idle_stream_open_until_it_closes() throws Exception {
+    var response = new StubResponse();
+    open(response, null, 20);
+
+    await(() -> response.written.size() >= 3);
+    response.written.forEach(event -> assertEquals(": heartbeat\n\n", event));
+
+    run(() -> response.closeHandler.handle(null));
+    var written = response.written.size();
+    Thread.sleep(100);
+
+    assertEquals(written, response.written.size());
+  }
+
+  private void open(StubResponse response, String metricName, long heartbeatMs) throws Exception {
+    call(() -> new Stream.Subscription(response.proxy, DEVICE, metricName, heartbeatMs));
+  }
+
+  private void run(Runnable action) throws Exception {
+    call(() -> {
+      action.run();
+      return null;
+    });
+  }
+
+  // Runs on the subscription's event loop, as the server would
+  private <T> T call(Supplier<T> action) throws Exception {
+    var result = new CompletableFuture<T>();
+    context.runOnContext(ignored -> result.complete(action.get()));
+    return result.get(10, TimeUnit.SECONDS);
+  }
+
+  private static int sequence(String event) {
+    return new JsonObject(event.substring(event.indexOf("data: ") + 6).trim()).getJsonObject("data").getInteger("sequence");
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+    while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+
+    assertTrue(condition.getAsBoolean());
+  }
+
+  // Records writes and the handlers the subscription installs; every other response method is unused
+  private static final class StubResponse {
+
+    final List<String> written = new CopyOnWriteArrayList<>();
+
+    volatile boolean writeQueueFull;
+
+    volatile Handler<Void> drainHandler;
+
+    volatile Handler<Void> closeHandler;
+
+    @SuppressWarnings("unchecked")
+    final HttpServerResponse proxy = (HttpServerResponse) Proxy.newProxyInstance(getClass().getClassLoader(),
+        new Class<?>[] {HttpServerResponse.class}, (self, method, args) -> switch (method.getName()) {
+          case "write" -> {
+            written.add((String) args[0]);
+            yield Future.succeededFuture();
+          }
+          case "writeQueueFull" -> writeQueueFull;
+          case "closed" -> false;
+          case "drainHandler" -> {
+            drainHandler = (Handler<Void>) args[0];
+            yield self;
+          }
+          case "closeHandler" -> {
+            closeHandler = (Handler<Void>) args[0];
+            yield self;
+          }
+          default -> null;
+        });
+  }
+}
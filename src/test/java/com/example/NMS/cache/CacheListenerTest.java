@@ -0,0 +1,186 @@
+package com.example.NMS.cache;
+
+import io.vertx.core.Context;
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+import static com.example.NMS.constant.QueryConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Feeds notifications to a CacheListener that is not connected to Postgres; a stub of the database answers the
+// reloads from an in-memory table of active metric jobs
+public class CacheListenerTest {
+
+  private static final long DEVICE = 9_401;
+
+  private static final MetricCache cache = MetricCache.getInstance();
+
+  // metric_id -> active metric job row
+  private static final Map<Long, JsonObject> table = new ConcurrentHashMap<>();
+
+  private static final List<JsonObject> queries = new CopyOnWriteArrayList<>();
+
+  private static final Context context = vertx.getOrCreateContext();
+
+  private static MessageConsumer<JsonObject> database;
+
+  private CacheListener listener;
+
+  @BeforeAll
+  static void start() {
+    database = vertx.eventBus().localConsumer(DB_EXECUTE_QUERY, message -> {
+      var query = message.body().getString(QUERY);
+      var params = message.body().getJsonArray(PARAMS, new JsonArray());
+
+      queries.add(message.body());
+
+      if (GET_ACTIVE_METRIC_JOB_BY_METRIC_ID.equals(query)) {
+        message.reply(rows(row -> row.getLong(METRIC_ID).equals(params.getLong(0))));
+      } else if (GET_ACTIVE_METRIC_JOBS_BY_METRIC_RANGES.equals(query)) {
+        message.reply(rows(row -> params.getJsonArray(0).stream().map(JsonArray.class::cast).anyMatch(range ->
+            row.getLong(METRIC_ID) >= range.getLong(0) && row.getLong(METRIC_ID) <= range.getLong(1))));
+      } else if (GET_ACTIVE_METRIC_JOBS.equals(query)) {
+        message.reply(rows(row -> true));
+      } else if (GET_REVOKED_TOKENS.equals(query)) {
+        message.reply(new JsonArray());
+      } else {
+        message.fail(500, "unexpected query");
+      }
+    });
+  }
+
+  @AfterAll
+  static void stop() throws Exception {
+    database.unregister().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @BeforeEach
+  void listen() {
+    listener = new CacheListener();
+  }
+
+  @AfterEach
+  void forget() {
+    cache.delete(DEVICE);
+    table.clear();
+    queries.clear();
+  }
+
+  private static JsonObject row(long metricId, int interval) {
+    return new JsonObject()
+      .put(METRIC_ID, metricId)
+      .put(PROVISIONING_JOB_ID, DEVICE)
+      .put(METRIC_NAME, "CPU")
+      .put(IP, "10.94.1.1")
+      .put(PORT, 22)
+      .put(PROTOCOL, "ssh")
+      .put(CREDENTIAL_PROFILE_ID, 9_451L)
+      .put(CRED_DATA, new JsonObject().put(USER, "admin").put(PASSWORD, "secret"))
+      .put(POLLING_INTERVAL, interval);
+  }
+
+  private static JsonArray rows(Predicate<JsonObject> filter) {
+    return new JsonArray(table.values().stream().filter(filter).map(JsonObject::copy).map(Object.class::cast).toList());
+  }
+
+  @Test
+  void single_row_changes_reload_or_drop_one_metric() throws Exception {
+    table.put(9_411L, row(9_411, 300));
+    announce("{\"table\": \"metrics\", \"op\": \"INSERT\", \"id\": \"9411\"}");
+    await(() -> cache.get(9_411) != null);
+
+    table.put(9_411L, row(9_411, 600));
+    announce("{\"table\": \"metrics\", \"op\": \"UPDATE\", \"id\": \"9411\"}");
+    await(() -> cache.get(9_411).interval() == 600);
+
+    table.remove(9_411L);
+    announce("{\"table\": \"metrics\", \"op\": \"DELETE\", \"id\": \"9411\"}");
+    await(() -> cache.get(9_411) == null);
+
+    // the delete is applied from the notification alone
+    assertEquals(2, queries.size());
+    queries.forEach(query -> assertEquals(new JsonArray().add(9_411L), query.getJsonArray(PARAMS)));
+  }
+
+  @Test
+  void bulk_change_reloads_only_the_announced_runs() throws Exception {
+    for (long metricId = 9_411; metricId <= 9_420; metricId++) {
+      table.put(metricId, row(metricId, 300));
+      cache.insert(row(metricId, 300));
+    }
+
+    table.put(9_411L, row(9_411, 600));
+    table.remove(9_413L);
+    table.put(9_420L, row(9_420, 600));
+    // changed by a statement whose notification has not arrived yet
+    table.put(9_415L, row(9_415, 600));
+
+    var ranges = new JsonArray().add(new JsonArray().add(9_411).add(9_413)).add(new JsonArray().add(9_420).add(9_420));
+    announce(new JsonObject().put(TABLE, "metrics").put(OPERATION, "BULK").put("ranges", ranges).encode());
+    await(() -> cache.get(9_413) == null);
+
+    assertEquals(600, cache.get(9_411).interval());
+    assertEquals(300, cache.get(9_412).interval());
+    assertEquals(600, cache.get(9_420).interval());
+    assertEquals(300, cache.get(9_415).interval());
+    assertEquals(9, cache.getByProvisioningJob(DEVICE).size());
+
+    assertEquals(1, queries.size());
+    assertEquals(ranges, queries.get(0).getJsonArray(PARAMS).getJsonArray(0));
+  }
+
+  @Test
+  void only_a_resubscription_resyncs_the_cache() throws Exception {
+    table.put(9_411L, row(9_411, 300));
+    cache.insert(row(9_411, 300));
+    // deleted while the listening connection was down
+    cache.insert(row(9_412, 300));
+
+    context.runOnContext(ignored -> listener.onSubscribed());
+    await(() -> count(GET_REVOKED_TOKENS) == 1);
+
+    assertEquals(0, count(GET_ACTIVE_METRIC_JOBS));
+    assertNotNull(cache.get(9_412));
+
+    context.runOnContext(ignored -> listener.onSubscribed());
+    await(() -> cache.get(9_412) == null);
+
+    assertEquals(1, count(GET_ACTIVE_METRIC_JOBS));
+    assertEquals(2, count(GET_REVOKED_TOKENS));
+    assertNotNull(cache.get(9_411));
+  }
+
+  private void announce(String payload) {
+    context.runOnContext(ignored -> listener.onNotification(payload));
+  }
+
+  private static long count(String query) {
+    return queries.stream().filter(body -> query.equals(body.getString(QUERY))).count();
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+    while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+
+    assertTrue(condition.getAsBoolean());
+  }
+}
@@ -0,0 +1,45 @@
+package com.example.NMS.cache;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheSnapshotTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void round_trips_jobs_without_credentials() throws Exception {
+    var device = new MetricJob.Device(7, "10.0.0.7", 22, "LINUX");
+    var credential = new MetricJob.Credential(3, "admin", "secret");
+    var file = directory.resolve("metric-cache.cbor");
+
+    CacheSnapshot.write(file, List.of(
+      new MetricJob(1, "CPU", 300, 0, 0, MetricJob.Priority.NORMAL, 120, device, credential),
+      new MetricJob(2, "DISK", 60, 0, 0, MetricJob.Priority.LOW, 60, device, credential)));
+
+    var jobs = CacheSnapshot.read(file);
+
+    assertEquals(2, jobs.size());
+    assertEquals("CPU", jobs.get(0).metricName());
+    assertEquals(device, jobs.get(0).device());
+    assertSame(jobs.get(0).device(), jobs.get(1).device());
+    assertEquals(3, jobs.get(0).credential().credentialProfileId());
+    assertNull(jobs.get(0).credential().password());
+    assertTrue(jobs.get(0).remainingTime() <= 120);
+    assertEquals(MetricJob.Priority.LOW, jobs.get(1).priority());
+  }
+
+  @Test
+  void resume_keeps_jobs_on_their_polling_grid() {
+    assertEquals(100, CacheSnapshot.resume(120, 300, 20));
+    assertEquals(300, CacheSnapshot.resume(120, 300, 120));
+    assertEquals(280, CacheSnapshot.resume(120, 300, 140));
+    assertEquals(120, CacheSnapshot.resume(120, 300, 0));
+  }
+}
@@ -0,0 +1,37 @@
+package com.example.NMS.cache;
+
+import com.example.NMS.cluster.ClusterMembership;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatestValuesTest {
+
+  @Test
+  void keeps_the_newest_value_per_metric() {
+    LatestValues.update(41, "CPU", new JsonObject().put("usage", 10), 2_000);
+    LatestValues.update(41, "CPU", new JsonObject().put("usage", 5), 1_000);
+    LatestValues.update(41, "DISK", new JsonObject().put("used", 70), 1_500);
+
+    var latest = LatestValues.get(41);
+
+    assertEquals(2, latest.size());
+    latest.forEach(row -> {
+      var value = (JsonObject) row;
+      if ("CPU".equals(value.getString("metric_name"))) {
+        assertEquals(10, value.getJsonObject("data").getInteger("usage"));
+        assertEquals(2_000, value.getLong("polled_at"));
+        // A lone node owns every device
+        assertEquals(ClusterMembership.NODE_ID, value.getString("owner_node"));
+        assertTrue(value.getBoolean("owned"));
+      }
+    });
+
+    LatestValues.forget(41, "CPU");
+    assertEquals(1, LatestValues.get(41).size());
+
+    LatestValues.forget(41);
+    assertTrue(LatestValues.get(41).isEmpty());
+  }
+}
@@ -0,0 +1,158 @@
+package com.example.NMS.cache;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static com.example.NMS.constant.Constant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Every mutation must leave the secondary indexes and the interned devices and credentials describing exactly the
+// jobs in the primary map; checked over this test's own devices and profiles, as other tests share the cache
+public class MetricCacheTest {
+
+  private static final List<Long> DEVICES = List.of(9_301L, 9_302L);
+
+  private static final List<Long> PROFILES = List.of(9_351L, 9_352L);
+
+  private static final MetricCache cache = MetricCache.getInstance();
+
+  @AfterEach
+  void forget() {
+    DEVICES.forEach(cache::delete);
+    assertIndexesAgree();
+  }
+
+  private static JsonObject row(long metricId, long provisioningJobId, long credentialProfileId) {
+    return new JsonObject()
+      .put(METRIC_ID, metricId)
+      .put(PROVISIONING_JOB_ID, provisioningJobId)
+      .put(METRIC_NAME, "CPU")
+      .put(IP, "10.93." + (provisioningJobId % 256) + ".1")
+      .put(PORT, 22)
+      .put(PROTOCOL, "ssh")
+      .put(CREDENTIAL_PROFILE_ID, credentialProfileId)
+      .put(CRED_DATA, new JsonObject().put(USER, "admin").put(PASSWORD, "secret"))
+      .put(POLLING_INTERVAL, 300);
+  }
+
+  @Test
+  void put_indexes_each_job_and_shares_its_device_and_credential() {
+    cache.insert(row(9_311, 9_301, 9_351));
+    cache.insert(row(9_312, 9_301, 9_351));
+    cache.insert(row(9_313, 9_302, 9_351));
+
+    assertIndexesAgree();
+    assertEquals(2, cache.getByProvisioningJob(9_301).size());
+    assertEquals(1, cache.getByIp("10.93.86.1").size());
+    assertSame(cache.get(9_311).device(), cache.get(9_312).device());
+    assertSame(cache.get(9_311).credential(), cache.get(9_313).credential());
+  }
+
+  @Test
+  void refresh_moves_a_job_between_devices_and_profiles() {
+    cache.insert(row(9_311, 9_301, 9_351));
+    cache.insert(row(9_312, 9_301, 9_351));
+
+    cache.refresh(row(9_312, 9_302, 9_352));
+
+    assertIndexesAgree();
+    assertEquals(List.of(9_311L), cache.getByProvisioningJob(9_301).stream().map(MetricJob::metricId).toList());
+    assertEquals(9_302, cache.get(9_312).provisioningJobId());
+
+    cache.refresh(row(9_311, 9_302, 9_352));
+
+    assertIndexesAgree();
+    assertFalse(MetricCache.devices.containsKey(9_301L));
+    assertFalse(MetricCache.credentials.containsKey(9_351L));
+  }
+
+  @Test
+  void remove_drops_the_device_and_credential_with_their_last_job() {
+    cache.insert(row(9_311, 9_301, 9_351));
+    cache.insert(row(9_312, 9_301, 9_352));
+
+    cache.remove(9_311);
+
+    assertIndexesAgree();
+    assertTrue(MetricCache.devices.containsKey(9_301L));
+    assertFalse(MetricCache.credentials.containsKey(9_351L));
+
+    cache.remove(9_312);
+
+    assertIndexesAgree();
+    assertFalse(MetricCache.devices.containsKey(9_301L));
+    assertFalse(MetricCache.credentials.containsKey(9_352L));
+  }
+
+  @Test
+  void delete_drops_every_job_of_the_device_and_keeps_shared_credentials() {
+    cache.insert(row(9_311, 9_301, 9_351));
+    cache.insert(row(9_312, 9_301, 9_352));
+    cache.insert(row(9_313, 9_302, 9_351));
+
+    cache.delete(9_301L);
+
+    assertIndexesAgree();
+    assertNull(cache.get(9_311));
+    assertNull(cache.get(9_312));
+    assertTrue(cache.getByProvisioningJob(9_301).isEmpty());
+    assertTrue(MetricCache.credentials.containsKey(9_351L));
+    assertFalse(MetricCache.credentials.containsKey(9_352L));
+  }
+
+  @Test
+  void indexes_agree_after_concurrent_refreshes_and_deletes() throws Exception {
+    var refreshes = CompletableFuture.runAsync(() -> {
+      for (var i = 0; i < 20_000; i++) {
+        cache.refresh(row(9_311 + i % 4, DEVICES.get(i % 2), PROFILES.get(i / 2 % 2)));
+      }
+    });
+    var deletes = CompletableFuture.runAsync(() -> {
+      for (var i = 0; i < 20_000; i++) {
+        cache.delete(DEVICES.get(i % 2));
+      }
+    });
+
+    CompletableFuture.allOf(refreshes, deletes).get();
+
+    assertIndexesAgree();
+  }
+
+  private static void assertIndexesAgree() {
+    var metricIdsByDevice = new HashMap<Long, Set<Long>>();
+    var metricIdsByIp = new HashMap<String, Set<Long>>();
+    var jobCountsByProfile = new HashMap<Long, Integer>();
+
+    for (var job : MetricCache.metricJobCache.values()) {
+      if (DEVICES.contains(job.provisioningJobId())) {
+        metricIdsByDevice.computeIfAbsent(job.provisioningJobId(), key -> new HashSet<>()).add(job.metricId());
+        metricIdsByIp.computeIfAbsent(job.ip(), key -> new HashSet<>()).add(job.metricId());
+        assertSame(MetricCache.devices.get(job.provisioningJobId()), job.device());
+      }
+      if (PROFILES.contains(job.credential().credentialProfileId())) {
+        jobCountsByProfile.merge(job.credential().credentialProfileId(), 1, Integer::sum);
+        assertSame(MetricCache.credentials.get(job.credential().credentialProfileId()), job.credential());
+      }
+    }
+
+    for (var device : DEVICES) {
+      var ip = "10.93." + (device % 256) + ".1";
+
+      assertEquals(metricIdsByDevice.get(device), MetricCache.metricIdsByProvisioningJob.get(device), "device " + device);
+      assertEquals(metricIdsByIp.get(ip), MetricCache.metricIdsByIp.get(ip), "ip " + ip);
+      assertEquals(metricIdsByDevice.containsKey(device), MetricCache.devices.containsKey(device), "device " + device);
+    }
+
+    for (var profile : PROFILES) {
+      assertEquals(jobCountsByProfile.get(profile), MetricCache.jobCountsByCredentialProfile.get(profile), "profile " + profile);
+      assertEquals(jobCountsByProfile.containsKey(profile), MetricCache.credentials.containsKey(profile), "profile " + profile);
+    }
+  }
+}
@@ -0,0 +1,95 @@
+package com.example.NMS.cache;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+import static com.example.NMS.constant.Constant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Retained heap of N cached metric jobs held as the JsonObject rows the cache used to keep versus compact MetricJob
+// entries, each measured as the live heap after full collections before and after building the map.
+// Run with: mvn test -Dtest.excludedGroups= -Dgroups=benchmark -Dtest=MetricJobFootprintTest [-Dnms.bench.jobs=100000]
+@Tag("benchmark")
+public class MetricJobFootprintTest {
+
+  private static final int JOBS = Integer.getInteger("nms.bench.jobs", 100_000);
+
+  private static final String[] METRICS = {"CPU", "MEMORY", "DISK", "UPTIME", "NETWORK", "PROCESS"};
+
+  private static final long FIRST_DEVICE = 5_000_000;
+
+  private static JsonObject row(int index) {
+    var device = FIRST_DEVICE + index / METRICS.length;
+
+    return new JsonObject()
+      .put(METRIC_ID, FIRST_DEVICE + index)
+      .put(PROVISIONING_JOB_ID, device)
+      .put(METRIC_NAME, new String(METRICS[index % METRICS.length]))
+      .put(IP, "10." + (device >> 16 & 255) + "." + (device >> 8 & 255) + "." + (device & 255))
+      .put(PORT, 22)
+      .put(PROTOCOL, "ssh")
+      .put(CREDENTIAL_PROFILE_ID, 1L)
+      .put(CRED_DATA, new JsonObject().put(USER, "admin").put(PASSWORD, "secret"))
+      .put(POLLING_INTERVAL, 300)
+      .put(REMAINING_TIME, 300);
+  }
+
+  @Test
+  void compact_entries_retain_less_heap_than_json_rows() throws Exception {
+    var json = retained(() -> {
+      var cache = new ConcurrentHashMap<Long, JsonObject>();
+      for (var i = 0; i < JOBS; i++) {
+        var row = row(i);
+        cache.put(row.getLong(METRIC_ID), row);
+      }
+      return cache;
+    });
+
+    var compact = retained(() -> {
+      var cache = new ConcurrentHashMap<Long, MetricJob>();
+      for (var i = 0; i < JOBS; i++) {
+        var job = MetricCache.toJob(row(i));
+        cache.put(job.metricId(), job);
+      }
+      return cache;
+    });
+
+    // toJob interned one Device per host
+    for (var device = FIRST_DEVICE; device <= FIRST_DEVICE + JOBS / METRICS.length; device++) {
+      MetricCache.getInstance().delete(device);
+    }
+
+    System.out.printf("%d metric jobs: json %d KiB (%d bytes/job), compact %d KiB (%d bytes/job)%n", JOBS,
+        json / 1024, json / JOBS, compact / 1024, compact / JOBS);
+
+    assertTrue(compact * 2 < json, "compact entries should retain less than half the heap of json rows");
+  }
+
+  // Live heap held by the value the supplier builds
+  private static long retained(Supplier<Object> build) throws InterruptedException {
+    var before = liveHeap();
+    var value = build.get();
+    var after = liveHeap();
+
+    Reference.reachabilityFence(value);
+
+    return after - before;
+  }
+
+  private static long liveHeap() throws InterruptedException {
+    var memory = ManagementFactory.getMemoryMXBean();
+
+    for (var i = 0; i < 3; i++) {
+      System.gc();
+      Thread.sleep(100);
+    }
+
+    return memory.getHeapMemoryUsage().getUsed();
+  }
+}
@@ -0,0 +1,61 @@
+package com.example.NMS.cache;
+
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import static com.example.NMS.constant.Constant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricJobTest {
+
+  private static JsonObject row(long metricId, long provisioningJobId, String metricName) {
+    return new JsonObject()
+      .put(METRIC_ID, metricId)
+      .put(PROVISIONING_JOB_ID, provisioningJobId)
+      .put(METRIC_NAME, new String(metricName))
+      .put(IP, "10.0." + (provisioningJobId / 256) + "." + (provisioningJobId % 256))
+      .put(PORT, 22)
+      .put(PROTOCOL, "ssh")
+      .put(CREDENTIAL_PROFILE_ID, 1L)
+      .put(CRED_DATA, new JsonObject().put(USER, "admin").put(PASSWORD, "secret"))
+      .put(POLLING_INTERVAL, 300);
+  }
+
+  @Test
+  void metrics_of_one_host_share_device_and_credential() {
+    var cpu = MetricCache.toJob(row(1, 7, "CPU"));
+    var disk = MetricCache.toJob(row(2, 7, "DISK"));
+    var other = MetricCache.toJob(row(3, 8, "CPU"));
+
+    assertSame(cpu.device(), disk.device());
+    assertSame(cpu.credential(), other.credential());
+    assertSame(cpu.metricName(), other.metricName());
+    assertNotSame(cpu.device(), other.device());
+    assertEquals(300, cpu.remainingTime());
+  }
+
+  @Test
+  void changed_profile_replaces_its_interned_credential() {
+    var before = MetricCache.toJob(row(11, 17, "CPU").put(CREDENTIAL_PROFILE_ID, 77L));
+    var rotated = MetricCache.toJob(row(12, 18, "CPU").put(CREDENTIAL_PROFILE_ID, 77L)
+      .put(CRED_DATA, new JsonObject().put(USER, "admin").put(PASSWORD, "rotated")));
+    var after = MetricCache.toJob(row(13, 19, "CPU").put(CREDENTIAL_PROFILE_ID, 77L)
+      .put(CRED_DATA, new JsonObject().put(USER, "admin").put(PASSWORD, "rotated")));
+
+    assertEquals("secret", before.credential().password());
+    assertEquals("rotated", rotated.credential().password());
+    assertSame(rotated.credential(), after.credential());
+  }
+
+  @Test
+  void deleted_device_is_no_longer_shared() {
+    var before = MetricCache.toJob(row(21, 27, "CPU"));
+
+    MetricCache.getInstance().delete(27L);
+
+    var after = MetricCache.toJob(row(22, 27, "DISK"));
+
+    assertEquals(before.device(), after.device());
+    assertNotSame(before.device(), after.device());
+  }
+}
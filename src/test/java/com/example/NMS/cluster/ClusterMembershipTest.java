@@ -0,0 +1,211 @@
+package com.example.NMS.cluster;
+
+import io.vertx.core.eventbus.MessageConsumer;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+import static com.example.NMS.constant.QueryConstant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// This JVM is one node; two more renew their leases directly in a stub of the lease table, which expires leases
+// against a fake clock
+public class ClusterMembershipTest {
+
+  private static final String SELF = ClusterMembership.NODE_ID;
+
+  private static final int DEVICES = 3_000;
+
+  private static final long LEASE_MS = CLUSTER_LEASE_SECONDS * 1000L;
+
+  // node_id -> lease expiry on the fake clock
+  private static final Map<String, Long> leases = new TreeMap<>();
+
+  private static final long BASE_NANOS = System.nanoTime();
+
+  private static volatile long nowMs;
+
+  private static volatile boolean databaseDown;
+
+  private static MessageConsumer<JsonObject> database;
+
+  @BeforeAll
+  static void start() {
+    database = vertx.eventBus().localConsumer(DB_EXECUTE_QUERY, message -> {
+      var query = message.body();
+
+      if (databaseDown) {
+        message.fail(500, "connection refused");
+      } else if (RENEW_CLUSTER_LEASE.equals(query.getString(QUERY))) {
+        var params = query.getJsonArray(PARAMS);
+        synchronized (leases) {
+          leases.put(params.getString(0), nowMs + params.getInteger(1) * 1000L);
+        }
+        message.reply(new JsonArray());
+      } else if (GET_LIVE_CLUSTER_NODES.equals(query.getString(QUERY))) {
+        var rows = new JsonArray();
+        synchronized (leases) {
+          leases.forEach((node, expiresAt) -> {
+            if (expiresAt > nowMs) {
+              rows.add(new JsonObject().put(NODE_ID_COLUMN, node));
+            }
+          });
+        }
+        message.reply(rows);
+      } else {
+        message.fail(500, "unexpected query");
+      }
+    });
+  }
+
+  @AfterAll
+  static void stop() throws Exception {
+    database.unregister().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  @AfterEach
+  void alone() throws Exception {
+    databaseDown = false;
+    synchronized (leases) {
+      leases.clear();
+    }
+    heartbeat();
+    assertEquals(List.of(SELF), ClusterMembership.nodes());
+  }
+
+  @Test
+  void three_nodes_exchange_leases_and_split_the_devices() throws Exception {
+    renew("node-b", "node-c");
+    heartbeat();
+
+    assertEquals(3, ClusterMembership.nodes().size());
+
+    // every node builds the same ring from the same lease table
+    var peerView = new HashRing(List.of("node-c", SELF, "node-b"), CLUSTER_VIRTUAL_NODES);
+    var counts = new HashMap<String, Integer>();
+
+    for (long id = 1; id <= DEVICES; id++) {
+      var owner = ClusterMembership.owner(id);
+
+      assertEquals(peerView.owner(id), owner);
+      assertEquals(SELF.equals(owner), ClusterMembership.owns(id, nanos()));
+      counts.merge(owner, 1, Integer::sum);
+    }
+
+    assertEquals(3, counts.size());
+    counts.values().forEach(count -> assertTrue(count > DEVICES / 3 * 0.8, "unbalanced: " + counts));
+  }
+
+  @Test
+  void devices_of_a_lost_node_move_to_the_survivors_only() throws Exception {
+    renew("node-b", "node-c");
+    heartbeat();
+
+    var before = owners();
+
+    // node-c stops renewing; the others keep renewing until its lease runs out
+    advance(LEASE_MS / 2);
+    renew("node-b");
+    heartbeat();
+    advance(LEASE_MS / 2 + 1);
+    renew("node-b");
+    heartbeat();
+
+    assertEquals(2, ClusterMembership.nodes().size());
+    assertFalse(ClusterMembership.nodes().contains("node-c"));
+
+    var after = owners();
+    var moved = 0;
+
+    for (long id = 1; id <= DEVICES; id++) {
+      if (before.get(id).equals("node-c")) {
+        assertNotEquals("node-c", after.get(id));
+        moved++;
+      } else {
+        assertEquals(before.get(id), after.get(id), "device " + id + " moved between survivors");
+      }
+    }
+
+    assertTrue(moved > 0);
+  }
+
+  @Test
+  void node_that_cannot_renew_its_lease_stops_polling() throws Exception {
+    renew("node-b", "node-c");
+    heartbeat();
+
+    var owned = ownedBySelf();
+    var renewedAt = nanos();
+
+    databaseDown = true;
+    assertThrows(Exception.class, ClusterMembershipTest::heartbeat);
+
+    assertTrue(ClusterMembership.owns(owned, renewedAt + (LEASE_MS - 1) * 1_000_000));
+    assertFalse(ClusterMembership.owns(owned, renewedAt + (LEASE_MS + 1) * 1_000_000));
+
+    databaseDown = false;
+    advance(LEASE_MS + 1);
+    renew("node-b", "node-c");
+    heartbeat();
+
+    assertTrue(ClusterMembership.owns(owned, nanos()));
+  }
+
+  @Test
+  void lone_node_keeps_polling_through_a_database_outage() throws Exception {
+    heartbeat();
+    var renewedAt = nanos();
+
+    databaseDown = true;
+
+    assertTrue(ClusterMembership.owns(1, renewedAt + LEASE_MS * 10 * 1_000_000));
+  }
+
+  private static void renew(String... nodes) {
+    synchronized (leases) {
+      for (var node : nodes) {
+        leases.put(node, nowMs + LEASE_MS);
+      }
+    }
+  }
+
+  private static void advance(long ms) {
+    nowMs += ms;
+  }
+
+  private static long nanos() {
+    return BASE_NANOS + nowMs * 1_000_000;
+  }
+
+  private static void heartbeat() throws Exception {
+    ClusterMembership.heartbeat(nanos()).toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+  }
+
+  private static Map<Long, String> owners() {
+    var owners = new HashMap<Long, String>();
+    for (long id = 1; id <= DEVICES; id++) {
+      owners.put(id, ClusterMembership.owner(id));
+    }
+    return owners;
+  }
+
+  private static long ownedBySelf() {
+    for (long id = 1; id <= DEVICES; id++) {
+      if (SELF.equals(ClusterMembership.owner(id))) {
+        return id;
+      }
+    }
+    throw new AssertionError("this node owns no device");
+  }
+}
@@ -0,0 +1,50 @@
+package com.example.NMS.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HashRingTest {
+
+  private static final int DEVICES = 30_000;
+
+  @Test
+  void three_nodes_split_devices_evenly() {
+    var ring = new HashRing(List.of("node-a", "node-b", "node-c"), 128);
+    var counts = new HashMap<String, Integer>();
+
+    for (long id = 1; id <= DEVICES; id++) {
+      counts.merge(ring.owner(id), 1, Integer::sum);
+    }
+
+    assertEquals(3, counts.size());
+    counts.values().forEach(count -> assertTrue(Math.abs(count - DEVICES / 3) < DEVICES / 3 * 0.2, "unbalanced: " + counts));
+  }
+
+  @Test
+  void only_devices_of_a_leaving_node_move() {
+    var three = new HashRing(List.of("node-a", "node-b", "node-c"), 128);
+    var two = new HashRing(List.of("node-a", "node-c"), 128);
+
+    for (long id = 1; id <= DEVICES; id++) {
+      var before = three.owner(id);
+
+      if (!before.equals("node-b")) {
+        assertEquals(before, two.owner(id));
+      }
+    }
+  }
+
+  @Test
+  void every_node_builds_the_same_ring_regardless_of_order() {
+    var first = new HashRing(List.of("node-a", "node-b", "node-c"), 128);
+    var second = new HashRing(List.of("node-c", "node-a", "node-b"), 128);
+
+    for (long id = 1; id <= 1_000; id++) {
+      assertEquals(first.owner(id), second.owner(id));
+    }
+  }
+}
@@ -0,0 +1,102 @@
+package com.example.NMS.database;
+
+import io.vertx.core.Future;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DatabaseTest {
+
+  @Test
+  void split_keeps_function_bodies_and_quoted_semicolons_intact() {
+    var script = """
+      -- leading comment; not a statement
+      CREATE TABLE a (id INT, note TEXT DEFAULT 'x;y');
+
+      CREATE OR REPLACE FUNCTION f() RETURNS trigger AS $$
+      BEGIN
+          PERFORM pg_notify('c', 'p');
+          RETURN NULL;
+      END;
+      $$ LANGUAGE plpgsql;
+
+      CREATE OR REPLACE TRIGGER t AFTER UPDATE ON a FOR EACH ROW EXECUTE FUNCTION f();
+      """;
+
+    var statements = Database.splitStatements(script);
+
+    assertEquals(3, statements.size());
+    assertTrue(statements.get(0).endsWith("DEFAULT 'x;y')"));
+    assertTrue(statements.get(1).contains("RETURN NULL;\nEND;\n$$ LANGUAGE plpgsql"));
+    assertTrue(statements.get(2).startsWith("CREATE OR REPLACE TRIGGER"));
+  }
+
+  @Test
+  void matching_checksum_skips_the_schema() {
+    var database = new RecordingDatabase("abc123abc123ff");
+
+    assertTrue(database.migrate("CREATE TABLE a (id INT);", "abc123abc123ff").succeeded());
+
+    assertEquals(List.of(), database.applied);
+    assertEquals(List.of(), database.recorded);
+  }
+
+  @Test
+  void changed_or_missing_checksum_applies_the_schema_and_records_it() {
+    for (var applied : new String[] {"abc123abc123ff", null}) {
+      var database = new RecordingDatabase(applied);
+
+      assertTrue(database.migrate("CREATE TABLE b (id INT);", "def456def456ff").succeeded());
+
+      assertEquals(List.of("CREATE TABLE b (id INT);"), database.applied);
+      assertEquals(List.of("def456def456ff"), database.recorded);
+    }
+  }
+
+  @Test
+  void failed_schema_is_not_recorded_as_applied() {
+    var database = new RecordingDatabase(null) {
+      @Override
+      Future<Void> applySchema(String schema) {
+        return Future.failedFuture("syntax error");
+      }
+    };
+
+    assertTrue(database.migrate("CREATE TABLE;", "def456def456ff").failed());
+    assertEquals(List.of(), database.recorded);
+  }
+
+  // A database whose schema_version holds the given checksum; schema scripts and checksums are recorded, not run
+  private static class RecordingDatabase extends Database {
+
+    private final String appliedChecksum;
+
+    final List<String> applied = new ArrayList<>();
+
+    final List<String> recorded = new ArrayList<>();
+
+    RecordingDatabase(String appliedChecksum) {
+      this.appliedChecksum = appliedChecksum;
+    }
+
+    @Override
+    Future<String> appliedChecksum() {
+      return Future.succeededFuture(appliedChecksum);
+    }
+
+    @Override
+    Future<Void> applySchema(String schema) {
+      applied.add(schema);
+      return Future.succeededFuture();
+    }
+
+    @Override
+    Future<Void> recordChecksum(String checksum) {
+      recorded.add(checksum);
+      return Future.succeededFuture();
+    }
+  }
+}
@@ -0,0 +1,144 @@
+package com.example.NMS.metrics;
+
+import com.example.NMS.api.Server;
+import io.vertx.core.eventbus.ReplyException;
+import io.vertx.core.eventbus.ReplyFailure;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Pattern;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class MetricsTest {
+
+  private static final String PENDING = "nms_eventbus_pending_messages{address=\"" + POLLING_BATCH_PROCESS + "\"}";
+
+  @Test
+  void scrape_renders_each_family_under_one_header() {
+    Metrics.counter("nms_test_requests_total{route=\"a\"}", "Test requests").add(3);
+    Metrics.counter("nms_test_requests_total{route=\"b\"}", "Test requests").increment();
+    Metrics.gauge("nms_test_depth", "Test depth", () -> 7);
+    Metrics.gauge("nms_test_ratio", "Test ratio", () -> 0.25);
+
+    var histogram = Metrics.histogram("nms_test_latency_seconds{stage=\"x\"}", "Test latency", 0.1, 1);
+    histogram.record(0.05);
+    histogram.record(0.5);
+    histogram.record(5);
+
+    var page = Metrics.scrape();
+
+    assertTrue(page.contains("""
+        # HELP nms_test_requests_total Test requests
+        # TYPE nms_test_requests_total counter
+        """), page);
+    assertEquals(1, occurrences(page, "# TYPE nms_test_requests_total "));
+    assertTrue(page.contains("nms_test_requests_total{route=\"a\"} 3\n"), page);
+    assertTrue(page.contains("nms_test_requests_total{route=\"b\"} 1\n"), page);
+
+    assertTrue(page.contains("""
+        # HELP nms_test_depth Test depth
+        # TYPE nms_test_depth gauge
+        nms_test_depth 7
+        """), page);
+    assertTrue(page.contains("nms_test_ratio 0.25\n"), page);
+
+    assertTrue(page.contains("""
+        # HELP nms_test_latency_seconds Test latency
+        # TYPE nms_test_latency_seconds histogram
+        nms_test_latency_seconds_bucket{stage="x",le="0.1"} 1
+        nms_test_latency_seconds_bucket{stage="x",le="1"} 2
+        nms_test_latency_seconds_bucket{stage="x",le="+Inf"} 3
+        nms_test_latency_seconds_sum{stage="x"} 5.55
+        nms_test_latency_seconds_count{stage="x"} 3
+        """), page);
+
+    // every line is a comment or a sample
+    page.lines().forEach(line -> assertTrue(line.startsWith("# ") || line.matches("[a-z_]+(\\{.*})? \\S+"), line));
+  }
+
+  @Test
+  void pending_messages_return_to_zero_when_handled_discarded_or_undeliverable() throws Exception {
+    // no consumer: the send fails and is never pending
+    var failure = assertThrows(ExecutionException.class, () -> vertx.eventBus().request(POLLING_BATCH_PROCESS, new JsonObject())
+        .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS));
+    assertEquals(ReplyFailure.NO_HANDLERS, ((ReplyException) failure.getCause()).failureType());
+    assertEquals(0, pending());
+
+    var consumer = vertx.eventBus().<JsonObject>localConsumer(POLLING_BATCH_PROCESS, message -> {});
+
+    try {
+      // queued behind a paused consumer until it resumes
+      consumer.pause();
+      for (var i = 0; i < 3; i++) {
+        vertx.eventBus().send(POLLING_BATCH_PROCESS, new JsonObject());
+      }
+      await(() -> pending() == 3);
+
+      consumer.resume();
+      await(() -> pending() == 0);
+
+      // dropped with the consumer
+      consumer.pause();
+      vertx.eventBus().send(POLLING_BATCH_PROCESS, new JsonObject());
+      vertx.eventBus().send(POLLING_BATCH_PROCESS, new JsonObject());
+      await(() -> pending() == 2);
+    } finally {
+      consumer.unregister().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+    }
+
+    await(() -> pending() == 0);
+  }
+
+  @Test
+  void metrics_route_serves_the_scrape() throws Exception {
+    var deployment = vertx.deployVerticle(Server.class.getName())
+        .toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+
+    try {
+      var client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+      var response = client.send(HttpRequest.newBuilder(URI.create("http://localhost:" + SERVER_PORT + "/metrics")).build(),
+          HttpResponse.BodyHandlers.ofString());
+
+      assertEquals(200, response.statusCode());
+      assertEquals("text/plain; version=0.0.4", response.headers().firstValue("Content-Type").orElse(null));
+      assertTrue(response.body().contains("# TYPE nms_eventbus_pending_messages gauge\n"), response.body());
+      assertTrue(response.body().contains(PENDING + " 0\n"), response.body());
+    } finally {
+      vertx.undeploy(deployment).toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+    }
+  }
+
+  // Reads the pending gauge of the polling batch address from the scrape
+  private static long pending() {
+    return Metrics.scrape().lines()
+        .filter(line -> line.startsWith(PENDING + " "))
+        .mapToLong(line -> Long.parseLong(line.substring(PENDING.length() + 1)))
+        .findFirst()
+        .orElseThrow();
+  }
+
+  private static int occurrences(String page, String text) {
+    return page.split(Pattern.quote(text), -1).length - 1;
+  }
+
+  private static void await(BooleanSupplier condition) throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+    while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+      Thread.sleep(20);
+    }
+
+    assertTrue(condition.getAsBoolean());
+  }
+}
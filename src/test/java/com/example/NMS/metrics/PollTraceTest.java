@@ -0,0 +1,139 @@
+package com.example.NMS.metrics;
+
+import com.example.NMS.plugin.ResponseProcessor;
+import com.example.NMS.plugin.SpillLog;
+import com.example.NMS.polling.DeviceHealth;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Drives traced polls through the ResponseProcessor against a stub database that rejects any batch holding a "bad"
+// row, then fails every insert so the queue is spilled on stop, and checks every scheduled poll is accounted for
+public class PollTraceTest {
+
+  private static final long FIRST_DEVICE = 9_201;
+
+  private static final Map<String, Long> totals = new HashMap<>();
+
+  private static final AtomicInteger failedInserts = new AtomicInteger();
+
+  private static volatile boolean databaseDown;
+
+  @Test
+  void counts_reconcile_across_a_split_and_a_spill() throws Exception {
+    var database = vertx.eventBus().<JsonObject>localConsumer(DB_EXECUTE_BATCH_QUERY, message -> {
+      var rows = message.body().getJsonArray(BATCHPARAMS);
+
+      if (databaseDown) {
+        failedInserts.incrementAndGet();
+        message.fail(500, "connection refused");
+      } else if (rows.stream().anyMatch(row -> "bad".equals(((JsonArray) row).getString(1)))) {
+        message.fail(400, "invalid input syntax");
+      } else {
+        message.reply(new JsonArray());
+      }
+    });
+
+    var deployment = vertx.deployVerticle(new ResponseProcessor())
+        .toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+    try {
+      collect();
+      totals.clear();
+
+      // the batch is split down to the bad row; the polls whose last rows commit are committed with them
+      PollTrace.scheduled(4);
+      poll(FIRST_DEVICE, "CPU", "Memory");
+      poll(FIRST_DEVICE + 1, "CPU", "Memory");
+      poll(FIRST_DEVICE + 2, "CPU", "Memory");
+      poll(FIRST_DEVICE + 3, "CPU", "bad");
+
+      await("committed", 3);
+      await("missed", 1);
+
+      // a batch waiting out its retry delay is spilled on stop, and its polls leave the statistics as missed
+      databaseDown = true;
+      PollTrace.scheduled(2);
+      poll(FIRST_DEVICE + 4, "CPU");
+      poll(FIRST_DEVICE + 5, "CPU");
+
+      while (failedInserts.get() == 0) {
+        Thread.sleep(50);
+      }
+    } finally {
+      vertx.undeploy(deployment).toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+      database.unregister().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+      discardSpilled();
+
+      for (var device = FIRST_DEVICE; device < FIRST_DEVICE + 6; device++) {
+        DeviceHealth.forget(device);
+      }
+    }
+
+    collect();
+
+    assertEquals(6, totals.get("scheduled"));
+    assertEquals(3, totals.get("committed"));
+    assertEquals(3, totals.get("missed"));
+    assertEquals(totals.get("scheduled"), totals.get("committed") + totals.get("missed"));
+  }
+
+  private static void poll(long device, String... metrics) {
+    var data = new JsonObject();
+    for (var metric : metrics) {
+      data.put(metric, new JsonObject().put("usage", 1));
+    }
+
+    var now = System.nanoTime();
+
+    vertx.eventBus().send(STORAGE_RESULTS, new JsonObject()
+        .put(REQUEST_TYPE, POLLING)
+        .put(STATUS, SUCCESS)
+        .put(PROVISIONING_JOB_ID, device)
+        .put("data", data)
+        .put("timestamp", System.currentTimeMillis())
+        .put(TRACE, new JsonObject().put(TRACE_SCHEDULED, now).put(TRACE_RECEIVED, now)));
+  }
+
+  // Adds the counts of the current reporting window to the totals and starts a new window
+  private static void collect() {
+    var report = PollTrace.report();
+    for (var key : List.of("scheduled", "committed", "missed")) {
+      totals.merge(key, report.getLong(key), Long::sum);
+    }
+  }
+
+  private static void await(String key, long expected) throws InterruptedException {
+    var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+
+    while (totals.getOrDefault(key, 0L) < expected && System.nanoTime() < deadline) {
+      Thread.sleep(50);
+      collect();
+    }
+
+    assertEquals(expected, totals.getOrDefault(key, 0L), key);
+  }
+
+  // The spilled rows would otherwise be replayed by the next ResponseProcessor started from this directory
+  private static void discardSpilled() throws Exception {
+    var spillLog = new SpillLog(Path.of(SPILL_DIRECTORY), SPILL_SEGMENT_SIZE_BYTES);
+    spillLog.open();
+
+    while (!spillLog.isEmpty()) {
+      spillLog.commit();
+    }
+
+    spillLog.close();
+  }
+}
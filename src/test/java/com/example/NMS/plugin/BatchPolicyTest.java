@@ -0,0 +1,74 @@
+package com.example.NMS.plugin;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BatchPolicyTest {
+
+  // 25..2000 rows, 1 s linger, 250 ms SLO
+  private static BatchPolicy policy() {
+    return new BatchPolicy(25, 2_000, 1_000, 250);
+  }
+
+  // Feeds a steady arrival rate for the given number of one-second windows
+  private static void arrive(BatchPolicy policy, int rowsPerSecond, int seconds) {
+    for (var second = 0; second <= seconds; second++) {
+      policy.onArrival(rowsPerSecond, second * 1_000L);
+    }
+  }
+
+  @Test
+  void target_follows_the_arrival_rate_within_bounds() {
+    var idle = policy();
+    assertEquals(25, idle.targetSize());
+
+    var steady = policy();
+    arrive(steady, 800, 30);
+    assertEquals(800, steady.targetSize(), 1);
+
+    var flood = policy();
+    arrive(flood, 50_000, 30);
+    assertEquals(2_000, flood.targetSize());
+  }
+
+  @Test
+  void slow_batch_shrinks_the_ceiling_in_proportion() {
+    var policy = policy();
+    arrive(policy, 50_000, 30);
+
+    policy.onBatchCompleted(2_000, 1_000);
+    assertEquals(500, policy.targetSize());
+
+    // Never below the minimum size
+    policy.onBatchCompleted(500, 100_000);
+    assertEquals(25, policy.targetSize());
+  }
+
+  @Test
+  void fast_batch_of_half_the_ceiling_grows_it_by_a_tenth() {
+    var policy = policy();
+    arrive(policy, 50_000, 30);
+    policy.onBatchCompleted(2_000, 500);
+    assertEquals(1_000, policy.targetSize());
+
+    policy.onBatchCompleted(500, 100);
+    assertEquals(1_100, policy.targetSize());
+
+    // Up to the maximum size
+    for (var i = 0; i < 20; i++) {
+      policy.onBatchCompleted(2_000, 100);
+    }
+    assertEquals(2_000, policy.targetSize());
+  }
+
+  @Test
+  void fast_small_batch_leaves_the_ceiling_unchanged() {
+    var policy = policy();
+    arrive(policy, 50_000, 30);
+    policy.onBatchCompleted(2_000, 500);
+
+    policy.onBatchCompleted(499, 10);
+    assertEquals(1_000, policy.targetSize());
+  }
+}
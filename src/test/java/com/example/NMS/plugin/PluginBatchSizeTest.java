@@ -0,0 +1,99 @@
+package com.example.NMS.plugin;
+
+import io.vertx.core.DeploymentOptions;
+import io.vertx.core.ThreadingModel;
+import io.vertx.core.eventbus.DeliveryOptions;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.example.NMS.Main.vertx;
+import static com.example.NMS.constant.Constant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Polls a fixed set of targets through the plugin workers at several batch sizes, with a stub plugin in place of SSH,
+// and reports throughput and the dispatch-to-result latency of each target.
+// Run with: mvn test -Dtest.excludedGroups= -Dgroups=benchmark -Dtest=PluginBatchSizeTest [-Dnms.bench.targets=20000]
+@Tag("benchmark")
+public class PluginBatchSizeTest {
+
+  private static final int TARGETS_PER_RUN = Integer.getInteger("nms.bench.targets", 10_000);
+
+  private static final List<Integer> BATCH_SIZES = List.of(25, 100, 250, 1_000, 5_000);
+
+  @Test
+  void throughput_and_tail_latency_by_batch_size() throws Exception {
+    var stub = Files.createTempFile("stub-plugin", ".py");
+    try (var script = PluginBatchSizeTest.class.getResourceAsStream("/stub-plugin.py")) {
+      Files.copy(script, stub, StandardCopyOption.REPLACE_EXISTING);
+    }
+    assertTrue(stub.toFile().setExecutable(true));
+
+    var deployment = vertx.deployVerticle(() -> new Plugin(stub.toString()), new DeploymentOptions()
+            .setThreadingModel(ThreadingModel.WORKER).setInstances(PLUGIN_INSTANCES))
+        .toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+
+    try {
+      for (var batchSize : BATCH_SIZES) {
+        var latencies = new long[TARGETS_PER_RUN];
+        var received = new AtomicInteger();
+        var done = new CountDownLatch(1);
+
+        var storage = vertx.eventBus().<JsonObject>localConsumer(STORAGE_RESULTS, message -> {
+          var trace = message.body().getJsonObject(TRACE);
+          var index = received.getAndIncrement();
+
+          if (index < latencies.length) {
+            latencies[index] = trace.getLong(TRACE_RECEIVED) - trace.getLong(TRACE_DISPATCHED);
+          }
+          if (index + 1 == latencies.length) {
+            done.countDown();
+          }
+        });
+
+        var startedAt = System.nanoTime();
+
+        for (var first = 0; first < TARGETS_PER_RUN; first += batchSize) {
+          var targets = new JsonArray();
+          for (var id = first; id < Math.min(first + batchSize, TARGETS_PER_RUN); id++) {
+            targets.add(new JsonObject().put(PROVISIONING_JOB_ID, id).put(METRIC_NAME, "CPU"));
+          }
+
+          vertx.eventBus().send(PLUGIN_EXECUTE, new JsonObject().put(REQUEST_TYPE, "polling").put(TARGETS, targets),
+              new DeliveryOptions().addHeader(TRACE_DISPATCHED, Long.toString(System.nanoTime())));
+        }
+
+        var finished = done.await(5, TimeUnit.MINUTES);
+        var seconds = (System.nanoTime() - startedAt) / 1_000_000_000.0;
+
+        storage.unregister().toCompletionStage().toCompletableFuture().get(10, TimeUnit.SECONDS);
+
+        assertTrue(finished, "Received " + received.get() + " of " + TARGETS_PER_RUN + " results");
+
+        Arrays.sort(latencies);
+
+        System.out.printf("batch size %5d, %d plugin workers: %d targets in %.2f s, %.0f targets/s, "
+                + "latency p50 %.0f ms, p99 %.0f ms, max %.0f ms%n", batchSize, PLUGIN_INSTANCES, TARGETS_PER_RUN,
+            seconds, TARGETS_PER_RUN / seconds, percentileMs(latencies, 50), percentileMs(latencies, 99),
+            percentileMs(latencies, 100));
+      }
+    } finally {
+      vertx.undeploy(deployment).toCompletionStage().toCompletableFuture().get(30, TimeUnit.SECONDS);
+      Files.deleteIfExists(stub);
+    }
+  }
+
+  private static double percentileMs(long[] sorted, double percentile) {
+    var index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+  }
+}
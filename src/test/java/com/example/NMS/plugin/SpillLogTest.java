@@ -0,0 +1,107 @@
+package com.example.NMS.plugin;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SpillLogTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void replays_records_in_order_across_segments() throws Exception {
+    var log = new SpillLog(directory, 64);
+    log.open();
+
+    for (var i = 0; i < 10; i++) {
+      log.append(("batch-" + i).getBytes(StandardCharsets.UTF_8));
+    }
+
+    assertEquals(10, log.size());
+
+    for (var i = 0; i < 10; i++) {
+      assertEquals("batch-" + i, new String(log.peek(), StandardCharsets.UTF_8));
+      log.commit();
+    }
+
+    assertTrue(log.isEmpty());
+    assertNull(log.peek());
+
+    try (var files = Files.list(directory)) {
+      assertEquals(1, files.count());
+    }
+
+    log.close();
+  }
+
+  @Test
+  void recovers_only_uncommitted_records_after_reopen() throws Exception {
+    var log = new SpillLog(directory, 64);
+    log.open();
+
+    for (var i = 0; i < 6; i++) {
+      log.append(("batch-" + i).getBytes(StandardCharsets.UTF_8));
+    }
+
+    log.commit();
+    log.commit();
+    log.close();
+
+    var reopened = new SpillLog(directory, 64);
+    reopened.open();
+
+    assertEquals(4, reopened.size());
+    assertEquals("batch-2", new String(reopened.peek(), StandardCharsets.UTF_8));
+
+    reopened.append("batch-6".getBytes(StandardCharsets.UTF_8));
+
+    for (var i = 2; i <= 6; i++) {
+      assertEquals("batch-" + i, new String(reopened.peek(), StandardCharsets.UTF_8));
+      reopened.commit();
+    }
+
+    assertTrue(reopened.isEmpty());
+
+    reopened.close();
+  }
+
+  @Test
+  void refuses_records_past_its_maximum_size_until_segments_are_freed() throws Exception {
+    var log = new SpillLog(directory, 64, 128);
+    log.open();
+
+    // a 64-byte segment holds five of these records with their headers and the terminator
+    var appended = 0;
+    while (log.append(("batch-" + appended).getBytes(StandardCharsets.UTF_8))) {
+      appended++;
+    }
+
+    assertEquals(10, appended);
+    assertEquals(10, log.size());
+    assertFalse(log.append("late".getBytes(StandardCharsets.UTF_8)));
+
+    try (var files = Files.list(directory)) {
+      assertEquals(2, files.count());
+    }
+
+    // committing the first segment deletes it and makes room for another
+    for (var i = 0; i < 5; i++) {
+      log.commit();
+    }
+
+    assertTrue(log.append("batch-10".getBytes(StandardCharsets.UTF_8)));
+
+    for (var i = 5; i <= 10; i++) {
+      assertEquals("batch-" + i, new String(log.peek(), StandardCharsets.UTF_8));
+      log.commit();
+    }
+
+    log.close();
+  }
+}
@@ -0,0 +1,132 @@
+package com.example.NMS.polling;
+
+import com.example.NMS.cache.MetricCache;
+import com.example.NMS.cache.MetricJob;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static com.example.NMS.constant.Constant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AdaptiveIntervalTest {
+
+  private static final long DEVICE = 9_101;
+
+  private static final long METRIC = 9_102;
+
+  @AfterEach
+  void forget() {
+    MetricCache.getInstance().delete(DEVICE);
+    AdaptiveInterval.pollRate(0);
+  }
+
+  private static MetricJob job(Integer minInterval, Integer maxInterval) {
+    MetricCache.getInstance().insert(new JsonObject()
+      .put(METRIC_ID, METRIC)
+      .put(PROVISIONING_JOB_ID, DEVICE)
+      .put(METRIC_NAME, "CPU")
+      .put(IP, "10.9.1.1")
+      .put(PORT, 22)
+      .put(PROTOCOL, "ssh")
+      .put(CREDENTIAL_PROFILE_ID, 1L)
+      .put(CRED_DATA, new JsonObject().put(USER, "admin").put(PASSWORD, "secret"))
+      .put(POLLING_INTERVAL, 300)
+      .put(MIN_POLLING_INTERVAL, minInterval)
+      .put(MAX_POLLING_INTERVAL, maxInterval));
+
+    return MetricCache.getInstance().get(METRIC);
+  }
+
+  private static void observe(double... usages) {
+    for (var usage : usages) {
+      AdaptiveInterval.observe(DEVICE, new JsonObject().put("CPU", new JsonObject().put("usage", usage)));
+    }
+  }
+
+  @Test
+  void volatile_metric_is_polled_twice_as_often() {
+    var job = job(null, null);
+    observe(100, 200);
+
+    AdaptiveInterval.retune(job);
+
+    assertEquals(150, job.effectiveInterval());
+  }
+
+  @Test
+  void flat_metric_is_polled_half_again_as_rarely() {
+    var job = job(null, null);
+    observe(100, 100, 100);
+
+    AdaptiveInterval.retune(job);
+
+    assertEquals(450, job.effectiveInterval());
+  }
+
+  @Test
+  void metric_of_moderate_volatility_keeps_its_interval() {
+    var job = job(null, null);
+    observe(100, 110);
+
+    AdaptiveInterval.retune(job);
+
+    assertEquals(300, job.effectiveInterval());
+  }
+
+  @Test
+  void intervals_stay_within_the_default_bounds_in_whole_ticks() {
+    var job = job(null, null);
+    observe(100, 200);
+
+    for (var i = 0; i < 5; i++) {
+      AdaptiveInterval.retune(job);
+      assertEquals(0, job.effectiveInterval() % TIMER_INTERVAL_SECONDS);
+    }
+    // a quarter of 300 s is 75 s, rounded to the nearest tick
+    assertEquals(80, job.effectiveInterval());
+
+    // the smoothed change decays by half with each flat sample
+    observe(200, 200, 200, 200, 200, 200, 200, 200);
+    for (var i = 0; i < 10; i++) {
+      AdaptiveInterval.retune(job);
+      assertEquals(0, job.effectiveInterval() % TIMER_INTERVAL_SECONDS);
+    }
+    assertEquals(1_200, job.effectiveInterval());
+  }
+
+  @Test
+  void intervals_stay_within_the_configured_bounds() {
+    var job = job(60, 600);
+    observe(100, 200);
+
+    for (var i = 0; i < 5; i++) {
+      AdaptiveInterval.retune(job);
+    }
+    assertEquals(60, job.effectiveInterval());
+
+    // the smoothed change decays by half with each flat sample
+    observe(200, 200, 200, 200, 200, 200, 200, 200);
+    for (var i = 0; i < 10; i++) {
+      AdaptiveInterval.retune(job);
+    }
+    assertEquals(600, job.effectiveInterval());
+  }
+
+  @Test
+  void shortening_is_refused_once_the_poll_budget_is_spent() {
+    var job = job(null, null);
+    observe(100, 200);
+    AdaptiveInterval.pollRate(POLL_BUDGET_PER_SECOND);
+
+    AdaptiveInterval.retune(job);
+
+    assertEquals(300, job.effectiveInterval());
+
+    // lengthening frees budget and is always allowed
+    observe(200, 200, 200, 200, 200, 200, 200, 200);
+    AdaptiveInterval.retune(job);
+
+    assertEquals(450, job.effectiveInterval());
+  }
+}
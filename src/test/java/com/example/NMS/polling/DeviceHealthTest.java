@@ -0,0 +1,110 @@
+package com.example.NMS.polling;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static com.example.NMS.constant.Constant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DeviceHealthTest {
+
+  private static final long DEVICE = 9_001;
+
+  private static final long TICK_MS = TIMER_INTERVAL_SECONDS * 1000L;
+
+  private static final long START = 1_700_000_000_000L;
+
+  @AfterEach
+  void forget() {
+    DeviceHealth.forget(DEVICE);
+  }
+
+  @Test
+  void opens_after_the_threshold_of_failed_rounds() {
+    for (var round = 0; round < BREAKER_FAILURE_THRESHOLD - 1; round++) {
+      DeviceHealth.failure(DEVICE, "unreachable", START + round * TICK_MS);
+      assertTrue(DeviceHealth.allow(DEVICE, START + round * TICK_MS + 1));
+    }
+    assertEquals("CLOSED", state());
+
+    var openedAt = START + (BREAKER_FAILURE_THRESHOLD - 1) * TICK_MS;
+    DeviceHealth.failure(DEVICE, "unreachable", openedAt);
+
+    assertEquals("OPEN", state());
+    assertEquals(BREAKER_BASE_BACKOFF_SECONDS, DeviceHealth.state(DEVICE).getLong("backoff_seconds"));
+    assertFalse(DeviceHealth.allow(DEVICE, openedAt + BREAKER_BASE_BACKOFF_SECONDS * 1000 - 1));
+  }
+
+  @Test
+  void failures_within_one_tick_count_as_one_round() {
+    for (var metric = 0; metric < BREAKER_FAILURE_THRESHOLD * 2; metric++) {
+      DeviceHealth.failure(DEVICE, "bad credentials", START + metric * (TICK_MS - 1) / (BREAKER_FAILURE_THRESHOLD * 2));
+    }
+
+    assertEquals("CLOSED", state());
+    assertEquals(1, DeviceHealth.state(DEVICE).getInteger("consecutive_failures"));
+    assertEquals("bad credentials", DeviceHealth.state(DEVICE).getString("last_error"));
+  }
+
+  @Test
+  void backoff_doubles_on_each_failed_probe_up_to_the_cap() {
+    var now = open();
+    var expected = BREAKER_BASE_BACKOFF_SECONDS;
+
+    for (var probe = 0; probe < 10; probe++) {
+      assertEquals(expected, DeviceHealth.state(DEVICE).getLong("backoff_seconds"));
+
+      now = DeviceHealth.state(DEVICE).getLong("retry_at");
+      assertTrue(DeviceHealth.allow(DEVICE, now));
+      DeviceHealth.failure(DEVICE, "unreachable", now);
+
+      expected = Math.min(expected * 2, BREAKER_MAX_BACKOFF_SECONDS);
+    }
+
+    assertEquals(BREAKER_MAX_BACKOFF_SECONDS, DeviceHealth.state(DEVICE).getLong("backoff_seconds"));
+    assertEquals(now + BREAKER_MAX_BACKOFF_SECONDS * 1000, DeviceHealth.state(DEVICE).getLong("retry_at"));
+  }
+
+  @Test
+  void half_open_lets_a_single_probe_through_and_success_closes() {
+    open();
+    var retryAt = DeviceHealth.state(DEVICE).getLong("retry_at");
+
+    assertTrue(DeviceHealth.allow(DEVICE, retryAt));
+    assertEquals("HALF_OPEN", state());
+    assertFalse(DeviceHealth.allow(DEVICE, retryAt));
+    assertFalse(DeviceHealth.allow(DEVICE, retryAt + TICK_MS));
+
+    DeviceHealth.success(DEVICE);
+
+    assertEquals("CLOSED", state());
+    assertEquals(0, DeviceHealth.state(DEVICE).getInteger("consecutive_failures"));
+    assertTrue(DeviceHealth.allow(DEVICE, retryAt + TICK_MS));
+  }
+
+  @Test
+  void probe_without_a_result_is_retried_after_the_probe_timeout() {
+    open();
+    var probedAt = DeviceHealth.state(DEVICE).getLong("retry_at");
+
+    assertTrue(DeviceHealth.allow(DEVICE, probedAt));
+    assertFalse(DeviceHealth.allow(DEVICE, probedAt + BREAKER_PROBE_TIMEOUT_MS - 1));
+    assertTrue(DeviceHealth.allow(DEVICE, probedAt + BREAKER_PROBE_TIMEOUT_MS));
+    assertFalse(DeviceHealth.allow(DEVICE, probedAt + BREAKER_PROBE_TIMEOUT_MS + 1));
+  }
+
+  // Fails the threshold of rounds, one per tick, and returns the time the breaker opened
+  private static long open() {
+    var now = START;
+    for (var round = 0; round < BREAKER_FAILURE_THRESHOLD; round++) {
+      now = START + round * TICK_MS;
+      DeviceHealth.failure(DEVICE, "unreachable", now);
+    }
+    assertEquals("OPEN", state());
+    return now;
+  }
+
+  private static String state() {
+    return DeviceHealth.state(DEVICE).getString(STATE);
+  }
+}
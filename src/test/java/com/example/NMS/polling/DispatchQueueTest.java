@@ -0,0 +1,63 @@
+package com.example.NMS.polling;
+
+import com.example.NMS.cache.MetricJob;
+import com.example.NMS.cache.MetricJob.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DispatchQueueTest {
+
+  private static final MetricJob.Device DEVICE = new MetricJob.Device(1, "10.0.0.1", 22, "LINUX");
+
+  private static final MetricJob.Credential CREDENTIAL = new MetricJob.Credential(1, "admin", "secret");
+
+  private static MetricJob job(long metricId, Priority priority, int interval) {
+    return new MetricJob(metricId, "CPU", interval, 0, 0, priority, interval, DEVICE, CREDENTIAL);
+  }
+
+  @Test
+  void serves_higher_classes_first_and_sends_in_deadline_order() {
+    var queue = new DispatchQueue(2);
+    var low = job(1, Priority.LOW, 10);
+    var slowHigh = job(2, Priority.HIGH, 300);
+    var fastNormal = job(3, Priority.NORMAL, 60);
+
+    var batch = queue.next(List.of(low, slowHigh, fastNormal));
+
+    assertEquals(List.of(fastNormal, slowHigh), batch);
+    assertEquals(1, queue.size());
+  }
+
+  @Test
+  void sheds_waiting_polls_at_their_deadline() {
+    var queue = new DispatchQueue(1);
+    var high = job(1, Priority.HIGH, 10);
+    var low = job(2, Priority.LOW, 10);
+    var shedBefore = DispatchQueue.shed().getLong("low");
+
+    assertEquals(List.of(high), queue.next(List.of(high, low)));
+    assertEquals(List.of(high), queue.next(List.of(high)));
+
+    assertEquals(shedBefore + 1, DispatchQueue.shed().getLong("low"));
+    assertEquals(0, queue.size());
+  }
+
+  @Test
+  void dispatches_every_due_poll_without_a_capacity() {
+    var queue = new DispatchQueue(0);
+    var shedBefore = DispatchQueue.shed();
+    var due = new ArrayList<MetricJob>();
+
+    for (var i = 0; i < 5_000; i++) {
+      due.add(job(100 + i, i % 2 == 0 ? Priority.LOW : Priority.NORMAL, 10));
+    }
+
+    assertEquals(5_000, queue.next(due).size());
+    assertEquals(0, queue.size());
+    assertEquals(shedBefore, DispatchQueue.shed());
+  }
+}
@@ -0,0 +1,51 @@
+package com.example.NMS.polling;
+
+import com.example.NMS.cache.MetricJob;
+import com.example.NMS.cache.MetricJob.Priority;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class PollBatcherTest {
+
+  private static final MetricJob.Credential CREDENTIAL = new MetricJob.Credential(1, "admin", "secret");
+
+  private static List<MetricJob> jobs(String ip, long provisioningJobId, int count) {
+    var device = new MetricJob.Device(provisioningJobId, ip, 22, "LINUX");
+    var jobs = new ArrayList<MetricJob>();
+    for (var i = 0; i < count; i++) {
+      jobs.add(new MetricJob(provisioningJobId * 100 + i, "CPU", 60, 0, 0, Priority.NORMAL, 60, device, CREDENTIAL));
+    }
+    return jobs;
+  }
+
+  @Test
+  void keeps_a_hosts_metrics_in_one_batch() {
+    var due = new ArrayList<MetricJob>();
+    due.addAll(jobs("10.0.0.1", 1, 3));
+    due.addAll(jobs("10.0.0.2", 2, 3));
+    due.addAll(jobs("10.0.0.3", 3, 3));
+
+    var batches = PollBatcher.split(due, 4, 0);
+
+    assertEquals(3, batches.size());
+    batches.forEach(batch -> assertEquals(1, batch.stream().map(MetricJob::ip).distinct().count()));
+  }
+
+  @Test
+  void groups_devices_by_subnet() {
+    var due = new ArrayList<MetricJob>();
+    due.addAll(jobs("10.0.1.1", 1, 2));
+    due.addAll(jobs("10.0.2.1", 2, 2));
+    due.addAll(jobs("10.0.1.2", 3, 2));
+
+    var batches = PollBatcher.split(due, 4, 24);
+
+    assertEquals(2, batches.size());
+    assertEquals(List.of("10.0.1.1", "10.0.1.2"), batches.get(0).stream().map(MetricJob::ip).distinct().toList());
+    assertEquals("10.0.1.0/24", PollBatcher.subnet("10.0.1.77", 24));
+  }
+}
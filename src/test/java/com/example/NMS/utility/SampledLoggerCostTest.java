@@ -0,0 +1,107 @@
+package com.example.NMS.utility;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.OutputStreamAppender;
+import com.sun.management.ThreadMXBean;
+import io.vertx.core.json.JsonArray;
+import io.vertx.core.json.JsonObject;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+
+import static com.example.NMS.constant.Constant.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+// Per-event cost of the plugin request log line before and after SampledLogger, written through the production
+// pattern to a discarding appender so only formatting, serialization and encoding are measured.
+// Run with: mvn test -Dtest.excludedGroups= -Dgroups=benchmark -Dtest=SampledLoggerCostTest
+@Tag("benchmark")
+public class SampledLoggerCostTest {
+
+  private static final int EVENTS = Integer.getInteger("nms.bench.events", 20_000);
+
+  private static final int TARGET_COUNT = 250;
+
+  @Test
+  void plugin_request_log_cost_per_event() {
+    var logger = discardingLogger();
+    var sampled = SampledLogger.of(logger, 10);
+
+    var targets = new JsonArray();
+    for (var i = 0; i < TARGET_COUNT; i++) {
+      targets.add(new JsonObject().put(IP_ADDRESS, "10.0.0." + i % 256).put(PORT, 22).put(USER, "admin")
+          .put(PASSWORD, "secret").put(PROVISIONING_JOB_ID, i).put(METRIC_NAME, "CPU").put(PROTOCOL, "ssh"));
+    }
+    var request = new JsonObject().put(REQUEST_TYPE, "polling").put(TARGETS, targets);
+
+    Runnable before = () -> logger.info("Received plugin execution request: {}", request.encodePrettily());
+
+    Runnable fields = () -> logger.atInfo().setMessage("Received plugin execution request")
+        .addKeyValue(REQUEST_TYPE, request.getString(REQUEST_TYPE))
+        .addKeyValue(TARGETS, request.getJsonArray(TARGETS, new JsonArray()).size())
+        .log();
+
+    Runnable after = () -> sampled.atInfo().setMessage("Received plugin execution request")
+        .addKeyValue(REQUEST_TYPE, request.getString(REQUEST_TYPE))
+        .addKeyValue(TARGETS, request.getJsonArray(TARGETS, new JsonArray()).size())
+        .log();
+
+    var beforeCost = measure("before: pretty-printed request at INFO", before);
+    measure("fields only, unsampled", fields);
+    var afterCost = measure("after: fields, sampled at 10/s", after);
+
+    assertTrue(afterCost < beforeCost);
+  }
+
+  // Returns nanoseconds per event after a warmup pass
+  private static double measure(String label, Runnable event) {
+    for (var i = 0; i < EVENTS; i++) {
+      event.run();
+    }
+
+    var threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+    var thread = Thread.currentThread().getId();
+    var allocatedBefore = threads.getThreadAllocatedBytes(thread);
+    var startedAt = System.nanoTime();
+
+    for (var i = 0; i < EVENTS; i++) {
+      event.run();
+    }
+
+    var nanos = (double) (System.nanoTime() - startedAt) / EVENTS;
+    var bytes = (double) (threads.getThreadAllocatedBytes(thread) - allocatedBefore) / EVENTS;
+
+    System.out.printf("%-40s %10.0f ns/event %12.0f bytes allocated/event%n", label, nanos, bytes);
+
+    return nanos;
+  }
+
+  private static Logger discardingLogger() {
+    var context = (LoggerContext) LoggerFactory.getILoggerFactory();
+
+    var encoder = new PatternLayoutEncoder();
+    encoder.setContext(context);
+    encoder.setPattern("%d{HH:mm:ss.SSS} [%thread] %-5level %logger{1} - %msg %kvp%n");
+    encoder.start();
+
+    var appender = new OutputStreamAppender<ILoggingEvent>();
+    appender.setContext(context);
+    appender.setEncoder(encoder);
+    appender.setOutputStream(OutputStream.nullOutputStream());
+    appender.start();
+
+    var logger = context.getLogger(SampledLoggerCostTest.class.getName() + ".discarded");
+    logger.setAdditive(false);
+    logger.setLevel(Level.INFO);
+    logger.addAppender(appender);
+
+    return logger;
+  }
+}
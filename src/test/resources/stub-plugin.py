@@ -0,0 +1,31 @@
+#!/usr/bin/env python3
+# Stand-in for the SSH plugin in batch size benchmarks. Speaks the plugin protocol: one base64 JSON request on stdin,
+# one base64 JSON result per target on stdout. Targets are polled in waves of STUB_PARALLEL, each taking
+# STUB_TARGET_MS, and a wave's results are written as it completes, as the real plugin's concurrent SSH sessions do.
+import base64
+import json
+import os
+import sys
+import time
+
+TARGET_MS = int(os.environ.get("STUB_TARGET_MS", "20"))
+PARALLEL = int(os.environ.get("STUB_PARALLEL", "50"))
+
+request = json.loads(base64.b64decode(sys.stdin.readline()))
+targets = request.get("targets", [])
+
+for start in range(0, len(targets), PARALLEL):
+    time.sleep(TARGET_MS / 1000)
+
+    lines = []
+    for target in targets[start:start + PARALLEL]:
+        result = {
+            "provisioning_job_id": target.get("provisioning_job_id"),
+            "metric_name": target.get("metric_name"),
+            "status": "success",
+            "data": {"usage": 1},
+        }
+        lines.append(base64.b64encode(json.dumps(result).encode()).decode())
+
+    sys.stdout.write("\n".join(lines) + "\n")
+    sys.stdout.flush()